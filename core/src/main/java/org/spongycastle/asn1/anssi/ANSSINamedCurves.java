@@ -9,6 +9,7 @@
 import org.spongycastle.asn1.x9.X9ECParametersHolder;
 import org.spongycastle.asn1.x9.X9ECPoint;
 import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.MontFpCurve;
 import org.spongycastle.util.Strings;
 import org.spongycastle.util.encoders.Hex;
 
@@ -42,7 +43,7 @@ protected X9ECParameters createParameters()
             BigInteger n = fromHex("F1FD178C0B3AD58F10126DE8CE42435B53DC67E140D2BF941FFDD459C6D655E1");
             BigInteger h = BigInteger.valueOf(1);
 
-            ECCurve curve = configureCurve(new ECCurve.Fp(p, a, b, n, h));
+            ECCurve curve = configureCurve(new MontFpCurve(p, a, b, n, h));
             X9ECPoint G = new X9ECPoint(curve, Hex.decode("04"
                 + "B6B3D4C356C139EB31183D4749D423958C27D2DCAF98B70164C97A2DD98F5CFF"
                 + "6142E0F7C8B204911F9271F0F3ECEF8C2701C307E8E4C9E183115A1554062CFB"));
@@ -0,0 +1,241 @@
+package org.spongycastle.crypto.engines;
+
+import org.spongycastle.util.Pack;
+
+/**
+ * Implementation of Daniel J. Bernstein's ChaCha stream cipher, as specified in RFC 7539: a
+ * 256 bit key, a 96 bit nonce and a 32 bit block counter.
+ * <p>
+ * Runs of whole blocks are processed four at a time: the four states are laid out
+ * word-interleaved so every step of the round function is applied to four blocks in the same
+ * loop, and the resulting 256 bytes of key stream are XORed into the output in a single flat loop
+ * (which the JIT compiler is free to vectorise).
+ * </p>
+ */
+public class ChaCha7539Engine
+    extends Salsa20Engine
+{
+    private static final int LANES = 4;
+
+    private final int[] lanes = new int[16 * LANES];
+    private final byte[] blockStream = new byte[64 * LANES];
+
+    /**
+     * Creates a 20 rounds ChaCha engine.
+     */
+    public ChaCha7539Engine()
+    {
+        super();
+    }
+
+    public String getAlgorithmName()
+    {
+        return "ChaCha7539-" + rounds;
+    }
+
+    protected int getNonceSize()
+    {
+        return 12;
+    }
+
+    protected void advanceCounter(long diff)
+    {
+        int hi = (int)(diff >>> 32);
+        int lo = (int)diff;
+
+        if (hi > 0)
+        {
+            throw new IllegalStateException("attempt to increase counter past 2^32.");
+        }
+
+        int oldState = engineState[12];
+
+        engineState[12] += lo;
+
+        if (oldState != 0 && (engineState[12] & 0xffffffffL) < (oldState & 0xffffffffL))
+        {
+            throw new IllegalStateException("attempt to increase counter past 2^32.");
+        }
+    }
+
+    protected void advanceCounter()
+    {
+        if (++engineState[12] == 0)
+        {
+            throw new IllegalStateException("attempt to increase counter past 2^32.");
+        }
+    }
+
+    protected void retreatCounter(long diff)
+    {
+        int hi = (int)(diff >>> 32);
+        int lo = (int)diff;
+
+        if (hi != 0)
+        {
+            throw new IllegalStateException("attempt to reduce counter past zero.");
+        }
+
+        if ((engineState[12] & 0xffffffffL) >= (lo & 0xffffffffL))
+        {
+            engineState[12] -= lo;
+        }
+        else
+        {
+            throw new IllegalStateException("attempt to reduce counter past zero.");
+        }
+    }
+
+    protected void retreatCounter()
+    {
+        if (engineState[12] == 0)
+        {
+            throw new IllegalStateException("attempt to reduce counter past zero.");
+        }
+
+        --engineState[12];
+    }
+
+    protected long getCounter()
+    {
+        return engineState[12] & 0xffffffffL;
+    }
+
+    protected void resetCounter()
+    {
+        engineState[12] = 0;
+    }
+
+    protected void setKey(byte[] keyBytes, byte[] ivBytes)
+    {
+        if (keyBytes != null)
+        {
+            if (keyBytes.length != 32)
+            {
+                throw new IllegalArgumentException(getAlgorithmName() + " requires 256 bit key");
+            }
+
+            Pack.littleEndianToInt(sigma, 0, engineState, 0, 4);
+            Pack.littleEndianToInt(keyBytes, 0, engineState, 4, 8);
+        }
+
+        // IV
+        Pack.littleEndianToInt(ivBytes, 0, engineState, 13, 3);
+    }
+
+    protected void generateKeyStream(byte[] output)
+    {
+        ChaChaEngine.chachaCore(rounds, engineState, x);
+        Pack.intToLittleEndian(x, output, 0);
+    }
+
+    protected void processBlocks(byte[] keyStream, byte[] in, int inOff, int blocks, byte[] out, int outOff)
+    {
+        // the block for the current counter has already been generated
+        for (int j = 0; j < 64; ++j)
+        {
+            out[outOff + j] = (byte)(keyStream[j] ^ in[inOff + j]);
+        }
+        advanceCounter();
+        inOff += 64;
+        outOff += 64;
+        --blocks;
+
+        while (blocks >= LANES)
+        {
+            chachaCore4(rounds, engineState, lanes);
+
+            for (int lane = 0; lane < LANES; ++lane)
+            {
+                for (int w = 0; w < 16; ++w)
+                {
+                    Pack.intToLittleEndian(lanes[w * LANES + lane], blockStream, lane * 64 + w * 4);
+                }
+                advanceCounter();
+            }
+
+            for (int j = 0; j < blockStream.length; ++j)
+            {
+                out[outOff + j] = (byte)(blockStream[j] ^ in[inOff + j]);
+            }
+
+            inOff += blockStream.length;
+            outOff += blockStream.length;
+            blocks -= LANES;
+        }
+
+        while (blocks > 0)
+        {
+            generateKeyStream(blockStream);
+
+            for (int j = 0; j < 64; ++j)
+            {
+                out[outOff + j] = (byte)(blockStream[j] ^ in[inOff + j]);
+            }
+
+            advanceCounter();
+            inOff += 64;
+            outOff += 64;
+            --blocks;
+        }
+
+        generateKeyStream(keyStream);
+    }
+
+    /**
+     * ChaCha function applied to four consecutive counter values at once.
+     *
+     * @param rounds the number of rounds.
+     * @param input the state for the first of the four blocks.
+     * @param x output buffer; word i of block j is stored at index (i * 4 + j).
+     */
+    static void chachaCore4(int rounds, int[] input, int[] x)
+    {
+        for (int i = 0; i < 16; ++i)
+        {
+            int v = input[i], o = i * LANES;
+            x[o] = v; x[o + 1] = v; x[o + 2] = v; x[o + 3] = v;
+        }
+        x[48 + 1] += 1;
+        x[48 + 2] += 2;
+        x[48 + 3] += 3;
+
+        for (int i = rounds; i > 0; i -= 2)
+        {
+            quarterRound4(x, 0, 4, 8, 12);
+            quarterRound4(x, 1, 5, 9, 13);
+            quarterRound4(x, 2, 6, 10, 14);
+            quarterRound4(x, 3, 7, 11, 15);
+            quarterRound4(x, 0, 5, 10, 15);
+            quarterRound4(x, 1, 6, 11, 12);
+            quarterRound4(x, 2, 7, 8, 13);
+            quarterRound4(x, 3, 4, 9, 14);
+        }
+
+        for (int i = 0; i < 16; ++i)
+        {
+            int v = input[i], o = i * LANES;
+            x[o] += v; x[o + 1] += v; x[o + 2] += v; x[o + 3] += v;
+        }
+        x[48 + 1] += 1;
+        x[48 + 2] += 2;
+        x[48 + 3] += 3;
+    }
+
+    private static void quarterRound4(int[] x, int a, int b, int c, int d)
+    {
+        a *= LANES; b *= LANES; c *= LANES; d *= LANES;
+
+        for (int lane = 0; lane < LANES; ++lane)
+        {
+            int xa = x[a + lane], xb = x[b + lane], xc = x[c + lane], xd = x[d + lane];
+
+            xa += xb; xd = rotl(xd ^ xa, 16);
+            xc += xd; xb = rotl(xb ^ xc, 12);
+            xa += xb; xd = rotl(xd ^ xa, 8);
+            xc += xd; xb = rotl(xb ^ xc, 7);
+
+            x[a + lane] = xa; x[b + lane] = xb; x[c + lane] = xc; x[d + lane] = xd;
+        }
+    }
+}
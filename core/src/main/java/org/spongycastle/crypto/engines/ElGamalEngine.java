@@ -185,8 +185,7 @@ public byte[] processBlock(
                 k = new BigInteger(pBitLength, random);
             }
 
-            BigInteger  g = key.getParameters().getG();
-            BigInteger  gamma = g.modPow(k, p);
+            BigInteger  gamma = key.getParameters().modPowG(k);
             BigInteger  phi = input.multiply(pub.getY().modPow(k, p)).mod(p);
 
             byte[]  out1 = gamma.toByteArray();
@@ -257,7 +257,10 @@ public int processBytes(
             throw new MaxBytesExceededException("2^70 byte limit per IV would be exceeded; Change IV");
         }
 
-        for (int i = 0; i < len; i++)
+        int i = 0;
+
+        // use up any partially consumed key stream block first
+        while (index != 0 && i < len)
         {
             out[i + outOff] = (byte)(keyStream[index] ^ in[i + inOff]);
             index = (index + 1) & 63;
@@ -267,11 +270,57 @@ public int processBytes(
                 advanceCounter();
                 generateKeyStream(keyStream);
             }
+            ++i;
+        }
+
+        int blocks = (len - i) >>> 6;
+        if (blocks > 0)
+        {
+            processBlocks(keyStream, in, inOff + i, blocks, out, outOff + i);
+            i += blocks << 6;
+        }
+
+        while (i < len)
+        {
+            out[i + outOff] = (byte)(keyStream[index] ^ in[i + inOff]);
+            ++index;
+            ++i;
         }
 
         return len;
     }
 
+    /**
+     * Process a run of whole 64 byte blocks.
+     * <p>
+     * On entry keyStream holds the key stream block for the current counter value; on exit the
+     * counter must have been advanced past the last block processed and keyStream must hold the
+     * key stream block for the new counter value.
+     * </p>
+     * @param keyStream the key stream buffer.
+     * @param in input data.
+     * @param inOff offset of the first block in the input.
+     * @param blocks the number of 64 byte blocks to process.
+     * @param out output buffer.
+     * @param outOff offset of the first block in the output.
+     */
+    protected void processBlocks(byte[] keyStream, byte[] in, int inOff, int blocks, byte[] out, int outOff)
+    {
+        for (int b = 0; b < blocks; ++b)
+        {
+            for (int j = 0; j < 64; ++j)
+            {
+                out[outOff + j] = (byte)(keyStream[j] ^ in[inOff + j]);
+            }
+
+            advanceCounter();
+            generateKeyStream(keyStream);
+
+            inOff += 64;
+            outOff += 64;
+        }
+    }
+
     public long skip(long numberOfBytes)
     {
         if (numberOfBytes >= 0)
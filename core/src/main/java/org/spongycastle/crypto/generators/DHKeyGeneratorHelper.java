@@ -62,6 +62,6 @@ BigInteger calculatePrivate(DHParameters dhParams, SecureRandom random)
 
     BigInteger calculatePublic(DHParameters dhParams, BigInteger x)
     {
-        return dhParams.getG().modPow(x, dhParams.getP());
+        return dhParams.modPowG(x);
     }
 }
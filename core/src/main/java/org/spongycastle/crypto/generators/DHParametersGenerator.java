@@ -4,6 +4,7 @@
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.concurrent.Executor;
 
 public class DHParametersGenerator
 {
@@ -11,8 +12,51 @@
     private int             certainty;
     private SecureRandom    random;
 
+    private final Executor  executor;
+    private final int       parallelism;
+
     private static final BigInteger TWO = BigInteger.valueOf(2);
 
+    public DHParametersGenerator()
+    {
+        this.executor = null;
+        this.parallelism = 1;
+    }
+
+    /**
+     * Create a generator that searches for the safe prime with a sieve over runs of candidates,
+     * from a task on the calling thread plus one on the passed in executor for each further
+     * available processor.
+     *
+     * @param executor the executor to run the extra search tasks on.
+     */
+    public DHParametersGenerator(Executor executor)
+    {
+        this(executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a generator that searches for the safe prime with a sieve over runs of candidates,
+     * from a task on the calling thread plus parallelism - 1 tasks on the passed in executor.
+     *
+     * @param executor the executor to run the extra search tasks on.
+     * @param parallelism the total number of search tasks to run.
+     */
+    public DHParametersGenerator(Executor executor, int parallelism)
+    {
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("'executor' cannot be null");
+        }
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("'parallelism' must be > 0");
+        }
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
     /**
      * Initialise the parameters generator.
      * 
@@ -41,7 +85,9 @@ public DHParameters generateParameters()
         //
         // find a safe prime p where p = 2*q + 1, where p and q are prime.
         //
-        BigInteger[] safePrimes = DHParametersHelper.generateSafePrimes(size, certainty, random);
+        BigInteger[] safePrimes = (executor == null)
+            ?   DHParametersHelper.generateSafePrimes(size, certainty, random)
+            :   DHParametersHelper.generateSafePrimes(size, certainty, random, executor, parallelism);
 
         BigInteger p = safePrimes[0];
         BigInteger q = safePrimes[1];
@@ -2,7 +2,10 @@
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.concurrent.Executor;
 
+import org.spongycastle.math.PrimeSieve;
+import org.spongycastle.math.Primes;
 import org.spongycastle.math.ec.WNafUtil;
 import org.spongycastle.util.BigIntegers;
 
@@ -56,6 +59,64 @@ static BigInteger[] generateSafePrimes(int size, int certainty, SecureRandom ran
         return new BigInteger[] { p, q };
     }
 
+    /*
+     * Finds a pair of prime BigInteger's {p, q: p = 2q + 1} by sieving runs of candidates for q,
+     * removing those where q or 2q + 1 has a small factor, on the calling thread and on
+     * parallelism - 1 tasks on the executor (if one is passed in).
+     */
+    static BigInteger[] generateSafePrimes(int size, final int certainty, final SecureRandom random,
+        Executor executor, int parallelism)
+    {
+        final int qLength = size - 1;
+        final int minWeight = size >>> 2;
+
+        if (qLength <= 32)
+        {
+            return generateSafePrimes(size, certainty, random);
+        }
+
+        final BigInteger limit = ONE.shiftLeft(qLength);
+        final int runLength = Math.max(4 * size, 1024);
+
+        PrimeSearch search = new PrimeSearch(0)
+        {
+            protected PrimeSieve createSieve()
+            {
+                BigInteger start = new BigInteger(qLength, random).setBit(qLength - 1).setBit(0);
+                int count = limit.subtract(start).add(ONE).shiftRight(1).min(BigInteger.valueOf(runLength)).intValue();
+
+                return new PrimeSieve(start, count, true);
+            }
+
+            protected boolean isAcceptable(BigInteger q)
+            {
+                // a single base first, as almost all sieve survivors fail here
+                if (!Primes.isMRProbablePrimeToBase(q, TWO))
+                {
+                    return false;
+                }
+
+                BigInteger p = q.shiftLeft(1).add(ONE);
+
+                if (!p.isProbablePrime(certainty))
+                {
+                    return false;
+                }
+
+                if (certainty > 2 && !q.isProbablePrime(certainty - 2))
+                {
+                    return false;
+                }
+
+                return WNafUtil.getNafWeight(p) >= minWeight;
+            }
+        };
+
+        BigInteger q = search.run(executor, parallelism);
+
+        return new BigInteger[] { q.shiftLeft(1).add(ONE), q };
+    }
+
     /*
      * Select a high order element of the multiplicative group Zp*
      * 
@@ -37,7 +37,7 @@ public AsymmetricCipherKeyPair generateKeyPair()
         DSAParameters dsaParams = param.getParameters();
 
         BigInteger x = generatePrivateKey(dsaParams.getQ(), param.getRandom());
-        BigInteger y = calculatePublicKey(dsaParams.getP(), dsaParams.getG(), x);
+        BigInteger y = calculatePublicKey(dsaParams, x);
 
         return new AsymmetricCipherKeyPair(
             new DSAPublicKeyParameters(y, dsaParams),
@@ -62,8 +62,8 @@ private static BigInteger generatePrivateKey(BigInteger q, SecureRandom random)
         }
     }
 
-    private static BigInteger calculatePublicKey(BigInteger p, BigInteger g, BigInteger x)
+    private static BigInteger calculatePublicKey(DSAParameters params, BigInteger x)
     {
-        return g.modPow(x, p);
+        return params.modPowG(x);
     }
 }
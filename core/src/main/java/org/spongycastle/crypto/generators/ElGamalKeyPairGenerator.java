@@ -35,7 +35,7 @@ public AsymmetricCipherKeyPair generateKeyPair()
         DHParameters dhp = new DHParameters(egp.getP(), egp.getG(), null, egp.getL());  
 
         BigInteger x = helper.calculatePrivate(dhp, param.getRandom()); 
-        BigInteger y = helper.calculatePublic(dhp, x);
+        BigInteger y = egp.modPowG(x);
 
         return new AsymmetricCipherKeyPair(
             new ElGamalPublicKeyParameters(y, egp),
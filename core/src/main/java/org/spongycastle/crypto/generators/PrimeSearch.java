@@ -0,0 +1,167 @@
+package org.spongycastle.crypto.generators;
+
+import java.math.BigInteger;
+import java.util.Vector;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.spongycastle.math.PrimeSieve;
+
+/**
+ * An incremental prime search over sieved runs of odd numbers, optionally spread over several
+ * tasks. Each task sieves a run from its own random starting point and tests the survivors with
+ * {@link #isAcceptable(BigInteger)}. The first candidate accepted by any task is the result, at
+ * which point the other tasks stop at their next candidate.
+ */
+abstract class PrimeSearch
+{
+    private final int maxCandidates;
+
+    private int candidates = 0;
+    private volatile boolean done = false;
+    private BigInteger result = null;
+    private RuntimeException failure = null;
+
+    /**
+     * @param maxCandidates the number of odd numbers, sieved out or tested, to pass over across
+     *            all tasks before giving up; 0 for no limit.
+     */
+    PrimeSearch(int maxCandidates)
+    {
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Return a sieve over a new run of candidates, from a random starting point.
+     */
+    protected abstract PrimeSieve createSieve();
+
+    /**
+     * Return true if the candidate, which has survived the sieve, is prime and meets any other
+     * conditions of the search.
+     */
+    protected abstract boolean isAcceptable(BigInteger candidate);
+
+    /**
+     * Return the exception to throw when the search passes maxCandidates without a result.
+     */
+    protected RuntimeException createLimitException()
+    {
+        return new IllegalStateException("unable to generate prime number");
+    }
+
+    /**
+     * Run the search, on the calling thread and on parallelism - 1 tasks on the executor if one is
+     * passed in.
+     *
+     * @param executor the executor to run the extra tasks on, null to search on the calling thread
+     *            alone.
+     * @param parallelism the total number of tasks to search with.
+     * @return the first candidate accepted.
+     */
+    BigInteger run(Executor executor, int parallelism)
+    {
+        Vector pending = new Vector();
+
+        if (executor != null)
+        {
+            for (int i = 1; i < parallelism; ++i)
+            {
+                FutureTask task = new FutureTask(new Runnable()
+                {
+                    public void run()
+                    {
+                        search();
+                    }
+                }, null);
+
+                pending.addElement(task);
+                executor.execute(task);
+            }
+        }
+
+        // the calling thread searches too, so a busy executor cannot stall the search.
+        search();
+
+        for (int i = 0; i < pending.size(); ++i)
+        {
+            ((FutureTask)pending.elementAt(i)).cancel(false);
+        }
+
+        synchronized (this)
+        {
+            if (failure != null)
+            {
+                throw failure;
+            }
+
+            return result;
+        }
+    }
+
+    private void search()
+    {
+        try
+        {
+            while (!done)
+            {
+                PrimeSieve sieve = createSieve();
+                int position = 0;
+
+                BigInteger candidate;
+                while (!done && (candidate = sieve.next()) != null)
+                {
+                    if (!addCandidates(sieve.getPosition() - position))
+                    {
+                        return;
+                    }
+                    position = sieve.getPosition();
+
+                    if (isAcceptable(candidate))
+                    {
+                        setResult(candidate);
+                        return;
+                    }
+                }
+
+                if (!done && !addCandidates(sieve.getPosition() - position))
+                {
+                    return;
+                }
+            }
+        }
+        catch (RuntimeException e)
+        {
+            setFailure(e);
+        }
+    }
+
+    private synchronized boolean addCandidates(int count)
+    {
+        candidates += count;
+        if (maxCandidates > 0 && candidates > maxCandidates)
+        {
+            setFailure(createLimitException());
+            return false;
+        }
+        return true;
+    }
+
+    private synchronized void setResult(BigInteger candidate)
+    {
+        if (!done)
+        {
+            result = candidate;
+            done = true;
+        }
+    }
+
+    private synchronized void setFailure(RuntimeException e)
+    {
+        if (!done)
+        {
+            failure = e;
+            done = true;
+        }
+    }
+}
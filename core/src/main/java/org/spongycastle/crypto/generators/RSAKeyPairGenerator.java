@@ -1,6 +1,7 @@
 package org.spongycastle.crypto.generators;
 
 import java.math.BigInteger;
+import java.util.concurrent.Executor;
 
 import org.spongycastle.crypto.AsymmetricCipherKeyPair;
 import org.spongycastle.crypto.AsymmetricCipherKeyPairGenerator;
@@ -8,6 +9,7 @@
 import org.spongycastle.crypto.params.RSAKeyGenerationParameters;
 import org.spongycastle.crypto.params.RSAKeyParameters;
 import org.spongycastle.crypto.params.RSAPrivateCrtKeyParameters;
+import org.spongycastle.math.PrimeSieve;
 import org.spongycastle.math.Primes;
 import org.spongycastle.math.ec.WNafUtil;
 
@@ -19,9 +21,53 @@
 {
     private static final BigInteger ONE = BigInteger.valueOf(1);
 
+    private final Executor executor;
+    private final int parallelism;
+
     private RSAKeyGenerationParameters param;
     private int iterations;
 
+    public RSAKeyPairGenerator()
+    {
+        this.executor = null;
+        this.parallelism = 1;
+    }
+
+    /**
+     * Create a generator that searches for each prime with a sieve over runs of odd numbers,
+     * from a task on the calling thread plus one on the passed in executor for each further
+     * available processor. The candidates are subject to the same checks as in the default mode.
+     *
+     * @param executor the executor to run the extra search tasks on.
+     */
+    public RSAKeyPairGenerator(Executor executor)
+    {
+        this(executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a generator that searches for each prime with a sieve over runs of odd numbers,
+     * from a task on the calling thread plus parallelism - 1 tasks on the passed in executor. The
+     * candidates are subject to the same checks as in the default mode.
+     *
+     * @param executor the executor to run the extra search tasks on.
+     * @param parallelism the total number of search tasks to run for each prime.
+     */
+    public RSAKeyPairGenerator(Executor executor, int parallelism)
+    {
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("'executor' cannot be null");
+        }
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("'parallelism' must be > 0");
+        }
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
     public void init(KeyGenerationParameters param)
     {
         this.param = (RSAKeyGenerationParameters)param;
@@ -159,6 +205,11 @@ public AsymmetricCipherKeyPair generateKeyPair()
      */
     protected BigInteger chooseRandomPrime(int bitlength, BigInteger e, BigInteger sqrdBound)
     {
+        if (executor != null && bitlength > 32)
+        {
+            return searchRandomPrime(bitlength, e, sqrdBound);
+        }
+
         for (int i = 0; i != 5 * bitlength; i++)
         {
             BigInteger p = new BigInteger(bitlength, 1, param.getRandom());
@@ -189,6 +240,45 @@ protected BigInteger chooseRandomPrime(int bitlength, BigInteger e, BigInteger s
         throw new IllegalStateException("unable to generate prime number for RSA key");
     }
 
+    private BigInteger searchRandomPrime(final int bitlength, final BigInteger e, final BigInteger sqrdBound)
+    {
+        final BigInteger limit = ONE.shiftLeft(bitlength);
+        final int runLength = Math.max(bitlength, 256);
+
+        PrimeSearch search = new PrimeSearch(5 * bitlength)
+        {
+            protected PrimeSieve createSieve()
+            {
+                // start each run above the square root bound, so the run is not wasted below it
+                BigInteger start;
+                do
+                {
+                    start = new BigInteger(bitlength, param.getRandom()).setBit(bitlength - 1).setBit(0);
+                }
+                while (start.multiply(start).compareTo(sqrdBound) < 0);
+
+                int count = limit.subtract(start).add(ONE).shiftRight(1).min(BigInteger.valueOf(runLength)).intValue();
+
+                return new PrimeSieve(start, count);
+            }
+
+            protected boolean isAcceptable(BigInteger p)
+            {
+                return !p.mod(e).equals(ONE)
+                    && p.multiply(p).compareTo(sqrdBound) >= 0
+                    && isProbablePrime(p)
+                    && e.gcd(p.subtract(ONE)).equals(ONE);
+            }
+
+            protected RuntimeException createLimitException()
+            {
+                return new IllegalStateException("unable to generate prime number for RSA key");
+            }
+        };
+
+        return search.run(executor, parallelism);
+    }
+
     protected boolean isProbablePrime(BigInteger x)
     {
         /*
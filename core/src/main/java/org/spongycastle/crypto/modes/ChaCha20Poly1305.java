@@ -0,0 +1,374 @@
+package org.spongycastle.crypto.modes;
+
+import org.spongycastle.crypto.CipherParameters;
+import org.spongycastle.crypto.DataLengthException;
+import org.spongycastle.crypto.InvalidCipherTextException;
+import org.spongycastle.crypto.Mac;
+import org.spongycastle.crypto.OutputLengthException;
+import org.spongycastle.crypto.engines.ChaCha7539Engine;
+import org.spongycastle.crypto.generators.Poly1305KeyGenerator;
+import org.spongycastle.crypto.macs.Poly1305;
+import org.spongycastle.crypto.params.AEADParameters;
+import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.crypto.params.ParametersWithIV;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Pack;
+
+/**
+ * The ChaCha20-Poly1305 AEAD construction from RFC 7539.
+ * <p>
+ * The cipher and the MAC run over the data in the same pass: each call to
+ * {@link #processBytes(byte[], int, int, byte[], int)} is split into chunks small enough to stay
+ * in the L1 cache, and each chunk is encrypted (or MACed, when decrypting) immediately before being
+ * MACed (or decrypted). When decrypting, the final 16 bytes seen are held back as the candidate tag.
+ * </p>
+ */
+public class ChaCha20Poly1305
+    implements AEADCipher
+{
+    private static final int KEY_SIZE = 32;
+    private static final int NONCE_SIZE = 12;
+    private static final int MAC_SIZE = 16;
+    private static final int CHUNK_SIZE = 1024;
+
+    private static final byte[] ZEROES = new byte[MAC_SIZE - 1];
+
+    private final ChaCha7539Engine chacha20;
+    private final Mac poly1305;
+
+    private final byte[] key = new byte[KEY_SIZE];
+    private final byte[] nonce = new byte[NONCE_SIZE];
+    private final byte[] buf = new byte[MAC_SIZE];
+    private final byte[] mac = new byte[MAC_SIZE];
+
+    private boolean initialised = false;
+    private boolean forEncryption;
+    private byte[] initialAAD;
+    private long aadCount;
+    private long dataCount;
+    private int bufPos;
+
+    public ChaCha20Poly1305()
+    {
+        this.chacha20 = new ChaCha7539Engine();
+        this.poly1305 = new Poly1305();
+    }
+
+    public String getAlgorithmName()
+    {
+        return "ChaCha20Poly1305";
+    }
+
+    public void init(boolean forEncryption, CipherParameters params)
+        throws IllegalArgumentException
+    {
+        KeyParameter keyParam;
+        byte[] iv;
+
+        if (params instanceof AEADParameters)
+        {
+            AEADParameters aeadParams = (AEADParameters)params;
+
+            if (aeadParams.getMacSize() != MAC_SIZE * 8)
+            {
+                throw new IllegalArgumentException("Invalid value for MAC size: " + aeadParams.getMacSize());
+            }
+
+            keyParam = aeadParams.getKey();
+            iv = aeadParams.getNonce();
+            initialAAD = aeadParams.getAssociatedText();
+        }
+        else if (params instanceof ParametersWithIV)
+        {
+            ParametersWithIV ivParams = (ParametersWithIV)params;
+
+            keyParam = (KeyParameter)ivParams.getParameters();
+            iv = ivParams.getIV();
+            initialAAD = null;
+        }
+        else
+        {
+            throw new IllegalArgumentException("invalid parameters passed to ChaCha20Poly1305");
+        }
+
+        if (iv == null || iv.length != NONCE_SIZE)
+        {
+            throw new IllegalArgumentException("ChaCha20Poly1305 requires a 96 bit nonce");
+        }
+
+        if (keyParam == null)
+        {
+            if (!initialised)
+            {
+                throw new IllegalArgumentException("Key must be specified in initial init");
+            }
+        }
+        else
+        {
+            byte[] k = keyParam.getKey();
+            if (k.length != KEY_SIZE)
+            {
+                throw new IllegalArgumentException("ChaCha20Poly1305 requires a 256 bit key");
+            }
+            System.arraycopy(k, 0, key, 0, KEY_SIZE);
+        }
+
+        System.arraycopy(iv, 0, nonce, 0, NONCE_SIZE);
+
+        this.forEncryption = forEncryption;
+        this.initialised = true;
+
+        reset();
+    }
+
+    public void processAADByte(byte in)
+    {
+        checkAAD();
+
+        poly1305.update(in);
+        ++aadCount;
+    }
+
+    public void processAADBytes(byte[] in, int inOff, int len)
+    {
+        checkAAD();
+
+        poly1305.update(in, inOff, len);
+        aadCount += len;
+    }
+
+    public int processByte(byte in, byte[] out, int outOff)
+        throws DataLengthException
+    {
+        return processBytes(new byte[]{ in }, 0, 1, out, outOff);
+    }
+
+    public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException
+    {
+        checkData();
+
+        if ((inOff + len) > in.length)
+        {
+            throw new DataLengthException("Input buffer too short");
+        }
+
+        if (forEncryption)
+        {
+            if ((outOff + len) > out.length)
+            {
+                throw new OutputLengthException("Output buffer too short");
+            }
+
+            int resultLen = len;
+            while (len > 0)
+            {
+                int chunk = Math.min(len, CHUNK_SIZE);
+                chacha20.processBytes(in, inOff, chunk, out, outOff);
+                poly1305.update(out, outOff, chunk);
+                inOff += chunk;
+                outOff += chunk;
+                len -= chunk;
+                dataCount += chunk;
+            }
+
+            return resultLen;
+        }
+
+        int available = bufPos + len;
+        if (available <= MAC_SIZE)
+        {
+            System.arraycopy(in, inOff, buf, bufPos, len);
+            bufPos = available;
+            return 0;
+        }
+
+        int resultLen = available - MAC_SIZE;
+        if ((outOff + resultLen) > out.length)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+
+        int fromBuf = Math.min(bufPos, resultLen);
+        int fromIn = resultLen - fromBuf;
+
+        if (in == out && outOff + fromBuf > inOff && outOff < inOff + len)
+        {
+            // the output would overwrite input that has not been read yet
+            in = Arrays.copyOfRange(in, inOff, inOff + len);
+            inOff = 0;
+        }
+
+        decrypt(buf, 0, fromBuf, out, outOff);
+        decrypt(in, inOff, fromIn, out, outOff + fromBuf);
+
+        System.arraycopy(buf, fromBuf, buf, 0, bufPos - fromBuf);
+        bufPos -= fromBuf;
+        System.arraycopy(in, inOff + fromIn, buf, bufPos, len - fromIn);
+        bufPos += len - fromIn;
+
+        return resultLen;
+    }
+
+    public int doFinal(byte[] out, int outOff)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        checkData();
+
+        int resultLen = 0;
+
+        if (forEncryption)
+        {
+            if ((outOff + MAC_SIZE) > out.length)
+            {
+                throw new OutputLengthException("Output buffer too short");
+            }
+
+            finishMac();
+            System.arraycopy(mac, 0, out, outOff, MAC_SIZE);
+            resultLen = MAC_SIZE;
+        }
+        else
+        {
+            if (bufPos < MAC_SIZE)
+            {
+                throw new InvalidCipherTextException("data too short");
+            }
+
+            finishMac();
+            if (!Arrays.constantTimeAreEqual(mac, buf))
+            {
+                throw new InvalidCipherTextException("mac check in ChaCha20Poly1305 failed");
+            }
+        }
+
+        reset(false);
+
+        return resultLen;
+    }
+
+    public byte[] getMac()
+    {
+        return Arrays.clone(mac);
+    }
+
+    public int getUpdateOutputSize(int len)
+    {
+        if (forEncryption)
+        {
+            return len;
+        }
+        return Math.max(0, bufPos + len - MAC_SIZE);
+    }
+
+    public int getOutputSize(int len)
+    {
+        if (forEncryption)
+        {
+            return len + MAC_SIZE;
+        }
+        return Math.max(0, bufPos + len - MAC_SIZE);
+    }
+
+    public void reset()
+    {
+        reset(true);
+    }
+
+    private void reset(boolean clearMac)
+    {
+        if (!initialised)
+        {
+            return;
+        }
+
+        Arrays.fill(buf, (byte)0);
+        if (clearMac)
+        {
+            Arrays.fill(mac, (byte)0);
+        }
+
+        bufPos = 0;
+        aadCount = 0;
+        dataCount = -1;
+
+        chacha20.init(true, new ParametersWithIV(new KeyParameter(key), nonce));
+
+        // RFC 7539 2.6: the one-time key is the first half of key stream block 0
+        byte[] firstBlock = new byte[64];
+        chacha20.processBytes(firstBlock, 0, firstBlock.length, firstBlock, 0);
+
+        // NOTE: The BC implementation puts 'r' after 'k'
+        System.arraycopy(firstBlock, 0, firstBlock, 32, 16);
+        KeyParameter macKey = new KeyParameter(firstBlock, 16, 32);
+        Poly1305KeyGenerator.clamp(macKey.getKey());
+        Arrays.fill(firstBlock, (byte)0);
+
+        poly1305.init(macKey);
+
+        if (initialAAD != null)
+        {
+            processAADBytes(initialAAD, 0, initialAAD.length);
+        }
+    }
+
+    private void decrypt(byte[] in, int inOff, int len, byte[] out, int outOff)
+    {
+        while (len > 0)
+        {
+            int chunk = Math.min(len, CHUNK_SIZE);
+            poly1305.update(in, inOff, chunk);
+            chacha20.processBytes(in, inOff, chunk, out, outOff);
+            inOff += chunk;
+            outOff += chunk;
+            len -= chunk;
+            dataCount += chunk;
+        }
+    }
+
+    private void finishMac()
+    {
+        pad(dataCount);
+
+        byte[] lengths = new byte[16];
+        Pack.longToLittleEndian(aadCount, lengths, 0);
+        Pack.longToLittleEndian(dataCount, lengths, 8);
+        poly1305.update(lengths, 0, lengths.length);
+
+        poly1305.doFinal(mac, 0);
+    }
+
+    private void checkAAD()
+    {
+        if (!initialised)
+        {
+            throw new IllegalStateException("ChaCha20Poly1305 needs to be initialised");
+        }
+        if (dataCount >= 0)
+        {
+            throw new IllegalStateException("AAD must be supplied before any data");
+        }
+    }
+
+    private void checkData()
+    {
+        if (!initialised)
+        {
+            throw new IllegalStateException("ChaCha20Poly1305 needs to be initialised");
+        }
+        if (dataCount < 0)
+        {
+            pad(aadCount);
+            dataCount = 0;
+        }
+    }
+
+    private void pad(long count)
+    {
+        int partial = (int)count & (MAC_SIZE - 1);
+        if (partial != 0)
+        {
+            poly1305.update(ZEROES, 0, MAC_SIZE - partial);
+        }
+    }
+}
@@ -18,6 +18,8 @@
     private int                     l;
     private DHValidationParameters  validation;
 
+    private GeneratorExp            gExp;
+
     private static int getDefaultMParam(
         int lParam)
     {
@@ -113,6 +115,27 @@ public BigInteger getG()
         return g;
     }
 
+    /**
+     * Return g^exponent mod p. Once these parameters have been used for this a number of times,
+     * a fixed-base precomputation for g is built and kept with them.
+     *
+     * @param exponent the exponent to raise g to.
+     * @return g^exponent mod p.
+     */
+    public BigInteger modPowG(BigInteger exponent)
+    {
+        return getGeneratorExp().modPow(exponent);
+    }
+
+    private synchronized GeneratorExp getGeneratorExp()
+    {
+        if (gExp == null)
+        {
+            gExp = new GeneratorExp(p, g, (l != 0) ? l : (q != null) ? q.bitLength() : p.bitLength());
+        }
+        return gExp;
+    }
+
     public BigInteger getQ()
     {
         return q;
@@ -12,6 +12,8 @@
     private BigInteger              p;
     private DSAValidationParameters validation;
 
+    private GeneratorExp            gExp;
+
     public DSAParameters(
         BigInteger  p,
         BigInteger  q,
@@ -49,6 +51,27 @@ public BigInteger getG()
         return g;
     }
 
+    /**
+     * Return g^exponent mod p. Once these parameters have been used for this a number of times,
+     * a fixed-base precomputation for g is built and kept with them.
+     *
+     * @param exponent the exponent to raise g to.
+     * @return g^exponent mod p.
+     */
+    public BigInteger modPowG(BigInteger exponent)
+    {
+        return getGeneratorExp().modPow(exponent);
+    }
+
+    private synchronized GeneratorExp getGeneratorExp()
+    {
+        if (gExp == null)
+        {
+            gExp = new GeneratorExp(p, g, q.bitLength());
+        }
+        return gExp;
+    }
+
     public DSAValidationParameters getValidationParameters()
     {
         return validation;
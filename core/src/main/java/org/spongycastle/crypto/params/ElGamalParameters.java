@@ -11,6 +11,8 @@
     private BigInteger              p;
     private int                     l;
 
+    private GeneratorExp            gExp;
+
     public ElGamalParameters(
         BigInteger  p,
         BigInteger  g)
@@ -41,6 +43,27 @@ public BigInteger getG()
         return g;
     }
 
+    /**
+     * Return g^exponent mod p. Once these parameters have been used for this a number of times,
+     * a fixed-base precomputation for g is built and kept with them.
+     *
+     * @param exponent the exponent to raise g to.
+     * @return g^exponent mod p.
+     */
+    public BigInteger modPowG(BigInteger exponent)
+    {
+        return getGeneratorExp().modPow(exponent);
+    }
+
+    private synchronized GeneratorExp getGeneratorExp()
+    {
+        if (gExp == null)
+        {
+            gExp = new GeneratorExp(p, g, p.bitLength());
+        }
+        return gExp;
+    }
+
     /**
      * return private value limit - l
      */
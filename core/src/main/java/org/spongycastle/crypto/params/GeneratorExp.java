@@ -0,0 +1,54 @@
+package org.spongycastle.crypto.params;
+
+import java.math.BigInteger;
+
+import org.spongycastle.math.FixedBaseComb;
+
+/**
+ * Raises the generator of a set of domain parameters to an exponent, switching to a precomputed
+ * {@link FixedBaseComb} once the parameters have been used enough for the table to pay for itself.
+ */
+class GeneratorExp
+{
+    /*
+     * Building the comb costs about as much as a handful of exponentiations, so parameters that
+     * are only used once or twice (such as received from a peer) never build one.
+     */
+    private static final int PRECOMP_THRESHOLD = 16;
+
+    private final BigInteger p;
+    private final BigInteger g;
+    private final int maxBits;
+
+    private int count = 0;
+    private FixedBaseComb comb = null;
+
+    GeneratorExp(BigInteger p, BigInteger g, int maxBits)
+    {
+        this.p = p;
+        this.g = g;
+        this.maxBits = maxBits;
+    }
+
+    BigInteger modPow(BigInteger exponent)
+    {
+        FixedBaseComb c = getComb();
+        if (c != null && exponent.signum() >= 0)
+        {
+            return c.modPow(exponent);
+        }
+
+        return g.modPow(exponent, p);
+    }
+
+    private synchronized FixedBaseComb getComb()
+    {
+        if (comb == null && count < PRECOMP_THRESHOLD && ++count == PRECOMP_THRESHOLD
+            && p.testBit(0) && p.bitLength() > 1 && maxBits > 0)
+        {
+            comb = new FixedBaseComb(p, g, maxBits);
+        }
+
+        return comb;
+    }
+}
@@ -0,0 +1,365 @@
+package org.spongycastle.crypto.signers;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Vector;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.spongycastle.crypto.params.DSAParameters;
+import org.spongycastle.crypto.params.ECDomainParameters;
+import org.spongycastle.math.ec.ECMultiplier;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.FixedPointCombMultiplier;
+import org.spongycastle.util.Arrays;
+
+/**
+ * A bounded pool of precomputed signing nonces for randomized DSA and ECDSA.
+ * <p>
+ * With a random K the parts of a signature that do not depend on the message, r and the inverse of
+ * K, can be worked out ahead of time. The pool holds up to capacity such pairs, computed on the
+ * threads of an {@link Executor}, and tops itself up in the background whenever it falls below half
+ * full. A signer created with a pool (see {@link DSASigner#DSASigner(DSANoncePool)} and
+ * {@link ECDSASigner#ECDSASigner(DSANoncePool)}) then only has a few multiplications to do per
+ * signature. If the pool runs dry a pair is computed on the calling thread, so signing never waits
+ * on the background threads.
+ * </p><p>
+ * Every pair is handed out exactly once, and the inverse of K is held as a byte array which is
+ * cleared as soon as it has been used, or when the pool is closed. Note the BigInteger values
+ * created while computing and using a pair cannot be cleared. A pool may be shared between any
+ * number of signers and threads, but only for keys with the domain parameters it was created for.
+ * </p>
+ */
+public class DSANoncePool
+{
+    private final Generator generator;
+    private final SecureRandom random;
+    private final int capacity;
+    private final Executor executor;
+
+    private final Vector nonces = new Vector();
+    private int inFlight;
+    private boolean closed;
+
+    /**
+     * Create a pool of nonces for ECDSA signing.
+     *
+     * @param params the domain parameters of the keys to be used with the pool.
+     * @param random the source of randomness for K.
+     * @param capacity the maximum number of nonces to hold.
+     * @param executor the executor to compute nonces on, which cannot be null.
+     */
+    public DSANoncePool(ECDomainParameters params, SecureRandom random, int capacity, Executor executor)
+    {
+        this(new ECGenerator(params), random, capacity, executor);
+    }
+
+    /**
+     * Create a pool of nonces for DSA signing.
+     *
+     * @param params the domain parameters of the keys to be used with the pool.
+     * @param random the source of randomness for K.
+     * @param capacity the maximum number of nonces to hold.
+     * @param executor the executor to compute nonces on, which cannot be null.
+     */
+    public DSANoncePool(DSAParameters params, SecureRandom random, int capacity, Executor executor)
+    {
+        this(new DSAGenerator(params), random, capacity, executor);
+    }
+
+    private DSANoncePool(Generator generator, SecureRandom random, int capacity, Executor executor)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("'executor' cannot be null");
+        }
+
+        this.generator = generator;
+        this.random = (random != null) ? random : new SecureRandom();
+        this.capacity = capacity;
+        this.executor = executor;
+
+        synchronized (this)
+        {
+            refill();
+        }
+    }
+
+    /**
+     * Return the number of nonces ready for use.
+     */
+    public synchronized int size()
+    {
+        return nonces.size();
+    }
+
+    /**
+     * Return the maximum number of nonces the pool will hold.
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Close the pool, clearing any nonces it holds. Nonces computed after this are discarded.
+     */
+    public synchronized void close()
+    {
+        closed = true;
+
+        for (int i = 0; i != nonces.size(); i++)
+        {
+            ((Nonce)nonces.elementAt(i)).clear();
+        }
+        nonces.removeAllElements();
+    }
+
+    /**
+     * Return whether the pool was created for the passed in EC domain parameters.
+     */
+    boolean isFor(ECDomainParameters params)
+    {
+        return generator.isFor(params);
+    }
+
+    /**
+     * Return whether the pool was created for the passed in DSA domain parameters.
+     */
+    boolean isFor(DSAParameters params)
+    {
+        return generator.isFor(params);
+    }
+
+    /**
+     * Take a nonce from the pool, computing one on the calling thread if the pool is empty. The
+     * nonce is removed from the pool, so will never be returned again.
+     *
+     * @throws IllegalStateException if the pool has been closed.
+     */
+    Nonce take()
+    {
+        synchronized (this)
+        {
+            if (closed)
+            {
+                throw new IllegalStateException("nonce pool closed");
+            }
+
+            if (!nonces.isEmpty())
+            {
+                Nonce nonce = (Nonce)nonces.elementAt(0);
+                nonces.removeElementAt(0);
+
+                if (nonces.size() + inFlight < (capacity + 1) / 2)
+                {
+                    refill();
+                }
+
+                return nonce;
+            }
+
+            refill();
+        }
+
+        return generator.generate(random);
+    }
+
+    /**
+     * Start enough tasks to bring the pool up to capacity. Each task computes one nonce, so a
+     * refill is spread over as many threads as the executor has to offer.
+     */
+    private void refill()
+    {
+        int wanted = capacity - nonces.size() - inFlight;
+
+        for (int i = 0; i < wanted; i++)
+        {
+            inFlight++;
+
+            try
+            {
+                executor.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        Nonce nonce = null;
+
+                        try
+                        {
+                            nonce = generator.generate(random);
+                        }
+                        finally
+                        {
+                            add(nonce);
+                        }
+                    }
+                });
+            }
+            catch (RejectedExecutionException e)
+            {
+                // the executor will not take any more work, so the pool is left as it is.
+                inFlight--;
+                break;
+            }
+        }
+    }
+
+    private synchronized void add(Nonce nonce)
+    {
+        inFlight--;
+
+        if (nonce != null)
+        {
+            if (closed || nonces.size() >= capacity)
+            {
+                nonce.clear();
+            }
+            else
+            {
+                nonces.addElement(nonce);
+            }
+        }
+    }
+
+    /**
+     * A precomputed r and inverse of K, which can be used for one signature only.
+     */
+    static class Nonce
+    {
+        private final BigInteger r;
+        private byte[] kInv;
+
+        Nonce(BigInteger r, BigInteger kInv)
+        {
+            this.r = r;
+            this.kInv = kInv.toByteArray();
+        }
+
+        BigInteger getR()
+        {
+            return r;
+        }
+
+        /**
+         * Return the inverse of K, clearing the copy held by the nonce.
+         *
+         * @throws IllegalStateException if the nonce has already been used.
+         */
+        synchronized BigInteger takeKInv()
+        {
+            if (kInv == null)
+            {
+                throw new IllegalStateException("nonce already used");
+            }
+
+            BigInteger value = new BigInteger(kInv);
+
+            clear();
+
+            return value;
+        }
+
+        synchronized void clear()
+        {
+            if (kInv != null)
+            {
+                Arrays.fill(kInv, (byte)0);
+                kInv = null;
+            }
+        }
+    }
+
+    private static abstract class Generator
+    {
+        abstract Nonce generate(SecureRandom random);
+
+        boolean isFor(ECDomainParameters params)
+        {
+            return false;
+        }
+
+        boolean isFor(DSAParameters params)
+        {
+            return false;
+        }
+    }
+
+    private static class ECGenerator
+        extends Generator
+    {
+        private final ECDomainParameters params;
+        private final ECMultiplier multiplier = new FixedPointCombMultiplier();
+
+        ECGenerator(ECDomainParameters params)
+        {
+            this.params = params;
+        }
+
+        Nonce generate(SecureRandom random)
+        {
+            BigInteger n = params.getN();
+            DSAKCalculator kCalculator = new RandomDSAKCalculator();
+
+            kCalculator.init(n, random);
+
+            BigInteger k, r;
+            do
+            {
+                k = kCalculator.nextK();
+
+                ECPoint p = multiplier.multiply(params.getG(), k).normalize();
+
+                r = p.getAffineXCoord().toBigInteger().mod(n);
+            }
+            while (r.signum() == 0);
+
+            return new Nonce(r, k.modInverse(n));
+        }
+
+        boolean isFor(ECDomainParameters other)
+        {
+            return params.getN().equals(other.getN()) && params.getG().equals(other.getG());
+        }
+    }
+
+    private static class DSAGenerator
+        extends Generator
+    {
+        private final DSAParameters params;
+
+        DSAGenerator(DSAParameters params)
+        {
+            this.params = params;
+        }
+
+        Nonce generate(SecureRandom random)
+        {
+            BigInteger q = params.getQ();
+            DSAKCalculator kCalculator = new RandomDSAKCalculator();
+
+            kCalculator.init(q, random);
+
+            BigInteger k, r;
+            do
+            {
+                k = kCalculator.nextK();
+
+                r = params.modPowG(k).mod(q);
+            }
+            while (r.signum() == 0);
+
+            return new Nonce(r, k.modInverse(q));
+        }
+
+        boolean isFor(DSAParameters other)
+        {
+            return params.getP().equals(other.getP()) && params.getQ().equals(other.getQ())
+                && params.getG().equals(other.getG());
+        }
+    }
+}
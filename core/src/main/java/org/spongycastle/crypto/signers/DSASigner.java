@@ -19,6 +19,7 @@
     implements DSA
 {
     private final DSAKCalculator kCalculator;
+    private final DSANoncePool noncePool;
 
     private DSAKeyParameters key;
     private SecureRandom    random;
@@ -29,6 +30,7 @@
     public DSASigner()
     {
         this.kCalculator = new RandomDSAKCalculator();
+        this.noncePool = null;
     }
 
     /**
@@ -39,6 +41,19 @@ public DSASigner()
     public DSASigner(DSAKCalculator kCalculator)
     {
         this.kCalculator = kCalculator;
+        this.noncePool = null;
+    }
+
+    /**
+     * Configuration with random K values taken, with their r values, from a pool of precomputed
+     * nonces. The pool must have been created for the domain parameters of the signing key.
+     *
+     * @param noncePool the pool to take nonces from.
+     */
+    public DSASigner(DSANoncePool noncePool)
+    {
+        this.kCalculator = new RandomDSAKCalculator();
+        this.noncePool = noncePool;
     }
 
     public void init(
@@ -60,6 +75,11 @@ public void init(
             {
                 this.key = (DSAPrivateKeyParameters)param;
             }
+
+            if (noncePool != null && !noncePool.isFor(key.getParameters()))
+            {
+                throw new IllegalArgumentException("nonce pool not created for key's domain parameters");
+            }
         }
         else
         {
@@ -84,6 +104,16 @@ public BigInteger[] generateSignature(
         BigInteger      m = calculateE(q, message);
         BigInteger      x = ((DSAPrivateKeyParameters)key).getX();
 
+        if (noncePool != null)
+        {
+            DSANoncePool.Nonce nonce = noncePool.take();
+
+            BigInteger  r = nonce.getR();
+            BigInteger  s = nonce.takeKInv().multiply(m.add(x.multiply(r))).mod(q);
+
+            return new BigInteger[]{ r, s };
+        }
+
         if (kCalculator.isDeterministic())
         {
             kCalculator.init(q, x, message);
@@ -95,7 +125,7 @@ public BigInteger[] generateSignature(
 
         BigInteger  k = kCalculator.nextK();
 
-        BigInteger  r = params.getG().modPow(k, params.getP()).mod(q);
+        BigInteger  r = params.modPowG(k).mod(q);
 
         k = k.modInverse(q).multiply(m.add(x.multiply(r)));
 
@@ -135,7 +165,7 @@ public boolean verifySignature(
         BigInteger  u2 = r.multiply(w).mod(q);
 
         BigInteger p = params.getP();
-        u1 = params.getG().modPow(u1, p);
+        u1 = params.modPowG(u1);
         u2 = ((DSAPublicKeyParameters)key).getY().modPow(u2, p);
 
         BigInteger  v = u1.multiply(u2).mod(p).mod(q);
@@ -16,6 +16,7 @@
 import org.spongycastle.math.ec.ECFieldElement;
 import org.spongycastle.math.ec.ECMultiplier;
 import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.ECScalarField;
 import org.spongycastle.math.ec.FixedPointCombMultiplier;
 
 /**
@@ -25,6 +26,7 @@
     implements ECConstants, DSA
 {
     private final DSAKCalculator kCalculator;
+    private final DSANoncePool noncePool;
 
     private ECKeyParameters key;
     private SecureRandom    random;
@@ -35,6 +37,7 @@
     public ECDSASigner()
     {
         this.kCalculator = new RandomDSAKCalculator();
+        this.noncePool = null;
     }
 
     /**
@@ -45,6 +48,19 @@ public ECDSASigner()
     public ECDSASigner(DSAKCalculator kCalculator)
     {
         this.kCalculator = kCalculator;
+        this.noncePool = null;
+    }
+
+    /**
+     * Configuration with random K values taken, with their r values, from a pool of precomputed
+     * nonces. The pool must have been created for the domain parameters of the signing key.
+     *
+     * @param noncePool the pool to take nonces from.
+     */
+    public ECDSASigner(DSANoncePool noncePool)
+    {
+        this.kCalculator = new RandomDSAKCalculator();
+        this.noncePool = noncePool;
     }
 
     public void init(
@@ -66,6 +82,11 @@ public void init(
             {
                 this.key = (ECPrivateKeyParameters)param;
             }
+
+            if (noncePool != null && !noncePool.isFor(key.getParameters()))
+            {
+                throw new IllegalArgumentException("nonce pool not created for key's domain parameters");
+            }
         }
         else
         {
@@ -91,15 +112,20 @@ public BigInteger[] generateSignature(
         BigInteger e = calculateE(n, message);
         BigInteger d = ((ECPrivateKeyParameters)key).getD();
 
-        if (kCalculator.isDeterministic())
+        ECScalarField scalarField = getScalarField(ec);
+
+        if (noncePool != null)
         {
-            kCalculator.init(n, d, message);
+            return generatePooledSignature(n, e, d, scalarField);
         }
-        else
+
+        if (scalarField != null)
         {
-            kCalculator.init(n, random);
+            return generateScalarFieldSignature(ec, e, d, message, scalarField);
         }
 
+        initKCalculator(n, d, message);
+
         BigInteger r, s;
 
         ECMultiplier basePointMultiplier = createBasePointMultiplier();
@@ -126,6 +152,84 @@ public BigInteger[] generateSignature(
         return new BigInteger[]{ r, s };
     }
 
+    /**
+     * As the main loop of generateSignature, with the scalar arithmetic done in the fixed width
+     * scalar field of the curve. The inverse of K is found with K blinded by a random value, or,
+     * for deterministic K, by exponentiation, so in neither case does the time taken depend on K.
+     */
+    private BigInteger[] generateScalarFieldSignature(ECDomainParameters ec, BigInteger e, BigInteger d,
+        byte[] message, ECScalarField scalarField)
+    {
+        initKCalculator(ec.getN(), d, message);
+
+        ECMultiplier basePointMultiplier = createBasePointMultiplier();
+
+        int[] dn = scalarField.fromBigInteger(d);
+        int[] en = scalarField.fromBigInteger(e);
+        int[] kInv = scalarField.create();
+        int[] rn, sn = scalarField.create();
+
+        do // generate s
+        {
+            BigInteger k;
+            do // generate r
+            {
+                k = kCalculator.nextK();
+
+                ECPoint p = basePointMultiplier.multiply(ec.getG(), k).normalize();
+
+                rn = scalarField.fromBigInteger(p.getAffineXCoord().toBigInteger());
+            }
+            while (scalarField.isZero(rn));
+
+            if (random != null)
+            {
+                scalarField.invertBlinded(scalarField.fromBigInteger(k), kInv, random);
+            }
+            else
+            {
+                scalarField.invert(scalarField.fromBigInteger(k), kInv);
+            }
+
+            scalarField.multiply(dn, rn, sn);
+            scalarField.add(sn, en, sn);
+            scalarField.multiply(kInv, sn, sn);
+        }
+        while (scalarField.isZero(sn));
+
+        return new BigInteger[]{ scalarField.toBigInteger(rn), scalarField.toBigInteger(sn) };
+    }
+
+    private BigInteger[] generatePooledSignature(BigInteger n, BigInteger e, BigInteger d, ECScalarField scalarField)
+    {
+        BigInteger r, s;
+
+        do
+        {
+            DSANoncePool.Nonce nonce = noncePool.take();
+
+            r = nonce.getR();
+
+            if (scalarField != null)
+            {
+                int[] sn = scalarField.fromBigInteger(d);
+
+                scalarField.multiply(sn, scalarField.fromBigInteger(r), sn);
+                scalarField.add(sn, scalarField.fromBigInteger(e), sn);
+                scalarField.multiply(scalarField.fromBigInteger(nonce.takeKInv()), sn, sn);
+
+                s = scalarField.toBigInteger(sn);
+            }
+            else
+            {
+                s = nonce.takeKInv().multiply(e.add(d.multiply(r))).mod(n);
+            }
+        }
+        while (s.equals(ZERO));
+
+        return new BigInteger[]{ r, s };
+    }
+
     // 5.4 pg 29
     /**
      * return true if the value r and s represent a DSA signature for
@@ -153,10 +257,30 @@ public boolean verifySignature(
             return false;
         }
 
-        BigInteger c = s.modInverse(n);
+        ECScalarField scalarField = getScalarField(ec);
 
-        BigInteger u1 = e.multiply(c).mod(n);
-        BigInteger u2 = r.multiply(c).mod(n);
+        BigInteger u1, u2;
+        if (scalarField != null)
+        {
+            // s is public, so the faster variable time inversion can be used.
+            int[] c = scalarField.fromBigInteger(s);
+            scalarField.invertVar(c, c);
+
+            int[] u = scalarField.fromBigInteger(e);
+            scalarField.multiply(u, c, u);
+            u1 = scalarField.toBigInteger(u);
+
+            u = scalarField.fromBigInteger(r);
+            scalarField.multiply(u, c, u);
+            u2 = scalarField.toBigInteger(u);
+        }
+        else
+        {
+            BigInteger c = s.modInverse(n);
+
+            u1 = e.multiply(c).mod(n);
+            u2 = r.multiply(c).mod(n);
+        }
 
         ECPoint G = ec.getG();
         ECPoint Q = ((ECPublicKeyParameters)key).getQ();
@@ -206,10 +330,37 @@ public boolean verifySignature(
             }
         }
 
-        BigInteger v = point.normalize().getAffineXCoord().toBigInteger().mod(n);
+        BigInteger x = point.normalize().getAffineXCoord().toBigInteger();
+        BigInteger v = (scalarField != null) ? scalarField.toBigInteger(scalarField.fromBigInteger(x)) : x.mod(n);
         return v.equals(r);
     }
 
+    /**
+     * Return the scalar field of the curve, provided it is for the order given in the domain
+     * parameters, otherwise null so that the BigInteger arithmetic is used instead.
+     */
+    private static ECScalarField getScalarField(ECDomainParameters ec)
+    {
+        ECScalarField scalarField = ec.getCurve().getScalarField();
+        if (scalarField == null || !scalarField.getOrder().equals(ec.getN()))
+        {
+            return null;
+        }
+        return scalarField;
+    }
+
+    private void initKCalculator(BigInteger n, BigInteger d, byte[] message)
+    {
+        if (kCalculator.isDeterministic())
+        {
+            kCalculator.init(n, d, message);
+        }
+        else
+        {
+            kCalculator.init(n, random);
+        }
+    }
+
     protected BigInteger calculateE(BigInteger n, byte[] message)
     {
         int log2n = n.bitLength();
@@ -0,0 +1,28 @@
+package org.spongycastle.crypto.tls;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+/**
+ * Application callbacks for connections accepted by a {@link DTLSServerDemultiplexer}.
+ */
+public interface DTLSConnectionHandler
+{
+    /**
+     * Create the {@link TlsServer} that will handle the handshake with a newly verified peer.
+     *
+     * @param peerAddress the transport address of the peer.
+     */
+    TlsServer createServer(SocketAddress peerAddress)
+        throws IOException;
+
+    /**
+     * Called on a worker thread once the handshake with a peer has completed. The connection is
+     * closed when this method returns, and the worker thread is not released until then.
+     *
+     * @param peerAddress the transport address of the peer.
+     * @param transport   the established DTLS connection.
+     */
+    void handleConnection(SocketAddress peerAddress, DTLSTransport transport)
+        throws IOException;
+}
@@ -49,4 +49,9 @@ long getSequenceNumber()
     {
         return sequenceNumber;
     }
+
+    void setSequenceNumber(long sequenceNumber)
+    {
+        this.sequenceNumber = sequenceNumber;
+    }
 }
@@ -101,6 +101,16 @@ void handshakeSuccessful(DTLSHandshakeRetransmit retransmit)
         this.pendingEpoch = null;
     }
 
+    void resetAfterHelloVerifyRequestServer(long recordSeq)
+    {
+        /*
+         * RFC 6347 4.2.1. The initial ClientHello and the HelloVerifyRequest were exchanged
+         * statelessly, so continue the record sequence from the verified ClientHello.
+         */
+        currentEpoch.setSequenceNumber(recordSeq);
+        currentEpoch.getReplayWindow().reportAuthenticated(recordSeq);
+    }
+
     void resetWriteEpoch()
     {
         if (retransmitEpoch != null)
@@ -30,6 +30,26 @@
         this.handshakeHash.init(context);
     }
 
+    DTLSReliableHandshake(TlsContext context, DTLSRecordLayer transport, DTLSRequest request)
+    {
+        this(context, transport);
+
+        /*
+         * RFC 6347 4.2.2. The verified ClientHello is the first message of this handshake, and the
+         * server's message_seq continues from it (the HelloVerifyRequest used the same value).
+         */
+        byte[] clientHello = request.getClientHello();
+        DTLSReassembler reassembler = new DTLSReassembler(HandshakeType.client_hello, clientHello.length);
+        reassembler.contributeFragment(HandshakeType.client_hello, clientHello.length, clientHello, 0, 0,
+            clientHello.length);
+
+        int seq = request.getMessageSeq();
+        this.message_seq = seq;
+        this.next_receive_seq = seq;
+        this.sending = false;
+        this.currentInboundFlight.put(Integers.valueOf(seq), reassembler);
+    }
+
     void notifyHelloComplete()
     {
         this.handshakeHash = handshakeHash.notifyPRFDetermined();
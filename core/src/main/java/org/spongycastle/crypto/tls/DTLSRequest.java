@@ -0,0 +1,34 @@
+package org.spongycastle.crypto.tls;
+
+/**
+ * A ClientHello that has passed the stateless cookie exchange of a {@link DTLSVerifier}, ready to
+ * be handed to {@link DTLSServerProtocol#accept(TlsServer, DatagramTransport, DTLSRequest)}.
+ */
+public class DTLSRequest
+{
+    private final long recordSeq;
+    private final int messageSeq;
+    private final byte[] clientHello;
+
+    DTLSRequest(long recordSeq, int messageSeq, byte[] clientHello)
+    {
+        this.recordSeq = recordSeq;
+        this.messageSeq = messageSeq;
+        this.clientHello = clientHello;
+    }
+
+    long getRecordSeq()
+    {
+        return recordSeq;
+    }
+
+    int getMessageSeq()
+    {
+        return messageSeq;
+    }
+
+    byte[] getClientHello()
+    {
+        return clientHello;
+    }
+}
@@ -0,0 +1,435 @@
+package org.spongycastle.crypto.tls;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
+
+/**
+ * A DTLS server front end that lets several peers share a single, non-blocking, bound
+ * {@link DatagramChannel} (and so a single server port).
+ * <p>
+ * Datagrams are routed by peer address to per-connection {@link DatagramTransport}s. Datagrams
+ * from unknown peers are run through a {@link DTLSVerifier}, so no per-connection state is
+ * allocated until a peer has completed the stateless cookie exchange. The thread calling
+ * {@link #run()} is the only one reading from the channel; it also expires idle associations,
+ * which releases the resources of peers that stop responding mid-handshake.
+ * </p>
+ * <p>
+ * Only the receiving is shared. Each verified peer's handshake, and then its
+ * {@link DTLSConnectionHandler}, runs as a blocking task on the supplied {@link Executor}, and
+ * holds a worker thread for the whole life of the connection; retransmissions are driven by that
+ * task's receive timeouts, as for a {@link UDPTransport}. The number of concurrent connections is
+ * therefore limited by the executor: with a bounded pool, peers verified while every worker is
+ * busy wait for one (and may give up) before their handshake starts, and a peer whose task the
+ * executor rejects is dropped until it retransmits. This class is not intended for very large
+ * numbers of concurrent peers.
+ * </p>
+ */
+public class DTLSServerDemultiplexer
+    implements Runnable
+{
+    private static final int MAX_QUEUED_DATAGRAMS = 32;
+    private static final long SWEEP_INTERVAL_MILLIS = 1000L;
+
+    private final DatagramChannel channel;
+    private final int receiveLimit, sendLimit;
+    private final DTLSServerProtocol serverProtocol;
+    private final DTLSVerifier verifier;
+    private final DTLSConnectionHandler handler;
+    private final Executor executor;
+    private final Selector selector;
+
+    private final Hashtable associations = new Hashtable();
+
+    private volatile long idleTimeoutMillis = 1000L * 60 * 5;
+    private volatile boolean closed = false;
+
+    public DTLSServerDemultiplexer(DatagramChannel channel, int mtu, DTLSServerProtocol serverProtocol,
+        DTLSVerifier verifier, DTLSConnectionHandler handler, Executor executor)
+        throws IOException
+    {
+        if (channel.socket().getLocalSocketAddress() == null)
+        {
+            throw new IllegalArgumentException("'channel' must be bound");
+        }
+        if (channel.isConnected())
+        {
+            throw new IllegalArgumentException("'channel' must not be connected");
+        }
+
+        this.channel = channel;
+        this.receiveLimit = mtu - UDPTransport.MIN_IP_OVERHEAD - UDPTransport.UDP_OVERHEAD;
+        this.sendLimit = mtu - UDPTransport.MAX_IP_OVERHEAD - UDPTransport.UDP_OVERHEAD;
+        this.serverProtocol = serverProtocol;
+        this.verifier = verifier;
+        this.handler = handler;
+        this.executor = executor;
+
+        channel.configureBlocking(false);
+        this.selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+    }
+
+    public long getIdleTimeout()
+    {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Set the time after which an association that has received no datagrams is closed.
+     *
+     * @param idleTimeoutMillis the idle timeout, in milliseconds.
+     */
+    public void setIdleTimeout(long idleTimeoutMillis)
+    {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Return the number of peers that currently have a handshake in progress or an open
+     * connection.
+     */
+    public int getAssociationCount()
+    {
+        return associations.size();
+    }
+
+    public void run()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(receiveLimit);
+        long nextSweep = System.currentTimeMillis() + SWEEP_INTERVAL_MILLIS;
+
+        try
+        {
+            while (!closed)
+            {
+                selector.select(SWEEP_INTERVAL_MILLIS);
+                selector.selectedKeys().clear();
+
+                for (;;)
+                {
+                    buffer.clear();
+                    SocketAddress peerAddress = channel.receive(buffer);
+                    if (peerAddress == null)
+                    {
+                        break;
+                    }
+                    dispatch(peerAddress, buffer.array(), buffer.arrayOffset(), buffer.position());
+                }
+
+                long now = System.currentTimeMillis();
+                if (now >= nextSweep)
+                {
+                    expireIdleAssociations(now);
+                    nextSweep = now + SWEEP_INTERVAL_MILLIS;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // The channel has failed or been closed underneath us
+        }
+        finally
+        {
+            shutdown();
+        }
+    }
+
+    /**
+     * Stop reading from the channel and close all associations. The channel itself is left open.
+     */
+    public void close()
+    {
+        this.closed = true;
+        selector.wakeup();
+    }
+
+    protected void dispatch(SocketAddress peerAddress, byte[] buf, int off, int len)
+    {
+        Association association = (Association)associations.get(peerAddress);
+        if (association != null)
+        {
+            association.enqueue(Arrays.copyOfRange(buf, off, off + len));
+            return;
+        }
+
+        /*
+         * NOTE: Any HelloVerifyRequest goes out via a plain sender, so that spoofed source addresses
+         * cannot allocate associations; one is only created once a peer's cookie checks out.
+         */
+        DTLSRequest request = verifier.verifyRequest(getClientID(peerAddress), buf, off, len,
+            new PeerSender(peerAddress));
+        if (request == null)
+        {
+            return;
+        }
+
+        association = new Association(peerAddress);
+
+        try
+        {
+            executor.execute(new AcceptTask(association, request));
+        }
+        catch (RejectedExecutionException e)
+        {
+            // NOTE: No worker to run the handshake, so drop the peer; it will retransmit its ClientHello
+            return;
+        }
+
+        // the handshake task may already have failed and closed the association
+        synchronized (associations)
+        {
+            if (!association.closed)
+            {
+                associations.put(peerAddress, association);
+            }
+        }
+    }
+
+    protected byte[] getClientID(SocketAddress peerAddress)
+    {
+        if (peerAddress instanceof InetSocketAddress)
+        {
+            InetSocketAddress inetAddress = (InetSocketAddress)peerAddress;
+            byte[] address = inetAddress.getAddress().getAddress();
+            byte[] clientID = new byte[address.length + 2];
+            System.arraycopy(address, 0, clientID, 0, address.length);
+            TlsUtils.writeUint16(inetAddress.getPort(), clientID, address.length);
+            return clientID;
+        }
+        return Strings.toUTF8ByteArray(peerAddress.toString());
+    }
+
+    private void expireIdleAssociations(long now)
+    {
+        long cutoff = now - idleTimeoutMillis;
+
+        Enumeration e = snapshotAssociations().elements();
+        while (e.hasMoreElements())
+        {
+            Association association = (Association)e.nextElement();
+            if (association.lastActivity < cutoff)
+            {
+                association.close();
+            }
+        }
+    }
+
+    private void shutdown()
+    {
+        this.closed = true;
+
+        Enumeration e = snapshotAssociations().elements();
+        while (e.hasMoreElements())
+        {
+            ((Association)e.nextElement()).close();
+        }
+
+        try
+        {
+            selector.close();
+        }
+        catch (IOException e1)
+        {
+            // Ignore
+        }
+    }
+
+    private Vector snapshotAssociations()
+    {
+        synchronized (associations)
+        {
+            Vector v = new Vector(associations.size());
+            Enumeration e = associations.elements();
+            while (e.hasMoreElements())
+            {
+                v.addElement(e.nextElement());
+            }
+            return v;
+        }
+    }
+
+    private class AcceptTask
+        implements Runnable
+    {
+        private final Association association;
+        private final DTLSRequest request;
+
+        AcceptTask(Association association, DTLSRequest request)
+        {
+            this.association = association;
+            this.request = request;
+        }
+
+        public void run()
+        {
+            SocketAddress peerAddress = association.peerAddress;
+            try
+            {
+                TlsServer server = handler.createServer(peerAddress);
+                DTLSTransport transport = serverProtocol.accept(server, association, request);
+                try
+                {
+                    handler.handleConnection(peerAddress, transport);
+                }
+                finally
+                {
+                    transport.close();
+                }
+            }
+            catch (IOException e)
+            {
+                // NOTE: Failures are reported to the TlsServer via its alert callbacks
+            }
+            finally
+            {
+                association.close();
+            }
+        }
+    }
+
+    private class PeerSender
+        implements DatagramSender
+    {
+        protected final SocketAddress peerAddress;
+
+        PeerSender(SocketAddress peerAddress)
+        {
+            this.peerAddress = peerAddress;
+        }
+
+        public int getSendLimit()
+        {
+            return sendLimit;
+        }
+
+        public void send(byte[] buf, int off, int len)
+            throws IOException
+        {
+            if (len > sendLimit)
+            {
+                /*
+                 * RFC 4347 4.1.1. "If the application attempts to send a record larger than the MTU,
+                 * the DTLS implementation SHOULD generate an error, thus avoiding sending a packet
+                 * which will be fragmented."
+                 */
+                throw new TlsFatalAlert(AlertDescription.internal_error);
+            }
+
+            // NOTE: A non-blocking send may drop the datagram, which DTLS tolerates like any loss
+            channel.send(ByteBuffer.wrap(buf, off, len), peerAddress);
+        }
+    }
+
+    private class Association
+        extends PeerSender
+        implements DatagramTransport
+    {
+        private final Vector receiveQueue = new Vector();
+
+        private volatile long lastActivity = System.currentTimeMillis();
+        private volatile boolean closed = false;
+
+        Association(SocketAddress peerAddress)
+        {
+            super(peerAddress);
+        }
+
+        void enqueue(byte[] datagram)
+        {
+            synchronized (receiveQueue)
+            {
+                // NOTE: As for a socket receive buffer, excess datagrams are simply dropped
+                if (receiveQueue.size() < MAX_QUEUED_DATAGRAMS)
+                {
+                    receiveQueue.addElement(datagram);
+                    receiveQueue.notify();
+                }
+            }
+            lastActivity = System.currentTimeMillis();
+        }
+
+        public int getReceiveLimit()
+        {
+            return receiveLimit;
+        }
+
+        public int receive(byte[] buf, int off, int len, int waitMillis)
+            throws IOException
+        {
+            synchronized (receiveQueue)
+            {
+                long deadline = System.currentTimeMillis() + waitMillis;
+                while (receiveQueue.isEmpty())
+                {
+                    if (closed)
+                    {
+                        throw new IOException("DTLS association closed");
+                    }
+
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0)
+                    {
+                        return -1;
+                    }
+
+                    try
+                    {
+                        receiveQueue.wait(remaining);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("interrupted while waiting for datagram");
+                    }
+                }
+
+                byte[] datagram = (byte[])receiveQueue.remove(0);
+                int copyLength = Math.min(len, datagram.length);
+                System.arraycopy(datagram, 0, buf, off, copyLength);
+                return copyLength;
+            }
+        }
+
+        public void send(byte[] buf, int off, int len)
+            throws IOException
+        {
+            if (closed)
+            {
+                throw new IOException("DTLS association closed");
+            }
+
+            super.send(buf, off, len);
+        }
+
+        public void close()
+        {
+            synchronized (receiveQueue)
+            {
+                closed = true;
+                receiveQueue.notifyAll();
+            }
+
+            // NOTE: closed is set first, so dispatch() cannot register an association closed meanwhile
+            synchronized (associations)
+            {
+                if (associations.get(peerAddress) == this)
+                {
+                    associations.remove(peerAddress);
+                }
+            }
+        }
+    }
+}
@@ -34,6 +34,17 @@ public void setVerifyRequests(boolean verifyRequests)
 
     public DTLSTransport accept(TlsServer server, DatagramTransport transport)
         throws IOException
+    {
+        return accept(server, transport, null);
+    }
+
+    /**
+     * Accept a connection whose initial ClientHello has already been verified (see
+     * {@link DTLSVerifier}). If 'request' is null this is equivalent to
+     * {@link #accept(TlsServer, DatagramTransport)}.
+     */
+    public DTLSTransport accept(TlsServer server, DatagramTransport transport, DTLSRequest request)
+        throws IOException
     {
         if (server == null)
         {
@@ -58,11 +69,14 @@ public DTLSTransport accept(TlsServer server, DatagramTransport transport)
 
         DTLSRecordLayer recordLayer = new DTLSRecordLayer(transport, state.serverContext, server, ContentType.handshake);
 
-        // TODO Need to handle sending of HelloVerifyRequest without entering a full connection
+        if (request != null)
+        {
+            recordLayer.resetAfterHelloVerifyRequestServer(request.getRecordSeq());
+        }
 
         try
         {
-            return serverHandshake(state, recordLayer);
+            return serverHandshake(state, recordLayer, request);
         }
         catch (TlsFatalAlert fatalAlert)
         {
@@ -83,9 +97,17 @@ public DTLSTransport accept(TlsServer server, DatagramTransport transport)
 
     protected DTLSTransport serverHandshake(ServerHandshakeState state, DTLSRecordLayer recordLayer)
         throws IOException
+    {
+        return serverHandshake(state, recordLayer, null);
+    }
+
+    protected DTLSTransport serverHandshake(ServerHandshakeState state, DTLSRecordLayer recordLayer,
+        DTLSRequest request) throws IOException
     {
         SecurityParameters securityParameters = state.serverContext.getSecurityParameters();
-        DTLSReliableHandshake handshake = new DTLSReliableHandshake(state.serverContext, recordLayer);
+        DTLSReliableHandshake handshake = (request == null)
+            ? new DTLSReliableHandshake(state.serverContext, recordLayer)
+            : new DTLSReliableHandshake(state.serverContext, recordLayer, request);
 
         DTLSReliableHandshake.Message clientMessage = handshake.receiveMessage();
 
@@ -0,0 +1,192 @@
+package org.spongycastle.crypto.tls;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+
+import org.spongycastle.crypto.Mac;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.macs.HMac;
+import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.util.Arrays;
+
+/**
+ * Stateless server-side cookie exchange for DTLS (RFC 6347 4.2.1).
+ * <p>
+ * A server can run each incoming datagram from an unknown peer through
+ * {@link #verifyRequest(byte[], byte[], int, int, DatagramSender)} before allocating any
+ * per-connection state. Initial ClientHellos are answered with a HelloVerifyRequest carrying
+ * Cookie = HMAC(Secret, Client-ID, Client-Parameters); a ClientHello that echoes a valid cookie
+ * is returned as a {@link DTLSRequest} that can be passed to
+ * {@link DTLSServerProtocol#accept(TlsServer, DatagramTransport, DTLSRequest)}.
+ * </p>
+ */
+public class DTLSVerifier
+{
+    private static final int RECORD_HEADER_LENGTH = 13;
+    private static final int MESSAGE_HEADER_LENGTH = 12;
+
+    private final Mac cookieMac;
+
+    public DTLSVerifier(SecureRandom secureRandom)
+    {
+        byte[] secret = new byte[32];
+        secureRandom.nextBytes(secret);
+
+        this.cookieMac = new HMac(new SHA256Digest());
+        this.cookieMac.init(new KeyParameter(secret));
+    }
+
+    /**
+     * Check a datagram received from a peer that has no connection yet.
+     *
+     * @param clientID an encoding of the peer's transport address (e.g. IP address and port).
+     * @param data     the buffer containing the received datagram.
+     * @param dataOff  the offset of the datagram within 'data'.
+     * @param dataLen  the length of the datagram.
+     * @param sender   used to send a HelloVerifyRequest back to the peer, if needed.
+     * @return a {@link DTLSRequest} if the datagram is a ClientHello with a valid cookie, otherwise
+     *         null (after sending a HelloVerifyRequest, if the datagram was an initial ClientHello).
+     */
+    public DTLSRequest verifyRequest(byte[] clientID, byte[] data, int dataOff, int dataLen, DatagramSender sender)
+    {
+        try
+        {
+            return implVerifyRequest(clientID, data, dataOff, dataLen, sender);
+        }
+        catch (IOException e)
+        {
+            // Malformed or unexpected datagrams are silently discarded
+            return null;
+        }
+        catch (RuntimeException e)
+        {
+            return null;
+        }
+    }
+
+    protected DTLSRequest implVerifyRequest(byte[] clientID, byte[] data, int dataOff, int dataLen,
+        DatagramSender sender) throws IOException
+    {
+        /*
+         * Only a single, unfragmented, epoch 0 ClientHello in a handshake record is considered.
+         */
+        if (dataLen < RECORD_HEADER_LENGTH + MESSAGE_HEADER_LENGTH)
+        {
+            return null;
+        }
+        if (TlsUtils.readUint8(data, dataOff) != ContentType.handshake)
+        {
+            return null;
+        }
+        ProtocolVersion recordVersion = TlsUtils.readVersion(data, dataOff + 1);
+        if (!recordVersion.isDTLS())
+        {
+            return null;
+        }
+        if (TlsUtils.readUint16(data, dataOff + 3) != 0)
+        {
+            return null;
+        }
+
+        long recordSeq = TlsUtils.readUint48(data, dataOff + 5);
+
+        int recordLength = TlsUtils.readUint16(data, dataOff + 11);
+        if (RECORD_HEADER_LENGTH + recordLength > dataLen)
+        {
+            return null;
+        }
+
+        int msgOff = dataOff + RECORD_HEADER_LENGTH;
+        if (TlsUtils.readUint8(data, msgOff) != HandshakeType.client_hello)
+        {
+            return null;
+        }
+
+        int length = TlsUtils.readUint24(data, msgOff + 1);
+        int messageSeq = TlsUtils.readUint16(data, msgOff + 4);
+        int fragmentOffset = TlsUtils.readUint24(data, msgOff + 6);
+        int fragmentLength = TlsUtils.readUint24(data, msgOff + 9);
+        if (fragmentOffset != 0 || fragmentLength != length || MESSAGE_HEADER_LENGTH + length != recordLength)
+        {
+            return null;
+        }
+
+        int bodyOff = msgOff + MESSAGE_HEADER_LENGTH;
+        byte[] clientHello = Arrays.copyOfRange(data, bodyOff, bodyOff + length);
+
+        /*
+         * ClientHello: client_version(2), random(32), session_id<0..32>, cookie<0..2^8-1>, ...
+         */
+        int sessionIDPos = 34;
+        int sessionIDLength = TlsUtils.readUint8(clientHello, sessionIDPos);
+        int cookieLengthPos = sessionIDPos + 1 + sessionIDLength;
+        int cookieLength = TlsUtils.readUint8(clientHello, cookieLengthPos);
+        int cookiePos = cookieLengthPos + 1;
+        if (cookiePos + cookieLength > clientHello.length)
+        {
+            return null;
+        }
+
+        byte[] expectedCookie = calculateCookie(clientID, clientHello, cookieLengthPos, cookiePos + cookieLength);
+
+        if (cookieLength == expectedCookie.length)
+        {
+            byte[] cookie = Arrays.copyOfRange(clientHello, cookiePos, cookiePos + cookieLength);
+            if (Arrays.constantTimeAreEqual(expectedCookie, cookie))
+            {
+                return new DTLSRequest(recordSeq, messageSeq, clientHello);
+            }
+        }
+
+        sendHelloVerifyRequest(sender, recordSeq, expectedCookie);
+        return null;
+    }
+
+    protected byte[] calculateCookie(byte[] clientID, byte[] clientHello, int cookieLengthPos, int cookieEnd)
+    {
+        synchronized (cookieMac)
+        {
+            byte[] cookie = new byte[cookieMac.getMacSize()];
+            cookieMac.update(clientID, 0, clientID.length);
+            // Client-Parameters: everything in the ClientHello except the cookie itself
+            cookieMac.update(clientHello, 0, cookieLengthPos);
+            cookieMac.update(clientHello, cookieEnd, clientHello.length - cookieEnd);
+            cookieMac.doFinal(cookie, 0);
+            return cookie;
+        }
+    }
+
+    protected void sendHelloVerifyRequest(DatagramSender sender, long recordSeq, byte[] cookie) throws IOException
+    {
+        TlsUtils.checkUint8(cookie.length);
+
+        int length = 3 + cookie.length;
+
+        byte[] buf = new byte[RECORD_HEADER_LENGTH + MESSAGE_HEADER_LENGTH + length];
+        TlsUtils.writeUint8(ContentType.handshake, buf, 0);
+        TlsUtils.writeVersion(ProtocolVersion.DTLSv10, buf, 1);
+        TlsUtils.writeUint16(0, buf, 3);
+        /*
+         * RFC 6347 4.2.1. [..] the server MUST use the record sequence number in the ClientHello
+         * as the record sequence number in the HelloVerifyRequest.
+         */
+        TlsUtils.writeUint48(recordSeq, buf, 5);
+        TlsUtils.writeUint16(MESSAGE_HEADER_LENGTH + length, buf, 11);
+
+        TlsUtils.writeUint8(HandshakeType.hello_verify_request, buf, 13);
+        TlsUtils.writeUint24(length, buf, 14);
+        TlsUtils.writeUint16(0, buf, 17);
+        TlsUtils.writeUint24(0, buf, 19);
+        TlsUtils.writeUint24(length, buf, 22);
+
+        /*
+         * RFC 6347 4.2.1. DTLS 1.2 server implementations SHOULD use DTLS version 1.0 regardless
+         * of the version of TLS that is expected to be negotiated.
+         */
+        TlsUtils.writeVersion(ProtocolVersion.DTLSv10, buf, 25);
+        TlsUtils.writeUint8(cookie.length, buf, 27);
+        System.arraycopy(cookie, 0, buf, 28, cookie.length);
+
+        sender.send(buf, 0, buf.length);
+    }
+}
@@ -0,0 +1,12 @@
+package org.spongycastle.crypto.tls;
+
+import java.io.IOException;
+
+public interface DatagramSender
+{
+    int getSendLimit()
+        throws IOException;
+
+    void send(byte[] buf, int off, int len)
+        throws IOException;
+}
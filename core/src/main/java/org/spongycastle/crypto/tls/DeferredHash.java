@@ -1,38 +1,49 @@
 package org.spongycastle.crypto.tls;
 
-import java.util.Enumeration;
-import java.util.Hashtable;
-
 import org.spongycastle.crypto.Digest;
-import org.spongycastle.util.Shorts;
+import org.spongycastle.util.Memoable;
 
 /**
  * Buffers input until the hash algorithm is determined.
+ * <p>
+ * Exactly one running digest is kept per tracked hash algorithm, so tracking never rehashes the
+ * transcript. Final hashes restore a {@link Memoable} snapshot of the running digest into a
+ * scratch digest reused across calls. {@link #forkPRFHash()} and {@link #stopTracking()} hand out
+ * digests that carry on independently, so each of those still costs one copy of the digest state.
+ * </p>
  */
 class DeferredHash
     implements TlsHandshakeHash
 {
     protected static final int BUFFERING_HASH_LIMIT = 4;
 
+    private static final int HASH_SLOTS = HashAlgorithm.sha512 + 1;
+
     protected TlsContext context;
 
     private DigestInputBuffer buf;
-    private Hashtable hashes;
-    private Short prfHashAlgorithm;
+    private Digest[] hashes;
+    private int hashCount;
+    private Digest[] finalHashes;
+    private short prfHashAlgorithm;
 
     DeferredHash()
     {
         this.buf = new DigestInputBuffer();
-        this.hashes = new Hashtable();
-        this.prfHashAlgorithm = null;
+        this.hashes = new Digest[HASH_SLOTS];
+        this.hashCount = 0;
+        this.finalHashes = null;
+        this.prfHashAlgorithm = -1;
     }
 
-    private DeferredHash(Short prfHashAlgorithm, Digest prfHash)
+    private DeferredHash(short prfHashAlgorithm, Digest prfHash)
     {
         this.buf = null;
-        this.hashes = new Hashtable();
+        this.hashes = new Digest[HASH_SLOTS];
+        this.hashCount = 1;
+        this.finalHashes = null;
         this.prfHashAlgorithm = prfHashAlgorithm;
-        hashes.put(prfHashAlgorithm, prfHash);
+        hashes[prfHashAlgorithm] = prfHash;
     }
 
     public void init(TlsContext context)
@@ -51,7 +62,7 @@ public TlsHandshakeHash notifyPRFDetermined()
             return legacyHash.notifyPRFDetermined();
         }
 
-        this.prfHashAlgorithm = Shorts.valueOf(TlsUtils.getHashAlgorithmForPRFAlgorithm(prfAlgorithm));
+        this.prfHashAlgorithm = TlsUtils.getHashAlgorithmForPRFAlgorithm(prfAlgorithm);
 
         checkTrackingHash(prfHashAlgorithm);
 
@@ -65,7 +76,7 @@ public void trackHashAlgorithm(short hashAlgorithm)
             throw new IllegalStateException("Too late to track more hash algorithms");
         }
 
-        checkTrackingHash(Shorts.valueOf(hashAlgorithm));
+        checkTrackingHash(hashAlgorithm);
     }
 
     public void sealHashAlgorithms()
@@ -73,9 +84,12 @@ public void sealHashAlgorithms()
         checkStopBuffering();
     }
 
+    /**
+     * Return a handshake hash carrying on from a copy of the PRF digest only.
+     */
     public TlsHandshakeHash stopTracking()
     {
-        Digest prfHash = TlsUtils.cloneHash(prfHashAlgorithm.shortValue(), (Digest)hashes.get(prfHashAlgorithm));
+        Digest prfHash = TlsUtils.cloneHash(prfHashAlgorithm, hashes[prfHashAlgorithm]);
         if (buf != null)
         {
             buf.updateDigest(prfHash);
@@ -85,36 +99,59 @@ public TlsHandshakeHash stopTracking()
         return result;
     }
 
+    /**
+     * Return an independent digest of the transcript so far under the PRF hash algorithm. Once
+     * buffering has stopped this is a copy of the running digest's state.
+     */
     public Digest forkPRFHash()
     {
         checkStopBuffering();
 
         if (buf != null)
         {
-            Digest prfHash = TlsUtils.createHash(prfHashAlgorithm.shortValue());
+            Digest prfHash = TlsUtils.createHash(prfHashAlgorithm);
             buf.updateDigest(prfHash);
             return prfHash;
         }
 
-        return TlsUtils.cloneHash(prfHashAlgorithm.shortValue(), (Digest)hashes.get(prfHashAlgorithm));
+        return TlsUtils.cloneHash(prfHashAlgorithm, hashes[prfHashAlgorithm]);
     }
 
     public byte[] getFinalHash(short hashAlgorithm)
     {
-        Digest d = (Digest)hashes.get(Shorts.valueOf(hashAlgorithm));
+        Digest d = isValidSlot(hashAlgorithm) ? hashes[hashAlgorithm] : null;
         if (d == null)
         {
             throw new IllegalStateException("HashAlgorithm." + HashAlgorithm.getText(hashAlgorithm) + " is not being tracked");
         }
 
-        d = TlsUtils.cloneHash(hashAlgorithm, d);
+        /*
+         * Restore a snapshot of the running digest into a scratch instance that is reused across
+         * calls, rather than allocating a full copy each time.
+         */
+        if (finalHashes == null)
+        {
+            finalHashes = new Digest[HASH_SLOTS];
+        }
+
+        Digest f = finalHashes[hashAlgorithm];
+        if (f == null)
+        {
+            f = TlsUtils.cloneHash(hashAlgorithm, d);
+            finalHashes[hashAlgorithm] = f;
+        }
+        else
+        {
+            ((Memoable)f).reset((Memoable)d);
+        }
+
         if (buf != null)
         {
-            buf.updateDigest(d);
+            buf.updateDigest(f);
         }
 
-        byte[] bs = new byte[d.getDigestSize()];
-        d.doFinal(bs, 0);
+        byte[] bs = new byte[f.getDigestSize()];
+        f.doFinal(bs, 0);
         return bs;
     }
 
@@ -136,11 +173,13 @@ public void update(byte input)
             return;
         }
 
-        Enumeration e = hashes.elements();
-        while (e.hasMoreElements())
+        for (int i = 0; i < HASH_SLOTS; ++i)
         {
-            Digest hash = (Digest)e.nextElement();
-            hash.update(input);
+            Digest hash = hashes[i];
+            if (hash != null)
+            {
+                hash.update(input);
+            }
         }
     }
 
@@ -152,11 +191,13 @@ public void update(byte[] input, int inOff, int len)
             return;
         }
 
-        Enumeration e = hashes.elements();
-        while (e.hasMoreElements())
+        for (int i = 0; i < HASH_SLOTS; ++i)
         {
-            Digest hash = (Digest)e.nextElement();
-            hash.update(input, inOff, len);
+            Digest hash = hashes[i];
+            if (hash != null)
+            {
+                hash.update(input, inOff, len);
+            }
         }
     }
 
@@ -173,35 +214,49 @@ public void reset()
             return;
         }
 
-        Enumeration e = hashes.elements();
-        while (e.hasMoreElements())
+        for (int i = 0; i < HASH_SLOTS; ++i)
         {
-            Digest hash = (Digest)e.nextElement();
-            hash.reset();
+            Digest hash = hashes[i];
+            if (hash != null)
+            {
+                hash.reset();
+            }
         }
     }
 
     protected void checkStopBuffering()
     {
-        if (buf != null && hashes.size() <= BUFFERING_HASH_LIMIT)
+        if (buf != null && hashCount <= BUFFERING_HASH_LIMIT)
         {
-            Enumeration e = hashes.elements();
-            while (e.hasMoreElements())
+            for (int i = 0; i < HASH_SLOTS; ++i)
             {
-                Digest hash = (Digest)e.nextElement();
-                buf.updateDigest(hash);
+                Digest hash = hashes[i];
+                if (hash != null)
+                {
+                    buf.updateDigest(hash);
+                }
             }
 
             this.buf = null;
         }
     }
 
-    protected void checkTrackingHash(Short hashAlgorithm)
+    protected void checkTrackingHash(short hashAlgorithm)
     {
-        if (!hashes.containsKey(hashAlgorithm))
+        if (!isValidSlot(hashAlgorithm))
         {
-            Digest hash = TlsUtils.createHash(hashAlgorithm.shortValue());
-            hashes.put(hashAlgorithm, hash);
+            throw new IllegalArgumentException("unknown HashAlgorithm");
         }
+
+        if (hashes[hashAlgorithm] == null)
+        {
+            hashes[hashAlgorithm] = TlsUtils.createHash(hashAlgorithm);
+            ++hashCount;
+        }
+    }
+
+    private static boolean isValidSlot(short hashAlgorithm)
+    {
+        return hashAlgorithm > HashAlgorithm.none && hashAlgorithm < HASH_SLOTS;
     }
 }
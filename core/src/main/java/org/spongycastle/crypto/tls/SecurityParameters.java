@@ -22,6 +22,10 @@
     boolean encryptThenMAC = false;
     boolean extendedMasterSecret = false;
 
+    // PRF keyed with the current master secret, shared by all outputs derived from it
+    private TlsPRF masterSecretPRF = null;
+    private byte[] masterSecretPRFKey = null;
+
     void clear()
     {
         if (this.masterSecret != null)
@@ -29,6 +33,18 @@ void clear()
             Arrays.fill(this.masterSecret, (byte)0);
             this.masterSecret = null;
         }
+        this.masterSecretPRF = null;
+        this.masterSecretPRFKey = null;
+    }
+
+    synchronized TlsPRF getMasterSecretPRF()
+    {
+        if (masterSecretPRF == null || masterSecretPRFKey != masterSecret)
+        {
+            this.masterSecretPRF = new TlsPRF(prfAlgorithm, masterSecret);
+            this.masterSecretPRFKey = masterSecret;
+        }
+        return masterSecretPRF;
     }
 
     /**
@@ -0,0 +1,95 @@
+package org.spongycastle.crypto.tls;
+
+import org.spongycastle.crypto.Mac;
+import org.spongycastle.crypto.macs.HMac;
+import org.spongycastle.crypto.params.KeyParameter;
+
+/**
+ * The TLS pseudo-random function (RFC 5246 5, RFC 2246 5) bound to a single secret.
+ * <p>
+ * The HMAC key schedule (the inner and outer pad states) is computed once, when the secret is
+ * set, so each output derived from the same master secret (key block, verify_data, exported keying
+ * material) costs only the P_hash iterations themselves. The label and seed are fed to the MAC
+ * separately, so no label||seed buffer is built.
+ * </p>
+ */
+class TlsPRF
+{
+    private final Mac mac1, mac2;
+
+    TlsPRF(int prfAlgorithm, byte[] secret)
+    {
+        if (prfAlgorithm == PRFAlgorithm.tls_prf_legacy)
+        {
+            int s_half = (secret.length + 1) / 2;
+
+            this.mac1 = new HMac(TlsUtils.createHash(HashAlgorithm.md5));
+            this.mac1.init(new KeyParameter(secret, 0, s_half));
+
+            this.mac2 = new HMac(TlsUtils.createHash(HashAlgorithm.sha1));
+            this.mac2.init(new KeyParameter(secret, secret.length - s_half, s_half));
+        }
+        else
+        {
+            this.mac1 = new HMac(TlsUtils.createPRFHash(prfAlgorithm));
+            this.mac1.init(new KeyParameter(secret));
+
+            this.mac2 = null;
+        }
+    }
+
+    synchronized byte[] generate(byte[] label, byte[] seed, int size)
+    {
+        byte[] out = new byte[size];
+        p_hash(mac1, label, seed, out);
+
+        if (mac2 != null)
+        {
+            byte[] out2 = new byte[size];
+            p_hash(mac2, label, seed, out2);
+            for (int i = 0; i < size; ++i)
+            {
+                out[i] ^= out2[i];
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * P_hash(secret, label + seed), for a MAC already keyed with the secret.
+     */
+    static void p_hash(Mac mac, byte[] label, byte[] seed, byte[] out)
+    {
+        int size = mac.getMacSize();
+        byte[] a = new byte[size];
+        byte[] buf = new byte[size];
+
+        // A(1) = HMAC_hash(secret, label + seed)
+        mac.update(label, 0, label.length);
+        mac.update(seed, 0, seed.length);
+        mac.doFinal(a, 0);
+
+        int pos = 0;
+        for (;;)
+        {
+            mac.update(a, 0, size);
+            mac.update(label, 0, label.length);
+            mac.update(seed, 0, seed.length);
+            mac.doFinal(buf, 0);
+
+            int count = Math.min(size, out.length - pos);
+            System.arraycopy(buf, 0, out, pos, count);
+            pos += count;
+
+            if (pos >= out.length)
+            {
+                break;
+            }
+
+            // A(i) = HMAC_hash(secret, A(i-1))
+            mac.update(a, 0, size);
+            mac.doFinal(a, 0);
+        }
+    }
+}
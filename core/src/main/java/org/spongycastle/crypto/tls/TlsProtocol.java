@@ -87,6 +87,8 @@
     protected boolean blocking;
     protected ByteQueueInputStream inputBuffers;
     protected ByteQueueOutputStream outputBuffer;
+
+    private volatile DelegatedTask delegatedTask = null;
     
     public TlsProtocol(InputStream input, OutputStream output, SecureRandom secureRandom)
     {
@@ -117,6 +119,19 @@ protected void handleChangeCipherSpecMessage() throws IOException
     protected abstract void handleHandshakeMessage(short type, byte[] buf)
         throws IOException;
 
+    /**
+     * In non-blocking mode, decide whether the handling of a received handshake message should be
+     * handed to the application as a delegated task (see {@link #getDelegatedTask()}) instead of
+     * being performed inline.
+     *
+     * @param type the {@link HandshakeType} of the received message.
+     * @return true if the message should be handled by a delegated task.
+     */
+    protected boolean shouldDelegateHandshakeMessage(short type)
+    {
+        return false;
+    }
+
     protected void handleWarningMessage(short description)
         throws IOException
     {
@@ -296,6 +311,11 @@ protected void processRecord(short protocol, byte[] buf, int offset, int len)
     private void processHandshake()
         throws IOException
     {
+        if (delegatedTask != null)
+        {
+            return;
+        }
+
         boolean read;
         do
         {
@@ -349,8 +369,15 @@ private void processHandshake()
                     }
 
                     /*
-                     * Now, parse the message.
+                     * Now, parse the message, unless it is to be handled by a delegated task, in
+                     * which case processing stops until that task has completed.
                      */
+                    if (!blocking && shouldDelegateHandshakeMessage(type))
+                    {
+                        this.delegatedTask = new DelegatedTask(type, buf);
+                        break;
+                    }
+
                     handleHandshakeMessage(type, buf);
                     read = true;
                 }
@@ -697,8 +724,20 @@ public void offerInput(byte[] input) throws IOException
         
         inputBuffers.addBytes(input);
 
+        DelegatedTask task = this.delegatedTask;
+        if (task != null)
+        {
+            if (!task.isComplete())
+            {
+                // Input is only buffered until the outstanding delegated task has completed
+                return;
+            }
+
+            resumeAfterDelegatedTask(task);
+        }
+
         // loop while there are enough bytes to read the length of the next record
-        while (inputBuffers.available() >= RecordStream.TLS_HEADER_SIZE)
+        while (this.delegatedTask == null && inputBuffers.available() >= RecordStream.TLS_HEADER_SIZE)
         {
             byte[] header = new byte[RecordStream.TLS_HEADER_SIZE];
             inputBuffers.peek(header);
@@ -714,6 +753,84 @@ public void offerInput(byte[] input) throws IOException
         }
     }
 
+    /**
+     * Return the task, if any, that the handshake is waiting on. Only allowed in non-blocking mode.<br>
+     * <br>
+     * When a peer has enabled delegation of expensive handshake steps (see
+     * {@link TlsServerProtocol#setDelegatePrivateKeyOperations(boolean)}), processing of the
+     * handshake is suspended at such a step and a task is returned here, once. The task may be run
+     * on any thread (e.g. a worker pool), while this object is left alone except for further calls
+     * to {@link #offerInput(byte[])}, which will only buffer the input. Once the task has returned,
+     * call {@link #offerInput(byte[])} (with an empty array if there is no new input) to resume
+     * the handshake, then check for available output as usual.
+     *
+     * @return a task to run, or null if the handshake is not waiting on a delegated task.
+     */
+    public Runnable getDelegatedTask()
+    {
+        if (blocking)
+        {
+            throw new IllegalStateException("Cannot use getDelegatedTask() in blocking mode!");
+        }
+
+        DelegatedTask task = this.delegatedTask;
+        if (task == null || !task.claim())
+        {
+            return null;
+        }
+        return task;
+    }
+
+    private void resumeAfterDelegatedTask(DelegatedTask task)
+        throws IOException
+    {
+        this.delegatedTask = null;
+
+        try
+        {
+            Throwable failure = task.getFailure();
+            if (failure instanceof IOException)
+            {
+                throw (IOException)failure;
+            }
+            if (failure instanceof RuntimeException)
+            {
+                throw (RuntimeException)failure;
+            }
+            if (failure != null)
+            {
+                throw new TlsFatalAlert(AlertDescription.internal_error, failure);
+            }
+
+            // Continue with any handshake messages that arrived along with the delegated one
+            processHandshake();
+        }
+        catch (TlsFatalAlert e)
+        {
+            if (!closed)
+            {
+                this.failWithError(AlertLevel.fatal, e.getAlertDescription(), "Failed to process handshake", e);
+            }
+            throw e;
+        }
+        catch (IOException e)
+        {
+            if (!closed)
+            {
+                this.failWithError(AlertLevel.fatal, AlertDescription.internal_error, "Failed to process handshake", e);
+            }
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            if (!closed)
+            {
+                this.failWithError(AlertLevel.fatal, AlertDescription.internal_error, "Failed to process handshake", e);
+            }
+            throw e;
+        }
+    }
+
     /**
      * Gets the amount of received application data. A call to {@link #readInput(byte[], int, int)}
      * is guaranteed to be able to return at least this much data.<br>
@@ -805,7 +922,13 @@ public int getAvailableOutputBytes()
         {
             throw new IllegalStateException("Cannot use getAvailableOutputBytes() in blocking mode! Use getOutputStream() instead.");
         }
-        
+
+        // NOTE: A delegated task may be writing to the output buffer
+        if (delegatedTask != null)
+        {
+            return 0;
+        }
+
         return outputBuffer.getBuffer().available();
     }
 
@@ -1408,6 +1531,59 @@ protected static int getPRFAlgorithm(TlsContext context, int ciphersuite) throws
         }
     }
 
+    class DelegatedTask
+        implements Runnable
+    {
+        private final short type;
+        private final byte[] buf;
+
+        private boolean claimed = false;
+        private volatile boolean complete = false;
+        private volatile Throwable failure = null;
+
+        DelegatedTask(short type, byte[] buf)
+        {
+            this.type = type;
+            this.buf = buf;
+        }
+
+        synchronized boolean claim()
+        {
+            if (claimed)
+            {
+                return false;
+            }
+            claimed = true;
+            return true;
+        }
+
+        boolean isComplete()
+        {
+            return complete;
+        }
+
+        Throwable getFailure()
+        {
+            return failure;
+        }
+
+        public void run()
+        {
+            try
+            {
+                handleHandshakeMessage(type, buf);
+            }
+            catch (Throwable t)
+            {
+                this.failure = t;
+            }
+            finally
+            {
+                this.complete = true;
+            }
+        }
+    }
+
     class HandshakeMessage extends ByteArrayOutputStream
     {
         HandshakeMessage(short handshakeType) throws IOException
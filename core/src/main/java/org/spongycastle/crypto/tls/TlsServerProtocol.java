@@ -25,6 +25,8 @@
     protected short clientCertificateType = -1;
     protected TlsHandshakeHash prepareFinishHash = null;
 
+    protected boolean delegatePrivateKeyOperations = false;
+
     /**
      * Constructor for blocking mode.
      * @param input The stream of data from the client
@@ -96,6 +98,46 @@ public void accept(TlsServer tlsServer)
         blockForHandshake();
     }
 
+    /**
+     * Non-blocking mode only: hand the handshake steps that use the server's private key to the
+     * application as delegated tasks, instead of performing them inside {@link #offerInput(byte[])}.
+     * <p>
+     * These are the handling of the ClientHello (which includes generating and signing the
+     * ServerKeyExchange) and of the ClientKeyExchange (which includes decrypting or agreeing the
+     * pre-master secret). When one of these messages is received the handshake is suspended, and
+     * {@link #getDelegatedTask()} returns a task that can be run on a worker pool, so that an event
+     * loop thread is not stalled by private key operations.
+     * </p>
+     *
+     * @param delegatePrivateKeyOperations true to enable delegated tasks.
+     */
+    public void setDelegatePrivateKeyOperations(boolean delegatePrivateKeyOperations)
+    {
+        if (blocking)
+        {
+            throw new IllegalStateException("Delegated tasks are only supported in non-blocking mode");
+        }
+
+        this.delegatePrivateKeyOperations = delegatePrivateKeyOperations;
+    }
+
+    protected boolean shouldDelegateHandshakeMessage(short type)
+    {
+        if (!delegatePrivateKeyOperations)
+        {
+            return false;
+        }
+
+        switch (type)
+        {
+        case HandshakeType.client_hello:
+        case HandshakeType.client_key_exchange:
+            return true;
+        default:
+            return false;
+        }
+    }
+
     protected void cleanupHandshake()
     {
         super.cleanupHandshake();
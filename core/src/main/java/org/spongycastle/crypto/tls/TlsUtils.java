@@ -35,6 +35,7 @@
 import org.spongycastle.crypto.util.PublicKeyFactory;
 import org.spongycastle.util.Arrays;
 import org.spongycastle.util.Integers;
+import org.spongycastle.util.Memoable;
 import org.spongycastle.util.Strings;
 import org.spongycastle.util.io.Streams;
 
@@ -951,46 +952,29 @@ public static byte[] PRF(TlsContext context, byte[] secret, String asciiLabel, b
         }
 
         byte[] label = Strings.toByteArray(asciiLabel);
-        byte[] labelSeed = concat(label, seed);
 
-        int prfAlgorithm = context.getSecurityParameters().getPrfAlgorithm();
+        SecurityParameters securityParameters = context.getSecurityParameters();
 
-        if (prfAlgorithm == PRFAlgorithm.tls_prf_legacy)
-        {
-            return PRF_legacy(secret, label, labelSeed, size);
-        }
+        /*
+         * Outputs keyed by the master secret share one precomputed HMAC key schedule
+         */
+        TlsPRF prf = (secret == securityParameters.masterSecret)
+            ?   securityParameters.getMasterSecretPRF()
+            :   new TlsPRF(securityParameters.getPrfAlgorithm(), secret);
 
-        Digest prfDigest = createPRFHash(prfAlgorithm);
-        byte[] buf = new byte[size];
-        hmac_hash(prfDigest, secret, labelSeed, buf);
-        return buf;
+        return prf.generate(label, seed, size);
     }
 
     public static byte[] PRF_legacy(byte[] secret, String asciiLabel, byte[] seed, int size)
     {
         byte[] label = Strings.toByteArray(asciiLabel);
-        byte[] labelSeed = concat(label, seed);
 
-        return PRF_legacy(secret, label, labelSeed, size);
+        return new TlsPRF(PRFAlgorithm.tls_prf_legacy, secret).generate(label, seed, size);
     }
 
     static byte[] PRF_legacy(byte[] secret, byte[] label, byte[] labelSeed, int size)
     {
-        int s_half = (secret.length + 1) / 2;
-        byte[] s1 = new byte[s_half];
-        byte[] s2 = new byte[s_half];
-        System.arraycopy(secret, 0, s1, 0, s_half);
-        System.arraycopy(secret, secret.length - s_half, s2, 0, s_half);
-
-        byte[] b1 = new byte[size];
-        byte[] b2 = new byte[size];
-        hmac_hash(createHash(HashAlgorithm.md5), s1, labelSeed, b1);
-        hmac_hash(createHash(HashAlgorithm.sha1), s2, labelSeed, b2);
-        for (int i = 0; i < size; i++)
-        {
-            b1[i] ^= b2[i];
-        }
-        return b1;
+        return new TlsPRF(PRFAlgorithm.tls_prf_legacy, secret).generate(EMPTY_BYTES, labelSeed, size);
     }
 
     static byte[] concat(byte[] a, byte[] b)
@@ -1005,21 +989,7 @@ static void hmac_hash(Digest digest, byte[] secret, byte[] seed, byte[] out)
     {
         HMac mac = new HMac(digest);
         mac.init(new KeyParameter(secret));
-        byte[] a = seed;
-        int size = digest.getDigestSize();
-        int iterations = (out.length + size - 1) / size;
-        byte[] buf = new byte[mac.getMacSize()];
-        byte[] buf2 = new byte[mac.getMacSize()];
-        for (int i = 0; i < iterations; i++)
-        {
-            mac.update(a, 0, a.length);
-            mac.doFinal(buf, 0);
-            a = buf;
-            mac.update(a, 0, a.length);
-            mac.update(seed, 0, seed.length);
-            mac.doFinal(buf2, 0);
-            System.arraycopy(buf2, 0, out, (size * i), Math.min(size, out.length - (size * i)));
-        }
+        TlsPRF.p_hash(mac, EMPTY_BYTES, seed, out);
     }
 
     static void validateKeyUsage(org.spongycastle.asn1.x509.Certificate c, int keyUsageBits)
@@ -1186,17 +1156,12 @@ public static Digest cloneHash(short hashAlgorithm, Digest hash)
         switch (hashAlgorithm)
         {
         case HashAlgorithm.md5:
-            return new MD5Digest((MD5Digest)hash);
         case HashAlgorithm.sha1:
-            return new SHA1Digest((SHA1Digest)hash);
         case HashAlgorithm.sha224:
-            return new SHA224Digest((SHA224Digest)hash);
         case HashAlgorithm.sha256:
-            return new SHA256Digest((SHA256Digest)hash);
         case HashAlgorithm.sha384:
-            return new SHA384Digest((SHA384Digest)hash);
         case HashAlgorithm.sha512:
-            return new SHA512Digest((SHA512Digest)hash);
+            return (Digest)((Memoable)hash).copy();
         default:
             throw new IllegalArgumentException("unknown HashAlgorithm");
         }
@@ -41,6 +41,7 @@
 import org.spongycastle.crypto.params.ElGamalParameters;
 import org.spongycastle.crypto.params.ElGamalPublicKeyParameters;
 import org.spongycastle.crypto.params.RSAKeyParameters;
+import org.spongycastle.math.ec.ECPointCache;
 
 /**
  * Factory to create asymmetric public key parameters for asymmetric ciphers from range of
@@ -80,6 +81,20 @@ public static AsymmetricKeyParameter createKey(InputStream inStr) throws IOExcep
      * @throws IOException on an error decoding the key
      */
     public static AsymmetricKeyParameter createKey(SubjectPublicKeyInfo keyInfo) throws IOException
+    {
+        return createKey(keyInfo, null);
+    }
+
+    /**
+     * Create a public key from the passed in SubjectPublicKeyInfo, taking EC public points from
+     * the passed in cache where they have been decoded before.
+     * 
+     * @param keyInfo the SubjectPublicKeyInfo containing the key data
+     * @param pointCache the cache to decode EC points through, null if none.
+     * @return the appropriate key parameter
+     * @throws IOException on an error decoding the key
+     */
+    public static AsymmetricKeyParameter createKey(SubjectPublicKeyInfo keyInfo, ECPointCache pointCache) throws IOException
     {
         AlgorithmIdentifier algId = keyInfo.getAlgorithm();
 
@@ -182,6 +197,11 @@ else if (algId.getAlgorithm().equals(X9ObjectIdentifiers.id_ecPublicKey))
                          x9.getCurve(), x9.getG(), x9.getN(), x9.getH(), x9.getSeed());
             }
 
+            if (pointCache != null)
+            {
+                return new ECPublicKeyParameters(pointCache.decodePoint(x9.getCurve(), keyInfo.getPublicKeyData().getBytes()), dParams);
+            }
+
             ASN1OctetString key = new DEROctetString(keyInfo.getPublicKeyData().getBytes());
             X9ECPoint derQ = new X9ECPoint(x9.getCurve(), key);
 
@@ -0,0 +1,205 @@
+package org.spongycastle.math;
+
+import java.math.BigInteger;
+
+import org.spongycastle.math.raw.Mod;
+import org.spongycastle.math.raw.Mont;
+import org.spongycastle.math.raw.Nat;
+
+/**
+ * Exponentiation of a fixed base modulo an odd modulus, using a precomputed comb (Lim and Lee,
+ * "More Flexible Exponentiation with Precomputation", CRYPTO '94) held in Montgomery form.
+ * <p>
+ * The exponent bits are laid out in width rows, each split into blocks, with a table of the
+ * 2^width combinations of the base raised to the row offsets for each block. An exponent of up
+ * to maxBits bits then costs about maxBits / (width * blocks) squarings and maxBits / width
+ * multiplications, against the maxBits squarings of a general exponentiation. Larger exponents
+ * are passed to {@link BigInteger#modPow(BigInteger, BigInteger)}.
+ * </p>
+ */
+public class FixedBaseComb
+{
+    private static final int BLOCKS = 4;
+
+    private final BigInteger modulus;
+    private final BigInteger base;
+    private final int maxBits;
+
+    private final int len;
+    private final int[] m;
+    private final int mInv32;
+    private final int[] one;
+
+    private final int width;
+    private final int rowBits;
+    private final int blocks;
+    private final int blockBits;
+    private final int[][][] table;
+
+    /**
+     * Build the comb for a base and modulus.
+     *
+     * @param modulus the modulus, which must be odd.
+     * @param base the fixed base.
+     * @param maxBits the largest exponent length, in bits, to use the comb for.
+     */
+    public FixedBaseComb(BigInteger modulus, BigInteger base, int maxBits)
+    {
+        if (modulus == null || modulus.signum() <= 0 || !modulus.testBit(0) || modulus.bitLength() < 2)
+        {
+            throw new IllegalArgumentException("'modulus' must be odd and greater than 1");
+        }
+        if (maxBits < 1)
+        {
+            throw new IllegalArgumentException("'maxBits' must be > 0");
+        }
+
+        this.modulus = modulus;
+        this.base = base.mod(modulus);
+        this.maxBits = maxBits;
+
+        this.len = (modulus.bitLength() + 31) >>> 5;
+        int bits = len << 5;
+
+        this.m = Nat.fromBigInteger(bits, modulus);
+        this.mInv32 = -Mod.inverse32(m[0]);
+
+        BigInteger r = BigInteger.valueOf(1).shiftLeft(bits).mod(modulus);
+        this.one = Nat.fromBigInteger(bits, r);
+        int[] r2 = Nat.fromBigInteger(bits, r.multiply(r).mod(modulus));
+
+        this.width = getWidth(maxBits);
+        this.rowBits = (maxBits + width - 1) / width;
+        this.blockBits = (rowBits + BLOCKS - 1) / BLOCKS;
+        this.blocks = (rowBits + blockBits - 1) / blockBits;
+
+        /*
+         * The base raised to 2^(row * rowBits + block * blockBits) for each row and block, stepped
+         * along with BigInteger.modPow, then taken into Montgomery form.
+         */
+        int[][][] pow2 = new int[blocks][width][];
+        BigInteger x = this.base;
+        int pos = 0;
+        for (int row = 0; row < width; ++row)
+        {
+            for (int block = 0; block < blocks; ++block)
+            {
+                int target = row * rowBits + block * blockBits;
+                if (target > pos)
+                {
+                    x = x.modPow(BigInteger.valueOf(1).shiftLeft(target - pos), modulus);
+                    pos = target;
+                }
+                pow2[block][row] = toMont(x, r2);
+            }
+        }
+
+        int n = 1 << width;
+        this.table = new int[blocks][n][];
+        for (int block = 0; block < blocks; ++block)
+        {
+            int[][] lookupTable = table[block];
+            lookupTable[0] = one;
+
+            for (int bit = width - 1; bit >= 0; --bit)
+            {
+                int[] p = pow2[block][bit];
+
+                int step = 1 << bit;
+                for (int i = step; i < n; i += (step << 1))
+                {
+                    lookupTable[i] = multiply(lookupTable[i - step], p);
+                }
+            }
+        }
+    }
+
+    public BigInteger getModulus()
+    {
+        return modulus;
+    }
+
+    public BigInteger getBase()
+    {
+        return base;
+    }
+
+    public int getMaxBits()
+    {
+        return maxBits;
+    }
+
+    /**
+     * Return base^exponent mod modulus.
+     *
+     * @param exponent a non-negative exponent.
+     * @return the result of the exponentiation.
+     */
+    public BigInteger modPow(BigInteger exponent)
+    {
+        if (exponent.signum() < 0)
+        {
+            throw new IllegalArgumentException("'exponent' cannot be negative");
+        }
+        if (exponent.bitLength() > maxBits)
+        {
+            return base.modPow(exponent, modulus);
+        }
+
+        int[] e = Nat.fromBigInteger(((rowBits * width + 31) >>> 5) << 5, exponent);
+
+        int[] acc = Nat.copy(len, one);
+        int[] t = Nat.create(len);
+
+        for (int i = blockBits - 1; i >= 0; --i)
+        {
+            if (i < blockBits - 1)
+            {
+                Nat.zero(len, t);
+                Mont.multAdd(len, acc, acc, t, m, mInv32);
+                int[] swap = acc; acc = t; t = swap;
+            }
+
+            for (int block = blocks - 1; block >= 0; --block)
+            {
+                int offset = block * blockBits + i;
+                if (offset >= rowBits)
+                {
+                    continue;
+                }
+
+                int index = 0;
+                for (int bit = offset + (width - 1) * rowBits; bit >= 0; bit -= rowBits)
+                {
+                    index = (index << 1) | ((e[bit >>> 5] >>> (bit & 31)) & 1);
+                }
+
+                Nat.zero(len, t);
+                Mont.multAdd(len, acc, table[block][index], t, m, mInv32);
+                int[] swap = acc; acc = t; t = swap;
+            }
+        }
+
+        Mont.reduce(len, acc, m, mInv32);
+        return Nat.toBigInteger(len, acc);
+    }
+
+    private int[] toMont(BigInteger x, int[] r2)
+    {
+        int[] z = Nat.create(len);
+        Mont.multAdd(len, Nat.fromBigInteger(len << 5, x), r2, z, m, mInv32);
+        return z;
+    }
+
+    private int[] multiply(int[] x, int[] y)
+    {
+        int[] z = Nat.create(len);
+        Mont.multAdd(len, x, y, z, m, mInv32);
+        return z;
+    }
+
+    private static int getWidth(int maxBits)
+    {
+        return maxBits > 512 ? 8 : maxBits > 128 ? 6 : 4;
+    }
+}
@@ -0,0 +1,177 @@
+package org.spongycastle.math;
+
+import java.math.BigInteger;
+
+/**
+ * A sieve over a run of consecutive odd numbers, for incremental prime searches. The small odd
+ * primes below {@link #SIEVE_LIMIT} are sieved out of the whole run at once, which costs one
+ * remainder per few primes for the run rather than a trial division per candidate, and the
+ * survivors are then returned in order for full primality testing.
+ * <p>
+ * In safe prime mode a candidate q is also sieved out if 2q + 1 has a small factor, so the
+ * survivors are candidates for the smaller prime of a safe prime pair.
+ * </p>
+ */
+public class PrimeSieve
+{
+    /**
+     * The odd primes less than this value are sieved out.
+     */
+    public static final int SIEVE_LIMIT = 1 << 12;
+
+    private static final int[] PRIMES;
+    private static final BigInteger[] PRODUCTS;
+    private static final int[] PRODUCT_ENDS;
+
+    static
+    {
+        boolean[] composite = new boolean[SIEVE_LIMIT];
+        int count = 0;
+        for (int i = 3; i < SIEVE_LIMIT; i += 2)
+        {
+            if (!composite[i])
+            {
+                ++count;
+                for (int j = i * i; j < SIEVE_LIMIT; j += 2 * i)
+                {
+                    composite[j] = true;
+                }
+            }
+        }
+
+        PRIMES = new int[count];
+        for (int i = 3, pos = 0; i < SIEVE_LIMIT; i += 2)
+        {
+            if (!composite[i])
+            {
+                PRIMES[pos++] = i;
+            }
+        }
+
+        /*
+         * Bundle the primes into ~31-bit moduli, so that one BigInteger remainder serves several.
+         */
+        int[] ends = new int[count];
+        long[] products = new long[count];
+        int groups = 0;
+        long product = 1;
+        for (int i = 0; i < count; ++i)
+        {
+            if (product * PRIMES[i] > Integer.MAX_VALUE)
+            {
+                products[groups] = product;
+                ends[groups++] = i;
+                product = 1;
+            }
+            product *= PRIMES[i];
+        }
+        products[groups] = product;
+        ends[groups++] = count;
+
+        PRODUCTS = new BigInteger[groups];
+        PRODUCT_ENDS = new int[groups];
+        for (int i = 0; i < groups; ++i)
+        {
+            PRODUCTS[i] = BigInteger.valueOf(products[i]);
+            PRODUCT_ENDS[i] = ends[i];
+        }
+    }
+
+    private final BigInteger start;
+    private final boolean[] composite;
+    private int position = 0;
+
+    /**
+     * Sieve the odd numbers start, start + 2, ..., start + 2 * (count - 1).
+     *
+     * @param start the first number of the run, which must be odd and greater than
+     *            {@link #SIEVE_LIMIT}.
+     * @param count the number of odd numbers in the run.
+     */
+    public PrimeSieve(BigInteger start, int count)
+    {
+        this(start, count, false);
+    }
+
+    /**
+     * Sieve the odd numbers start, start + 2, ..., start + 2 * (count - 1).
+     *
+     * @param start the first number of the run, which must be odd and greater than
+     *            {@link #SIEVE_LIMIT}.
+     * @param count the number of odd numbers in the run.
+     * @param safePrime if true, also sieve out any q for which 2q + 1 has a small factor.
+     */
+    public PrimeSieve(BigInteger start, int count, boolean safePrime)
+    {
+        if (start == null || !start.testBit(0) || start.bitLength() <= 12)
+        {
+            throw new IllegalArgumentException("'start' must be odd and greater than SIEVE_LIMIT");
+        }
+        if (count < 1)
+        {
+            throw new IllegalArgumentException("'count' must be > 0");
+        }
+
+        this.start = start;
+        this.composite = new boolean[count];
+
+        int i = 0;
+        for (int g = 0; g < PRODUCTS.length; ++g)
+        {
+            int r = start.mod(PRODUCTS[g]).intValue();
+            for (int end = PRODUCT_ENDS[g]; i < end; ++i)
+            {
+                int p = PRIMES[i];
+                int rp = r % p;
+
+                // index j holds start + 2j, which is 0 mod p when j = -start / 2 mod p
+                int half = (p + 1) >>> 1;
+                mark(p, (int)((long)(p - rp) * half % p));
+
+                if (safePrime)
+                {
+                    // 2q + 1 is 0 mod p when q = (p - 1) / 2 mod p
+                    mark(p, (int)((long)(half - 1 - rp + p) * half % p));
+                }
+            }
+        }
+    }
+
+    private void mark(int p, int j)
+    {
+        boolean[] c = composite;
+        for (; j < c.length; j += p)
+        {
+            c[j] = true;
+        }
+    }
+
+    /**
+     * Return the next number of the run to survive the sieve.
+     *
+     * @return the next candidate, or null if the run is exhausted.
+     */
+    public BigInteger next()
+    {
+        while (position < composite.length)
+        {
+            int j = position++;
+            if (!composite[j])
+            {
+                return start.add(BigInteger.valueOf(2L * j));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return how many numbers of the run have been passed over so far, whether sieved out or
+     * returned by {@link #next()}.
+     *
+     * @return the count of numbers passed over.
+     */
+    public int getPosition()
+    {
+        return position;
+    }
+}
@@ -1,14 +1,26 @@
 package org.spongycastle.math.ec;
 
 import java.math.BigInteger;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.spongycastle.math.ec.endo.ECEndomorphism;
 import org.spongycastle.math.ec.endo.GLVEndomorphism;
 import org.spongycastle.math.field.FiniteField;
 import org.spongycastle.math.field.PolynomialExtensionField;
+import org.spongycastle.math.raw.Nat;
+import org.spongycastle.util.Tasks;
 
 public class ECAlgorithms
 {
+    /**
+     * The number of points from which sumOfMultiplies uses Pippenger's bucket method rather than
+     * interleaving the window NAFs of the scalars.
+     */
+    static final int PIPPENGER_THRESHOLD = 128;
+
     public static boolean isF2mCurve(ECCurve c)
     {
         return isF2mField(c.getField());
@@ -31,6 +43,22 @@ public static boolean isFpField(FiniteField field)
     }
 
     public static ECPoint sumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
+    {
+        return sumOfMultiplies(ps, ks, null);
+    }
+
+    /**
+     * Calculate the sum of ks[i] * ps[i]. For large numbers of points Pippenger's bucket method is
+     * used, and if an executor is passed in the windows of the scalars are summed in parallel on
+     * its threads (any executor will do, for example a ForkJoinPool). The calling thread also
+     * takes part, so the sum will complete even if the executor is fully occupied.
+     *
+     * @param ps the points.
+     * @param ks the scalars to multiply the points by.
+     * @param executor the executor to sum windows on, may be null.
+     * @return the sum of the products.
+     */
+    public static ECPoint sumOfMultiplies(ECPoint[] ps, BigInteger[] ks, Executor executor)
     {
         if (ps == null || ks == null || ps.length != ks.length || ps.length < 1)
         {
@@ -58,6 +86,11 @@ public static ECPoint sumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
             imported[i] = importPoint(c, ps[i]);
         }
 
+        if (count >= PIPPENGER_THRESHOLD)
+        {
+            return validatePoint(implSumOfMultipliesPippenger(imported, ks, executor));
+        }
+
         ECEndomorphism endomorphism = c.getEndomorphism();
         if (endomorphism instanceof GLVEndomorphism)
         {
@@ -309,9 +342,8 @@ private static ECPoint implShamirsTrickWNaf(ECPoint[] preCompP, ECPoint[] preCom
         int len = Math.max(wnafP.length, wnafQ.length);
 
         ECCurve curve = preCompP[0].getCurve();
-        ECPoint infinity = curve.getInfinity();
 
-        ECPoint R = infinity;
+        ECPointAccumulator R = curve.createAccumulator();
         int zeroes = 0;
 
         for (int i = len - 1; i >= 0; --i)
@@ -325,35 +357,50 @@ private static ECPoint implShamirsTrickWNaf(ECPoint[] preCompP, ECPoint[] preCom
                 continue;
             }
 
-            ECPoint r = infinity;
+            if (zeroes > 0)
+            {
+                R.timesPow2(zeroes);
+                zeroes = 0;
+            }
+
+            /*
+             * The table points are added to the running sum one at a time, rather than added to
+             * each other first, so the sum can be kept in place.
+             */
+            ECPoint rP = null, rQ = null;
             if (wiP != 0)
             {
                 int nP = Math.abs(wiP);
                 ECPoint[] tableP = wiP < 0 ? preCompNegP : preCompP;
-                r = r.add(tableP[nP >>> 1]);
+                rP = tableP[nP >>> 1];
             }
             if (wiQ != 0)
             {
                 int nQ = Math.abs(wiQ);
                 ECPoint[] tableQ = wiQ < 0 ? preCompNegQ : preCompQ;
-                r = r.add(tableQ[nQ >>> 1]);
+                rQ = tableQ[nQ >>> 1];
             }
 
-            if (zeroes > 0)
+            if (rP == null)
             {
-                R = R.timesPow2(zeroes);
-                zeroes = 0;
+                R.twicePlus(rQ);
+            }
+            else
+            {
+                R.twicePlus(rP);
+                if (rQ != null)
+                {
+                    R.add(rQ);
+                }
             }
-
-            R = R.twicePlus(r);
         }
 
         if (zeroes > 0)
         {
-            R = R.timesPow2(zeroes);
+            R.timesPow2(zeroes);
         }
 
-        return R;
+        return R.toPoint();
     }
 
     static ECPoint implSumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
@@ -487,4 +534,200 @@ private static ECPoint implSumOfMultiplies(boolean[] negs, WNafPreCompInfo[] inf
 
         return R;
     }
+
+    /**
+     * Pippenger's bucket method. Each scalar is recoded into signed digits of a fixed number of
+     * bits; for each window the points are added into a bucket per digit value, and the buckets
+     * are then combined with a running sum. The windows are independent of each other, so they may
+     * be summed on the threads of an executor, and are then combined by doubling.
+     */
+    static ECPoint implSumOfMultipliesPippenger(final ECPoint[] ps, BigInteger[] ks, Executor executor)
+    {
+        final int count = ps.length;
+        final ECCurve c = ps[0].getCurve();
+
+        final ECPoint[] pos = new ECPoint[count];
+        int bits = 0;
+        for (int i = 0; i < count; ++i)
+        {
+            BigInteger ki = ks[i];
+            pos[i] = (ki.signum() < 0) ? ps[i].negate() : ps[i];
+            bits = Math.max(bits, ki.bitLength());
+        }
+
+        // additions of affine points are cheaper, and negating them is free.
+        c.normalizeAll(pos);
+
+        final ECPoint[] neg = new ECPoint[count];
+        for (int i = 0; i < count; ++i)
+        {
+            neg[i] = pos[i].negate();
+        }
+
+        final int width = getPippengerWidth(count, bits);
+        final int[][] digits = recodeSigned(ks, bits, width);
+        int windows = digits.length;
+
+        ECPoint[] sums = new ECPoint[windows];
+
+        if (executor == null)
+        {
+            for (int w = 0; w < windows; ++w)
+            {
+                sums[w] = sumWindow(c, pos, neg, digits[w], width);
+            }
+        }
+        else
+        {
+            Vector pending = new Vector();
+
+            for (int w = 0; w < windows; ++w)
+            {
+                final int[] windowDigits = digits[w];
+
+                FutureTask task = new FutureTask(new Callable()
+                {
+                    public Object call()
+                    {
+                        return sumWindow(c, pos, neg, windowDigits, width);
+                    }
+                });
+
+                pending.addElement(task);
+                Tasks.execute(executor, task);
+            }
+
+            for (int w = 0; w < windows; ++w)
+            {
+                sums[w] = (ECPoint)Tasks.take((FutureTask)pending.elementAt(w), pending, "summing multiplies");
+            }
+        }
+
+        ECPointAccumulator R = c.createAccumulator();
+        R.set(sums[windows - 1]);
+        for (int w = windows - 2; w >= 0; --w)
+        {
+            R.timesPow2(width);
+            R.add(sums[w]);
+        }
+
+        return R.toPoint();
+    }
+
+    private static ECPoint sumWindow(ECCurve c, ECPoint[] pos, ECPoint[] neg, int[] digits, int width)
+    {
+        int bucketCount = 1 << (width - 1);
+        ECPointAccumulator[] buckets = new ECPointAccumulator[bucketCount];
+
+        for (int i = 0; i < digits.length; ++i)
+        {
+            int d = digits[i];
+            if (d == 0)
+            {
+                continue;
+            }
+
+            int b = Math.abs(d) - 1;
+            if (buckets[b] == null)
+            {
+                buckets[b] = c.createAccumulator();
+            }
+            buckets[b].add(d > 0 ? pos[i] : neg[i]);
+        }
+
+        // sum of (b + 1) * buckets[b], as a sum of running sums from the top bucket down.
+        ECPointAccumulator running = c.createAccumulator();
+        ECPointAccumulator total = c.createAccumulator();
+        boolean started = false;
+
+        for (int b = bucketCount - 1; b >= 0; --b)
+        {
+            if (buckets[b] != null)
+            {
+                running.add(buckets[b].toPoint());
+                started = true;
+            }
+            if (started)
+            {
+                total.add(running.toPoint());
+            }
+        }
+
+        return total.toPoint();
+    }
+
+    /**
+     * Choose the window width minimising the number of additions: for each window, one per point
+     * into the buckets and two per bucket to combine them.
+     */
+    static int getPippengerWidth(int count, int bits)
+    {
+        int best = 2;
+        long bestCost = Long.MAX_VALUE;
+
+        for (int width = 2; width <= 16; ++width)
+        {
+            long windows = bits / width + 1;
+            long cost = windows * (count + (1L << width));
+            if (cost < bestCost)
+            {
+                best = width;
+                bestCost = cost;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Recode the scalars into signed digits in the range [-2^(width - 1), 2^(width - 1)], returned
+     * by window, then by scalar.
+     */
+    private static int[][] recodeSigned(BigInteger[] ks, int bits, int width)
+    {
+        int count = ks.length;
+        int windows = bits / width + 1;
+        int[][] digits = new int[windows][count];
+
+        int half = 1 << (width - 1), mask = (1 << width) - 1;
+        int len = (bits + 31) >>> 5;
+
+        for (int i = 0; i < count; ++i)
+        {
+            BigInteger ki = ks[i].abs();
+            int[] x = Nat.fromBigInteger(Math.max(1, bits), ki);
+
+            int carry = 0;
+            for (int w = 0; w < windows; ++w)
+            {
+                int pos = w * width;
+                int word = pos >>> 5, shift = pos & 31;
+
+                long v = 0;
+                if (word < len)
+                {
+                    v = (x[word] & 0xFFFFFFFFL) >>> shift;
+                    if (shift + width > 32 && word + 1 < len)
+                    {
+                        v |= (x[word + 1] & 0xFFFFFFFFL) << (32 - shift);
+                    }
+                }
+
+                int d = ((int)v & mask) + carry;
+                if (d > half)
+                {
+                    d -= 1 << width;
+                    carry = 1;
+                }
+                else
+                {
+                    carry = 0;
+                }
+
+                digits[w][i] = d;
+            }
+        }
+
+        return digits;
+    }
 }
@@ -94,6 +94,7 @@ public ECCurve create()
     protected int coord = COORD_AFFINE;
     protected ECEndomorphism endomorphism = null;
     protected ECMultiplier multiplier = null;
+    private ECScalarField scalarField = null;
 
     protected ECCurve(FiniteField field)
     {
@@ -165,6 +166,24 @@ protected ECMultiplier createDefaultMultiplier()
         return new WNafL2RMultiplier();
     }
 
+    /**
+     * Create an accumulator for the multipliers to sum points in. Curves able to work on a point in
+     * place should override this.
+     */
+    protected ECPointAccumulator createAccumulator()
+    {
+        return new ECPointAccumulator.Default(this);
+    }
+
+    /**
+     * Create the fixed width arithmetic modulo the order of the curve. Curves with a known prime
+     * order may override this - by default there is none.
+     */
+    protected ECScalarField createScalarField()
+    {
+        return null;
+    }
+
     public boolean supportsCoordinateSystem(int coord)
     {
         return coord == COORD_AFFINE;
@@ -354,6 +373,20 @@ public synchronized ECMultiplier getMultiplier()
         return this.multiplier;
     }
 
+    /**
+     * Return the fixed width arithmetic modulo the order of the curve, if the curve provides it.
+     *
+     * @return the scalar field of the curve, or null if there is none.
+     */
+    public synchronized ECScalarField getScalarField()
+    {
+        if (this.scalarField == null)
+        {
+            this.scalarField = createScalarField();
+        }
+        return this.scalarField;
+    }
+
     /**
      * Decode a point on this curve from its ASN.1 encoding. The different
      * encodings are taken account of, including point compression for
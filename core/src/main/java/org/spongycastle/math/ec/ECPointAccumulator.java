@@ -0,0 +1,108 @@
+package org.spongycastle.math.ec;
+
+/**
+ * A mutable point used by the multipliers to hold a running sum, so that a curve can do the
+ * additions and doublings of a scalar multiplication in place, in preallocated work areas, rather
+ * than creating a new point for every step.
+ * <p>
+ * The default implementation, returned by {@link ECCurve#createAccumulator()}, simply holds an
+ * ECPoint and replaces it at each step. An accumulator is not thread safe and is only meant to be
+ * used for the length of one multiplication.
+ * </p>
+ */
+public abstract class ECPointAccumulator
+{
+    /**
+     * Set the accumulator to the point at infinity.
+     */
+    protected abstract void setInfinity();
+
+    /**
+     * Set the accumulator to the value of a point.
+     */
+    protected abstract void set(ECPoint p);
+
+    /**
+     * Add a point to the accumulator.
+     */
+    protected abstract void add(ECPoint p);
+
+    /**
+     * Double the accumulator.
+     */
+    protected abstract void twice();
+
+    /**
+     * Double the accumulator, then add a point to it.
+     */
+    protected void twicePlus(ECPoint p)
+    {
+        twice();
+        add(p);
+    }
+
+    /**
+     * Double the accumulator e times.
+     */
+    protected void timesPow2(int e)
+    {
+        while (--e >= 0)
+        {
+            twice();
+        }
+    }
+
+    /**
+     * Return the value of the accumulator as a new point.
+     */
+    protected abstract ECPoint toPoint();
+
+    static class Default
+        extends ECPointAccumulator
+    {
+        private final ECCurve curve;
+
+        private ECPoint p;
+
+        Default(ECCurve curve)
+        {
+            this.curve = curve;
+            this.p = curve.getInfinity();
+        }
+
+        protected void setInfinity()
+        {
+            p = curve.getInfinity();
+        }
+
+        protected void set(ECPoint p)
+        {
+            this.p = p;
+        }
+
+        protected void add(ECPoint b)
+        {
+            p = p.add(b);
+        }
+
+        protected void twice()
+        {
+            p = p.twice();
+        }
+
+        protected void twicePlus(ECPoint b)
+        {
+            p = p.twicePlus(b);
+        }
+
+        protected void timesPow2(int e)
+        {
+            p = p.timesPow2(e);
+        }
+
+        protected ECPoint toPoint()
+        {
+            return p;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.spongycastle.math.ec;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.spongycastle.util.Arrays;
+
+/**
+ * A bounded cache of decoded points, keyed by curve and encoding. Decoding a point validates it,
+ * which for a compressed encoding means a field square root, so a cache is worthwhile where the
+ * same public keys are decoded again and again, as when verifying certificates issued by the same
+ * CA.
+ * <p>
+ * The points returned are validated and normalized, and the same instance is returned for each
+ * hit, so any precomputation a multiplier stores against a point (such as its
+ * {@link WNafPreCompInfo}) is kept for as long as the point stays in the cache. Entries are keyed
+ * on the curve instance rather than on curve equality, so the cache only helps where the curve
+ * itself is shared, as it is for the curves from the named curve tables. The least recently used
+ * entry is dropped once the cache is full.
+ * </p>
+ */
+public class ECPointCache
+{
+    private final int maxSize;
+    private final LinkedHashMap entries;
+
+    /**
+     * Base constructor.
+     *
+     * @param maxSize the maximum number of points to hold.
+     */
+    public ECPointCache(int maxSize)
+    {
+        if (maxSize < 1)
+        {
+            throw new IllegalArgumentException("'maxSize' must be at least 1");
+        }
+
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap(16, 0.75f, true);
+    }
+
+    /**
+     * Return the point with the passed in encoding on the passed in curve, decoding and
+     * validating it only if it is not already in the cache.
+     *
+     * @param curve the curve the point is on.
+     * @param encoded the encoding of the point.
+     * @return a normalized point on curve.
+     * @throws IllegalArgumentException if the encoding is not of a valid point on curve.
+     */
+    public ECPoint decodePoint(ECCurve curve, byte[] encoded)
+    {
+        Key key = new Key(curve, encoded);
+
+        synchronized (this)
+        {
+            ECPoint p = (ECPoint)entries.get(key);
+            if (p != null)
+            {
+                return p;
+            }
+        }
+
+        // decode outside the lock, a concurrent miss on the same key just does the work twice.
+        ECPoint p = curve.decodePoint(encoded).normalize();
+
+        synchronized (this)
+        {
+            ECPoint existing = (ECPoint)entries.get(key);
+            if (existing != null)
+            {
+                return existing;
+            }
+
+            entries.put(new Key(curve, Arrays.clone(encoded)), p);
+
+            if (entries.size() > maxSize)
+            {
+                Iterator it = entries.entrySet().iterator();
+                it.next();
+                it.remove();
+            }
+        }
+
+        return p;
+    }
+
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    private static class Key
+    {
+        private final ECCurve curve;
+        private final byte[] encoded;
+        private final int hashCode;
+
+        Key(ECCurve curve, byte[] encoded)
+        {
+            this.curve = curve;
+            this.encoded = encoded;
+            this.hashCode = System.identityHashCode(curve) ^ Arrays.hashCode(encoded);
+        }
+
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            Key other = (Key)o;
+            return curve == other.curve && Arrays.areEqual(encoded, other.encoded);
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
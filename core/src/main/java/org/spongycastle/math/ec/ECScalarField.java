@@ -0,0 +1,226 @@
+package org.spongycastle.math.ec;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import org.spongycastle.math.raw.Mod;
+import org.spongycastle.math.raw.Mont;
+import org.spongycastle.math.raw.Nat;
+import org.spongycastle.util.Pack;
+
+/**
+ * Fixed width arithmetic modulo the (prime) order of a curve, for the scalar calculations of
+ * signature schemes such as ECDSA. Values are held as little-endian arrays of {@link #getSize()}
+ * words, fully reduced, and multiplication is done by Montgomery multiplication.
+ * <p>
+ * {@link #invert(int[], int[])} raises to the power n - 2 using a public, fixed exponent, and the
+ * reductions after each addition and multiplication subtract the order under a mask rather than
+ * a branch, so it performs the same sequence of operations whatever the value being inverted. It
+ * is intended for secret values, as is
+ * {@link #invertBlinded(int[], int[], SecureRandom)}, which is quicker but needs a source of
+ * randomness. {@link #invertVar(int[], int[])} is quicker still, but its running time depends on
+ * the value, so it should only be used for public values.
+ * </p>
+ */
+public class ECScalarField
+{
+    private static final int WINDOW_BITS = 4;
+
+    private final BigInteger order;
+    private final int len;
+    private final int[] n;
+    private final int nInv32;
+    private final int[] r2;
+    private final int[] exponent;
+
+    /**
+     * Create the scalar field for a curve of the passed in order.
+     *
+     * @param order the order of the curve, which must be an odd prime.
+     */
+    public ECScalarField(BigInteger order)
+    {
+        if (order.signum() <= 0 || !order.testBit(0))
+        {
+            throw new IllegalArgumentException("'order' must be an odd prime");
+        }
+
+        this.order = order;
+        this.len = (order.bitLength() + 31) >>> 5;
+        this.n = Nat.fromBigInteger(len << 5, order);
+        this.nInv32 = -Mod.inverse32(n[0]);
+        this.r2 = Nat.fromBigInteger(len << 5, ECConstants.ONE.shiftLeft(len << 6).mod(order));
+        this.exponent = Nat.fromBigInteger(len << 5, order.subtract(ECConstants.TWO));
+    }
+
+    public BigInteger getOrder()
+    {
+        return order;
+    }
+
+    /**
+     * Return the number of words in a value.
+     */
+    public int getSize()
+    {
+        return len;
+    }
+
+    public int[] create()
+    {
+        return Nat.create(len);
+    }
+
+    /**
+     * Convert x to a value, reducing it modulo the order.
+     */
+    public int[] fromBigInteger(BigInteger x)
+    {
+        if (x.signum() < 0 || x.bitLength() > order.bitLength())
+        {
+            x = x.mod(order);
+        }
+
+        int[] z = Nat.fromBigInteger(len << 5, x);
+        Mont.reduceOnce(len, 0, z, n);
+        return z;
+    }
+
+    public BigInteger toBigInteger(int[] x)
+    {
+        return Nat.toBigInteger(len, x);
+    }
+
+    public boolean isZero(int[] x)
+    {
+        return Nat.isZero(len, x);
+    }
+
+    public void add(int[] x, int[] y, int[] z)
+    {
+        int c = Nat.add(len, x, y, z);
+        Mont.reduceOnce(len, c, z, n);
+    }
+
+    /**
+     * Set z to x * y modulo the order. z may be the same array as x or y.
+     */
+    public void multiply(int[] x, int[] y, int[] z)
+    {
+        int[] t = Nat.create(len);
+        Mont.multAdd(len, x, y, t, n, nInv32);
+
+        int[] u = Nat.create(len);
+        Mont.multAdd(len, t, r2, u, n, nInv32);
+
+        System.arraycopy(u, 0, z, 0, len);
+    }
+
+    /**
+     * Set z to the inverse of x, using the same sequence of operations for any x. z may be the
+     * same array as x.
+     */
+    public void invert(int[] x, int[] z)
+    {
+        if (isZero(x))
+        {
+            throw new IllegalArgumentException("'x' cannot be 0");
+        }
+
+        int size = 1 << WINDOW_BITS;
+        int[][] table = new int[size][];
+
+        // table[i] = x^i * R mod n
+        table[1] = Nat.create(len);
+        Mont.multAdd(len, x, r2, table[1], n, nInv32);
+        table[0] = Nat.copy(len, r2);
+        Mont.reduce(len, table[0], n, nInv32);
+        for (int i = 2; i < size; ++i)
+        {
+            table[i] = Nat.create(len);
+            Mont.multAdd(len, table[i - 1], table[1], table[i], n, nInv32);
+        }
+
+        int[] acc = Nat.create(len), t = Nat.create(len);
+        int windows = (len << 5) / WINDOW_BITS;
+
+        // the exponent is public, so its leading zero windows can be skipped.
+        int w = windows - 1;
+        while (w > 0 && window(w) == 0)
+        {
+            --w;
+        }
+        System.arraycopy(table[window(w)], 0, acc, 0, len);
+
+        while (--w >= 0)
+        {
+            for (int j = 0; j < WINDOW_BITS; ++j)
+            {
+                Nat.zero(len, t);
+                Mont.multAdd(len, acc, acc, t, n, nInv32);
+                int[] tmp = acc; acc = t; t = tmp;
+            }
+
+            Nat.zero(len, t);
+            Mont.multAdd(len, acc, table[window(w)], t, n, nInv32);
+            int[] tmp = acc; acc = t; t = tmp;
+        }
+
+        Mont.reduce(len, acc, n, nInv32);
+        System.arraycopy(acc, 0, z, 0, len);
+    }
+
+    /**
+     * Set z to the inverse of x, multiplying x by a random blinding value first so that the
+     * variable time inversion only sees a value unrelated to x. z may be the same array as x.
+     */
+    public void invertBlinded(int[] x, int[] z, SecureRandom random)
+    {
+        if (isZero(x))
+        {
+            throw new IllegalArgumentException("'x' cannot be 0");
+        }
+
+        int[] b = randomNonZero(random);
+        int[] t = Nat.create(len);
+
+        multiply(x, b, t);
+        Mod.invert(n, t, t);
+        multiply(t, b, z);
+    }
+
+    /**
+     * Set z to the inverse of x, in time depending on x. Only for use with public values. z may be
+     * the same array as x.
+     */
+    public void invertVar(int[] x, int[] z)
+    {
+        Mod.invert(n, x, z);
+    }
+
+    private int[] randomNonZero(SecureRandom random)
+    {
+        int mask = -1 >>> Integer.numberOfLeadingZeros(n[len - 1]);
+        byte[] bytes = new byte[len << 2];
+        int[] z = Nat.create(len);
+
+        do
+        {
+            random.nextBytes(bytes);
+            for (int i = 0; i != len; i++)
+            {
+                z[i] = Pack.bigEndianToInt(bytes, i << 2);
+            }
+            z[len - 1] &= mask;
+        }
+        while (Nat.isZero(len, z) || Nat.gte(len, z, n));
+
+        return z;
+    }
+
+    private int window(int w)
+    {
+        int bit = w * WINDOW_BITS;
+        return (exponent[bit >>> 5] >>> (bit & 31)) & ((1 << WINDOW_BITS) - 1);
+    }
+}
@@ -28,7 +28,7 @@ protected ECPoint multiplyPositive(ECPoint p, BigInteger k)
 
         int d = (size + width - 1) / width;
 
-        ECPoint R = c.getInfinity();
+        ECPointAccumulator R = c.createAccumulator();
 
         int top = d * width - 1; 
         for (int i = 0; i < d; ++i)
@@ -44,10 +44,10 @@ protected ECPoint multiplyPositive(ECPoint p, BigInteger k)
                 }
             }
 
-            R = R.twicePlus(lookupTable[index]);
+            R.twicePlus(lookupTable[index]);
         }
 
-        return R;
+        return R.toPoint();
     }
 
     protected int getWidthForCombSize(int combSize)
@@ -0,0 +1,90 @@
+package org.spongycastle.math.ec;
+
+import java.math.BigInteger;
+
+/**
+ * Elliptic curve over Fp for any odd prime, with the field elements held as fixed width arrays of
+ * words in Montgomery form rather than as BigIntegers. This is used for the named curves with no
+ * custom implementation, such as the Brainpool curves, and is interchangeable with an
+ * {@link ECCurve.Fp} with the same parameters.
+ */
+public class MontFpCurve extends ECCurve.AbstractFp
+{
+    private static final int MONT_FP_DEFAULT_COORDS = ECCurve.COORD_JACOBIAN_MODIFIED;
+
+    private final MontFpField field;
+    private final ECPoint.Fp infinity;
+
+    public MontFpCurve(BigInteger q, BigInteger a, BigInteger b)
+    {
+        this(q, a, b, null, null);
+    }
+
+    public MontFpCurve(BigInteger q, BigInteger a, BigInteger b, BigInteger order, BigInteger cofactor)
+    {
+        this(new MontFpField(q), a, b, order, cofactor);
+    }
+
+    private MontFpCurve(MontFpField field, BigInteger a, BigInteger b, BigInteger order, BigInteger cofactor)
+    {
+        super(field.q);
+
+        this.field = field;
+        this.infinity = new ECPoint.Fp(this, null, null);
+
+        this.a = fromBigInteger(a);
+        this.b = fromBigInteger(b);
+        this.order = order;
+        this.cofactor = cofactor;
+        this.coord = MONT_FP_DEFAULT_COORDS;
+    }
+
+    protected ECCurve cloneCurve()
+    {
+        return new MontFpCurve(field, a.toBigInteger(), b.toBigInteger(), order, cofactor);
+    }
+
+    public boolean supportsCoordinateSystem(int coord)
+    {
+        switch (coord)
+        {
+        case ECCurve.COORD_AFFINE:
+        case ECCurve.COORD_HOMOGENEOUS:
+        case ECCurve.COORD_JACOBIAN:
+        case ECCurve.COORD_JACOBIAN_MODIFIED:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    public BigInteger getQ()
+    {
+        return field.q;
+    }
+
+    public int getFieldSize()
+    {
+        return field.q.bitLength();
+    }
+
+    public ECFieldElement fromBigInteger(BigInteger x)
+    {
+        return new MontFpFieldElement(field, x);
+    }
+
+    protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y, boolean withCompression)
+    {
+        return new ECPoint.Fp(this, x, y, withCompression);
+    }
+
+    protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y, ECFieldElement[] zs, boolean withCompression)
+    {
+        return new ECPoint.Fp(this, x, y, zs, withCompression);
+    }
+
+    public ECPoint getInfinity()
+    {
+        return infinity;
+    }
+}
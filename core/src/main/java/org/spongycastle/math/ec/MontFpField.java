@@ -0,0 +1,122 @@
+package org.spongycastle.math.ec;
+
+import java.math.BigInteger;
+
+import org.spongycastle.math.raw.Mod;
+import org.spongycastle.math.raw.Mont;
+import org.spongycastle.math.raw.Nat;
+
+/**
+ * Fixed width arithmetic modulo an odd prime p of any size, on values held in Montgomery form,
+ * that is as x * R mod p where R = 2^(32 * len). Shared by the elements of a {@link MontFpCurve}.
+ */
+class MontFpField
+{
+    final BigInteger q;
+    final BigInteger r;
+    final int len;
+
+    private final int[] p;
+    private final int pInv32;
+    private final int[] one;
+    private final int[] r2;
+    private final int[] r3;
+
+    MontFpField(BigInteger q)
+    {
+        if (q.signum() <= 0 || !q.testBit(0) || q.bitLength() < 2)
+        {
+            throw new IllegalArgumentException("'q' must be an odd prime");
+        }
+
+        this.q = q;
+        this.r = ECFieldElement.Fp.calculateResidue(q);
+        this.len = (q.bitLength() + 31) >>> 5;
+
+        int bits = len << 5;
+        BigInteger R = ECConstants.ONE.shiftLeft(bits).mod(q);
+
+        this.p = Nat.fromBigInteger(bits, q);
+        this.pInv32 = -Mod.inverse32(p[0]);
+        this.one = Nat.fromBigInteger(bits, R);
+        this.r2 = Nat.fromBigInteger(bits, R.multiply(R).mod(q));
+        this.r3 = Nat.fromBigInteger(bits, R.multiply(R).multiply(R).mod(q));
+    }
+
+    int[] fromBigInteger(BigInteger x)
+    {
+        int[] z = Nat.create(len);
+        Mont.multAdd(len, Nat.fromBigInteger(len << 5, x), r2, z, p, pInv32);
+        return z;
+    }
+
+    BigInteger toBigInteger(int[] x)
+    {
+        return Nat.toBigInteger(len, fromMont(x));
+    }
+
+    int[] fromMont(int[] x)
+    {
+        int[] z = Nat.copy(len, x);
+        Mont.reduce(len, z, p, pInv32);
+        return z;
+    }
+
+    boolean isOne(int[] x)
+    {
+        return Nat.eq(len, x, one);
+    }
+
+    int[] one()
+    {
+        return one;
+    }
+
+    int[] add(int[] x, int[] y)
+    {
+        int[] z = Nat.create(len);
+        int c = Nat.add(len, x, y, z);
+        if (c != 0 || Nat.gte(len, z, p))
+        {
+            Nat.subFrom(len, p, z);
+        }
+        return z;
+    }
+
+    int[] subtract(int[] x, int[] y)
+    {
+        int[] z = Nat.create(len);
+        int c = Nat.sub(len, x, y, z);
+        if (c != 0)
+        {
+            Nat.addTo(len, p, z);
+        }
+        return z;
+    }
+
+    int[] negate(int[] x)
+    {
+        int[] z = Nat.create(len);
+        if (!Nat.isZero(len, x))
+        {
+            Nat.sub(len, p, x, z);
+        }
+        return z;
+    }
+
+    int[] multiply(int[] x, int[] y)
+    {
+        int[] z = Nat.create(len);
+        Mont.multAdd(len, x, y, z, p, pInv32);
+        return z;
+    }
+
+    int[] invert(int[] x)
+    {
+        // Mod.invert gives (x.R)^-1 = x^-1.R^-1, and multiplying by R^3 in Montgomery form
+        // brings it back to x^-1.R.
+        int[] t = Nat.create(len);
+        Mod.invert(p, x, t);
+        return multiply(t, r3);
+    }
+}
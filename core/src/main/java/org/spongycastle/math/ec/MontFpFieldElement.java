@@ -0,0 +1,150 @@
+package org.spongycastle.math.ec;
+
+import java.math.BigInteger;
+
+import org.spongycastle.math.raw.Nat;
+import org.spongycastle.util.Arrays;
+
+/**
+ * An element of a prime field held as a fixed width array of words in Montgomery form, for curves
+ * over primes with no custom implementation. See {@link MontFpCurve}.
+ */
+public class MontFpFieldElement extends ECFieldElement
+{
+    private final MontFpField field;
+    private final int[] x;
+
+    MontFpFieldElement(MontFpField field, BigInteger x)
+    {
+        if (x == null || x.signum() < 0 || x.compareTo(field.q) >= 0)
+        {
+            throw new IllegalArgumentException("x value invalid in Fp field element");
+        }
+
+        this.field = field;
+        this.x = field.fromBigInteger(x);
+    }
+
+    MontFpFieldElement(MontFpField field, int[] x)
+    {
+        this.field = field;
+        this.x = x;
+    }
+
+    public BigInteger toBigInteger()
+    {
+        return field.toBigInteger(x);
+    }
+
+    public String getFieldName()
+    {
+        return "Fp";
+    }
+
+    public int getFieldSize()
+    {
+        return field.q.bitLength();
+    }
+
+    public BigInteger getQ()
+    {
+        return field.q;
+    }
+
+    public int bitLength()
+    {
+        int[] z = field.fromMont(x);
+        for (int i = field.len - 1; i >= 0; --i)
+        {
+            if (z[i] != 0)
+            {
+                return (i << 5) + 32 - Integer.numberOfLeadingZeros(z[i]);
+            }
+        }
+        return 0;
+    }
+
+    public boolean isZero()
+    {
+        return Nat.isZero(field.len, x);
+    }
+
+    public boolean isOne()
+    {
+        return field.isOne(x);
+    }
+
+    public boolean testBitZero()
+    {
+        return (field.fromMont(x)[0] & 1) != 0;
+    }
+
+    public ECFieldElement add(ECFieldElement b)
+    {
+        return new MontFpFieldElement(field, field.add(x, ((MontFpFieldElement)b).x));
+    }
+
+    public ECFieldElement addOne()
+    {
+        return new MontFpFieldElement(field, field.add(x, field.one()));
+    }
+
+    public ECFieldElement subtract(ECFieldElement b)
+    {
+        return new MontFpFieldElement(field, field.subtract(x, ((MontFpFieldElement)b).x));
+    }
+
+    public ECFieldElement multiply(ECFieldElement b)
+    {
+        return new MontFpFieldElement(field, field.multiply(x, ((MontFpFieldElement)b).x));
+    }
+
+    public ECFieldElement divide(ECFieldElement b)
+    {
+        return new MontFpFieldElement(field, field.multiply(x, field.invert(((MontFpFieldElement)b).x)));
+    }
+
+    public ECFieldElement negate()
+    {
+        return new MontFpFieldElement(field, field.negate(x));
+    }
+
+    public ECFieldElement square()
+    {
+        return new MontFpFieldElement(field, field.multiply(x, x));
+    }
+
+    public ECFieldElement invert()
+    {
+        return new MontFpFieldElement(field, field.invert(x));
+    }
+
+    public ECFieldElement sqrt()
+    {
+        // only needed for point decompression, so done by the BigInteger implementation.
+        ECFieldElement root = new ECFieldElement.Fp(field.q, field.r, toBigInteger()).sqrt();
+
+        return (root == null) ? null : new MontFpFieldElement(field, root.toBigInteger());
+    }
+
+    public boolean equals(Object other)
+    {
+        if (other == this)
+        {
+            return true;
+        }
+
+        if (!(other instanceof MontFpFieldElement))
+        {
+            return false;
+        }
+
+        MontFpFieldElement o = (MontFpFieldElement)other;
+        return field.q.equals(o.field.q) && Nat.eq(field.len, x, o.x);
+    }
+
+    public int hashCode()
+    {
+        return field.q.hashCode() ^ Arrays.hashCode(x, 0, field.len);
+    }
+}
@@ -26,7 +26,7 @@ protected ECPoint multiplyPositive(ECPoint p, BigInteger k)
 
         int[] wnaf = WNafUtil.generateCompactWindowNaf(width, k);
 
-        ECPoint R = p.getCurve().getInfinity();
+        ECPointAccumulator R = p.getCurve().createAccumulator();
 
         int i = wnaf.length;
 
@@ -53,7 +53,8 @@ protected ECPoint multiplyPositive(ECPoint p, BigInteger k)
 
                 int i1 = ((1 << (width - 1)) - 1);
                 int i2 = (lowBits << scale) + 1;
-                R = table[i1 >>> 1].add(table[i2 >>> 1]);
+                R.set(table[i1 >>> 1]);
+                R.add(table[i2 >>> 1]);
 
                 zeroes -= scale;
 
@@ -61,10 +62,10 @@ protected ECPoint multiplyPositive(ECPoint p, BigInteger k)
             }
             else
             {
-                R = table[n >>> 1];
+                R.set(table[n >>> 1]);
             }
 
-            R = R.timesPow2(zeroes);
+            R.timesPow2(zeroes);
         }
 
         while (i > 0)
@@ -76,11 +77,11 @@ protected ECPoint multiplyPositive(ECPoint p, BigInteger k)
             ECPoint[] table = digit < 0 ? preCompNeg : preComp;
             ECPoint r = table[n >>> 1];
 
-            R = R.twicePlus(r);
-            R = R.timesPow2(zeroes);
+            R.twicePlus(r);
+            R.timesPow2(zeroes);
         }
 
-        return R;
+        return R.toPoint();
     }
 
     /**
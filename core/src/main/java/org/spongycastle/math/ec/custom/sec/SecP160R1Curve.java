@@ -5,6 +5,7 @@
 import org.spongycastle.math.ec.ECCurve;
 import org.spongycastle.math.ec.ECFieldElement;
 import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.ECScalarField;
 import org.spongycastle.util.encoders.Hex;
 
 public class SecP160R1Curve extends ECCurve.AbstractFp
@@ -73,6 +74,11 @@ protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y, ECFieldElem
         return new SecP160R1Point(this, x, y, zs, withCompression);
     }
 
+    protected ECScalarField createScalarField()
+    {
+        return new ECScalarField(order);
+    }
+
     public ECPoint getInfinity()
     {
         return infinity;
@@ -6,6 +6,7 @@
 import org.spongycastle.math.ec.ECCurve;
 import org.spongycastle.math.ec.ECFieldElement;
 import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.ECScalarField;
 import org.spongycastle.util.encoders.Hex;
 
 public class SecP192K1Curve extends ECCurve.AbstractFp
@@ -72,6 +73,11 @@ protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y, ECFieldElem
         return new SecP192K1Point(this, x, y, zs, withCompression);
     }
 
+    protected ECScalarField createScalarField()
+    {
+        return new ECScalarField(order);
+    }
+
     public ECPoint getInfinity()
     {
         return infinity;
@@ -0,0 +1,260 @@
+package org.spongycastle.math.ec.custom.sec;
+
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECFieldElement;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.ECPointAccumulator;
+import org.spongycastle.math.raw.Nat;
+import org.spongycastle.math.raw.Nat256;
+
+/**
+ * A secp256k1 point in Jacobian coordinates which is added to and doubled in place, using the same
+ * formulae as {@link SecP256K1Point}. The results of each step are left in work arrays which are
+ * then swapped with the coordinate arrays, so nothing is allocated until {@link #toPoint()}.
+ */
+class SecP256K1PointAccumulator
+    extends ECPointAccumulator
+{
+    private final ECCurve curve;
+
+    private int[] x = Nat256.create();
+    private int[] y = Nat256.create();
+    private int[] z = Nat256.create();
+    private boolean zIsOne;
+    private boolean infinity = true;
+
+    private int[] t2 = Nat256.create();
+    private int[] t3 = Nat256.create();
+    private int[] t4 = Nat256.create();
+    private int[] g = Nat256.create();
+    private int[] h = Nat256.create();
+    private final int[] tt1 = Nat256.createExt();
+    private final int[] tt = Nat256.createExt();
+
+    SecP256K1PointAccumulator(ECCurve curve)
+    {
+        this.curve = curve;
+    }
+
+    protected void setInfinity()
+    {
+        infinity = true;
+    }
+
+    protected void set(ECPoint p)
+    {
+        if (p.isInfinity())
+        {
+            infinity = true;
+            return;
+        }
+
+        SecP256K1FieldElement Z = (SecP256K1FieldElement)p.getZCoord(0);
+
+        Nat256.copy(((SecP256K1FieldElement)p.getXCoord()).x, x);
+        Nat256.copy(((SecP256K1FieldElement)p.getYCoord()).x, y);
+        Nat256.copy(Z.x, z);
+        zIsOne = Z.isOne();
+        infinity = false;
+    }
+
+    protected void add(ECPoint b)
+    {
+        if (b.isInfinity())
+        {
+            return;
+        }
+        if (infinity)
+        {
+            set(b);
+            return;
+        }
+
+        int[] X2 = ((SecP256K1FieldElement)b.getXCoord()).x, Y2 = ((SecP256K1FieldElement)b.getYCoord()).x;
+        SecP256K1FieldElement Z2 = (SecP256K1FieldElement)b.getZCoord(0);
+
+        int c;
+
+        boolean Z1IsOne = zIsOne;
+        int[] U2, S2;
+        if (Z1IsOne)
+        {
+            U2 = X2;
+            S2 = Y2;
+        }
+        else
+        {
+            S2 = t3;
+            square(z, S2);
+
+            U2 = t2;
+            multiply(S2, X2, U2);
+
+            multiply(S2, z, S2);
+            multiply(S2, Y2, S2);
+        }
+
+        boolean Z2IsOne = Z2.isOne();
+        int[] U1, S1;
+        if (Z2IsOne)
+        {
+            U1 = x;
+            S1 = y;
+        }
+        else
+        {
+            S1 = t4;
+            square(Z2.x, S1);
+
+            U1 = tt1;
+            multiply(S1, x, U1);
+
+            multiply(S1, Z2.x, S1);
+            multiply(S1, y, S1);
+        }
+
+        int[] H = h;
+        SecP256K1Field.subtract(U1, U2, H);
+
+        int[] R = t2;
+        SecP256K1Field.subtract(S1, S2, R);
+
+        // Check if b == this or b == -this
+        if (Nat256.isZero(H))
+        {
+            if (Nat256.isZero(R))
+            {
+                // this == b, i.e. this must be doubled
+                twice();
+                return;
+            }
+
+            // this == -b, i.e. the result is the point at infinity
+            infinity = true;
+            return;
+        }
+
+        int[] HSquared = t3;
+        square(H, HSquared);
+
+        int[] G = g;
+        multiply(HSquared, H, G);
+
+        int[] V = t3;
+        multiply(HSquared, U1, V);
+
+        SecP256K1Field.negate(G, G);
+        Nat256.mul(S1, G, tt1);
+
+        c = Nat256.addBothTo(V, V, G);
+        SecP256K1Field.reduce32(c, G);
+
+        int[] X3 = t4;
+        square(R, X3);
+        SecP256K1Field.subtract(X3, G, X3);
+
+        int[] Y3 = G;
+        SecP256K1Field.subtract(V, X3, Y3);
+        SecP256K1Field.multiplyAddToExt(Y3, R, tt1);
+        SecP256K1Field.reduce(tt1, Y3);
+
+        int[] Z3 = H;
+        if (!Z1IsOne)
+        {
+            multiply(Z3, z, Z3);
+        }
+        if (!Z2IsOne)
+        {
+            multiply(Z3, Z2.x, Z3);
+        }
+
+        t4 = x; x = X3;
+        g = y; y = Y3;
+        h = z; z = Z3;
+        zIsOne = false;
+    }
+
+    // B.3 pg 62
+    protected void twice()
+    {
+        if (infinity)
+        {
+            return;
+        }
+
+        if (Nat256.isZero(y))
+        {
+            infinity = true;
+            return;
+        }
+
+        int c;
+
+        int[] Y1Squared = t3;
+        square(y, Y1Squared);
+
+        int[] T = t4;
+        square(Y1Squared, T);
+
+        int[] M = t2;
+        square(x, M);
+        c = Nat256.addBothTo(M, M, M);
+        SecP256K1Field.reduce32(c, M);
+
+        int[] S = Y1Squared;
+        multiply(Y1Squared, x, S);
+        c = Nat.shiftUpBits(8, S, 2, 0);
+        SecP256K1Field.reduce32(c, S);
+
+        int[] t1 = g;
+        c = Nat.shiftUpBits(8, T, 3, 0, t1);
+        SecP256K1Field.reduce32(c, t1);
+
+        int[] X3 = T;
+        square(M, X3);
+        SecP256K1Field.subtract(X3, S, X3);
+        SecP256K1Field.subtract(X3, S, X3);
+
+        int[] Y3 = S;
+        SecP256K1Field.subtract(S, X3, Y3);
+        multiply(Y3, M, Y3);
+        SecP256K1Field.subtract(Y3, t1, Y3);
+
+        int[] Z3 = h;
+        SecP256K1Field.twice(y, Z3);
+        if (!zIsOne)
+        {
+            multiply(Z3, z, Z3);
+        }
+
+        t4 = x; x = X3;
+        t3 = y; y = Y3;
+        h = z; z = Z3;
+        zIsOne = false;
+    }
+
+    protected ECPoint toPoint()
+    {
+        if (infinity)
+        {
+            return curve.getInfinity();
+        }
+
+        ECFieldElement[] zs = new ECFieldElement[]{ new SecP256K1FieldElement(Nat.copy(8, z)) };
+
+        return new SecP256K1Point(curve, new SecP256K1FieldElement(Nat.copy(8, x)),
+            new SecP256K1FieldElement(Nat.copy(8, y)), zs, false);
+    }
+
+    private void multiply(int[] a, int[] b, int[] r)
+    {
+        Nat256.mul(a, b, tt);
+        SecP256K1Field.reduce(tt, r);
+    }
+
+    private void square(int[] a, int[] r)
+    {
+        Nat256.square(a, tt);
+        SecP256K1Field.reduce(tt, r);
+    }
+}
@@ -0,0 +1,274 @@
+package org.spongycastle.math.ec.custom.sec;
+
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECFieldElement;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.ECPointAccumulator;
+import org.spongycastle.math.raw.Nat;
+import org.spongycastle.math.raw.Nat384;
+
+/**
+ * A P-384 point in Jacobian coordinates which is added to and doubled in place, using the same
+ * formulae as {@link SecP384R1Point}. The results of each step are left in work arrays which are
+ * then swapped with the coordinate arrays, so nothing is allocated until {@link #toPoint()}.
+ */
+class SecP384R1PointAccumulator
+    extends ECPointAccumulator
+{
+    private final ECCurve curve;
+
+    private int[] x = Nat.create(12);
+    private int[] y = Nat.create(12);
+    private int[] z = Nat.create(12);
+    private boolean zIsOne;
+    private boolean infinity = true;
+
+    private int[] t2 = Nat.create(12);
+    private int[] t3 = Nat.create(12);
+    private int[] t4 = Nat.create(12);
+    private int[] g = Nat.create(12);
+    private int[] h = Nat.create(12);
+    private final int[] tt1 = Nat.create(24);
+    private final int[] tt2 = Nat.create(24);
+    private final int[] tt = Nat.create(24);
+    private final int[] work = Nat.create(24);
+
+    SecP384R1PointAccumulator(ECCurve curve)
+    {
+        this.curve = curve;
+    }
+
+    protected void setInfinity()
+    {
+        infinity = true;
+    }
+
+    protected void set(ECPoint p)
+    {
+        if (p.isInfinity())
+        {
+            infinity = true;
+            return;
+        }
+
+        SecP384R1FieldElement Z = (SecP384R1FieldElement)p.getZCoord(0);
+
+        Nat.copy(12, ((SecP384R1FieldElement)p.getXCoord()).x, x);
+        Nat.copy(12, ((SecP384R1FieldElement)p.getYCoord()).x, y);
+        Nat.copy(12, Z.x, z);
+        zIsOne = Z.isOne();
+        infinity = false;
+    }
+
+    protected void add(ECPoint b)
+    {
+        if (b.isInfinity())
+        {
+            return;
+        }
+        if (infinity)
+        {
+            set(b);
+            return;
+        }
+
+        int[] X2 = ((SecP384R1FieldElement)b.getXCoord()).x, Y2 = ((SecP384R1FieldElement)b.getYCoord()).x;
+        SecP384R1FieldElement Z2 = (SecP384R1FieldElement)b.getZCoord(0);
+
+        int c;
+
+        boolean Z1IsOne = zIsOne;
+        int[] U2, S2;
+        if (Z1IsOne)
+        {
+            U2 = X2;
+            S2 = Y2;
+        }
+        else
+        {
+            S2 = t3;
+            square(z, S2);
+
+            U2 = tt2;
+            multiply(S2, X2, U2);
+
+            multiply(S2, z, S2);
+            multiply(S2, Y2, S2);
+        }
+
+        boolean Z2IsOne = Z2.isOne();
+        int[] U1, S1;
+        if (Z2IsOne)
+        {
+            U1 = x;
+            S1 = y;
+        }
+        else
+        {
+            S1 = t4;
+            square(Z2.x, S1);
+
+            U1 = tt1;
+            multiply(S1, x, U1);
+
+            multiply(S1, Z2.x, S1);
+            multiply(S1, y, S1);
+        }
+
+        int[] H = h;
+        SecP384R1Field.subtract(U1, U2, H);
+
+        int[] R = t2;
+        SecP384R1Field.subtract(S1, S2, R);
+
+        // Check if b == this or b == -this
+        if (Nat.isZero(12, H))
+        {
+            if (Nat.isZero(12, R))
+            {
+                // this == b, i.e. this must be doubled
+                twice();
+                return;
+            }
+
+            // this == -b, i.e. the result is the point at infinity
+            infinity = true;
+            return;
+        }
+
+        int[] HSquared = t3;
+        square(H, HSquared);
+
+        int[] G = g;
+        multiply(HSquared, H, G);
+
+        int[] V = t3;
+        multiply(HSquared, U1, V);
+
+        SecP384R1Field.negate(G, G);
+        Nat384.mul(S1, G, tt1, work);
+
+        c = Nat.addBothTo(12, V, V, G);
+        SecP384R1Field.reduce32(c, G);
+
+        int[] X3 = t4;
+        square(R, X3);
+        SecP384R1Field.subtract(X3, G, X3);
+
+        int[] Y3 = G;
+        SecP384R1Field.subtract(V, X3, Y3);
+        Nat384.mul(Y3, R, tt2, work);
+        SecP384R1Field.addExt(tt1, tt2, tt1);
+        SecP384R1Field.reduce(tt1, Y3);
+
+        int[] Z3 = H;
+        if (!Z1IsOne)
+        {
+            multiply(Z3, z, Z3);
+        }
+        if (!Z2IsOne)
+        {
+            multiply(Z3, Z2.x, Z3);
+        }
+
+        t4 = x; x = X3;
+        g = y; y = Y3;
+        h = z; z = Z3;
+        zIsOne = false;
+    }
+
+    protected void twice()
+    {
+        if (infinity)
+        {
+            return;
+        }
+
+        if (Nat.isZero(12, y))
+        {
+            infinity = true;
+            return;
+        }
+
+        int c;
+        int[] t1 = g;
+
+        int[] Y1Squared = t3;
+        square(y, Y1Squared);
+
+        int[] T = t4;
+        square(Y1Squared, T);
+
+        boolean Z1IsOne = zIsOne;
+
+        int[] Z1Squared = z;
+        if (!Z1IsOne)
+        {
+            Z1Squared = t2;
+            square(z, Z1Squared);
+        }
+
+        SecP384R1Field.subtract(x, Z1Squared, t1);
+
+        int[] M = t2;
+        SecP384R1Field.add(x, Z1Squared, M);
+        multiply(M, t1, M);
+        c = Nat.addBothTo(12, M, M, M);
+        SecP384R1Field.reduce32(c, M);
+
+        int[] S = Y1Squared;
+        multiply(Y1Squared, x, S);
+        c = Nat.shiftUpBits(12, S, 2, 0);
+        SecP384R1Field.reduce32(c, S);
+
+        c = Nat.shiftUpBits(12, T, 3, 0, t1);
+        SecP384R1Field.reduce32(c, t1);
+
+        int[] X3 = T;
+        square(M, X3);
+        SecP384R1Field.subtract(X3, S, X3);
+        SecP384R1Field.subtract(X3, S, X3);
+
+        int[] Y3 = S;
+        SecP384R1Field.subtract(S, X3, Y3);
+        multiply(Y3, M, Y3);
+        SecP384R1Field.subtract(Y3, t1, Y3);
+
+        int[] Z3 = M;
+        SecP384R1Field.twice(y, Z3);
+        if (!Z1IsOne)
+        {
+            multiply(Z3, z, Z3);
+        }
+
+        t4 = x; x = X3;
+        t3 = y; y = Y3;
+        t2 = z; z = Z3;
+        zIsOne = false;
+    }
+
+    protected ECPoint toPoint()
+    {
+        if (infinity)
+        {
+            return curve.getInfinity();
+        }
+
+        ECFieldElement[] zs = new ECFieldElement[]{ new SecP384R1FieldElement(Nat.copy(12, z)) };
+
+        return new SecP384R1Point(curve, new SecP384R1FieldElement(Nat.copy(12, x)),
+            new SecP384R1FieldElement(Nat.copy(12, y)), zs, false);
+    }
+
+    private void multiply(int[] a, int[] b, int[] r)
+    {
+        Nat384.mul(a, b, tt, work);
+        SecP384R1Field.reduce(tt, r);
+    }
+
+    private void square(int[] a, int[] r)
+    {
+        Nat384.square(a, tt, work);
+        SecP384R1Field.reduce(tt, r);
+    }
+}
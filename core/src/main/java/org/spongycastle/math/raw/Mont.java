@@ -0,0 +1,106 @@
+package org.spongycastle.math.raw;
+
+/**
+ * Montgomery multiplication and reduction for moduli of any number of words, as {@link Mont256}
+ * does for 8 words. mInv32 is the negated inverse of the low word of m, modulo 2^32.
+ * <p>
+ * The final subtraction of m is done with a mask rather than a branch (see
+ * {@link #reduceOnce(int, int, int[], int[])}), so the operations performed do not depend on the
+ * values involved.
+ * </p>
+ */
+public abstract class Mont
+{
+    private static final long M = 0xFFFFFFFFL;
+
+    public static void multAdd(int len, int[] x, int[] y, int[] z, int[] m, int mInv32)
+    {
+        int z_len = 0;
+        long y_0 = y[0] & M;
+
+        for (int i = 0; i < len; ++i)
+        {
+            long z_0 = z[0] & M;
+            long x_i = x[i] & M;
+
+            long prod1 = x_i * y_0;
+            long carry = (prod1 & M) + z_0;
+
+            long t = ((int)carry * mInv32) & M;
+
+            long prod2 = t * (m[0] & M);
+            carry += (prod2 & M);
+            // assert (int)carry == 0;
+            carry = (carry >>> 32) + (prod1 >>> 32) + (prod2 >>> 32);
+
+            for (int j = 1; j < len; ++j)
+            {
+                prod1 = x_i * (y[j] & M);
+                prod2 = t * (m[j] & M);
+
+                carry += (prod1 & M) + (prod2 & M) + (z[j] & M);
+                z[j - 1] = (int)carry;
+                carry = (carry >>> 32) + (prod1 >>> 32) + (prod2 >>> 32);
+            }
+
+            carry += (z_len & M);
+            z[len - 1] = (int)carry;
+            z_len = (int)(carry >>> 32);
+        }
+
+        reduceOnce(len, z_len, z, m);
+    }
+
+    public static void reduce(int len, int[] z, int[] m, int mInv32)
+    {
+        for (int i = 0; i < len; ++i)
+        {
+            int z_0 = z[0];
+
+            long t = (z_0 * mInv32) & M;
+
+            long carry = t * (m[0] & M) + (z_0 & M);
+            // assert (int)carry == 0;
+            carry >>>= 32;
+
+            for (int j = 1; j < len; ++j)
+            {
+                carry += t * (m[j] & M) + (z[j] & M);
+                z[j - 1] = (int)carry;
+                carry >>>= 32;
+            }
+
+            z[len - 1] = (int)carry;
+            // assert carry >>> 32 == 0;
+        }
+
+        reduceOnce(len, 0, z, m);
+    }
+
+    /**
+     * Subtract m from the value held in z, with zHi (0 or 1) as an extra top word, if that value
+     * is at least m, so a value less than 2m is left reduced. m is always subtracted and then added
+     * back under a mask if the subtraction went negative, so there is no branch on the values.
+     */
+    public static void reduceOnce(int len, int zHi, int[] z, int[] m)
+    {
+        long c = 0;
+        for (int i = 0; i < len; ++i)
+        {
+            c += (z[i] & M) - (m[i] & M);
+            z[i] = (int)c;
+            c >>= 32;
+        }
+
+        // -1 if the subtraction borrowed beyond zHi, otherwise 0
+        int mask = (int)(c + zHi) >> 31;
+
+        c = 0;
+        for (int i = 0; i < len; ++i)
+        {
+            c += (z[i] & M) + (m[i] & mask & M);
+            z[i] = (int)c;
+            c >>>= 32;
+        }
+    }
+}
@@ -2,6 +2,7 @@
 
 
 import java.security.SecureRandom;
+import java.util.concurrent.Executor;
 
 import org.spongycastle.crypto.AsymmetricCipherKeyPair;
 import org.spongycastle.crypto.AsymmetricCipherKeyPairGenerator;
@@ -29,6 +30,8 @@
      */
     public static final String OID = "1.3.6.1.4.1.8301.3.1.3.4.2";
 
+    private final Executor executor;
+
     private McElieceCCA2KeyGenerationParameters mcElieceCCA2Params;
 
     // the extension degree of the finite field GF(2^m)
@@ -49,6 +52,23 @@
     // flag indicating whether the key pair generator has been initialized
     private boolean initialized = false;
 
+    public McElieceCCA2KeyPairGenerator()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructor for a generator that spreads the large matrix
+     * multiplications of key generation over an executor.
+     *
+     * @param executor the executor to multiply on, <tt>null</tt> to use the
+     *                 calling thread alone
+     */
+    public McElieceCCA2KeyPairGenerator(Executor executor)
+    {
+        this.executor = executor;
+    }
+
     /**
      * Default initialization of the key pair generator.
      */
@@ -98,7 +118,7 @@ public AsymmetricCipherKeyPair generateKeyPair()
         GF2Matrix h = GoppaCode.createCanonicalCheckMatrix(field, gp);
 
         // compute short systematic form of check matrix
-        MaMaPe mmp = GoppaCode.computeSystematicForm(h, random);
+        MaMaPe mmp = GoppaCode.computeSystematicForm(h, random, executor);
         GF2Matrix shortH = mmp.getSecondMatrix();
         Permutation p = mmp.getPermutation();
 
@@ -1,6 +1,7 @@
 package org.spongycastle.pqc.crypto.mceliece;
 
 import java.security.SecureRandom;
+import java.util.concurrent.Executor;
 
 import org.spongycastle.crypto.AsymmetricCipherKeyPair;
 import org.spongycastle.crypto.AsymmetricCipherKeyPairGenerator;
@@ -22,10 +23,23 @@
     implements AsymmetricCipherKeyPairGenerator
 {
 
+    private final Executor executor;
 
     public McElieceKeyPairGenerator()
     {
+        this(null);
+    }
 
+    /**
+     * Constructor for a generator that spreads the large matrix
+     * multiplications of key generation over an executor.
+     *
+     * @param executor the executor to multiply on, <tt>null</tt> to use the
+     *                 calling thread alone
+     */
+    public McElieceKeyPairGenerator(Executor executor)
+    {
+        this.executor = executor;
     }
 
 
@@ -103,7 +117,7 @@ private AsymmetricCipherKeyPair genKeyPair()
         GF2Matrix h = GoppaCode.createCanonicalCheckMatrix(field, gp);
 
         // compute short systematic form of check matrix
-        MaMaPe mmp = GoppaCode.computeSystematicForm(h, random);
+        MaMaPe mmp = GoppaCode.computeSystematicForm(h, random, executor);
         GF2Matrix shortH = mmp.getSecondMatrix();
         Permutation p1 = mmp.getPermutation();
 
@@ -118,13 +132,13 @@ private AsymmetricCipherKeyPair genKeyPair()
 
         // generate random invertible (k x k)-matrix S and its inverse S^-1
         GF2Matrix[] matrixSandInverse = GF2Matrix
-            .createRandomRegularMatrixAndItsInverse(k, random);
+            .createRandomRegularMatrixAndItsInverse(k, random, executor);
 
         // generate random permutation P2
         Permutation p2 = new Permutation(n, random);
 
         // compute public matrix G=S*G'*P2
-        GF2Matrix g = (GF2Matrix)matrixSandInverse[0].rightMultiply(gPrime);
+        GF2Matrix g = (GF2Matrix)matrixSandInverse[0].rightMultiply(gPrime, executor);
         g = (GF2Matrix)g.rightMultiply(p2);
 
 
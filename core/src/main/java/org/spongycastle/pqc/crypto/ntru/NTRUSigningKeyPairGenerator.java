@@ -6,9 +6,8 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.spongycastle.crypto.AsymmetricCipherKeyPair;
 import org.spongycastle.crypto.AsymmetricCipherKeyPairGenerator;
@@ -21,6 +20,8 @@
 import org.spongycastle.pqc.math.ntru.polynomial.Polynomial;
 import org.spongycastle.pqc.math.ntru.polynomial.ProductFormPolynomial;
 import org.spongycastle.pqc.math.ntru.polynomial.Resultant;
+import org.spongycastle.pqc.math.ntru.util.Util;
+import org.spongycastle.util.Tasks;
 
 import static java.math.BigInteger.ONE;
 import static java.math.BigInteger.ZERO;
@@ -28,45 +29,60 @@
 public class NTRUSigningKeyPairGenerator
     implements AsymmetricCipherKeyPairGenerator
 {
+    private final Executor executor;
+
     private NTRUSigningKeyGenerationParameters params;
 
+    /**
+     * Base constructor - the bases are generated on the executor from {@link Util#getSharedExecutor()}.
+     */
+    public NTRUSigningKeyPairGenerator()
+    {
+        this(Util.getSharedExecutor());
+    }
+
+    /**
+     * Constructor for a generator that generates the bases of a key on the passed in executor.
+     *
+     * @param executor the executor to generate the bases on, <code>null</code> to generate them on the calling thread.
+     */
+    public NTRUSigningKeyPairGenerator(Executor executor)
+    {
+        this.executor = executor;
+    }
+
     public void init(KeyGenerationParameters param)
     {
         this.params = (NTRUSigningKeyGenerationParameters)param;
     }
 
     /**
-     * Generates a new signature key pair. Starts <code>B+1</code> threads.
+     * Generates a new signature key pair. The <code>B+1</code> bases are generated as separate tasks on
+     * the generator's executor, with the calling thread taking any the executor has not started.
      *
      * @return a key pair
      */
     public AsymmetricCipherKeyPair generateKeyPair()
     {
         NTRUSigningPublicKeyParameters pub = null;
-        ExecutorService executor = Executors.newCachedThreadPool();
-        List<Future<NTRUSigningPrivateKeyParameters.Basis>> bases = new ArrayList<Future<NTRUSigningPrivateKeyParameters.Basis>>();
+        List<FutureTask<NTRUSigningPrivateKeyParameters.Basis>> bases = new ArrayList<FutureTask<NTRUSigningPrivateKeyParameters.Basis>>();
         for (int k = params.B; k >= 0; k--)
         {
-            bases.add(executor.submit(new BasisGenerationTask()));
+            FutureTask<NTRUSigningPrivateKeyParameters.Basis> task = new FutureTask<NTRUSigningPrivateKeyParameters.Basis>(new BasisGenerationTask());
+            bases.add(task);
+            Tasks.execute(executor, task);
         }
-        executor.shutdown();
 
         List<NTRUSigningPrivateKeyParameters.Basis> basises = new ArrayList<NTRUSigningPrivateKeyParameters.Basis>();
 
         for (int k = params.B; k >= 0; k--)
         {
-            Future<NTRUSigningPrivateKeyParameters.Basis> basis = bases.get(k);
-            try
-            {
-                basises.add(basis.get());
-                if (k == params.B)
-                {
-                    pub = new NTRUSigningPublicKeyParameters(basis.get().h, params.getSigningParameters());
-                }
-            }
-            catch (Exception e)
+            NTRUSigningPrivateKeyParameters.Basis basis = Tasks.take(bases.get(k), bases, "generating key pair");
+
+            basises.add(basis);
+            if (k == params.B)
             {
-                throw new IllegalStateException(e);
+                pub = new NTRUSigningPublicKeyParameters(basis.h, params.getSigningParameters());
             }
         }
         NTRUSigningPrivateKeyParameters priv = new NTRUSigningPrivateKeyParameters(basises, pub);
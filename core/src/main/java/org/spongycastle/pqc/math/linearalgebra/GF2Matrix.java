@@ -1,6 +1,12 @@
 package org.spongycastle.pqc.math.linearalgebra;
 
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.spongycastle.util.Tasks;
 
 /**
  * This class describes some operations with matrices over finite field GF(2)
@@ -24,6 +30,25 @@
      */
     private int length;
 
+    /**
+     * the number of rows of the right hand matrix combined by each table in
+     * {@link #rightMultiply(Matrix)}, and of the columns eliminated together in
+     * {@link #computeInverse()}
+     */
+    private static final int TABLE_BITS = 8;
+
+    /**
+     * the number of 64-bit words of a row covered by one table in
+     * {@link #rightMultiply(Matrix)}, so that the table stays in cache
+     */
+    private static final int TABLE_LONGS = 16;
+
+    /**
+     * the number of rows given to each task when a multiplication is spread
+     * over an executor
+     */
+    private static final int BAND_ROWS = 256;
+
     /**
      * Create the matrix from encoded form.
      *
@@ -342,6 +367,22 @@ private void assignRandomRegularMatrix(int n, SecureRandom sr)
     public static GF2Matrix[] createRandomRegularMatrixAndItsInverse(int n,
                                                                      SecureRandom sr)
     {
+        return createRandomRegularMatrixAndItsInverse(n, sr, null);
+    }
+
+    /**
+     * Create a nxn random regular matrix and its inverse, spreading the
+     * multiplication over an executor.
+     *
+     * @param n        number of rows (and columns)
+     * @param sr       source of randomness
+     * @param executor the executor to multiply on, <tt>null</tt> to use the
+     *                 calling thread alone
+     * @return the created random regular matrix and its inverse
+     */
+    public static GF2Matrix[] createRandomRegularMatrixAndItsInverse(int n,
+                                                                     SecureRandom sr, Executor executor)
+    {
 
         GF2Matrix[] result = new GF2Matrix[2];
 
@@ -353,7 +394,7 @@ public static GF2Matrix[] createRandomRegularMatrixAndItsInverse(int n,
         int length = (n + 31) >> 5;
         GF2Matrix lm = new GF2Matrix(n, Matrix.MATRIX_TYPE_RANDOM_LT, sr);
         GF2Matrix um = new GF2Matrix(n, Matrix.MATRIX_TYPE_RANDOM_UT, sr);
-        GF2Matrix rm = (GF2Matrix)lm.rightMultiply(um);
+        GF2Matrix rm = (GF2Matrix)lm.rightMultiply(um, executor);
         Permutation p = new Permutation(n, sr);
         int[] pVec = p.getVector();
 
@@ -369,47 +410,9 @@ public static GF2Matrix[] createRandomRegularMatrixAndItsInverse(int n,
         // Second part: create inverse matrix
         // ------------------------------------
 
-        // inverse to lm
-        GF2Matrix invLm = new GF2Matrix(n, Matrix.MATRIX_TYPE_UNIT);
-        for (int i = 0; i < n; i++)
-        {
-            int rest = i & 0x1f;
-            int q = i >>> 5;
-            int r = 1 << rest;
-            for (int j = i + 1; j < n; j++)
-            {
-                int b = (lm.matrix[j][q]) & r;
-                if (b != 0)
-                {
-                    for (int k = 0; k <= q; k++)
-                    {
-                        invLm.matrix[j][k] ^= invLm.matrix[i][k];
-                    }
-                }
-            }
-        }
-        // inverse to um
-        GF2Matrix invUm = new GF2Matrix(n, Matrix.MATRIX_TYPE_UNIT);
-        for (int i = n - 1; i >= 0; i--)
-        {
-            int rest = i & 0x1f;
-            int q = i >>> 5;
-            int r = 1 << rest;
-            for (int j = i - 1; j >= 0; j--)
-            {
-                int b = (um.matrix[j][q]) & r;
-                if (b != 0)
-                {
-                    for (int k = q; k < length; k++)
-                    {
-                        invUm.matrix[j][k] ^= invUm.matrix[i][k];
-                    }
-                }
-            }
-        }
-
-        // inverse matrix
-        result[1] = (GF2Matrix)invUm.rightMultiply(invLm.rightMultiply(p));
+        // a blocked elimination is cheaper than inverting lm and um one row
+        // at a time and multiplying the inverses back together
+        result[1] = (GF2Matrix)result[0].computeInverse();
 
         return result;
     }
@@ -723,6 +726,13 @@ public Matrix computeTranspose()
 
     /**
      * Compute the inverse of this matrix.
+     * <p>
+     * The elimination works on rows of 64-bit words holding <tt>(this | Id)</tt>
+     * and clears 8 columns at a time: pivots are found for
+     * the block of columns, then each other row is cleared on the block with a
+     * single lookup in a table of all combinations of the pivot rows (the
+     * method of four Russians), rather than with one row addition per column.
+     * </p>
      *
      * @return the inverse of this matrix (newly created).
      * @throws ArithmeticException if this matrix is not invertible.
@@ -734,66 +744,97 @@ public Matrix computeInverse()
             throw new ArithmeticException("Matrix is not invertible.");
         }
 
-        // clone this matrix
-        int[][] tmpMatrix = new int[numRows][length];
-        for (int i = numRows - 1; i >= 0; i--)
-        {
-            tmpMatrix[i] = IntUtils.clone(matrix[i]);
-        }
+        int n = numRows;
+        int half = (n + 63) >>> 6;
 
-        // initialize inverse matrix as unit matrix
-        int[][] invMatrix = new int[numRows][length];
-        for (int i = numRows - 1; i >= 0; i--)
+        // rows of (this | Id), each half starting on a word boundary
+        long[][] rows = new long[n][2 * half];
+        for (int i = 0; i < n; i++)
         {
-            int q = i >> 5;
-            int r = i & 0x1f;
-            invMatrix[i][q] = 1 << r;
+            toLongs(matrix[i], rows[i], 0);
+            rows[i][half + (i >>> 6)] = 1L << (i & 0x3f);
         }
 
-        // simultaneously compute Gaussian reduction of tmpMatrix and unit
-        // matrix
-        for (int i = 0; i < numRows; i++)
+        long[] table = new long[(1 << TABLE_BITS) * 2 * half];
+
+        for (int start = 0; start < n; start += TABLE_BITS)
         {
-            // i = q * 32 + (i mod 32)
-            int q = i >> 5;
-            int bitMask = 1 << (i & 0x1f);
-            // if diagonal element is zero
-            if ((tmpMatrix[i][q] & bitMask) == 0)
+            int bits = Math.min(TABLE_BITS, n - start);
+            // TABLE_BITS divides 64, so a block of columns lies in one word
+            int q = start >>> 6;
+            int shift = start & 0x3f;
+
+            for (int k = 0; k < bits; k++)
             {
-                boolean foundNonZero = false;
-                // find a non-zero element in the same column
-                for (int j = i + 1; j < numRows; j++)
+                int col = start + k;
+                long bitMask = 1L << (shift + k);
+
+                // find a row with a one in this column once cleared on the
+                // columns of the pivots found so far
+                int j = col;
+                for (; j < n; j++)
                 {
-                    if ((tmpMatrix[j][q] & bitMask) != 0)
+                    long[] row = rows[j];
+                    for (int l = 0; l < k; l++)
+                    {
+                        if ((row[q] & (1L << (shift + l))) != 0)
+                        {
+                            addToRow(rows[start + l], row, q);
+                        }
+                    }
+                    if ((row[q] & bitMask) != 0)
                     {
-                        // found it, swap rows ...
-                        foundNonZero = true;
-                        swapRows(tmpMatrix, i, j);
-                        swapRows(invMatrix, i, j);
-                        // ... and quit searching
-                        j = numRows;
-                        continue;
+                        break;
                     }
                 }
-                // if no non-zero element was found ...
-                if (!foundNonZero)
+                if (j == n)
                 {
                     // ... the matrix is not invertible
                     throw new ArithmeticException("Matrix is not invertible.");
                 }
+
+                long[] pivot = rows[j];
+                rows[j] = rows[col];
+                rows[col] = pivot;
+
+                // keep the pivots of the block reduced against each other
+                for (int l = 0; l < k; l++)
+                {
+                    if ((rows[start + l][q] & bitMask) != 0)
+                    {
+                        addToRow(pivot, rows[start + l], q);
+                    }
+                }
             }
 
-            // normalize all but i-th row
-            for (int j = numRows - 1; j >= 0; j--)
+            // clear the block of columns from all the other rows
+            int width = 2 * half - q;
+            buildTable(rows, start, bits, q, width, table);
+
+            int mask = (1 << bits) - 1;
+            for (int i = 0; i < n; i++)
             {
-                if ((j != i) && ((tmpMatrix[j][q] & bitMask) != 0))
+                if (i == start)
                 {
-                    addToRow(tmpMatrix[i], tmpMatrix[j], q);
-                    addToRow(invMatrix[i], invMatrix[j], 0);
+                    i += bits - 1;
+                    continue;
+                }
+
+                long[] row = rows[i];
+                int off = ((int)(row[q] >>> shift) & mask) * width;
+                for (int l = 0; l < width; l++)
+                {
+                    row[q + l] ^= table[off + l];
                 }
             }
         }
 
+        int[][] invMatrix = new int[n][length];
+        for (int i = 0; i < n; i++)
+        {
+            fromLongs(rows[i], half, invMatrix[i]);
+        }
+
         return new GF2Matrix(numColumns, invMatrix);
     }
 
@@ -969,6 +1010,29 @@ public Vector leftMultiplyLeftCompactForm(Vector vec)
      * @return matrix product <tt>this*matrixA</tt>
      */
     public Matrix rightMultiply(Matrix mat)
+    {
+        return rightMultiply(mat, null);
+    }
+
+    /**
+     * Compute the product of this matrix and a matrix A over GF(2), spreading
+     * bands of rows of the product over an executor. The calling thread works
+     * through any bands the executor has not started, so a busy executor
+     * cannot stall the multiplication.
+     * <p>
+     * The product is computed with the method of four Russians on 64-bit
+     * words: each 8 rows of A are combined into a table of all their sums,
+     * covering 1024 columns at a time so the table stays in cache, and each
+     * row of the product then takes one table entry per 8 bits of the
+     * matching row of this matrix.
+     * </p>
+     *
+     * @param mat      a matrix A over GF(2)
+     * @param executor the executor to multiply on, <tt>null</tt> to use the
+     *                 calling thread alone
+     * @return matrix product <tt>this*matrixA</tt>
+     */
+    public Matrix rightMultiply(Matrix mat, Executor executor)
     {
         if (!(mat instanceof GF2Matrix))
         {
@@ -983,49 +1047,50 @@ public Matrix rightMultiply(Matrix mat)
         GF2Matrix a = (GF2Matrix)mat;
         GF2Matrix result = new GF2Matrix(numRows, mat.numColumns);
 
-        int d;
-        int rest = numColumns & 0x1f;
-        if (rest == 0)
+        final long[][] aRows = new long[a.numRows][(a.numColumns + 63) >>> 6];
+        for (int i = 0; i < a.numRows; i++)
         {
-            d = length;
+            toLongs(a.matrix[i], aRows[i], 0);
         }
-        else
+        final long[][] resRows = new long[numRows][(a.numColumns + 63) >>> 6];
+
+        if (executor == null || numRows <= BAND_ROWS)
         {
-            d = length - 1;
+            multiplyRows(matrix, numColumns, aRows, resRows, 0, numRows);
         }
-        for (int i = 0; i < numRows; i++)
+        else
         {
-            int count = 0;
-            for (int j = 0; j < d; j++)
+            int bandCount = (numRows - 1) / BAND_ROWS;
+            List<FutureTask<Object>> bands = new ArrayList<FutureTask<Object>>(bandCount);
+
+            for (int b = 0; b < bandCount; b++)
             {
-                int e = matrix[i][j];
-                for (int h = 0; h < 32; h++)
+                final int bandFrom = (b + 1) * BAND_ROWS;
+                final int bandTo = Math.min(bandFrom + BAND_ROWS, numRows);
+
+                FutureTask<Object> task = new FutureTask<Object>(new Runnable()
                 {
-                    int b = e & (1 << h);
-                    if (b != 0)
+                    public void run()
                     {
-                        for (int g = 0; g < a.length; g++)
-                        {
-                            result.matrix[i][g] ^= a.matrix[count][g];
-                        }
+                        multiplyRows(matrix, numColumns, aRows, resRows, bandFrom, bandTo);
                     }
-                    count++;
-                }
+                }, null);
+
+                bands.add(task);
+                Tasks.execute(executor, task);
             }
-            int e = matrix[i][length - 1];
-            for (int h = 0; h < rest; h++)
+
+            multiplyRows(matrix, numColumns, aRows, resRows, 0, BAND_ROWS);
+
+            for (int b = 0; b < bandCount; b++)
             {
-                int b = e & (1 << h);
-                if (b != 0)
-                {
-                    for (int g = 0; g < a.length; g++)
-                    {
-                        result.matrix[i][g] ^= a.matrix[count][g];
-                    }
-                }
-                count++;
+                Tasks.take(bands.get(b), bands, "multiplying matrices");
             }
+        }
 
+        for (int i = 0; i < numRows; i++)
+        {
+            fromLongs(resRows[i], 0, result.matrix[i]);
         }
 
         return result;
@@ -1049,15 +1114,15 @@ public Matrix rightMultiply(Permutation p)
 
         GF2Matrix result = new GF2Matrix(numRows, numColumns);
 
-        for (int i = numColumns - 1; i >= 0; i--)
+        // row by row, so each row is read and written while it is in cache
+        for (int j = numRows - 1; j >= 0; j--)
         {
-            int q = i >>> 5;
-            int r = i & 0x1f;
-            int pq = pVec[i] >>> 5;
-            int pr = pVec[i] & 0x1f;
-            for (int j = numRows - 1; j >= 0; j--)
+            int[] row = matrix[j];
+            int[] resRow = result.matrix[j];
+            for (int i = numColumns - 1; i >= 0; i--)
             {
-                result.matrix[j][q] |= ((matrix[j][pq] >>> pr) & 1) << r;
+                int pi = pVec[i];
+                resRow[i >>> 5] |= ((row[pi >>> 5] >>> (pi & 0x1f)) & 1) << (i & 0x1f);
             }
         }
 
@@ -1292,31 +1357,113 @@ public String toString()
     }
 
     /**
-     * Swap two rows of the given matrix.
+     * Partially add one row to another.
      *
-     * @param matrix the matrix
-     * @param first  the index of the first row
-     * @param second the index of the second row
+     * @param fromRow    the addend
+     * @param toRow      the row to add to
+     * @param startIndex the array index to start from
      */
-    private static void swapRows(int[][] matrix, int first, int second)
+    private static void addToRow(long[] fromRow, long[] toRow, int startIndex)
     {
-        int[] tmp = matrix[first];
-        matrix[first] = matrix[second];
-        matrix[second] = tmp;
+        for (int i = toRow.length - 1; i >= startIndex; i--)
+        {
+            toRow[i] ^= fromRow[i];
+        }
     }
 
     /**
-     * Partially add one row to another.
+     * Multiply the rows <tt>from</tt> to <tt>to - 1</tt> of a matrix by a
+     * matrix held as rows of 64-bit words, adding the results into
+     * <tt>resRows</tt>.
      *
-     * @param fromRow    the addend
-     * @param toRow      the row to add to
-     * @param startIndex the array index to start from
+     * @param matrix     the rows of the left hand matrix
+     * @param numColumns the number of columns of the left hand matrix
+     * @param aRows      the rows of the right hand matrix
+     * @param resRows    the rows of the product
+     * @param from       the first row to compute
+     * @param to         the row after the last to compute
      */
-    private static void addToRow(int[] fromRow, int[] toRow, int startIndex)
+    private static void multiplyRows(int[][] matrix, int numColumns, long[][] aRows, long[][] resRows, int from, int to)
     {
-        for (int i = toRow.length - 1; i >= startIndex; i--)
+        if (aRows.length == 0)
+        {
+            return;
+        }
+
+        int longs = aRows[0].length;
+        long[] table = new long[(1 << TABLE_BITS) * Math.min(TABLE_LONGS, longs)];
+
+        for (int q = 0; q < longs; q += TABLE_LONGS)
+        {
+            int width = Math.min(TABLE_LONGS, longs - q);
+
+            for (int start = 0; start < numColumns; start += TABLE_BITS)
+            {
+                int bits = Math.min(TABLE_BITS, numColumns - start);
+                buildTable(aRows, start, bits, q, width, table);
+
+                // TABLE_BITS divides 32, so the bits for a table lie in one word
+                int word = start >>> 5;
+                int shift = start & 0x1f;
+                int mask = (1 << bits) - 1;
+                for (int i = from; i < to; i++)
+                {
+                    long[] resRow = resRows[i];
+                    int off = ((matrix[i][word] >>> shift) & mask) * width;
+                    for (int l = 0; l < width; l++)
+                    {
+                        resRow[q + l] ^= table[off + l];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fill a table with all sums of the rows <tt>start</tt> to
+     * <tt>start + bits - 1</tt>, over <tt>width</tt> words from word
+     * <tt>q</tt>. The sum selected by the bits of <tt>i</tt> is at
+     * <tt>i * width</tt>.
+     */
+    private static void buildTable(long[][] rows, int start, int bits, int q, int width, long[] table)
+    {
+        for (int l = 0; l < width; l++)
+        {
+            table[l] = 0;
+        }
+        for (int k = 0; k < bits; k++)
+        {
+            long[] row = rows[start + k];
+            int size = (1 << k) * width;
+            for (int i = 0; i < size; i += width)
+            {
+                for (int l = 0; l < width; l++)
+                {
+                    table[size + i + l] = table[i + l] ^ row[q + l];
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy a row of 32-bit words into 64-bit words, low word first.
+     */
+    private static void toLongs(int[] row, long[] longs, int off)
+    {
+        for (int i = 0; i < row.length; i++)
+        {
+            longs[off + (i >>> 1)] |= (row[i] & 0xffffffffL) << ((i & 1) << 5);
+        }
+    }
+
+    /**
+     * Copy 64-bit words from <tt>off</tt> back into a row of 32-bit words.
+     */
+    private static void fromLongs(long[] longs, int off, int[] row)
+    {
+        for (int i = 0; i < row.length; i++)
         {
-            toRow[i] = fromRow[i] ^ toRow[i];
+            row[i] = (int)(longs[off + (i >>> 1)] >>> ((i & 1) << 5));
         }
     }
 
@@ -1,6 +1,7 @@
 package org.spongycastle.pqc.math.linearalgebra;
 
 import java.security.SecureRandom;
+import java.util.concurrent.Executor;
 
 /**
  * This class describes decoding operations of an irreducible binary Goppa code.
@@ -212,6 +213,24 @@ public static GF2Matrix createCanonicalCheckMatrix(GF2mField field,
      * @return the tuple <tt>(S^-1, M, P)</tt>
      */
     public static MaMaPe computeSystematicForm(GF2Matrix h, SecureRandom sr)
+    {
+        return computeSystematicForm(h, sr, null);
+    }
+
+    /**
+     * Given a check matrix <tt>H</tt>, compute matrices <tt>S</tt>,
+     * <tt>M</tt>, and a random permutation <tt>P</tt> such that
+     * <tt>S*H*P = (Id|M)</tt>, spreading the multiplication by <tt>S</tt>
+     * over an executor.
+     *
+     * @param h        the check matrix
+     * @param sr       a source of randomness
+     * @param executor the executor to multiply on, <tt>null</tt> to use the
+     *                 calling thread alone
+     * @return the tuple <tt>(S^-1, M, P)</tt>
+     * @see #computeSystematicForm(GF2Matrix, SecureRandom)
+     */
+    public static MaMaPe computeSystematicForm(GF2Matrix h, SecureRandom sr, Executor executor)
     {
         int n = h.getNumColumns();
         GF2Matrix hp, sInv;
@@ -236,7 +255,7 @@ public static MaMaPe computeSystematicForm(GF2Matrix h, SecureRandom sr)
         }
         while (!found);
 
-        GF2Matrix shp = (GF2Matrix)s.rightMultiply(hp);
+        GF2Matrix shp = (GF2Matrix)s.rightMultiply(hp, executor);
         GF2Matrix m = shp.getRightSubMatrix();
 
         return new MaMaPe(sInv, m, p);
@@ -8,15 +8,14 @@
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.spongycastle.pqc.math.ntru.euclid.BigIntEuclidean;
 import org.spongycastle.pqc.math.ntru.util.ArrayEncoder;
 import org.spongycastle.pqc.math.ntru.util.Util;
 import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Tasks;
 
 /**
  * A polynomial with <code>int</code> coefficients.<br>
@@ -27,6 +26,10 @@
     implements Polynomial
 {
     private static final int NUM_EQUAL_RESULTANTS = 3;
+    /**
+     * Below this many coefficients {@link #mult(IntegerPolynomial)} multiplies term by term rather than splitting further.
+     */
+    private static final int KARATSUBA_THRESHOLD = 32;
     /**
      * Prime numbers &gt; 4500 for resultant computation. Starting them below ~4400 causes incorrect results occasionally.
      * Fortunately, 4500 is about the optimum number for performance.<br/>
@@ -288,17 +291,16 @@ public IntegerPolynomial mult(IntegerPolynomial poly2)
             throw new IllegalArgumentException("Number of coefficients must be the same");
         }
 
-        IntegerPolynomial c = multRecursive(poly2);
+        int[] c = new int[2 * N];
+        multRecursive(coeffs, 0, poly2.coeffs, 0, N, c, 0, new int[scratchLength(N)], 0);
 
-        if (c.coeffs.length > N)
+        // the product has 2N - 1 coefficients; fold the upper ones back as x^N = 1
+        int[] r = Arrays.copyOf(c, N);
+        for (int k = N; k < 2 * N - 1; k++)
         {
-            for (int k = N; k < c.coeffs.length; k++)
-            {
-                c.coeffs[k - N] += c.coeffs[k];
-            }
-            c.coeffs = Arrays.copyOf(c.coeffs, N);
+            r[k - N] += c[k];
         }
-        return c;
+        return new IntegerPolynomial(r);
     }
 
     public BigIntPolynomial mult(BigIntPolynomial poly2)
@@ -307,62 +309,82 @@ public BigIntPolynomial mult(BigIntPolynomial poly2)
     }
 
     /**
-     * Karazuba multiplication
+     * Karazuba multiplication of <code>n</code> coefficients of <code>a</code> and <code>b</code>
+     * into the <code>2n</code> entries of <code>c</code> from <code>cOff</code>, working in the
+     * scratch space <code>t</code>.<br>
+     * Nothing is reduced on the way: <code>int</code> arithmetic wraps the same way for every
+     * intermediate value, so the result is exact mod <code>2^32</code> and any reduction by a
+     * power of 2 (or of a small enough product) can be left to the caller.
      */
-    private IntegerPolynomial multRecursive(IntegerPolynomial poly2)
+    private static void multRecursive(int[] a, int aOff, int[] b, int bOff, int n, int[] c, int cOff, int[] t, int tOff)
     {
-        int[] a = coeffs;
-        int[] b = poly2.coeffs;
-
-        int n = poly2.coeffs.length;
-        if (n <= 32)
+        if (n <= KARATSUBA_THRESHOLD)
         {
-            int cn = 2 * n - 1;
-            IntegerPolynomial c = new IntegerPolynomial(new int[cn]);
-            for (int k = 0; k < cn; k++)
+            for (int k = 0; k < 2 * n; k++)
             {
-                for (int i = Math.max(0, k - n + 1); i <= Math.min(k, n - 1); i++)
+                c[cOff + k] = 0;
+            }
+            for (int i = 0; i < n; i++)
+            {
+                int ai = a[aOff + i];
+                int ci = cOff + i;
+                for (int j = 0; j < n; j++)
                 {
-                    c.coeffs[k] += b[i] * a[k - i];
+                    c[ci + j] += ai * b[bOff + j];
                 }
             }
-            return c;
+            return;
         }
-        else
-        {
-            int n1 = n / 2;
 
-            IntegerPolynomial a1 = new IntegerPolynomial(Arrays.copyOf(a, n1));
-            IntegerPolynomial a2 = new IntegerPolynomial(Arrays.copyOfRange(a, n1, n));
-            IntegerPolynomial b1 = new IntegerPolynomial(Arrays.copyOf(b, n1));
-            IntegerPolynomial b2 = new IntegerPolynomial(Arrays.copyOfRange(b, n1, n));
+        int n1 = n / 2;
+        int n2 = n - n1;
 
-            IntegerPolynomial A = (IntegerPolynomial)a1.clone();
-            A.add(a2);
-            IntegerPolynomial B = (IntegerPolynomial)b1.clone();
-            B.add(b2);
+        // low and high halves multiply straight into their places in c
+        multRecursive(a, aOff, b, bOff, n1, c, cOff, t, tOff);
+        multRecursive(a, aOff + n1, b, bOff + n1, n2, c, cOff + 2 * n1, t, tOff);
 
-            IntegerPolynomial c1 = a1.multRecursive(b1);
-            IntegerPolynomial c2 = a2.multRecursive(b2);
-            IntegerPolynomial c3 = A.multRecursive(B);
-            c3.sub(c1);
-            c3.sub(c2);
+        int sa = tOff;
+        int sb = tOff + n2;
+        int m = tOff + 2 * n2;
+        for (int i = 0; i < n1; i++)
+        {
+            t[sa + i] = a[aOff + i] + a[aOff + n1 + i];
+            t[sb + i] = b[bOff + i] + b[bOff + n1 + i];
+        }
+        if (n2 > n1)
+        {
+            t[sa + n1] = a[aOff + n - 1];
+            t[sb + n1] = b[bOff + n - 1];
+        }
+        multRecursive(t, sa, t, sb, n2, t, m, t, m + 2 * n2);
 
-            IntegerPolynomial c = new IntegerPolynomial(2 * n - 1);
-            for (int i = 0; i < c1.coeffs.length; i++)
-            {
-                c.coeffs[i] = c1.coeffs[i];
-            }
-            for (int i = 0; i < c3.coeffs.length; i++)
-            {
-                c.coeffs[n1 + i] += c3.coeffs[i];
-            }
-            for (int i = 0; i < c2.coeffs.length; i++)
-            {
-                c.coeffs[2 * n1 + i] += c2.coeffs[i];
-            }
-            return c;
+        // middle term: (a1 + a2)(b1 + b2) - a1b1 - a2b2
+        for (int i = 0; i < 2 * n1 - 1; i++)
+        {
+            t[m + i] -= c[cOff + i];
+        }
+        for (int i = 0; i < 2 * n2 - 1; i++)
+        {
+            t[m + i] -= c[cOff + 2 * n1 + i];
+        }
+        for (int i = 0; i < 2 * n2 - 1; i++)
+        {
+            c[cOff + n1 + i] += t[m + i];
+        }
+    }
+
+    /**
+     * The scratch space {@link #multRecursive(int[], int, int[], int, int, int[], int, int[], int)} needs for <code>n</code> coefficients.
+     */
+    private static int scratchLength(int n)
+    {
+        int len = 0;
+        while (n > KARATSUBA_THRESHOLD)
+        {
+            n -= n / 2;
+            len += 4 * n;
         }
+        return len;
     }
 
     /**
@@ -675,11 +697,24 @@ else if (res.compareTo(pProd2n) < 0)
     }
 
     /**
-     * Multithreaded version of {@link #resultant()}.
+     * Multithreaded version of {@link #resultant()}, using the executor from {@link Util#getSharedExecutor()}.
      *
      * @return <code>(rho, res)</code> satisfying <code>res = rho*this + t*(x^n-1)</code> for some integer <code>t</code>.
      */
     public Resultant resultantMultiThread()
+    {
+        return resultantMultiThread(Util.getSharedExecutor());
+    }
+
+    /**
+     * Multithreaded version of {@link #resultant()}. The modular resultants and the steps combining
+     * them are run on <code>executor</code>; the calling thread runs any the executor has not started
+     * by the time it needs them, so a busy (or shared) executor cannot stall the computation.
+     *
+     * @param executor the executor to run the modular resultants on, <code>null</code> to run them all on the calling thread.
+     * @return <code>(rho, res)</code> satisfying <code>res = rho*this + t*(x^n-1)</code> for some integer <code>t</code>.
+     */
+    public Resultant resultantMultiThread(Executor executor)
     {
         int N = coeffs.length;
 
@@ -692,9 +727,8 @@ public Resultant resultantMultiThread()
         // compute resultants modulo prime numbers
         BigInteger prime = BigInteger.valueOf(10000);
         BigInteger pProd = Constants.BIGINT_ONE;
-        LinkedBlockingQueue<Future<ModularResultant>> resultantTasks = new LinkedBlockingQueue<Future<ModularResultant>>();
+        LinkedList<FutureTask<ModularResultant>> resultantTasks = new LinkedList<FutureTask<ModularResultant>>();
         Iterator<BigInteger> primes = BIGINT_PRIMES.iterator();
-        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
         while (pProd.compareTo(max2) < 0)
         {
             if (primes.hasNext())
@@ -705,8 +739,7 @@ public Resultant resultantMultiThread()
             {
                 prime = prime.nextProbablePrime();
             }
-            Future<ModularResultant> task = executor.submit(new ModResultantTask(prime.intValue()));
-            resultantTasks.add(task);
+            resultantTasks.add(schedule(executor, new ModResultantTask(prime.intValue())));
             pProd = pProd.multiply(prime);
         }
 
@@ -716,25 +749,18 @@ public Resultant resultantMultiThread()
         ModularResultant overallResultant = null;
         while (!resultantTasks.isEmpty())
         {
-            try
-            {
-                Future<ModularResultant> modRes1 = resultantTasks.take();
-                Future<ModularResultant> modRes2 = resultantTasks.poll();
-                if (modRes2 == null)
-                {
-                    // modRes1 is the only one left
-                    overallResultant = modRes1.get();
-                    break;
-                }
-                Future<ModularResultant> newTask = executor.submit(new CombineTask(modRes1.get(), modRes2.get()));
-                resultantTasks.add(newTask);
-            }
-            catch (Exception e)
+            FutureTask<ModularResultant> modRes1 = resultantTasks.removeFirst();
+            FutureTask<ModularResultant> modRes2 = resultantTasks.poll();
+            if (modRes2 == null)
             {
-                throw new IllegalStateException(e.toString());
+                // modRes1 is the only one left
+                overallResultant = Tasks.take(modRes1, resultantTasks, "computing resultant");
+                break;
             }
+            ModularResultant res1 = Tasks.take(modRes1, resultantTasks, "computing resultant");
+            ModularResultant res2 = Tasks.take(modRes2, resultantTasks, "computing resultant");
+            resultantTasks.add(schedule(executor, new CombineTask(res1, res2)));
         }
-        executor.shutdown();
         BigInteger res = overallResultant.res;
         BigIntPolynomial rhoP = overallResultant.rho;
 
@@ -766,6 +792,13 @@ public Resultant resultantMultiThread()
         return new Resultant(rhoP, res);
     }
 
+    private static FutureTask<ModularResultant> schedule(Executor executor, Callable<ModularResultant> callable)
+    {
+        FutureTask<ModularResultant> task = new FutureTask<ModularResultant>(callable);
+        Tasks.execute(executor, task);
+        return task;
+    }
+
     /**
      * Resultant of this polynomial with <code>x^n-1 mod p</code>.
      *
@@ -19,13 +19,12 @@
     }
 
     /**
-     * Calculates a <code>rho</code> modulo <code>m1*m2</code> from
-     * two resultants whose <code>rho</code>s are modulo <code>m1</code> and <code>m2</code>.<br/>
-     * </code>res</code> is set to <code>null</code>.
+     * Calculates a <code>rho</code> and <code>res</code> modulo <code>m1*m2</code> from
+     * two resultants whose <code>rho</code>s and <code>res</code>s are modulo <code>m1</code> and <code>m2</code>.
      *
      * @param modRes1
      * @param modRes2
-     * @return <code>rho</code> modulo <code>modRes1.modulus * modRes2.modulus</code>, and <code>null</code> for </code>res</code>.
+     * @return <code>rho</code> and <code>res</code> modulo <code>modRes1.modulus * modRes2.modulus</code>.
      */
     static ModularResultant combineRho(ModularResultant modRes1, ModularResultant modRes2)
     {
@@ -41,6 +40,8 @@ static ModularResultant combineRho(ModularResultant modRes1, ModularResultant mo
         rho1.add(rho2);
         rho1.mod(prod);
 
-        return new ModularResultant(rho1, null, prod);
+        BigInteger res = modRes1.res.multiply(er.x.multiply(mod2)).add(modRes2.res.multiply(er.y.multiply(mod1))).mod(prod);
+
+        return new ModularResultant(rho1, res, prod);
     }
 }
@@ -6,6 +6,9 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.spongycastle.pqc.math.ntru.euclid.IntEuclidean;
 import org.spongycastle.pqc.math.ntru.polynomial.DenseTernaryPolynomial;
@@ -18,6 +21,8 @@
     private static volatile boolean IS_64_BITNESS_KNOWN;
     private static volatile boolean IS_64_BIT_JVM;
 
+    private static Executor sharedExecutor;
+
     /**
      * Calculates the inverse of n mod modulus
      */
@@ -118,6 +123,32 @@ public static int[] generateRandomTernary(int N, int numOnes, int numNegOnes, Se
         return arr;
     }
 
+    /**
+     * Returns the executor the multithreaded NTRU operations use when the caller does not supply one.
+     * It is created on first use and has one daemon thread per processor, so it is shared across
+     * key generations rather than started and shut down for each.
+     *
+     * @return the shared executor
+     */
+    public static synchronized Executor getSharedExecutor()
+    {
+        if (sharedExecutor == null)
+        {
+            sharedExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory()
+            {
+                private final ThreadFactory factory = Executors.defaultThreadFactory();
+
+                public Thread newThread(Runnable r)
+                {
+                    Thread t = factory.newThread(r);
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return sharedExecutor;
+    }
+
     /**
      * Takes an educated guess as to whether 64 bits are supported by the JVM.
      *
@@ -0,0 +1,101 @@
+package org.spongycastle.util;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Utility methods for calculations split into tasks on a caller supplied executor. The caller
+ * takes the result of each task with {@link #take(FutureTask, Collection, String)}, which runs the
+ * task itself if the executor has not started it, so an executor that is busy, rejects the task,
+ * or whose only thread is the caller cannot stall the calculation.
+ */
+public final class Tasks
+{
+    private Tasks()
+    {
+    }
+
+    /**
+     * Pass a task to an executor. If there is no executor, or it rejects the task, the task is left
+     * for {@link #take(FutureTask, Collection, String)} to run on the calling thread.
+     *
+     * @param executor the executor to run the task on, may be null.
+     * @param task the task to run.
+     */
+    public static void execute(Executor executor, FutureTask<?> task)
+    {
+        if (executor != null)
+        {
+            try
+            {
+                executor.execute(task);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // left for take() to run
+            }
+        }
+    }
+
+    /**
+     * Return the result of a task, running it on the calling thread first if the executor has not
+     * started it. If the task fails, or the calling thread is interrupted, all the pending tasks are
+     * cancelled and the failure is thrown again, a RuntimeException or Error as it is and anything
+     * else as an IllegalStateException.
+     *
+     * @param task the task to take the result of.
+     * @param pending all the tasks of the calculation, to cancel if it fails.
+     * @param operation a description of the calculation for exception messages, e.g. "summing multiplies".
+     * @return the result of the task.
+     */
+    public static <T> T take(FutureTask<T> task, Collection<? extends Future<?>> pending, String operation)
+    {
+        task.run();
+
+        try
+        {
+            return task.get();
+        }
+        catch (InterruptedException e)
+        {
+            cancel(pending);
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("interrupted " + operation);
+        }
+        catch (ExecutionException e)
+        {
+            cancel(pending);
+
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+
+            throw new IllegalStateException("exception " + operation + ": " + cause);
+        }
+    }
+
+    /**
+     * Cancel any of the tasks that have not started.
+     *
+     * @param pending the tasks to cancel.
+     */
+    public static void cancel(Collection<? extends Future<?>> pending)
+    {
+        for (Iterator<? extends Future<?>> it = pending.iterator(); it.hasNext();)
+        {
+            it.next().cancel(false);
+        }
+    }
+}
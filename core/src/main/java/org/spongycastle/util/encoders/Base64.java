@@ -1,6 +1,5 @@
 package org.spongycastle.util.encoders;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -11,7 +10,7 @@
  */
 public class Base64
 {
-    private static final Encoder encoder = new Base64Encoder();
+    private static final Base64Encoder encoder = new Base64Encoder();
     
     public static String toBase64String(
         byte[] data)
@@ -49,19 +48,18 @@ public static byte[] encode(
         int    off,
         int    length)
     {
-        int len = (length + 2) / 3 * 4;
-        ByteArrayOutputStream bOut = new ByteArrayOutputStream(len);
+        byte[] encoded = new byte[encoder.getEncodedLength(length)];
 
         try
         {
-            encoder.encode(data, off, length, bOut);
+            encoder.encode(data, off, length, encoded, 0);
         }
         catch (Exception e)
         {
             throw new EncoderException("exception encoding base64 string: " + e.getMessage(), e);
         }
         
-        return bOut.toByteArray();
+        return encoded;
     }
 
     /**
@@ -94,48 +92,55 @@ public static int encode(
     
     /**
      * decode the base 64 encoded input data. It is assumed the input data is valid.
-     *
+     * <p>
+     * Empty input, or input that is only whitespace, decodes to an empty array (earlier versions
+     * threw a DecoderException).
+     * </p>
      * @return a byte array representing the decoded data.
      */
     public static byte[] decode(
         byte[]    data)
     {
-        int len = data.length / 4 * 3;
-        ByteArrayOutputStream bOut = new ByteArrayOutputStream(len);
+        byte[] decoded = new byte[encoder.getMaxDecodedLength(data.length)];
+        int len;
         
         try
         {
-            encoder.decode(data, 0, data.length, bOut);
+            len = encoder.decode(data, 0, data.length, decoded, 0);
         }
         catch (Exception e)
         {
             throw new DecoderException("unable to decode base64 data: " + e.getMessage(), e);
         }
         
-        return bOut.toByteArray();
+        return trim(decoded, len);
     }
     
     /**
      * decode the base 64 encoded String data - whitespace will be ignored.
-     *
+     * <p>
+     * An empty String, or one that is only whitespace, decodes to an empty array (earlier versions
+     * threw a DecoderException).
+     * </p>
      * @return a byte array representing the decoded data.
      */
     public static byte[] decode(
         String    data)
     {
-        int len = data.length() / 4 * 3;
-        ByteArrayOutputStream bOut = new ByteArrayOutputStream(len);
+        byte[] bytes = Base64Encoder.toBytes(data);
+        byte[] decoded = new byte[encoder.getMaxDecodedLength(bytes.length)];
+        int len;
         
         try
         {
-            encoder.decode(data, bOut);
+            len = encoder.decode(bytes, 0, bytes.length, decoded, 0);
         }
         catch (Exception e)
         {
             throw new DecoderException("unable to decode base64 string: " + e.getMessage(), e);
         }
         
-        return bOut.toByteArray();
+        return trim(decoded, len);
     }
     
     /**
@@ -151,4 +156,18 @@ public static int decode(
     {
         return encoder.decode(data, out);
     }
+
+    static byte[] trim(byte[] buf, int len)
+    {
+        if (buf.length == len)
+        {
+            return buf;
+        }
+
+        byte[] tmp = new byte[len];
+
+        System.arraycopy(buf, 0, tmp, 0, len);
+
+        return tmp;
+    }
 }
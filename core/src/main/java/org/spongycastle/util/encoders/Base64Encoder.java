@@ -2,6 +2,8 @@
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 /**
  * A streaming Base64 encoder.
@@ -32,6 +34,17 @@
      */
     protected final byte[] decodingTable = new byte[128];
 
+    /*
+     * tables for working a group at a time: the pair of characters encoding each 12 bit value, and
+     * for each position in a group of four characters the value of a character shifted into place,
+     * or a negative value if the character is not part of the encoding.
+     */
+    private final short[] encodingPairs = new short[4096];
+    private final int[] decodingTable0 = new int[256];
+    private final int[] decodingTable1 = new int[256];
+    private final int[] decodingTable2 = new int[256];
+    private final int[] decodingTable3 = new int[256];
+
     protected void initialiseDecodingTable()
     {
         for (int i = 0; i < decodingTable.length; i++)
@@ -43,12 +56,53 @@ protected void initialiseDecodingTable()
         {
             decodingTable[encodingTable[i]] = (byte)i;
         }
+
+        for (int i = 0; i < encodingPairs.length; i++)
+        {
+            encodingPairs[i] = (short)((encodingTable[i >>> 6] << 8) | encodingTable[i & 0x3f]);
+        }
+
+        for (int c = 0; c < 256; c++)
+        {
+            int v = (c < decodingTable.length) ? decodingTable[c] : -1;
+
+            if (v < 0)
+            {
+                decodingTable0[c] = Integer.MIN_VALUE;
+                decodingTable1[c] = Integer.MIN_VALUE;
+                decodingTable2[c] = Integer.MIN_VALUE;
+                decodingTable3[c] = Integer.MIN_VALUE;
+            }
+            else
+            {
+                decodingTable0[c] = v << 18;
+                decodingTable1[c] = v << 12;
+                decodingTable2[c] = v << 6;
+                decodingTable3[c] = v;
+            }
+        }
     }
     
     public Base64Encoder()
     {
         initialiseDecodingTable();
     }
+
+    /**
+     * Return the length of the encoding of length bytes of data.
+     */
+    public int getEncodedLength(int length)
+    {
+        return (length + 2) / 3 * 4;
+    }
+
+    /**
+     * Return the maximum length of the data decoded from length characters.
+     */
+    public int getMaxDecodedLength(int length)
+    {
+        return length / 4 * 3;
+    }
     
     /**
      * encode the input data producing a base 64 output stream.
@@ -62,58 +116,126 @@ public int encode(
         OutputStream    out) 
         throws IOException
     {
-        int modulus = length % 3;
-        int dataLength = (length - modulus);
-        int a1, a2, a3;
-        
-        for (int i = off; i < off + dataLength; i += 3)
+        byte[] buf = new byte[Math.min(getEncodedLength(length), 4 * 1024)];
+        int chunkSize = buf.length / 4 * 3;
+        int outLen = 0;
+
+        while (length > 0)
+        {
+            int count = Math.min(length, chunkSize);
+            int encLen = encode(data, off, count, buf, 0);
+
+            out.write(buf, 0, encLen);
+
+            off += count;
+            length -= count;
+            outLen += encLen;
+        }
+
+        return outLen;
+    }
+
+    /**
+     * encode the input data into the output array, which must have room for
+     * {@link #getEncodedLength(int)} bytes.
+     *
+     * @return the number of bytes produced.
+     */
+    public int encode(
+        byte[]  inBuf,
+        int     inOff,
+        int     inLen,
+        byte[]  outBuf,
+        int     outOff)
+    {
+        int inPos = inOff;
+        int inEnd = inOff + inLen - 2;
+        int outPos = outOff;
+
+        while (inPos < inEnd)
         {
-            a1 = data[i] & 0xff;
-            a2 = data[i + 1] & 0xff;
-            a3 = data[i + 2] & 0xff;
-
-            out.write(encodingTable[(a1 >>> 2) & 0x3f]);
-            out.write(encodingTable[((a1 << 4) | (a2 >>> 4)) & 0x3f]);
-            out.write(encodingTable[((a2 << 2) | (a3 >>> 6)) & 0x3f]);
-            out.write(encodingTable[a3 & 0x3f]);
+            int v = ((inBuf[inPos] & 0xff) << 16) | ((inBuf[inPos + 1] & 0xff) << 8) | (inBuf[inPos + 2] & 0xff);
+            int p1 = encodingPairs[v >>> 12];
+            int p2 = encodingPairs[v & 0xfff];
+
+            outBuf[outPos] = (byte)(p1 >>> 8);
+            outBuf[outPos + 1] = (byte)p1;
+            outBuf[outPos + 2] = (byte)(p2 >>> 8);
+            outBuf[outPos + 3] = (byte)p2;
+
+            inPos += 3;
+            outPos += 4;
         }
 
         /*
          * process the tail end.
          */
-        int    b1, b2, b3;
         int    d1, d2;
 
-        switch (modulus)
+        switch (inOff + inLen - inPos)
         {
         case 0:        /* nothing left to do */
             break;
         case 1:
-            d1 = data[off + dataLength] & 0xff;
-            b1 = (d1 >>> 2) & 0x3f;
-            b2 = (d1 << 4) & 0x3f;
-
-            out.write(encodingTable[b1]);
-            out.write(encodingTable[b2]);
-            out.write(padding);
-            out.write(padding);
+            d1 = inBuf[inPos] & 0xff;
+
+            outBuf[outPos++] = encodingTable[(d1 >>> 2) & 0x3f];
+            outBuf[outPos++] = encodingTable[(d1 << 4) & 0x3f];
+            outBuf[outPos++] = padding;
+            outBuf[outPos++] = padding;
             break;
         case 2:
-            d1 = data[off + dataLength] & 0xff;
-            d2 = data[off + dataLength + 1] & 0xff;
-
-            b1 = (d1 >>> 2) & 0x3f;
-            b2 = ((d1 << 4) | (d2 >>> 4)) & 0x3f;
-            b3 = (d2 << 2) & 0x3f;
+            d1 = inBuf[inPos] & 0xff;
+            d2 = inBuf[inPos + 1] & 0xff;
 
-            out.write(encodingTable[b1]);
-            out.write(encodingTable[b2]);
-            out.write(encodingTable[b3]);
-            out.write(padding);
+            outBuf[outPos++] = encodingTable[(d1 >>> 2) & 0x3f];
+            outBuf[outPos++] = encodingTable[((d1 << 4) | (d2 >>> 4)) & 0x3f];
+            outBuf[outPos++] = encodingTable[(d2 << 2) & 0x3f];
+            outBuf[outPos++] = padding;
             break;
         }
 
-        return (dataLength / 3) * 4 + ((modulus == 0) ? 0 : 4);
+        return outPos - outOff;
+    }
+
+    /**
+     * encode the remaining bytes of the input buffer, writing the characters produced to the
+     * output buffer.
+     *
+     * @return the number of bytes produced.
+     * @throws java.nio.BufferOverflowException if the output buffer is too small, in which case
+     * neither buffer is changed.
+     */
+    public int encode(
+        ByteBuffer  in,
+        ByteBuffer  out)
+    {
+        int encLen = getEncodedLength(in.remaining());
+
+        if (out.remaining() < encLen)
+        {
+            throw new BufferOverflowException();
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            encode(in.array(), in.arrayOffset() + in.position(), in.remaining(),
+                out.array(), out.arrayOffset() + out.position());
+        }
+        else
+        {
+            byte[] data = new byte[in.remaining()];
+            byte[] buf = new byte[encLen];
+
+            in.duplicate().get(data);
+            encode(data, 0, data.length, buf, 0);
+            out.duplicate().put(buf);
+        }
+
+        in.position(in.limit());
+        out.position(out.position() + encLen);
+
+        return encLen;
     }
 
     private boolean ignore(
@@ -135,58 +257,165 @@ public int decode(
         OutputStream    out)
         throws IOException
     {
-        byte    b1, b2, b3, b4;
-        int     outLen = 0;
-        
-        int     end = off + length;
-        
-        while (end > off)
+        byte[] buf = new byte[getMaxDecodedLength(length)];
+        int outLen = decode(data, off, length, buf, 0);
+
+        out.write(buf, 0, outLen);
+
+        return outLen;
+    }
+
+    /**
+     * decode the base 64 encoded byte data into the output array, which must have room for
+     * {@link #getMaxDecodedLength(int)} bytes, whitespace characters will be ignored.
+     *
+     * @return the number of bytes produced.
+     */
+    public int decode(
+        byte[]  inBuf,
+        int     inOff,
+        int     inLen,
+        byte[]  outBuf,
+        int     outOff)
+        throws IOException
+    {
+        int     end = inOff + inLen;
+
+        while (end > inOff)
         {
-            if (!ignore((char)data[end - 1]))
+            if (!ignore((char)inBuf[end - 1]))
             {
                 break;
             }
-            
+
             end--;
         }
-        
-        int  i = off;
+
+        if (end == inOff)
+        {
+            return 0;
+        }
+
+        if (end - inOff < 4)
+        {
+            throw new IOException("incomplete base64 data");
+        }
+
+        int  i = inOff;
         int  finish = end - 4;
-        
-        i = nextI(data, i, finish);
+        int  outPos = outOff;
+
+        i = nextI(inBuf, i, finish);
 
         while (i < finish)
         {
-            b1 = decodingTable[data[i++]];
-            
-            i = nextI(data, i, finish);
-            
-            b2 = decodingTable[data[i++]];
-            
-            i = nextI(data, i, finish);
-            
-            b3 = decodingTable[data[i++]];
-            
-            i = nextI(data, i, finish);
-            
-            b4 = decodingTable[data[i++]];
+            int v;
+
+            if (i + 4 <= finish)
+            {
+                // usual case - a whole group with no whitespace
+                v = decodingTable0[inBuf[i] & 0xff] | decodingTable1[inBuf[i + 1] & 0xff]
+                    | decodingTable2[inBuf[i + 2] & 0xff] | decodingTable3[inBuf[i + 3] & 0xff];
+
+                if (v >= 0)
+                {
+                    outBuf[outPos] = (byte)(v >>> 16);
+                    outBuf[outPos + 1] = (byte)(v >>> 8);
+                    outBuf[outPos + 2] = (byte)v;
+                    outPos += 3;
+
+                    i = nextI(inBuf, i + 4, finish);
+                    continue;
+                }
+            }
+
+            v = decodingTable0[inBuf[i++] & 0xff];
+
+            i = nextI(inBuf, i, finish);
+
+            v |= decodingTable1[inBuf[i++] & 0xff];
+
+            i = nextI(inBuf, i, finish);
+
+            v |= decodingTable2[inBuf[i++] & 0xff];
 
-            if ((b1 | b2 | b3 | b4) < 0)
+            i = nextI(inBuf, i, finish);
+
+            v |= decodingTable3[inBuf[i++] & 0xff];
+
+            // the group ran into the final one, so the data is not a whole number of groups
+            if (i > finish)
+            {
+                throw new IOException("incomplete base64 data");
+            }
+
+            if (v < 0)
             {
                 throw new IOException("invalid characters encountered in base64 data");
             }
-            
-            out.write((b1 << 2) | (b2 >> 4));
-            out.write((b2 << 4) | (b3 >> 2));
-            out.write((b3 << 6) | b4);
-            
-            outLen += 3;
-            
-            i = nextI(data, i, finish);
+
+            outBuf[outPos] = (byte)(v >>> 16);
+            outBuf[outPos + 1] = (byte)(v >>> 8);
+            outBuf[outPos + 2] = (byte)v;
+            outPos += 3;
+
+            i = nextI(inBuf, i, finish);
         }
 
-        outLen += decodeLastBlock(out, (char)data[end - 4], (char)data[end - 3], (char)data[end - 2], (char)data[end - 1]);
-        
+        if (i != finish)
+        {
+            throw new IOException("incomplete base64 data");
+        }
+
+        outPos += decodeLastBlock(outBuf, outPos, inBuf[end - 4], inBuf[end - 3], inBuf[end - 2], inBuf[end - 1]);
+
+        return outPos - outOff;
+    }
+
+    /**
+     * decode the remaining base 64 encoded characters of the input buffer, writing the data
+     * produced to the output buffer, whitespace characters will be ignored.
+     *
+     * @return the number of bytes produced.
+     * @throws java.nio.BufferOverflowException if the output buffer is too small, in which case
+     * neither buffer is changed.
+     * @throws IOException if the data is not valid base 64, in which case neither buffer's position
+     * is changed and nothing is written outside the output buffer's remaining space.
+     */
+    public int decode(
+        ByteBuffer  in,
+        ByteBuffer  out)
+        throws IOException
+    {
+        int outLen;
+        int maxLen = getMaxDecodedLength(in.remaining());
+
+        // the array decode never writes more than maxLen bytes, so only decode straight into the
+        // output's backing array when all of them fit below its limit.
+        if (in.hasArray() && out.hasArray() && out.remaining() >= maxLen)
+        {
+            outLen = decode(in.array(), in.arrayOffset() + in.position(), in.remaining(),
+                out.array(), out.arrayOffset() + out.position());
+        }
+        else
+        {
+            byte[] data = new byte[in.remaining()];
+            byte[] buf = new byte[maxLen];
+
+            in.duplicate().get(data);
+            outLen = decode(data, 0, data.length, buf, 0);
+
+            if (out.remaining() < outLen)
+            {
+                throw new BufferOverflowException();
+            }
+
+            out.duplicate().put(buf, 0, outLen);
+        }
+
+        in.position(in.limit());
+        out.position(out.position() + outLen);
+
         return outLen;
     }
 
@@ -210,122 +439,80 @@ public int decode(
         OutputStream    out)
         throws IOException
     {
-        byte    b1, b2, b3, b4;
-        int     length = 0;
-        
-        int     end = data.length();
-        
-        while (end > 0)
-        {
-            if (!ignore(data.charAt(end - 1)))
-            {
-                break;
-            }
-            
-            end--;
-        }
-        
-        int  i = 0;
-        int  finish = end - 4;
-        
-        i = nextI(data, i, finish);
-        
-        while (i < finish)
+        byte[] bytes = toBytes(data);
+
+        return decode(bytes, 0, bytes.length, out);
+    }
+
+    /*
+     * characters outside the encoding map to an invalid byte value, so nothing is mistaken for
+     * part of the encoding.
+     */
+    static byte[] toBytes(String data)
+    {
+        byte[] bytes = new byte[data.length()];
+
+        for (int i = 0; i != bytes.length; i++)
         {
-            b1 = decodingTable[data.charAt(i++)];
-            
-            i = nextI(data, i, finish);
-            
-            b2 = decodingTable[data.charAt(i++)];
-            
-            i = nextI(data, i, finish);
-            
-            b3 = decodingTable[data.charAt(i++)];
-            
-            i = nextI(data, i, finish);
-            
-            b4 = decodingTable[data.charAt(i++)];
+            char c = data.charAt(i);
 
-            if ((b1 | b2 | b3 | b4) < 0)
-            {
-                throw new IOException("invalid characters encountered in base64 data");
-            }
-               
-            out.write((b1 << 2) | (b2 >> 4));
-            out.write((b2 << 4) | (b3 >> 2));
-            out.write((b3 << 6) | b4);
-            
-            length += 3;
-            
-            i = nextI(data, i, finish);
+            bytes[i] = (c < 0x80) ? (byte)c : (byte)0xff;
         }
 
-        length += decodeLastBlock(out, data.charAt(end - 4), data.charAt(end - 3), data.charAt(end - 2), data.charAt(end - 1));
-
-        return length;
+        return bytes;
     }
 
-    private int decodeLastBlock(OutputStream out, char c1, char c2, char c3, char c4) 
+    private int decodeLastBlock(byte[] out, int outOff, byte c1, byte c2, byte c3, byte c4)
         throws IOException
     {
-        byte    b1, b2, b3, b4;
-        
+        int v;
+
         if (c3 == padding)
         {
-            b1 = decodingTable[c1];
-            b2 = decodingTable[c2];
+            if (c4 != padding)
+            {
+                throw new IOException("invalid characters encountered at end of base64 data");
+            }
 
-            if ((b1 | b2) < 0)
+            v = decodingTable0[c1 & 0xff] | decodingTable1[c2 & 0xff];
+
+            if (v < 0)
             {
                 throw new IOException("invalid characters encountered at end of base64 data");
             }
 
-            out.write((b1 << 2) | (b2 >> 4));
+            out[outOff] = (byte)(v >>> 16);
             
             return 1;
         }
         else if (c4 == padding)
         {
-            b1 = decodingTable[c1];
-            b2 = decodingTable[c2];
-            b3 = decodingTable[c3];
+            v = decodingTable0[c1 & 0xff] | decodingTable1[c2 & 0xff] | decodingTable2[c3 & 0xff];
 
-            if ((b1 | b2 | b3) < 0)
+            if (v < 0)
             {
                 throw new IOException("invalid characters encountered at end of base64 data");
             }
             
-            out.write((b1 << 2) | (b2 >> 4));
-            out.write((b2 << 4) | (b3 >> 2));
+            out[outOff] = (byte)(v >>> 16);
+            out[outOff + 1] = (byte)(v >>> 8);
             
             return 2;
         }
         else
         {
-            b1 = decodingTable[c1];
-            b2 = decodingTable[c2];
-            b3 = decodingTable[c3];
-            b4 = decodingTable[c4];
+            v = decodingTable0[c1 & 0xff] | decodingTable1[c2 & 0xff] | decodingTable2[c3 & 0xff] | decodingTable3[c4 & 0xff];
 
-            if ((b1 | b2 | b3 | b4) < 0)
+            if (v < 0)
             {
                 throw new IOException("invalid characters encountered at end of base64 data");
             }
             
-            out.write((b1 << 2) | (b2 >> 4));
-            out.write((b2 << 4) | (b3 >> 2));
-            out.write((b3 << 6) | b4);
+            out[outOff] = (byte)(v >>> 16);
+            out[outOff + 1] = (byte)(v >>> 8);
+            out[outOff + 2] = (byte)v;
             
             return 3;
         } 
     }
-
-    private int nextI(String data, int i, int finish)
-    {
-        while ((i < finish) && ignore(data.charAt(i)))
-        {
-            i++;
-        }
-        return i;
-    }
 }
@@ -1,6 +1,5 @@
 package org.spongycastle.util.encoders;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -11,7 +10,7 @@
  */
 public class Hex
 {
-    private static final Encoder encoder = new HexEncoder();
+    private static final HexEncoder encoder = new HexEncoder();
     
     public static String toHexString(
         byte[] data)
@@ -49,18 +48,18 @@ public static byte[] encode(
         int       off,
         int       length)
     {
-        ByteArrayOutputStream    bOut = new ByteArrayOutputStream();
+        byte[] encoded = new byte[encoder.getEncodedLength(length)];
         
         try
         {
-            encoder.encode(data, off, length, bOut);
+            encoder.encode(data, off, length, encoded, 0);
         }
         catch (Exception e)
         {
             throw new EncoderException("exception encoding Hex string: " + e.getMessage(), e);
         }
         
-        return bOut.toByteArray();
+        return encoded;
     }
 
     /**
@@ -99,18 +98,19 @@ public static int encode(
     public static byte[] decode(
         byte[]    data)
     {
-        ByteArrayOutputStream    bOut = new ByteArrayOutputStream();
+        byte[] decoded = new byte[encoder.getMaxDecodedLength(data.length)];
+        int len;
         
         try
         {
-            encoder.decode(data, 0, data.length, bOut);
+            len = encoder.decode(data, 0, data.length, decoded, 0);
         }
         catch (Exception e)
         {
             throw new DecoderException("exception decoding Hex data: " + e.getMessage(), e);
         }
         
-        return bOut.toByteArray();
+        return Base64.trim(decoded, len);
     }
     
     /**
@@ -121,18 +121,20 @@ public static byte[] decode(
     public static byte[] decode(
         String    data)
     {
-        ByteArrayOutputStream    bOut = new ByteArrayOutputStream();
+        byte[] bytes = Base64Encoder.toBytes(data);
+        byte[] decoded = new byte[encoder.getMaxDecodedLength(bytes.length)];
+        int len;
         
         try
         {
-            encoder.decode(data, bOut);
+            len = encoder.decode(bytes, 0, bytes.length, decoded, 0);
         }
         catch (Exception e)
         {
             throw new DecoderException("exception decoding Hex string: " + e.getMessage(), e);
         }
         
-        return bOut.toByteArray();
+        return Base64.trim(decoded, len);
     }
     
     /**
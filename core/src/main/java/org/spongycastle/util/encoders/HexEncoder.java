@@ -2,6 +2,8 @@
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 /**
  * A streaming Hex encoder.
@@ -20,6 +22,15 @@
      */
     protected final byte[] decodingTable = new byte[128];
 
+    /*
+     * tables for working a byte at a time: the pair of characters encoding each byte, and the
+     * value of each character as the high and low half of a byte, or a negative value if the
+     * character is not part of the encoding.
+     */
+    private final short[] encodingPairs = new short[256];
+    private final int[] decodingTableHigh = new int[256];
+    private final int[] decodingTableLow = new int[256];
+
     protected void initialiseDecodingTable()
     {
         for (int i = 0; i < decodingTable.length; i++)
@@ -38,12 +49,41 @@ protected void initialiseDecodingTable()
         decodingTable['D'] = decodingTable['d'];
         decodingTable['E'] = decodingTable['e'];
         decodingTable['F'] = decodingTable['f'];
+
+        for (int i = 0; i < encodingPairs.length; i++)
+        {
+            encodingPairs[i] = (short)((encodingTable[i >>> 4] << 8) | encodingTable[i & 0xf]);
+        }
+
+        for (int c = 0; c < 256; c++)
+        {
+            int v = (c < decodingTable.length) ? decodingTable[c] : -1;
+
+            decodingTableHigh[c] = (v < 0) ? Integer.MIN_VALUE : v << 4;
+            decodingTableLow[c] = (v < 0) ? Integer.MIN_VALUE : v;
+        }
     }
     
     public HexEncoder()
     {
         initialiseDecodingTable();
     }
+
+    /**
+     * Return the length of the encoding of length bytes of data.
+     */
+    public int getEncodedLength(int length)
+    {
+        return length * 2;
+    }
+
+    /**
+     * Return the maximum length of the data decoded from length characters.
+     */
+    public int getMaxDecodedLength(int length)
+    {
+        return length / 2;
+    }
     
     /**
      * encode the input data producing a Hex output stream.
@@ -57,15 +97,89 @@ public int encode(
         OutputStream    out) 
         throws IOException
     {        
-        for (int i = off; i < (off + length); i++)
+        byte[] buf = new byte[Math.min(getEncodedLength(length), 4 * 1024)];
+        int chunkSize = buf.length / 2;
+        int outLen = getEncodedLength(length);
+
+        while (length > 0)
         {
-            int    v = data[i] & 0xff;
+            int count = Math.min(length, chunkSize);
+
+            out.write(buf, 0, encode(data, off, count, buf, 0));
 
-            out.write(encodingTable[(v >>> 4)]);
-            out.write(encodingTable[v & 0xf]);
+            off += count;
+            length -= count;
         }
 
-        return length * 2;
+        return outLen;
+    }
+
+    /**
+     * encode the input data into the output array, which must have room for
+     * {@link #getEncodedLength(int)} bytes.
+     *
+     * @return the number of bytes produced.
+     */
+    public int encode(
+        byte[]  inBuf,
+        int     inOff,
+        int     inLen,
+        byte[]  outBuf,
+        int     outOff)
+    {
+        int inEnd = inOff + inLen;
+        int outPos = outOff;
+
+        for (int i = inOff; i < inEnd; i++)
+        {
+            int p = encodingPairs[inBuf[i] & 0xff];
+
+            outBuf[outPos] = (byte)(p >>> 8);
+            outBuf[outPos + 1] = (byte)p;
+            outPos += 2;
+        }
+
+        return outPos - outOff;
+    }
+
+    /**
+     * encode the remaining bytes of the input buffer, writing the characters produced to the
+     * output buffer.
+     *
+     * @return the number of bytes produced.
+     * @throws java.nio.BufferOverflowException if the output buffer is too small, in which case
+     * neither buffer is changed.
+     */
+    public int encode(
+        ByteBuffer  in,
+        ByteBuffer  out)
+    {
+        int encLen = getEncodedLength(in.remaining());
+
+        if (out.remaining() < encLen)
+        {
+            throw new BufferOverflowException();
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            encode(in.array(), in.arrayOffset() + in.position(), in.remaining(),
+                out.array(), out.arrayOffset() + out.position());
+        }
+        else
+        {
+            byte[] data = new byte[in.remaining()];
+            byte[] buf = new byte[encLen];
+
+            in.duplicate().get(data);
+            encode(data, 0, data.length, buf, 0);
+            out.duplicate().put(buf);
+        }
+
+        in.position(in.limit());
+        out.position(out.position() + encLen);
+
+        return encLen;
     }
 
     private static boolean ignore(
@@ -87,48 +201,129 @@ public int decode(
         OutputStream    out)
         throws IOException
     {
-        byte    b1, b2;
-        int     outLen = 0;
-        
-        int     end = off + length;
+        byte[] buf = new byte[getMaxDecodedLength(length)];
+        int outLen = decode(data, off, length, buf, 0);
+
+        out.write(buf, 0, outLen);
+
+        return outLen;
+    }
+
+    /**
+     * decode the Hex encoded byte data into the output array, which must have room for
+     * {@link #getMaxDecodedLength(int)} bytes, whitespace characters will be ignored.
+     *
+     * @return the number of bytes produced.
+     */
+    public int decode(
+        byte[]  inBuf,
+        int     inOff,
+        int     inLen,
+        byte[]  outBuf,
+        int     outOff)
+        throws IOException
+    {
+        int     end = inOff + inLen;
         
-        while (end > off)
+        while (end > inOff)
         {
-            if (!ignore((char)data[end - 1]))
+            if (!ignore((char)inBuf[end - 1]))
             {
                 break;
             }
             
             end--;
         }
-        
-        int i = off;
+
+        int i = inOff;
+        int outPos = outOff;
+
         while (i < end)
         {
-            while (i < end && ignore((char)data[i]))
+            int v;
+
+            if (i + 2 <= end)
+            {
+                // usual case - a pair with no whitespace
+                v = decodingTableHigh[inBuf[i] & 0xff] | decodingTableLow[inBuf[i + 1] & 0xff];
+
+                if (v >= 0)
+                {
+                    outBuf[outPos++] = (byte)v;
+                    i += 2;
+                    continue;
+                }
+            }
+
+            while (i < end && ignore((char)inBuf[i]))
             {
                 i++;
             }
+
+            v = decodingTableHigh[inBuf[i++] & 0xff];
             
-            b1 = decodingTable[data[i++]];
-            
-            while (i < end && ignore((char)data[i]))
+            while (i < end && ignore((char)inBuf[i]))
             {
                 i++;
             }
+
+            if (i == end)
+            {
+                throw new IOException("invalid characters encountered in Hex data");
+            }
             
-            b2 = decodingTable[data[i++]];
+            v |= decodingTableLow[inBuf[i++] & 0xff];
 
-            if ((b1 | b2) < 0)
+            if (v < 0)
             {
                 throw new IOException("invalid characters encountered in Hex data");
             }
 
-            out.write((b1 << 4) | b2);
-            
-            outLen++;
+            outBuf[outPos++] = (byte)v;
+        }
+
+        return outPos - outOff;
+    }
+
+    /**
+     * decode the remaining Hex encoded characters of the input buffer, writing the data
+     * produced to the output buffer, whitespace characters will be ignored.
+     *
+     * @return the number of bytes produced.
+     * @throws java.nio.BufferOverflowException if the output buffer is too small, in which case
+     * neither buffer is changed.
+     */
+    public int decode(
+        ByteBuffer  in,
+        ByteBuffer  out)
+        throws IOException
+    {
+        int outLen;
+
+        if (in.hasArray() && out.hasArray() && out.remaining() >= getMaxDecodedLength(in.remaining()))
+        {
+            outLen = decode(in.array(), in.arrayOffset() + in.position(), in.remaining(),
+                out.array(), out.arrayOffset() + out.position());
+        }
+        else
+        {
+            byte[] data = new byte[in.remaining()];
+            byte[] buf = new byte[getMaxDecodedLength(data.length)];
+
+            in.duplicate().get(data);
+            outLen = decode(data, 0, data.length, buf, 0);
+
+            if (out.remaining() < outLen)
+            {
+                throw new BufferOverflowException();
+            }
+
+            out.duplicate().put(buf, 0, outLen);
         }
 
+        in.position(in.limit());
+        out.position(out.position() + outLen);
+
         return outLen;
     }
     
@@ -143,48 +338,21 @@ public int decode(
         OutputStream    out)
         throws IOException
     {
-        byte    b1, b2;
-        int     length = 0;
-        
-        int     end = data.length();
-        
-        while (end > 0)
+        byte[] bytes = Base64Encoder.toBytes(data);
+        byte[] buf = new byte[getMaxDecodedLength(bytes.length)];
+        int outLen;
+
+        try
         {
-            if (!ignore(data.charAt(end - 1)))
-            {
-                break;
-            }
-            
-            end--;
+            outLen = decode(bytes, 0, bytes.length, buf, 0);
         }
-        
-        int i = 0;
-        while (i < end)
+        catch (IOException e)
         {
-            while (i < end && ignore(data.charAt(i)))
-            {
-                i++;
-            }
-            
-            b1 = decodingTable[data.charAt(i++)];
-            
-            while (i < end && ignore(data.charAt(i)))
-            {
-                i++;
-            }
-            
-            b2 = decodingTable[data.charAt(i++)];
-
-            if ((b1 | b2) < 0)
-            {
-                throw new IOException("invalid characters encountered in Hex string");
-            }
-
-            out.write((b1 << 4) | b2);
-            
-            length++;
+            throw new IOException("invalid characters encountered in Hex string");
         }
 
-        return length;
+        out.write(buf, 0, outLen);
+
+        return outLen;
     }
 }
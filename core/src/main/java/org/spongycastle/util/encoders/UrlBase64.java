@@ -1,6 +1,5 @@
 package org.spongycastle.util.encoders;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -18,7 +17,7 @@
  */
 public class UrlBase64
 {
-    private static final Encoder encoder = new UrlBase64Encoder();
+    private static final Base64Encoder encoder = new UrlBase64Encoder();
     
     /**
      * Encode the input data producing a URL safe base 64 encoded byte array.
@@ -28,18 +27,18 @@
     public static byte[] encode(
         byte[]    data)
     {
-        ByteArrayOutputStream    bOut = new ByteArrayOutputStream();
+        byte[] encoded = new byte[encoder.getEncodedLength(data.length)];
         
         try
         {
-            encoder.encode(data, 0, data.length, bOut);
+            encoder.encode(data, 0, data.length, encoded, 0);
         }
         catch (Exception e)
         {
             throw new EncoderException("exception encoding URL safe base64 data: " + e.getMessage(), e);
         }
         
-        return bOut.toByteArray();
+        return encoded;
     }
 
     /**
@@ -63,18 +62,19 @@ public static int encode(
     public static byte[] decode(
         byte[]    data)
     {
-        ByteArrayOutputStream    bOut = new ByteArrayOutputStream();
+        byte[] decoded = new byte[encoder.getMaxDecodedLength(data.length)];
+        int len;
         
         try
         {
-            encoder.decode(data, 0, data.length, bOut);
+            len = encoder.decode(data, 0, data.length, decoded, 0);
         }
         catch (Exception e)
         {
             throw new DecoderException("exception decoding URL safe base64 string: " + e.getMessage(), e);
         }
         
-        return bOut.toByteArray();
+        return Base64.trim(decoded, len);
     }
     
     /**
@@ -99,18 +99,20 @@ public static int decode(
     public static byte[] decode(
         String    data)
     {
-        ByteArrayOutputStream    bOut = new ByteArrayOutputStream();
+        byte[] bytes = Base64Encoder.toBytes(data);
+        byte[] decoded = new byte[encoder.getMaxDecodedLength(bytes.length)];
+        int len;
         
         try
         {
-            encoder.decode(data, bOut);
+            len = encoder.decode(bytes, 0, bytes.length, decoded, 0);
         }
         catch (Exception e)
         {
             throw new DecoderException("exception decoding URL safe base64 string: " + e.getMessage(), e);
         }
         
-        return bOut.toByteArray();
+        return Base64.trim(decoded, len);
     }
     
     /**
@@ -0,0 +1,365 @@
+package org.spongycastle.util.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * An output stream producing a ZLIB (RFC 1950) or raw DEFLATE (RFC 1951) stream, with the
+ * compression spread over the threads of an {@link Executor}.
+ * <p>
+ * In the manner of pigz the input is cut into chunks which are compressed independently, each
+ * using the last 32K of the previous chunk as a preset dictionary so little compression is lost.
+ * Every chunk but the last is ended with a sync flush, which leaves it on a byte boundary without
+ * marking the end of the stream, so the compressed chunks can simply be written one after another
+ * and the result is an ordinary single stream any inflater can read.
+ * </p><p>
+ * The sync flush needs Deflater support first added in Java 7. Where it is not available the data
+ * is compressed on the calling thread instead.
+ * </p>
+ */
+public class ParallelDeflaterOutputStream
+    extends OutputStream
+{
+    private static final int DEFAULT_CHUNK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final Method DEFLATE_WITH_FLUSH = findDeflateWithFlush();
+    private static final int SYNC_FLUSH = 2;       // Deflater.SYNC_FLUSH
+
+    private final OutputStream out;
+    private final int level;
+    private final boolean nowrap;
+    private final Executor executor;
+    private final int chunkSize;
+    private final int maxPending;
+
+    private final Vector pending = new Vector();
+    private final Adler32 adler = new Adler32();
+    private final byte[] oneByte = new byte[1];
+
+    private Deflater serialDeflater;
+    private byte[] serialBuf;
+    private byte[] chunk;
+    private byte[] lastChunk;
+    private int chunkOff;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * Create a compressing stream using the default chunk size of 128K.
+     *
+     * @param out the stream to write the compressed data to.
+     * @param level the compression level (0-9, or Deflater.DEFAULT_COMPRESSION).
+     * @param nowrap true for raw DEFLATE data, false for a ZLIB stream.
+     * @param executor the executor to compress chunks on.
+     */
+    public ParallelDeflaterOutputStream(OutputStream out, int level, boolean nowrap, Executor executor)
+    {
+        this(out, level, nowrap, executor, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a compressing stream.
+     *
+     * @param out the stream to write the compressed data to.
+     * @param level the compression level (0-9, or Deflater.DEFAULT_COMPRESSION).
+     * @param nowrap true for raw DEFLATE data, false for a ZLIB stream.
+     * @param executor the executor to compress chunks on.
+     * @param chunkSize the amount of input compressed by each task, at least 32K.
+     */
+    public ParallelDeflaterOutputStream(OutputStream out, int level, boolean nowrap, Executor executor, int chunkSize)
+    {
+        if (chunkSize < DICTIONARY_SIZE)
+        {
+            throw new IllegalArgumentException("chunkSize must be at least " + DICTIONARY_SIZE);
+        }
+
+        this.out = out;
+        this.level = level;
+        this.nowrap = nowrap;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxPending = 2 * Runtime.getRuntime().availableProcessors();
+
+        if (DEFLATE_WITH_FLUSH == null)
+        {
+            this.serialDeflater = new Deflater(level, nowrap);
+            this.serialBuf = new byte[8192];
+        }
+        else
+        {
+            this.chunk = new byte[chunkSize];
+        }
+    }
+
+    public void write(int b)
+        throws IOException
+    {
+        oneByte[0] = (byte)b;
+        write(oneByte, 0, 1);
+    }
+
+    public void write(byte[] buf, int off, int len)
+        throws IOException
+    {
+        if (finished)
+        {
+            throw new IOException("write beyond end of stream");
+        }
+
+        if (serialDeflater != null)
+        {
+            serialDeflater.setInput(buf, off, len);
+            while (!serialDeflater.needsInput())
+            {
+                writeDeflated(serialDeflater, out, serialBuf);
+            }
+            return;
+        }
+
+        adler.update(buf, off, len);
+
+        while (len > 0)
+        {
+            int count = Math.min(len, chunk.length - chunkOff);
+
+            System.arraycopy(buf, off, chunk, chunkOff, count);
+            chunkOff += count;
+            off += count;
+            len -= count;
+
+            if (chunkOff == chunk.length)
+            {
+                submitChunk(false);
+            }
+        }
+    }
+
+    /**
+     * Finish writing compressed data without closing the underlying stream.
+     *
+     * @throws IOException if the compressed data cannot be produced or written.
+     */
+    public void finish()
+        throws IOException
+    {
+        if (finished)
+        {
+            return;
+        }
+
+        finished = true;
+
+        if (serialDeflater != null)
+        {
+            serialDeflater.finish();
+            while (!serialDeflater.finished())
+            {
+                writeDeflated(serialDeflater, out, serialBuf);
+            }
+            serialDeflater.end();
+            return;
+        }
+
+        submitChunk(true);
+
+        while (!pending.isEmpty())
+        {
+            writeNextChunk();
+        }
+
+        if (!nowrap)
+        {
+            int check = (int)adler.getValue();
+
+            out.write(check >>> 24);
+            out.write(check >>> 16);
+            out.write(check >>> 8);
+            out.write(check);
+        }
+    }
+
+    public void close()
+        throws IOException
+    {
+        finish();
+        out.close();
+    }
+
+    private void submitChunk(boolean last)
+        throws IOException
+    {
+        if (!started)
+        {
+            started = true;
+            if (!nowrap)
+            {
+                writeZlibHeader();
+            }
+        }
+
+        final byte[] data = chunk;
+        final int dataLen = chunkOff;
+        final byte[] dictionary = lastChunk;
+        final boolean finalChunk = last;
+
+        FutureTask task = new FutureTask(new Callable()
+        {
+            public Object call()
+                throws Exception
+            {
+                return deflateChunk(data, dataLen, dictionary, finalChunk);
+            }
+        });
+
+        pending.addElement(task);
+        executor.execute(task);
+
+        lastChunk = chunk;
+        chunk = last ? null : new byte[chunkSize];
+        chunkOff = 0;
+
+        while (pending.size() > maxPending)
+        {
+            writeNextChunk();
+        }
+    }
+
+    private void writeNextChunk()
+        throws IOException
+    {
+        FutureTask task = (FutureTask)pending.elementAt(0);
+        pending.removeElementAt(0);
+
+        try
+        {
+            ((ByteArrayOutputStream)task.get()).writeTo(out);
+        }
+        catch (InterruptedException e)
+        {
+            cancelPending();
+            Thread.currentThread().interrupt();
+
+            throw new IOException("interrupted compressing data", e);
+        }
+        catch (ExecutionException e)
+        {
+            cancelPending();
+
+            throw new IOException("exception compressing data: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private void cancelPending()
+    {
+        for (int i = 0; i != pending.size(); i++)
+        {
+            ((FutureTask)pending.elementAt(i)).cancel(false);
+        }
+        pending.removeAllElements();
+    }
+
+    private void writeZlibHeader()
+        throws IOException
+    {
+        int cmf = 0x78;             // deflate, 32K window
+        int flevel;
+
+        if (level == Deflater.DEFAULT_COMPRESSION || level == 6)
+        {
+            flevel = 2;
+        }
+        else if (level < 2)
+        {
+            flevel = 0;
+        }
+        else if (level < 6)
+        {
+            flevel = 1;
+        }
+        else
+        {
+            flevel = 3;
+        }
+
+        int flg = flevel << 6;
+        flg += (31 - ((cmf << 8) + flg) % 31) % 31;
+
+        out.write(cmf);
+        out.write(flg);
+    }
+
+    private ByteArrayOutputStream deflateChunk(byte[] data, int dataLen, byte[] dictionary, boolean last)
+        throws Exception
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream(dataLen / 2 + 64);
+        Deflater def = new Deflater(level, true);
+
+        try
+        {
+            if (dictionary != null)
+            {
+                def.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+            }
+
+            def.setInput(data, 0, dataLen);
+
+            byte[] buf = new byte[8192];
+            if (last)
+            {
+                def.finish();
+                while (!def.finished())
+                {
+                    writeDeflated(def, bOut, buf);
+                }
+            }
+            else
+            {
+                int len;
+                do
+                {
+                    len = ((Integer)DEFLATE_WITH_FLUSH.invoke(def,
+                        new Object[]{ buf, new Integer(0), new Integer(buf.length), new Integer(SYNC_FLUSH) })).intValue();
+
+                    bOut.write(buf, 0, len);
+                }
+                while (len == buf.length);
+            }
+        }
+        finally
+        {
+            def.end();
+        }
+
+        return bOut;
+    }
+
+    private static void writeDeflated(Deflater def, OutputStream dOut, byte[] buf)
+        throws IOException
+    {
+        int len = def.deflate(buf);
+
+        dOut.write(buf, 0, len);
+    }
+
+    private static Method findDeflateWithFlush()
+    {
+        try
+        {
+            return Deflater.class.getMethod("deflate", new Class[]{ byte[].class, int.class, int.class, int.class });
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+    }
+}
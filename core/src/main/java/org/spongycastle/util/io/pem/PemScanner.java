@@ -0,0 +1,555 @@
+package org.spongycastle.util.io.pem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A scanner for streams of PEM objects, such as large CA bundles, which avoids the per line strings
+ * and buffers of {@link PemReader}.
+ * <p>
+ * The input is read into a window which the lines are located in directly, and the Base64 body of
+ * each object is decoded straight from the window into a content buffer which is reused from one
+ * object to the next. The content of the current object can be taken as a slice of that buffer
+ * or copied out, or the body can be left encoded, to be decoded elsewhere, by using
+ * {@link #nextEncoded()}.
+ * </p>
+ */
+public class PemScanner
+{
+    private static final byte[] BEGIN = { '-', '-', '-', '-', '-', 'B', 'E', 'G', 'I', 'N', ' ' };
+    private static final byte[] END = { '-', '-', '-', '-', '-', 'E', 'N', 'D', ' ' };
+
+    private static final int DEFAULT_WINDOW_SIZE = 16 * 1024;
+
+    private static final byte INVALID = -1;
+    private static final byte WHITESPACE = -2;
+    private static final byte PADDING = -3;
+
+    private static final byte[] DECODING_TABLE = createDecodingTable();
+
+    private final InputStream in;
+    private final Reader reader;
+
+    private byte[] window = new byte[DEFAULT_WINDOW_SIZE];
+    private char[] chars;
+    private int pos;
+    private int limit;
+    private int lineStart;
+    private int lineEnd;
+    private boolean skipLF;
+    private boolean eof;
+
+    private byte[] content = new byte[4096];
+    private int contentLength;
+    private String type;
+    private List headers;
+
+    /**
+     * Create a scanner reading PEM data from a byte stream.
+     *
+     * @param in the stream to read.
+     */
+    public PemScanner(InputStream in)
+    {
+        this.in = in;
+        this.reader = null;
+    }
+
+    /**
+     * Create a scanner reading PEM data from a character stream.
+     *
+     * @param reader the reader to read.
+     */
+    public PemScanner(Reader reader)
+    {
+        this.in = null;
+        this.reader = reader;
+        this.chars = new char[DEFAULT_WINDOW_SIZE];
+    }
+
+    /**
+     * Move to the next PEM object, decoding its content.
+     *
+     * @return true if there is another object, false if the end of the input has been reached.
+     * @throws IOException if the object is incomplete, its content is not valid Base64, or the input
+     * cannot be read.
+     */
+    public boolean next()
+        throws IOException
+    {
+        return scanObject(true);
+    }
+
+    /**
+     * Move to the next PEM object, leaving its content Base64 encoded - the content buffer will
+     * hold the Base64 characters of the object with any whitespace removed.
+     *
+     * @return true if there is another object, false if the end of the input has been reached.
+     * @throws IOException if the object is incomplete or the input cannot be read.
+     */
+    public boolean nextEncoded()
+        throws IOException
+    {
+        return scanObject(false);
+    }
+
+    /**
+     * Read the next PEM object, as {@link PemReader#readPemObject()} would.
+     *
+     * @return the next object, or null if the end of the input has been reached.
+     * @throws IOException if the object is incomplete, its content is not valid Base64, or the input
+     * cannot be read.
+     */
+    public PemObject readPemObject()
+        throws IOException
+    {
+        if (next())
+        {
+            return new PemObject(type, headers, getContent());
+        }
+
+        return null;
+    }
+
+    /**
+     * Return the type of the current object, the label following "-----BEGIN ".
+     */
+    public String getType()
+    {
+        return type;
+    }
+
+    /**
+     * Return the PemHeader objects of the current object.
+     */
+    public List getHeaders()
+    {
+        return headers;
+    }
+
+    /**
+     * Return the buffer holding the content of the current object. The buffer belongs to the
+     * scanner and will be overwritten by the next object.
+     *
+     * @return the content buffer, the content starting at offset 0.
+     */
+    public byte[] getContentBuffer()
+    {
+        return content;
+    }
+
+    /**
+     * Return the length of the content of the current object in the content buffer.
+     */
+    public int getContentLength()
+    {
+        return contentLength;
+    }
+
+    /**
+     * Return a copy of the content of the current object.
+     */
+    public byte[] getContent()
+    {
+        byte[] copy = new byte[contentLength];
+
+        System.arraycopy(content, 0, copy, 0, contentLength);
+
+        return copy;
+    }
+
+    private boolean scanObject(boolean decode)
+        throws IOException
+    {
+        type = null;
+        headers = null;
+        contentLength = 0;
+
+        while (readLine())
+        {
+            if (startsWith(BEGIN))
+            {
+                int typeStart = lineStart + BEGIN.length;
+                int index = indexOf('-', typeStart);
+
+                if (index <= typeStart)
+                {
+                    return false;
+                }
+
+                type = toString(typeStart, index);
+
+                readBody(decode);
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void readBody(boolean decode)
+        throws IOException
+    {
+        byte[] endMarker = toBytes(END, type);
+        List hdrs = new ArrayList();
+        int bits = 0;
+        int acc = 0;
+        boolean padded = false;
+
+        for (;;)
+        {
+            if (!readLine())
+            {
+                throw new IOException(new String(endMarker, "ISO-8859-1") + " not found");
+            }
+
+            // Base64 lines are by far the most common - try the line as one before anything else.
+            int lineBits = bits;
+            int lineAcc = acc;
+            int lineLength = contentLength;
+            boolean linePadded = padded;
+            int i = lineStart;
+
+            if (decode)
+            {
+                ensureContentCapacity(contentLength + ((lineEnd - lineStart) * 3 + 3) / 4 + 3);
+
+                byte[] buf = window;
+                byte[] out = content;
+                int outOff = contentLength;
+
+                for (; i < lineEnd; i++)
+                {
+                    int v = DECODING_TABLE[buf[i] & 0xff];
+
+                    if (v >= 0 && !padded)
+                    {
+                        acc = (acc << 6) | v;
+                        if (++bits == 4)
+                        {
+                            out[outOff++] = (byte)(acc >> 16);
+                            out[outOff++] = (byte)(acc >> 8);
+                            out[outOff++] = (byte)acc;
+                            acc = 0;
+                            bits = 0;
+                        }
+                    }
+                    else if (v == PADDING)
+                    {
+                        padded = true;
+                    }
+                    else if (v != WHITESPACE)
+                    {
+                        break;
+                    }
+                }
+
+                contentLength = outOff;
+            }
+            else
+            {
+                ensureContentCapacity(contentLength + lineEnd - lineStart);
+
+                for (; i < lineEnd; i++)
+                {
+                    byte c = window[i];
+                    int v = DECODING_TABLE[c & 0xff];
+
+                    if (v >= 0 || v == PADDING)
+                    {
+                        content[contentLength++] = c;
+                    }
+                    else if (v != WHITESPACE)
+                    {
+                        break;
+                    }
+                }
+            }
+
+            if (i == lineEnd)
+            {
+                continue;
+            }
+
+            // not Base64, so a header, the end marker, or an error.
+            bits = lineBits;
+            acc = lineAcc;
+            contentLength = lineLength;
+            padded = linePadded;
+
+            int colon = indexOf(':', lineStart);
+            if (colon >= 0)
+            {
+                String hdr = toString(lineStart, colon);
+                String value = toString(colon + 1, lineEnd).trim();
+
+                hdrs.add(new PemHeader(hdr, value));
+
+                continue;
+            }
+
+            if (contains(endMarker))
+            {
+                break;
+            }
+
+            throw new IOException("invalid characters encountered in base64 data");
+        }
+
+        if (decode && bits != 0)
+        {
+            if (bits == 1)
+            {
+                throw new IOException("invalid characters encountered at end of base64 data");
+            }
+
+            ensureContentCapacity(contentLength + 2);
+
+            if (bits == 2)
+            {
+                content[contentLength++] = (byte)(acc >> 4);
+            }
+            else
+            {
+                content[contentLength++] = (byte)(acc >> 10);
+                content[contentLength++] = (byte)(acc >> 2);
+            }
+        }
+
+        headers = hdrs;
+    }
+
+    /**
+     * Locate the next line in the window, setting lineStart and lineEnd. Lines end with LF, CR or
+     * CR LF, as for BufferedReader.readLine().
+     */
+    private boolean readLine()
+        throws IOException
+    {
+        int scan = pos;
+
+        for (;;)
+        {
+            if (skipLF && scan < limit)
+            {
+                if (window[scan] == '\n')
+                {
+                    scan++;
+                    pos = scan;
+                }
+                skipLF = false;
+            }
+
+            byte[] buf = window;
+            int end = limit;
+
+            while (scan < end)
+            {
+                byte c = buf[scan];
+
+                if (c == '\n' || c == '\r')
+                {
+                    lineStart = pos;
+                    lineEnd = scan;
+                    pos = scan + 1;
+                    skipLF = (c == '\r');
+
+                    return true;
+                }
+
+                scan++;
+            }
+
+            int scanned = scan - pos;
+
+            if (eof || !fill())
+            {
+                if (pos == limit)
+                {
+                    return false;
+                }
+
+                lineStart = pos;
+                lineEnd = limit;
+                pos = limit;
+
+                return true;
+            }
+
+            scan = pos + scanned;
+        }
+    }
+
+    /**
+     * Read more data into the window, keeping any unprocessed data.
+     */
+    private boolean fill()
+        throws IOException
+    {
+        int remaining = limit - pos;
+
+        if (pos > 0)
+        {
+            System.arraycopy(window, pos, window, 0, remaining);
+            pos = 0;
+            limit = remaining;
+        }
+
+        if (limit == window.length)
+        {
+            byte[] tmp = new byte[window.length * 2];
+
+            System.arraycopy(window, 0, tmp, 0, limit);
+            window = tmp;
+        }
+
+        int count;
+        if (in != null)
+        {
+            count = in.read(window, limit, window.length - limit);
+        }
+        else
+        {
+            count = reader.read(chars, 0, Math.min(chars.length, window.length - limit));
+            for (int i = 0; i < count; i++)
+            {
+                char c = chars[i];
+
+                window[limit + i] = (c < 0x80) ? (byte)c : (byte)0xff;
+            }
+        }
+
+        if (count < 0)
+        {
+            eof = true;
+            return false;
+        }
+
+        limit += count;
+
+        return true;
+    }
+
+    private void ensureContentCapacity(int length)
+    {
+        if (length > content.length)
+        {
+            byte[] tmp = new byte[Math.max(length, content.length * 2)];
+
+            System.arraycopy(content, 0, tmp, 0, contentLength);
+            content = tmp;
+        }
+    }
+
+    private boolean startsWith(byte[] prefix)
+    {
+        if (lineEnd - lineStart < prefix.length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i != prefix.length; i++)
+        {
+            if (window[lineStart + i] != prefix[i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean contains(byte[] marker)
+    {
+        int last = lineEnd - marker.length;
+
+        for (int start = lineStart; start <= last; start++)
+        {
+            int i = 0;
+            while (i != marker.length && window[start + i] == marker[i])
+            {
+                i++;
+            }
+
+            if (i == marker.length)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int indexOf(char c, int from)
+    {
+        for (int i = from; i < lineEnd; i++)
+        {
+            if (window[i] == c)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private String toString(int start, int end)
+    {
+        char[] cs = new char[end - start];
+
+        for (int i = 0; i != cs.length; i++)
+        {
+            cs[i] = (char)(window[start + i] & 0xff);
+        }
+
+        return new String(cs);
+    }
+
+    private static byte[] toBytes(byte[] prefix, String s)
+    {
+        byte[] bytes = new byte[prefix.length + s.length()];
+
+        System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+        for (int i = 0; i != s.length(); i++)
+        {
+            bytes[prefix.length + i] = (byte)s.charAt(i);
+        }
+
+        return bytes;
+    }
+
+    private static byte[] createDecodingTable()
+    {
+        byte[] table = new byte[256];
+
+        for (int i = 0; i != table.length; i++)
+        {
+            table[i] = INVALID;
+        }
+
+        for (int i = 0; i != 26; i++)
+        {
+            table['A' + i] = (byte)i;
+            table['a' + i] = (byte)(26 + i);
+        }
+        for (int i = 0; i != 10; i++)
+        {
+            table['0' + i] = (byte)(52 + i);
+        }
+        table['+'] = 62;
+        table['/'] = 63;
+
+        table['='] = PADDING;
+
+        table[' '] = WHITESPACE;
+        table['\t'] = WHITESPACE;
+        table['\r'] = WHITESPACE;
+        table['\n'] = WHITESPACE;
+
+        return table;
+    }
+}
@@ -0,0 +1,237 @@
+package org.spongycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.spongycastle.crypto.InvalidCipherTextException;
+import org.spongycastle.crypto.engines.ChaCha7539Engine;
+import org.spongycastle.crypto.modes.ChaCha20Poly1305;
+import org.spongycastle.crypto.params.AEADParameters;
+import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.crypto.params.ParametersWithIV;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
+import org.spongycastle.util.encoders.Hex;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * Test vectors from RFC 7539 for ChaCha20 with a 96 bit nonce and the ChaCha20-Poly1305 AEAD.
+ */
+public class ChaCha20Poly1305Test
+    extends SimpleTest
+{
+    private static final byte[] SUNSCREEN = Strings.toByteArray(
+        "Ladies and Gentlemen of the class of '99: If I could offer you only one tip for the future, sunscreen would be it.");
+
+    // RFC 7539 2.4.2
+    private static final String CIPHER_K = "000102030405060708090a0b0c0d0e0f101112131415161718191a1b1c1d1e1f";
+    private static final String CIPHER_N = "000000000000004a00000000";
+    private static final String CIPHER_C = "6e2e359a2568f98041ba0728dd0d6981"
+        + "e97e7aec1d4360c20a27afccfd9fae0b"
+        + "f91b65c5524733ab8f593dabcd62b357"
+        + "1639d624e65152ab8f530c359f0861d8"
+        + "07ca0dbf500d6a6156a38e088a22b65e"
+        + "52bc514d16ccf806818ce91ab7793736"
+        + "5af90bbf74a35be6b40b8eedf2785e42"
+        + "874d";
+
+    // RFC 7539 2.8.2
+    private static final String AEAD_K = "808182838485868788898a8b8c8d8e8f909192939495969798999a9b9c9d9e9f";
+    private static final String AEAD_N = "070000004041424344454647";
+    private static final String AEAD_A = "50515253c0c1c2c3c4c5c6c7";
+    private static final String AEAD_C = "d31a8d34648e60db7b86afbc53ef7ec2"
+        + "a4aded51296e08fea9e2b5a736ee62d6"
+        + "3dbea45e8ca9671282fafb69da92728b"
+        + "1a71de0a9e060b2905d6a5b67ecd3b36"
+        + "92ddbd7f2d778b8c9803aee328091b58"
+        + "fab324e4fad675945585808b4831d7bc"
+        + "3ff4def08e4b7a9de576d26586cec64b"
+        + "6116";
+    private static final String AEAD_T = "1ae10b594f09e26a7e902ecbd0600691";
+
+    public String getName()
+    {
+        return "ChaCha20Poly1305";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        cipherTest();
+        bulkTest();
+        aeadTest();
+        aeadChunkedTest();
+        aeadTamperTest();
+    }
+
+    private void cipherTest()
+    {
+        ChaCha7539Engine engine = new ChaCha7539Engine();
+        engine.init(true, new ParametersWithIV(new KeyParameter(Hex.decode(CIPHER_K)), Hex.decode(CIPHER_N)));
+
+        // the RFC example starts from a block counter of 1
+        engine.skip(64);
+
+        byte[] out = new byte[SUNSCREEN.length];
+        engine.processBytes(SUNSCREEN, 0, SUNSCREEN.length, out, 0);
+
+        if (!areEqual(Hex.decode(CIPHER_C), out))
+        {
+            fail("ChaCha7539 test vector failed", CIPHER_C, Hex.toHexString(out));
+        }
+    }
+
+    /*
+     * The multi-block path must produce the same key stream as processing a byte at a time.
+     */
+    private void bulkTest()
+    {
+        SecureRandom random = new SecureRandom();
+        byte[] k = new byte[32], n = new byte[12];
+        random.nextBytes(k);
+        random.nextBytes(n);
+
+        byte[] input = new byte[64 * 13 + 29];
+        random.nextBytes(input);
+
+        ChaCha7539Engine bulk = new ChaCha7539Engine();
+        ChaCha7539Engine single = new ChaCha7539Engine();
+        bulk.init(true, new ParametersWithIV(new KeyParameter(k), n));
+        single.init(true, new ParametersWithIV(new KeyParameter(k), n));
+
+        byte[] bulkOut = new byte[input.length];
+        bulk.processBytes(input, 0, 7, bulkOut, 0);
+        bulk.processBytes(input, 7, input.length - 7, bulkOut, 7);
+
+        byte[] singleOut = new byte[input.length];
+        for (int i = 0; i < input.length; ++i)
+        {
+            singleOut[i] = single.returnByte(input[i]);
+        }
+
+        if (!areEqual(singleOut, bulkOut))
+        {
+            fail("ChaCha7539 bulk processing mismatch");
+        }
+        if (bulk.getPosition() != input.length)
+        {
+            fail("ChaCha7539 bulk processing position mismatch");
+        }
+    }
+
+    private void aeadTest()
+        throws InvalidCipherTextException
+    {
+        ChaCha20Poly1305 cipher = new ChaCha20Poly1305();
+        AEADParameters params = new AEADParameters(new KeyParameter(Hex.decode(AEAD_K)), 128,
+            Hex.decode(AEAD_N), Hex.decode(AEAD_A));
+
+        cipher.init(true, params);
+
+        byte[] out = new byte[cipher.getOutputSize(SUNSCREEN.length)];
+        int len = cipher.processBytes(SUNSCREEN, 0, SUNSCREEN.length, out, 0);
+        len += cipher.doFinal(out, len);
+
+        if (len != out.length)
+        {
+            fail("wrong ciphertext length");
+        }
+        if (!areEqual(Hex.decode(AEAD_C + AEAD_T), out))
+        {
+            fail("ChaCha20Poly1305 encryption failed", AEAD_C + AEAD_T, Hex.toHexString(out));
+        }
+        if (!areEqual(Hex.decode(AEAD_T), cipher.getMac()))
+        {
+            fail("ChaCha20Poly1305 getMac() failed");
+        }
+
+        cipher.init(false, params);
+
+        byte[] dec = new byte[cipher.getOutputSize(out.length)];
+        len = cipher.processBytes(out, 0, out.length, dec, 0);
+        len += cipher.doFinal(dec, len);
+
+        if (len != SUNSCREEN.length)
+        {
+            fail("wrong plaintext length");
+        }
+        if (!areEqual(SUNSCREEN, dec))
+        {
+            fail("ChaCha20Poly1305 decryption failed");
+        }
+    }
+
+    private void aeadChunkedTest()
+        throws InvalidCipherTextException
+    {
+        SecureRandom random = new SecureRandom();
+
+        byte[] k = new byte[32], n = new byte[12], aad = new byte[37], msg = new byte[5000];
+        random.nextBytes(k);
+        random.nextBytes(n);
+        random.nextBytes(aad);
+        random.nextBytes(msg);
+
+        ParametersWithIV params = new ParametersWithIV(new KeyParameter(k), n);
+
+        ChaCha20Poly1305 cipher = new ChaCha20Poly1305();
+        cipher.init(true, params);
+        cipher.processAADBytes(aad, 0, aad.length);
+        byte[] enc = new byte[cipher.getOutputSize(msg.length)];
+        int len = cipher.processBytes(msg, 0, msg.length, enc, 0);
+        len += cipher.doFinal(enc, len);
+
+        // decrypt in place, in uneven pieces, so the held back tag straddles calls
+        cipher.init(false, params);
+        cipher.processAADByte(aad[0]);
+        cipher.processAADBytes(aad, 1, aad.length - 1);
+
+        byte[] buf = Arrays.clone(enc);
+        int inOff = 0, outOff = 0;
+        while (inOff < buf.length)
+        {
+            int chunk = Math.min(1 + random.nextInt(300), buf.length - inOff);
+            outOff += cipher.processBytes(buf, inOff, chunk, buf, outOff);
+            inOff += chunk;
+        }
+        outOff += cipher.doFinal(buf, outOff);
+
+        if (outOff != msg.length)
+        {
+            fail("wrong plaintext length");
+        }
+        if (!areEqual(msg, Arrays.copyOfRange(buf, 0, outOff)))
+        {
+            fail("ChaCha20Poly1305 chunked decryption failed");
+        }
+    }
+
+    private void aeadTamperTest()
+    {
+        AEADParameters params = new AEADParameters(new KeyParameter(Hex.decode(AEAD_K)), 128,
+            Hex.decode(AEAD_N), Hex.decode(AEAD_A));
+
+        byte[] enc = Hex.decode(AEAD_C + AEAD_T);
+        enc[10] ^= 1;
+
+        ChaCha20Poly1305 cipher = new ChaCha20Poly1305();
+        cipher.init(false, params);
+
+        byte[] dec = new byte[cipher.getOutputSize(enc.length)];
+        try
+        {
+            int len = cipher.processBytes(enc, 0, enc.length, dec, 0);
+            cipher.doFinal(dec, len);
+            fail("tampered ciphertext accepted");
+        }
+        catch (InvalidCipherTextException e)
+        {
+            // expected
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ChaCha20Poly1305Test());
+    }
+}
@@ -2,6 +2,8 @@
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.spongycastle.crypto.AsymmetricCipherKeyPair;
 import org.spongycastle.crypto.agreement.DHAgreement;
@@ -241,8 +243,28 @@ private DHKeyPairGenerator getDHKeyPairGenerator(
     private void testGeneration(
         int         size)
     {
-        DHParametersGenerator       pGen = new DHParametersGenerator();
+        testGeneration(new DHParametersGenerator(), size);
+    }
+
+    private void testParallelGeneration(
+        int         size)
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try
+        {
+            testGeneration(new DHParametersGenerator(executor, 4), size);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
 
+    private void testGeneration(
+        DHParametersGenerator       pGen,
+        int                         size)
+    {
         pGen.init(size, 10, new SecureRandom());
 
         DHParameters                dhParams = pGen.generateParameters();
@@ -252,6 +274,13 @@ private void testGeneration(
             fail("DHParametersGenerator failed to set J to 0 in generated DHParameters");
         }
 
+        if (dhParams.getP().bitLength() != size
+            || !dhParams.getP().equals(dhParams.getQ().shiftLeft(1).add(BigInteger.valueOf(1)))
+            || !dhParams.getP().isProbablePrime(10) || !dhParams.getQ().isProbablePrime(10))
+        {
+            fail("DHParametersGenerator generated a bad safe prime");
+        }
+
         DHKeyGenerationParameters   params = new DHKeyGenerationParameters(new SecureRandom(), dhParams);
 
         DHBasicKeyPairGenerator     kpGen = new DHBasicKeyPairGenerator();
@@ -334,6 +363,8 @@ public void performTest()
         // generation test.
         //
         testGeneration(256);
+        testParallelGeneration(256);
+        testParallelGeneration(1024);
         
         //
         // with random test
@@ -2,6 +2,10 @@
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.spongycastle.crypto.AsymmetricCipherKeyPair;
 import org.spongycastle.crypto.digests.SHA224Digest;
@@ -15,6 +19,7 @@
 import org.spongycastle.crypto.params.DSAPublicKeyParameters;
 import org.spongycastle.crypto.params.DSAValidationParameters;
 import org.spongycastle.crypto.params.ParametersWithRandom;
+import org.spongycastle.crypto.signers.DSANoncePool;
 import org.spongycastle.crypto.signers.DSASigner;
 import org.spongycastle.util.Arrays;
 import org.spongycastle.util.BigIntegers;
@@ -99,12 +104,67 @@ public void performTest()
             fail("verification fails");
         }
 
+        noncePoolTest(params, pair);
+
         dsa2Test1();
         dsa2Test2();
         dsa2Test3();
         dsa2Test4();
     }
 
+    private void noncePoolTest(DSAParameters params, AsymmetricCipherKeyPair pair)
+    {
+        SecureRandom random = new SecureRandom();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try
+        {
+            DSANoncePool pool = new DSANoncePool(params, random, 4, executor);
+
+            DSASigner signer = new DSASigner(pool);
+            DSASigner verifier = new DSASigner();
+
+            signer.init(true, pair.getPrivate());
+            verifier.init(false, pair.getPublic());
+
+            Set rValues = new HashSet();
+            byte[] message = new byte[20];
+
+            for (int i = 0; i != 20; i++)
+            {
+                random.nextBytes(message);
+
+                BigInteger[] sig = signer.generateSignature(message);
+
+                if (!verifier.verifySignature(message, sig[0], sig[1]))
+                {
+                    fail("pooled signature fails");
+                }
+
+                if (!rValues.add(sig[0]))
+                {
+                    fail("pooled nonce reused");
+                }
+            }
+
+            pool.close();
+
+            try
+            {
+                signer.generateSignature(message);
+                fail("no exception on closed pool");
+            }
+            catch (IllegalStateException e)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     private void dsa2Test1()
     {
         byte[] seed = Hex.decode("ED8BEE8D1CB89229D2903CBF0E51EE7377F48698");
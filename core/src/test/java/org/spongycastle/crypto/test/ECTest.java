@@ -2,6 +2,10 @@
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.spongycastle.asn1.nist.NISTNamedCurves;
 import org.spongycastle.asn1.sec.SECNamedCurves;
@@ -11,6 +15,8 @@
 import org.spongycastle.crypto.agreement.ECDHBasicAgreement;
 import org.spongycastle.crypto.agreement.ECDHCBasicAgreement;
 import org.spongycastle.crypto.agreement.ECMQVBasicAgreement;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
 import org.spongycastle.crypto.generators.ECKeyPairGenerator;
 import org.spongycastle.crypto.params.ECDomainParameters;
 import org.spongycastle.crypto.params.ECKeyGenerationParameters;
@@ -19,7 +25,9 @@
 import org.spongycastle.crypto.params.MQVPrivateParameters;
 import org.spongycastle.crypto.params.MQVPublicParameters;
 import org.spongycastle.crypto.params.ParametersWithRandom;
+import org.spongycastle.crypto.signers.DSANoncePool;
 import org.spongycastle.crypto.signers.ECDSASigner;
+import org.spongycastle.crypto.signers.HMacDSAKCalculator;
 import org.spongycastle.math.ec.ECConstants;
 import org.spongycastle.math.ec.ECCurve;
 import org.spongycastle.math.ec.ECPoint;
@@ -673,6 +681,182 @@ private void testECDSAKeyGenTest()
         }
     }
 
+    /**
+     * signing with a pool of precomputed nonces
+     */
+    private void testECDSANoncePool()
+    {
+        SecureRandom random = new SecureRandom();
+        X9ECParameters x9 = NISTNamedCurves.getByName("P-256");
+        ECDomainParameters params = new ECDomainParameters(x9.getCurve(), x9.getG(), x9.getN(), x9.getH(), x9.getSeed());
+
+        ECKeyPairGenerator pGen = new ECKeyPairGenerator();
+
+        pGen.init(new ECKeyGenerationParameters(params, random));
+
+        AsymmetricCipherKeyPair pair = pGen.generateKeyPair();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try
+        {
+            DSANoncePool pool = new DSANoncePool(params, random, 8, executor);
+
+            ECDSASigner signer = new ECDSASigner(pool);
+            ECDSASigner verifier = new ECDSASigner();
+
+            signer.init(true, pair.getPrivate());
+            verifier.init(false, pair.getPublic());
+
+            Set rValues = new HashSet();
+            byte[] message = new byte[32];
+
+            for (int i = 0; i != 40; i++)
+            {
+                random.nextBytes(message);
+
+                BigInteger[] sig = signer.generateSignature(message);
+
+                if (!verifier.verifySignature(message, sig[0], sig[1]))
+                {
+                    fail("pooled signature fails");
+                }
+
+                if (!rValues.add(sig[0]))
+                {
+                    fail("pooled nonce reused");
+                }
+            }
+
+            if (pool.size() > pool.getCapacity())
+            {
+                fail("pool over capacity");
+            }
+
+            ECDomainParameters other = new ECDomainParameters(x9.getCurve(), x9.getG().twice(), x9.getN());
+            pGen.init(new ECKeyGenerationParameters(other, random));
+
+            try
+            {
+                signer.init(true, pGen.generateKeyPair().getPrivate());
+                fail("no exception on mismatched domain parameters");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+
+            pool.close();
+
+            if (pool.size() != 0)
+            {
+                fail("pool not emptied on close");
+            }
+
+            signer.init(true, pair.getPrivate());
+
+            try
+            {
+                signer.generateSignature(message);
+                fail("no exception on closed pool");
+            }
+            catch (IllegalStateException e)
+            {
+                // expected
+            }
+
+            try
+            {
+                new DSANoncePool(params, random, 8, null);
+                fail("no exception on null executor");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Check signatures made on the custom curves, which use the scalar field of the curve, match
+     * those made on the generic versions of the same curves.
+     */
+    private void testECDSACustomCurves()
+    {
+        String[] names = { "secp192k1", "secp224r1", "secp256k1", "secp256r1", "secp384r1", "secp521r1" };
+        SecureRandom random = new SecureRandom();
+        byte[] message = new byte[32];
+
+        for (int i = 0; i != names.length; i++)
+        {
+            X9ECParameters x9 = SECNamedCurves.getByName(names[i]);
+            X9ECParameters customX9 = CustomNamedCurves.getByName(names[i]);
+
+            if (customX9.getCurve().getScalarField() == null)
+            {
+                fail("no scalar field for " + names[i]);
+            }
+
+            ECDomainParameters params = new ECDomainParameters(x9.getCurve(), x9.getG(), x9.getN(), x9.getH());
+            ECDomainParameters customParams = new ECDomainParameters(customX9.getCurve(), customX9.getG(), customX9.getN(), customX9.getH());
+
+            ECKeyPairGenerator pGen = new ECKeyPairGenerator();
+
+            pGen.init(new ECKeyGenerationParameters(params, random));
+
+            AsymmetricCipherKeyPair pair = pGen.generateKeyPair();
+            BigInteger d = ((ECPrivateKeyParameters)pair.getPrivate()).getD();
+            ECPublicKeyParameters pub = (ECPublicKeyParameters)pair.getPublic();
+
+            ECPrivateKeyParameters customPriv = new ECPrivateKeyParameters(d, customParams);
+            ECPublicKeyParameters customPub = new ECPublicKeyParameters(customParams.getCurve().importPoint(pub.getQ()), customParams);
+
+            for (int j = 0; j != 4; j++)
+            {
+                random.nextBytes(message);
+
+                ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+
+                signer.init(true, pair.getPrivate());
+                BigInteger[] sig = signer.generateSignature(message);
+
+                signer.init(true, customPriv);
+                BigInteger[] customSig = signer.generateSignature(message);
+
+                if (!sig[0].equals(customSig[0]) || !sig[1].equals(customSig[1]))
+                {
+                    fail("custom curve signature mismatch for " + names[i]);
+                }
+
+                ECDSASigner verifier = new ECDSASigner();
+
+                verifier.init(false, customPub);
+                if (!verifier.verifySignature(message, sig[0], sig[1]))
+                {
+                    fail("custom curve verification failed for " + names[i]);
+                }
+                if (verifier.verifySignature(message, sig[0], sig[1].add(ECConstants.ONE)))
+                {
+                    fail("custom curve verification passed bad signature for " + names[i]);
+                }
+
+                signer = new ECDSASigner();
+                signer.init(true, new ParametersWithRandom(customPriv, random));
+                customSig = signer.generateSignature(message);
+
+                verifier.init(false, pub);
+                if (!verifier.verifySignature(message, customSig[0], customSig[1]))
+                {
+                    fail("custom curve random signature failed for " + names[i]);
+                }
+            }
+        }
+    }
+
     /**
      * Basic Key Agreement Test
      */
@@ -903,6 +1087,8 @@ public void performTest()
         testECDSA191bitBinary();
         testECDSA239bitBinary();
         testECDSAKeyGenTest();
+        testECDSANoncePool();
+        testECDSACustomCurves();
         testECBasicAgreementTest();
 
         testECDSAP224sha224();
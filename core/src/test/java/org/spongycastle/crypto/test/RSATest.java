@@ -2,6 +2,8 @@
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.spongycastle.crypto.AsymmetricBlockCipher;
 import org.spongycastle.crypto.AsymmetricCipherKeyPair;
@@ -15,6 +17,7 @@
 import org.spongycastle.crypto.params.RSAKeyParameters;
 import org.spongycastle.crypto.params.RSAPrivateCrtKeyParameters;
 import org.spongycastle.util.Arrays;
+import org.spongycastle.util.BigIntegers;
 import org.spongycastle.util.encoders.Hex;
 import org.spongycastle.util.test.SimpleTest;
 
@@ -477,6 +480,7 @@ public void performTest()
         testMissingDataPKCS1Block(pubParameters, privParameters);
         testTruncatedPKCS1Block(pubParameters, privParameters);
         testWrongPaddingPKCS1Block(pubParameters, privParameters);
+        testParallelKeyGeneration();
 
         try
         {
@@ -489,6 +493,57 @@ public void performTest()
         }
     }
 
+    private void testParallelKeyGeneration()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try
+        {
+            RSAKeyPairGenerator pGen = new RSAKeyPairGenerator(executor, 4);
+
+            int[] strengths = new int[]{ 128, 1024, 2048 };
+            for (int i = 0; i != strengths.length; i++)
+            {
+                int strength = strengths[i];
+
+                pGen.init(new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), new SecureRandom(), strength, 100));
+
+                AsymmetricCipherKeyPair pair = pGen.generateKeyPair();
+                RSAPrivateCrtKeyParameters privKey = (RSAPrivateCrtKeyParameters)pair.getPrivate();
+
+                if (privKey.getModulus().bitLength() != strength)
+                {
+                    fail("failed parallel key generation (" + strength + ") length test");
+                }
+                if (!privKey.getP().isProbablePrime(100) || !privKey.getQ().isProbablePrime(100))
+                {
+                    fail("failed parallel key generation (" + strength + ") prime test");
+                }
+                if (privKey.getP().subtract(privKey.getQ()).abs().bitLength() < strength / 3)
+                {
+                    fail("P and Q too close in parallel RSA key pair");
+                }
+
+                BigInteger m = new BigInteger(strength - 8, new SecureRandom());
+
+                RSAEngine eng = new RSAEngine();
+                eng.init(true, pair.getPublic());
+                byte[] data = BigIntegers.asUnsignedByteArray(strength / 8 - 1, m);
+                data = eng.processBlock(data, 0, data.length);
+                eng.init(false, privKey);
+                data = eng.processBlock(data, 0, data.length);
+
+                if (!m.equals(new BigInteger(1, data)))
+                {
+                    fail("failed parallel key generation (" + strength + ") test");
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
 
     public static void main(
         String[]    args)
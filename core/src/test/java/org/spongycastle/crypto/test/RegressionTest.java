@@ -104,6 +104,7 @@
         new Salsa20Test(),
         new XSalsa20Test(),
         new ChaChaTest(),
+        new ChaCha20Poly1305Test(),
         new CMacTest(),
         new EAXTest(),
         new GCMTest(),
@@ -21,6 +21,7 @@ public static Test suite()
 
         suite.addTestSuite(BasicTlsTest.class);
         suite.addTestSuite(DTLSProtocolTest.class);
+        suite.addTestSuite(DTLSServerDemultiplexerTest.class);
         suite.addTestSuite(DTLSTestCase.class);
         suite.addTestSuite(TlsProtocolTest.class);
         suite.addTestSuite(TlsPSKProtocolTest.class);
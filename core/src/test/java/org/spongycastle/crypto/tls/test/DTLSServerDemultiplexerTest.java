@@ -0,0 +1,187 @@
+package org.spongycastle.crypto.tls.test;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.security.SecureRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import junit.framework.TestCase;
+
+import org.spongycastle.crypto.tls.DTLSClientProtocol;
+import org.spongycastle.crypto.tls.DTLSConnectionHandler;
+import org.spongycastle.crypto.tls.DTLSServerDemultiplexer;
+import org.spongycastle.crypto.tls.DTLSServerProtocol;
+import org.spongycastle.crypto.tls.DTLSTransport;
+import org.spongycastle.crypto.tls.DTLSVerifier;
+import org.spongycastle.crypto.tls.TlsServer;
+import org.spongycastle.crypto.tls.UDPTransport;
+import org.spongycastle.util.Arrays;
+
+public class DTLSServerDemultiplexerTest
+    extends TestCase
+{
+    private static final int MTU = 1500;
+    private static final int CLIENT_COUNT = 4;
+
+    public void testMultipleClientsOneChannel()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newCachedThreadPool();
+
+        try
+        {
+            runClients(executor, CLIENT_COUNT);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testRejectedHandshake()
+        throws Exception
+    {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+
+        // turn the first handshake away, as a saturated bounded pool would
+        Executor rejectFirst = new Executor()
+        {
+            private boolean rejected = false;
+
+            public synchronized void execute(Runnable task)
+            {
+                if (!rejected)
+                {
+                    rejected = true;
+                    throw new RejectedExecutionException();
+                }
+                executor.execute(task);
+            }
+        };
+
+        try
+        {
+            runClients(rejectFirst, 1);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runClients(Executor executor, int clientCount)
+        throws Exception
+    {
+        SecureRandom secureRandom = new SecureRandom();
+
+        DatagramChannel channel = DatagramChannel.open();
+        channel.socket().bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        SocketAddress serverAddress = channel.socket().getLocalSocketAddress();
+
+        DTLSServerDemultiplexer demultiplexer = new DTLSServerDemultiplexer(channel, MTU,
+            new DTLSServerProtocol(secureRandom), new DTLSVerifier(secureRandom), new EchoHandler(), executor);
+
+        Thread serverThread = new Thread(demultiplexer);
+        serverThread.start();
+
+        try
+        {
+            ClientThread[] clients = new ClientThread[clientCount];
+            for (int i = 0; i < clientCount; ++i)
+            {
+                clients[i] = new ClientThread(secureRandom, serverAddress, i + 1);
+                clients[i].start();
+            }
+            for (int i = 0; i < clientCount; ++i)
+            {
+                clients[i].join(60000);
+                if (clients[i].failure != null)
+                {
+                    throw clients[i].failure;
+                }
+                assertTrue(clients[i].echoed);
+            }
+        }
+        finally
+        {
+            demultiplexer.close();
+            serverThread.join();
+            channel.close();
+        }
+
+        assertEquals(0, demultiplexer.getAssociationCount());
+    }
+
+    static class ClientThread
+        extends Thread
+    {
+        private final SecureRandom secureRandom;
+        private final SocketAddress serverAddress;
+        private final int id;
+
+        volatile Exception failure = null;
+        volatile boolean echoed = false;
+
+        ClientThread(SecureRandom secureRandom, SocketAddress serverAddress, int id)
+        {
+            this.secureRandom = secureRandom;
+            this.serverAddress = serverAddress;
+            this.id = id;
+        }
+
+        public void run()
+        {
+            try
+            {
+                DatagramSocket socket = new DatagramSocket();
+                socket.connect(serverAddress);
+
+                DTLSClientProtocol clientProtocol = new DTLSClientProtocol(secureRandom);
+                DTLSTransport dtlsClient = clientProtocol.connect(new MockDTLSClient(null),
+                    new UDPTransport(socket, MTU));
+
+                byte[] data = new byte[id * 10];
+                Arrays.fill(data, (byte)id);
+                dtlsClient.send(data, 0, data.length);
+
+                byte[] buf = new byte[dtlsClient.getReceiveLimit()];
+                int length = dtlsClient.receive(buf, 0, buf.length, 10000);
+
+                echoed = Arrays.areEqual(data, Arrays.copyOfRange(buf, 0, Math.max(0, length)));
+
+                dtlsClient.close();
+            }
+            catch (Exception e)
+            {
+                failure = e;
+            }
+        }
+    }
+
+    static class EchoHandler
+        implements DTLSConnectionHandler
+    {
+        public TlsServer createServer(SocketAddress peerAddress)
+        {
+            return new MockDTLSServer();
+        }
+
+        public void handleConnection(SocketAddress peerAddress, DTLSTransport transport)
+            throws IOException
+        {
+            byte[] buf = new byte[transport.getReceiveLimit()];
+            int length;
+            while ((length = transport.receive(buf, 0, buf.length, 10000)) >= 0)
+            {
+                transport.send(buf, 0, length);
+            }
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package org.spongycastle.crypto.tls.test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.security.SecureRandom;
+
+import org.spongycastle.crypto.tls.BasicTlsPSKIdentity;
+import org.spongycastle.crypto.tls.CipherSuite;
+import org.spongycastle.crypto.tls.DefaultTlsClient;
+import org.spongycastle.crypto.tls.DefaultTlsServer;
+import org.spongycastle.crypto.tls.PSKTlsClient;
+import org.spongycastle.crypto.tls.PSKTlsServer;
+import org.spongycastle.crypto.tls.ProtocolVersion;
+import org.spongycastle.crypto.tls.ServerOnlyTlsAuthentication;
+import org.spongycastle.crypto.tls.SignatureAlgorithm;
+import org.spongycastle.crypto.tls.TlsAuthentication;
+import org.spongycastle.crypto.tls.TlsClient;
+import org.spongycastle.crypto.tls.TlsClientProtocol;
+import org.spongycastle.crypto.tls.TlsEncryptionCredentials;
+import org.spongycastle.crypto.tls.TlsPSKIdentityManager;
+import org.spongycastle.crypto.tls.TlsProtocol;
+import org.spongycastle.crypto.tls.TlsServer;
+import org.spongycastle.crypto.tls.TlsServerProtocol;
+import org.spongycastle.crypto.tls.TlsSignerCredentials;
+import org.spongycastle.util.Strings;
+
+/**
+ * Throughput and allocation harness for the TLS protocol implementation.
+ * <p>
+ * Client and server run in the same thread, connected by in-memory pipes (the non-blocking
+ * offerInput/readOutput mode), so no network or thread hand-off is included in the figures. For
+ * each cipher suite in the matrix it reports handshakes per second, bulk application data
+ * throughput, and the bytes allocated per handshake and per record, for 1..N concurrent threads
+ * (each thread driving its own connections).
+ * </p>
+ * <pre>
+ * usage: TlsHandshakeBenchmark [maxThreads [handshakesPerThread [bulkMegabytes]]]
+ * </pre>
+ */
+public class TlsHandshakeBenchmark
+{
+    private static final int WARMUP_HANDSHAKES = 100;
+    private static final int RECORD_SIZE = 1 << 14;
+
+    private static final int[] CIPHER_SUITES = new int[]
+    {
+        CipherSuite.TLS_RSA_WITH_AES_128_GCM_SHA256,
+        CipherSuite.TLS_RSA_WITH_AES_128_CBC_SHA256,
+        CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256,
+        CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_CBC_SHA256,
+        CipherSuite.TLS_ECDHE_ECDSA_WITH_CHACHA20_POLY1305_SHA256,
+        CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256,
+        CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256,
+        CipherSuite.TLS_ECDHE_RSA_WITH_CHACHA20_POLY1305_SHA256,
+        CipherSuite.TLS_PSK_WITH_AES_128_GCM_SHA256,
+        CipherSuite.TLS_PSK_WITH_AES_128_CBC_SHA256,
+    };
+
+    private static final String[] CIPHER_SUITE_NAMES = new String[]
+    {
+        "TLS_RSA_WITH_AES_128_GCM_SHA256",
+        "TLS_RSA_WITH_AES_128_CBC_SHA256",
+        "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256",
+        "TLS_ECDHE_ECDSA_WITH_AES_128_CBC_SHA256",
+        "TLS_ECDHE_ECDSA_WITH_CHACHA20_POLY1305_SHA256",
+        "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256",
+        "TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256",
+        "TLS_ECDHE_RSA_WITH_CHACHA20_POLY1305_SHA256",
+        "TLS_PSK_WITH_AES_128_GCM_SHA256",
+        "TLS_PSK_WITH_AES_128_CBC_SHA256",
+    };
+
+    private static final byte[] PSK_IDENTITY = Strings.toUTF8ByteArray("client");
+    private static final byte[] PSK = new byte[16];
+
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private static final Method getThreadAllocatedBytes = findAllocatedBytesMethod();
+
+    public static void main(String[] args)
+        throws Exception
+    {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int handshakes = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int bulkMegabytes = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        for (int i = 0; i < CIPHER_SUITES.length; ++i)
+        {
+            int cipherSuite = CIPHER_SUITES[i];
+
+            // Warm up both the handshake and the record paths for this suite
+            new Worker(cipherSuite, WARMUP_HANDSHAKES, 1).run();
+
+            System.out.println(CIPHER_SUITE_NAMES[i]);
+
+            for (int threads = 1; threads <= maxThreads; threads *= 2)
+            {
+                runThreads(cipherSuite, threads, handshakes, bulkMegabytes);
+            }
+        }
+    }
+
+    private static void runThreads(int cipherSuite, int threadCount, int handshakes, int bulkMegabytes)
+        throws Exception
+    {
+        Worker[] workers = new Worker[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; ++i)
+        {
+            workers[i] = new Worker(cipherSuite, handshakes, bulkMegabytes);
+            threads[i] = new Thread(workers[i]);
+        }
+
+        for (int i = 0; i < threadCount; ++i)
+        {
+            threads[i].start();
+        }
+
+        long handshakeNanos = 0, bulkNanos = 0, handshakeCpu = 0;
+        long handshakeAllocated = 0, bulkAllocated = 0, records = 0;
+        for (int i = 0; i < threadCount; ++i)
+        {
+            threads[i].join();
+
+            Worker worker = workers[i];
+            if (worker.failure != null)
+            {
+                throw worker.failure;
+            }
+
+            handshakeNanos = Math.max(handshakeNanos, worker.handshakeNanos);
+            bulkNanos = Math.max(bulkNanos, worker.bulkNanos);
+            handshakeCpu += worker.handshakeCpu;
+            handshakeAllocated += worker.handshakeAllocated;
+            bulkAllocated += worker.bulkAllocated;
+            records += worker.records;
+        }
+
+        long totalHandshakes = (long)handshakes * threadCount;
+        long totalBytes = (long)bulkMegabytes * 1024 * 1024 * threadCount;
+
+        StringBuffer sb = new StringBuffer();
+        sb.append("  threads=").append(threadCount);
+        sb.append(" handshakes/s=").append(totalHandshakes * 1000000000L / Math.max(1, handshakeNanos));
+        sb.append(" cpu/handshake=").append(handshakeCpu / totalHandshakes / 1000).append("us");
+        sb.append(" bulk=").append(totalBytes * 1000 / Math.max(1, bulkNanos)).append("MB/s");
+        if (getThreadAllocatedBytes != null)
+        {
+            sb.append(" alloc/handshake=").append(handshakeAllocated / totalHandshakes).append("B");
+            sb.append(" alloc/record=").append(bulkAllocated / Math.max(1, records)).append("B");
+        }
+        System.out.println(sb.toString());
+    }
+
+    static class Worker
+        implements Runnable
+    {
+        private final int cipherSuite, handshakes, bulkMegabytes;
+
+        Exception failure = null;
+        long handshakeNanos, handshakeCpu, handshakeAllocated;
+        long bulkNanos, bulkAllocated, records;
+
+        Worker(int cipherSuite, int handshakes, int bulkMegabytes)
+        {
+            this.cipherSuite = cipherSuite;
+            this.handshakes = handshakes;
+            this.bulkMegabytes = bulkMegabytes;
+        }
+
+        public void run()
+        {
+            try
+            {
+                long cpuStart = threadBean.getCurrentThreadCpuTime();
+                long allocStart = allocatedBytes();
+                long start = System.nanoTime();
+
+                for (int i = 0; i < handshakes; ++i)
+                {
+                    Connection connection = new Connection(cipherSuite);
+                    connection.close();
+                }
+
+                handshakeNanos = System.nanoTime() - start;
+                handshakeAllocated = allocatedBytes() - allocStart;
+                handshakeCpu = threadBean.getCurrentThreadCpuTime() - cpuStart;
+
+                Connection connection = new Connection(cipherSuite);
+                byte[] data = new byte[RECORD_SIZE];
+                secureRandom.nextBytes(data);
+                long count = (long)bulkMegabytes * 1024 * 1024 / RECORD_SIZE;
+
+                allocStart = allocatedBytes();
+                start = System.nanoTime();
+
+                for (long i = 0; i < count; ++i)
+                {
+                    connection.transfer(data);
+                }
+
+                bulkNanos = System.nanoTime() - start;
+                bulkAllocated = allocatedBytes() - allocStart;
+                records = count;
+
+                connection.close();
+            }
+            catch (Exception e)
+            {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * A client/server pair connected by in-memory pipes.
+     */
+    static class Connection
+    {
+        private final TlsClientProtocol clientProtocol = new TlsClientProtocol(secureRandom);
+        private final TlsServerProtocol serverProtocol = new TlsServerProtocol(secureRandom);
+
+        private byte[] pipe = new byte[RECORD_SIZE + 2048];
+
+        Connection(int cipherSuite)
+            throws IOException
+        {
+            clientProtocol.connect(createClient(cipherSuite));
+            serverProtocol.accept(createServer(cipherSuite));
+
+            boolean hadDataFromServer = true;
+            boolean hadDataFromClient = true;
+            while (hadDataFromServer || hadDataFromClient)
+            {
+                hadDataFromServer = pump(serverProtocol, clientProtocol);
+                hadDataFromClient = pump(clientProtocol, serverProtocol);
+            }
+        }
+
+        void transfer(byte[] data)
+            throws IOException
+        {
+            clientProtocol.offerOutput(data, 0, data.length);
+            pump(clientProtocol, serverProtocol);
+
+            int available = serverProtocol.getAvailableInputBytes();
+            if (available != data.length)
+            {
+                throw new IllegalStateException("expected " + data.length + " bytes, got " + available);
+            }
+            serverProtocol.readInput(data, 0, available);
+        }
+
+        void close()
+            throws IOException
+        {
+            clientProtocol.close();
+            pump(clientProtocol, serverProtocol);
+        }
+
+        private boolean pump(TlsProtocol from, TlsProtocol to)
+            throws IOException
+        {
+            int byteCount = from.getAvailableOutputBytes();
+            if (byteCount == 0)
+            {
+                return false;
+            }
+
+            if (pipe.length < byteCount)
+            {
+                pipe = new byte[byteCount];
+            }
+
+            from.readOutput(pipe, 0, byteCount);
+
+            byte[] input = new byte[byteCount];
+            System.arraycopy(pipe, 0, input, 0, byteCount);
+            to.offerInput(input);
+
+            return true;
+        }
+    }
+
+    static TlsClient createClient(final int cipherSuite)
+    {
+        if (isPSK(cipherSuite))
+        {
+            return new PSKTlsClient(new BasicTlsPSKIdentity(PSK_IDENTITY, PSK))
+            {
+                public int[] getCipherSuites()
+                {
+                    return new int[]{ cipherSuite };
+                }
+            };
+        }
+
+        return new DefaultTlsClient()
+        {
+            public int[] getCipherSuites()
+            {
+                return new int[]{ cipherSuite };
+            }
+
+            public TlsAuthentication getAuthentication()
+            {
+                return new ServerOnlyTlsAuthentication()
+                {
+                    public void notifyServerCertificate(org.spongycastle.crypto.tls.Certificate serverCertificate)
+                    {
+                    }
+                };
+            }
+        };
+    }
+
+    static TlsServer createServer(final int cipherSuite)
+    {
+        if (isPSK(cipherSuite))
+        {
+            return new PSKTlsServer(new BenchmarkIdentityManager())
+            {
+                protected int[] getCipherSuites()
+                {
+                    return new int[]{ cipherSuite };
+                }
+
+                protected ProtocolVersion getMaximumVersion()
+                {
+                    return ProtocolVersion.TLSv12;
+                }
+            };
+        }
+
+        return new DefaultTlsServer()
+        {
+            protected int[] getCipherSuites()
+            {
+                return new int[]{ cipherSuite };
+            }
+
+            protected ProtocolVersion getMaximumVersion()
+            {
+                return ProtocolVersion.TLSv12;
+            }
+
+            protected TlsEncryptionCredentials getRSAEncryptionCredentials()
+                throws IOException
+            {
+                return TlsTestUtils.loadEncryptionCredentials(context, new String[]{ "x509-server.pem", "x509-ca.pem" },
+                    "x509-server-key.pem");
+            }
+
+            protected TlsSignerCredentials getRSASignerCredentials()
+                throws IOException
+            {
+                return TlsTestUtils.loadSignerCredentials(context, supportedSignatureAlgorithms, SignatureAlgorithm.rsa,
+                    "x509-server.pem", "x509-server-key.pem");
+            }
+
+            protected TlsSignerCredentials getECDSASignerCredentials()
+                throws IOException
+            {
+                return TlsTestUtils.loadSignerCredentials(context, supportedSignatureAlgorithms, SignatureAlgorithm.ecdsa,
+                    "x509-server-ecdsa.pem", "x509-server-key-ecdsa.pem");
+            }
+        };
+    }
+
+    static class BenchmarkIdentityManager
+        implements TlsPSKIdentityManager
+    {
+        public byte[] getHint()
+        {
+            return null;
+        }
+
+        public byte[] getPSK(byte[] identity)
+        {
+            return PSK;
+        }
+    }
+
+    private static boolean isPSK(int cipherSuite)
+    {
+        return cipherSuite == CipherSuite.TLS_PSK_WITH_AES_128_GCM_SHA256
+            || cipherSuite == CipherSuite.TLS_PSK_WITH_AES_128_CBC_SHA256;
+    }
+
+    private static long allocatedBytes()
+    {
+        if (getThreadAllocatedBytes == null)
+        {
+            return 0;
+        }
+
+        try
+        {
+            Long result = (Long)getThreadAllocatedBytes.invoke(threadBean,
+                new Object[]{ Long.valueOf(Thread.currentThread().getId()) });
+            return result.longValue();
+        }
+        catch (Exception e)
+        {
+            return 0;
+        }
+    }
+
+    private static Method findAllocatedBytesMethod()
+    {
+        // Only available on HotSpot-derived JVMs, via com.sun.management.ThreadMXBean
+        try
+        {
+            Class c = Class.forName("com.sun.management.ThreadMXBean");
+            if (!c.isInstance(threadBean))
+            {
+                return null;
+            }
+            return c.getMethod("getThreadAllocatedBytes", new Class[]{ long.class });
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+    }
+}
@@ -2,6 +2,9 @@
 
 import java.io.IOException;
 import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.spongycastle.crypto.tls.TlsClientProtocol;
 import org.spongycastle.crypto.tls.TlsProtocol;
@@ -24,6 +27,62 @@ public void testClientServerNonFragmented() throws IOException
         testClientServer(false);
     }
 
+    public void testClientServerDelegatedTasks() throws Exception
+    {
+        SecureRandom secureRandom = new SecureRandom();
+
+        TlsClientProtocol clientProtocol = new TlsClientProtocol(secureRandom);
+        TlsServerProtocol serverProtocol = new TlsServerProtocol(secureRandom);
+        serverProtocol.setDelegatePrivateKeyOperations(true);
+
+        clientProtocol.connect(new MockTlsClient(null));
+        serverProtocol.accept(new MockTlsServer());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            int delegatedTasks = 0;
+
+            // pump handshake, running the server's delegated tasks on another thread
+            boolean progress = true;
+            while (progress)
+            {
+                progress = pumpData(serverProtocol, clientProtocol, false);
+                progress |= pumpData(clientProtocol, serverProtocol, false);
+
+                Runnable task = serverProtocol.getDelegatedTask();
+                if (task != null)
+                {
+                    assertNull(serverProtocol.getDelegatedTask());
+                    assertEquals(0, serverProtocol.getAvailableOutputBytes());
+
+                    Future result = executor.submit(task);
+                    result.get();
+                    ++delegatedTasks;
+
+                    serverProtocol.offerInput(new byte[0]);
+                    progress = true;
+                }
+            }
+
+            assertEquals(2, delegatedTasks);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        byte[] data = new byte[1024];
+        secureRandom.nextBytes(data);
+        writeAndRead(clientProtocol, serverProtocol, data, false);
+        writeAndRead(serverProtocol, clientProtocol, data, false);
+
+        clientProtocol.close();
+        pumpData(clientProtocol, serverProtocol, false);
+        checkClosed(serverProtocol);
+        checkClosed(clientProtocol);
+    }
+
     private static void testClientServer(boolean fragment) throws IOException
     {
         SecureRandom secureRandom = new SecureRandom();
@@ -6,6 +6,8 @@
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -41,6 +43,31 @@ public void testSumOfMultipliesComplete()
         }
     }
 
+    public void testSumOfManyMultiplies()
+    {
+        String[] names = { "secp256r1", "secp256k1", "sect233k1" };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try
+        {
+            for (int i = 0; i < names.length; ++i)
+            {
+                X9ECParameters x9 = CustomNamedCurves.getByName(names[i]);
+                assertNotNull(x9);
+                doTestSumOfManyMultiplies(x9, executor);
+
+                x9 = ECNamedCurveTable.getByName(names[i]);
+                assertNotNull(x9);
+                doTestSumOfManyMultiplies(x9, executor);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     public void testSumOfTwoMultiplies()
     {
         X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
@@ -84,6 +111,47 @@ private void doTestSumOfMultiplies(X9ECParameters x9)
         }
     }
 
+    /**
+     * Sums large enough to use Pippenger's method, including negative and zero scalars, and points
+     * which cancel out.
+     */
+    private void doTestSumOfManyMultiplies(X9ECParameters x9, ExecutorService executor)
+    {
+        int count = 150;
+
+        ECPoint[] points = new ECPoint[count];
+        BigInteger[] scalars = new BigInteger[count];
+        for (int i = 0; i < count; ++i)
+        {
+            points[i] = getRandomPoint(x9);
+            scalars[i] = getRandomScalar(x9);
+            if ((i & 3) == 1)
+            {
+                scalars[i] = scalars[i].negate();
+            }
+        }
+        scalars[5] = BigInteger.valueOf(0);
+        points[7] = points[6].negate();
+        scalars[7] = scalars[6];
+        points[9] = points[8];
+        points[10] = x9.getCurve().getInfinity();
+
+        ECPoint u = x9.getCurve().getInfinity();
+        for (int i = 0; i < count; ++i)
+        {
+            u = u.add(points[i].multiply(scalars[i]));
+        }
+
+        ECPoint v = ECAlgorithms.sumOfMultiplies(points, scalars);
+        ECPoint w = ECAlgorithms.sumOfMultiplies(points, scalars, executor);
+
+        ECPoint[] results = new ECPoint[]{ u, v, w };
+        x9.getCurve().normalizeAll(results);
+
+        assertPointsEqual("ECAlgorithms.sumOfMultiplies is incorrect", results[0], results[1]);
+        assertPointsEqual("ECAlgorithms.sumOfMultiplies with executor is incorrect", results[0], results[2]);
+    }
+
     private void doTestSumOfTwoMultiplies(X9ECParameters x9)
     {
         ECPoint p = getRandomPoint(x9);
@@ -0,0 +1,162 @@
+package org.spongycastle.math.ec.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.spongycastle.asn1.x509.AlgorithmIdentifier;
+import org.spongycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.spongycastle.asn1.x9.ECNamedCurveTable;
+import org.spongycastle.asn1.x9.X962Parameters;
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.asn1.x9.X9ObjectIdentifiers;
+import org.spongycastle.asn1.sec.SECObjectIdentifiers;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
+import org.spongycastle.crypto.params.ECPublicKeyParameters;
+import org.spongycastle.crypto.util.PublicKeyFactory;
+import org.spongycastle.math.ec.ECAlgorithms;
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.ECPointCache;
+import org.spongycastle.math.ec.WNafUtil;
+
+public class ECPointCacheTest extends TestCase
+{
+    private static final SecureRandom RND = new SecureRandom();
+
+    public void testDecode()
+    {
+        doTestDecode(CustomNamedCurves.getByName("secp256r1"));
+        doTestDecode(ECNamedCurveTable.getByName("secp256r1"));
+        doTestDecode(ECNamedCurveTable.getByName("brainpoolP256r1"));
+        doTestDecode(ECNamedCurveTable.getByName("sect233k1"));
+    }
+
+    private void doTestDecode(X9ECParameters x9)
+    {
+        ECCurve curve = x9.getCurve();
+        ECPointCache cache = new ECPointCache(4);
+
+        ECPoint q = x9.getG().multiply(new BigInteger(x9.getN().bitLength() - 1, RND)).normalize();
+
+        byte[] compressed = q.getEncoded(true);
+        byte[] uncompressed = q.getEncoded(false);
+
+        ECPoint p1 = cache.decodePoint(curve, compressed);
+        assertEquals(q, p1);
+        assertTrue(p1.isNormalized());
+        assertSame(p1, cache.decodePoint(curve, compressed));
+        assertSame(p1, cache.decodePoint(curve, (byte[])compressed.clone()));
+
+        // changes to the caller's array must not affect the cache
+        compressed[compressed.length - 1] ^= 1;
+        assertSame(p1, cache.decodePoint(curve, q.getEncoded(true)));
+
+        ECPoint p2 = cache.decodePoint(curve, uncompressed);
+        assertEquals(q, p2);
+        assertNotSame(p1, p2);
+        assertEquals(2, cache.size());
+
+        // precomputation stored against a cached point survives to the next hit (Koblitz curves
+        // use a different multiplier, so just the prime curves are checked)
+        if (ECAlgorithms.isFpCurve(curve))
+        {
+            ECAlgorithms.sumOfTwoMultiplies(x9.getG(), BigInteger.valueOf(3), p1, BigInteger.valueOf(5));
+            assertNotNull(curve.getPreCompInfo(cache.decodePoint(curve, q.getEncoded(true)), WNafUtil.PRECOMP_NAME));
+        }
+    }
+
+    public void testInvalid()
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
+        ECCurve curve = x9.getCurve();
+        ECPointCache cache = new ECPointCache(4);
+
+        byte[] encoded = x9.getG().getEncoded(false);
+        encoded[encoded.length - 1] ^= 1;
+
+        for (int i = 0; i != 2; i++)
+        {
+            try
+            {
+                cache.decodePoint(curve, encoded);
+                fail("invalid point decoded");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+
+        assertEquals(0, cache.size());
+    }
+
+    public void testBound()
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
+        ECCurve curve = x9.getCurve();
+        ECPointCache cache = new ECPointCache(3);
+
+        byte[][] encodings = new byte[5][];
+        for (int i = 0; i != encodings.length; i++)
+        {
+            encodings[i] = x9.getG().multiply(BigInteger.valueOf(i + 1)).getEncoded(true);
+        }
+
+        ECPoint p0 = cache.decodePoint(curve, encodings[0]);
+        cache.decodePoint(curve, encodings[1]);
+        cache.decodePoint(curve, encodings[2]);
+
+        // touch the first so the second is the least recently used
+        assertSame(p0, cache.decodePoint(curve, encodings[0]));
+
+        cache.decodePoint(curve, encodings[3]);
+        assertEquals(3, cache.size());
+        assertSame(p0, cache.decodePoint(curve, encodings[0]));
+
+        cache.decodePoint(curve, encodings[4]);
+        assertEquals(3, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNotSame(p0, cache.decodePoint(curve, encodings[0]));
+    }
+
+    public void testCurveInstances()
+    {
+        X9ECParameters custom = CustomNamedCurves.getByName("secp256r1");
+        X9ECParameters generic = ECNamedCurveTable.getByName("secp256r1");
+        ECPointCache cache = new ECPointCache(4);
+
+        byte[] encoded = custom.getG().getEncoded(true);
+
+        ECPoint p1 = cache.decodePoint(custom.getCurve(), encoded);
+        ECPoint p2 = cache.decodePoint(generic.getCurve(), encoded);
+
+        assertSame(custom.getCurve(), p1.getCurve());
+        assertSame(generic.getCurve(), p2.getCurve());
+        assertEquals(2, cache.size());
+    }
+
+    public void testPublicKeyFactory()
+        throws Exception
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByOID(SECObjectIdentifiers.secp256r1);
+        ECPoint q = x9.getG().multiply(BigInteger.valueOf(12345)).normalize();
+
+        SubjectPublicKeyInfo info = new SubjectPublicKeyInfo(
+            new AlgorithmIdentifier(X9ObjectIdentifiers.id_ecPublicKey, new X962Parameters(SECObjectIdentifiers.secp256r1)),
+            q.getEncoded(true));
+
+        ECPointCache cache = new ECPointCache(4);
+
+        ECPublicKeyParameters k1 = (ECPublicKeyParameters)PublicKeyFactory.createKey(info, cache);
+        ECPublicKeyParameters k2 = (ECPublicKeyParameters)PublicKeyFactory.createKey(info, cache);
+        ECPublicKeyParameters k3 = (ECPublicKeyParameters)PublicKeyFactory.createKey(info);
+
+        assertEquals(q, k1.getQ());
+        assertSame(k1.getQ(), k2.getQ());
+        assertEquals(k1.getQ(), k3.getQ());
+        assertEquals(1, cache.size());
+    }
+}
@@ -195,4 +195,19 @@ public void testMultiply() throws Exception
             randMult(name);
         }
     }
+
+    /**
+     * Run the multiplication timings for just the named curves, by default the custom curves which
+     * sum points in place.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        String[] names = (args.length > 0) ? args : new String[]{ "P-256", "P-384", "secp256k1" };
+
+        ECPointPerformanceTest test = new ECPointPerformanceTest();
+        for (int i = 0; i != names.length; i++)
+        {
+            test.randMult(names[i]);
+        }
+    }
 }
@@ -21,6 +21,9 @@
 import org.spongycastle.math.ec.ECCurve;
 import org.spongycastle.math.ec.ECFieldElement;
 import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.FixedPointCombMultiplier;
+import org.spongycastle.math.ec.MontFpCurve;
+import org.spongycastle.math.ec.WNafL2RMultiplier;
 import org.spongycastle.util.Arrays;
 import org.spongycastle.util.BigIntegers;
 
@@ -334,6 +337,88 @@ private void implTestMultiplyAll(ECPoint p, int numBits)
         while (k.compareTo(bound) < 0);
     }
 
+    /**
+     * Checks the multipliers that sum points in place on the custom curves which support it against
+     * the reference implementation, including the cases where a step adds a point to itself or
+     * to its negation.
+     */
+    public void testInPlaceMultipliers()
+    {
+        String[] names = new String[]{ "P-256", "P-384", "secp256k1" };
+
+        for (int i = 0; i != names.length; i++)
+        {
+            X9ECParameters x9 = CustomNamedCurves.getByName(names[i]);
+            ECPoint g = x9.getG();
+            BigInteger n = x9.getN();
+
+            BigInteger[] ks = new BigInteger[]{ BigInteger.ONE, BigInteger.valueOf(2), BigInteger.valueOf(3),
+                n.subtract(BigInteger.ONE), new BigInteger(n.bitLength() - 1, secRand),
+                new BigInteger(n.bitLength() - 1, secRand) };
+
+            for (int j = 0; j != ks.length; j++)
+            {
+                BigInteger k = ks[j];
+                ECPoint ref = ECAlgorithms.referenceMultiply(g, k);
+
+                assertPointsEqual("WNafL2RMultiplier is incorrect", ref, new WNafL2RMultiplier().multiply(g, k));
+                assertPointsEqual("FixedPointCombMultiplier is incorrect", ref, new FixedPointCombMultiplier().multiply(g, k));
+
+                assertPointsEqual("sumOfTwoMultiplies is incorrect", ECAlgorithms.referenceMultiply(g.add(ref), k),
+                    ECAlgorithms.sumOfTwoMultiplies(g, k, ref, k));
+                assertPointsEqual("sumOfTwoMultiplies is incorrect", ECAlgorithms.referenceMultiply(g, k.shiftLeft(1).mod(n)),
+                    ECAlgorithms.sumOfTwoMultiplies(g, k, g, k));
+                assertTrue(ECAlgorithms.sumOfTwoMultiplies(g, k, g, n.subtract(k)).isInfinity());
+            }
+        }
+    }
+
+    public void testMontFpCurves()
+    {
+        String[] names = new String[]{ "brainpoolP256r1", "brainpoolP384r1", "brainpoolP512t1", "FRP256v1" };
+
+        for (int i = 0; i != names.length; i++)
+        {
+            X9ECParameters x9 = ECNamedCurveTable.getByName(names[i]);
+            ECCurve curve = x9.getCurve();
+            assertTrue(names[i], curve instanceof MontFpCurve);
+
+            BigInteger q = curve.getField().getCharacteristic();
+            ECCurve plain = new ECCurve.Fp(q, curve.getA().toBigInteger(), curve.getB().toBigInteger(),
+                x9.getN(), x9.getH());
+            assertEquals(names[i], plain, curve);
+
+            for (int j = 0; j != 10; j++)
+            {
+                BigInteger x = new BigInteger(q.bitLength(), secRand).mod(q);
+                BigInteger y = new BigInteger(q.bitLength(), secRand).mod(q);
+                ECFieldElement fx = curve.fromBigInteger(x), fy = curve.fromBigInteger(y);
+
+                assertEquals(x, fx.toBigInteger());
+                assertEquals(x.add(y).mod(q), fx.add(fy).toBigInteger());
+                assertEquals(x.subtract(y).mod(q), fx.subtract(fy).toBigInteger());
+                assertEquals(x.multiply(y).mod(q), fx.multiply(fy).toBigInteger());
+                assertEquals(x.multiply(x).mod(q), fx.square().toBigInteger());
+                assertEquals(x.negate().mod(q), fx.negate().toBigInteger());
+                assertEquals(x.testBit(0), fx.testBitZero());
+                if (y.signum() != 0)
+                {
+                    assertEquals(y.modInverse(q), fy.invert().toBigInteger());
+                    assertEquals(x.multiply(y.modInverse(q)).mod(q), fx.divide(fy).toBigInteger());
+                }
+            }
+            assertTrue(curve.fromBigInteger(BigInteger.ONE).isOne());
+            assertTrue(curve.fromBigInteger(BigInteger.ZERO).isZero());
+
+            ECPoint g = x9.getG();
+            ECPoint plainG = plain.decodePoint(g.getEncoded(false));
+            BigInteger k = new BigInteger(x9.getN().bitLength() - 1, secRand);
+
+            assertTrue(Arrays.areEqual(plainG.multiply(k).getEncoded(true), g.multiply(k).getEncoded(true)));
+            assertPointsEqual("decompression is incorrect", g, curve.decodePoint(g.getEncoded(true)));
+        }
+    }
+
     /**
      * Tests <code>ECPoint.add()</code> and <code>ECPoint.subtract()</code>
      * for the given point and the given point at infinity.
@@ -0,0 +1,123 @@
+package org.spongycastle.math.ec.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Enumeration;
+
+import junit.framework.TestCase;
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECScalarField;
+
+public class ECScalarFieldTest extends TestCase
+{
+    private static final int SCALE = 20;
+    private static final SecureRandom RND = new SecureRandom();
+
+    public void testCustomCurves()
+    {
+        int count = 0;
+
+        Enumeration en = CustomNamedCurves.getNames();
+        while (en.hasMoreElements())
+        {
+            String name = (String)en.nextElement();
+            X9ECParameters x9 = CustomNamedCurves.getByName(name);
+            ECCurve curve = x9.getCurve();
+
+            ECScalarField scalarField = curve.getScalarField();
+            if (scalarField != null)
+            {
+                assertEquals(name, x9.getN(), scalarField.getOrder());
+                doTestScalarField(name, scalarField);
+                ++count;
+            }
+        }
+
+        assertTrue(count > 0);
+    }
+
+    public void testEdgeValues()
+    {
+        BigInteger n = CustomNamedCurves.getByName("secp256r1").getN();
+        ECScalarField scalarField = new ECScalarField(n);
+
+        BigInteger[] values = new BigInteger[]{ BigInteger.ONE, BigInteger.valueOf(2),
+            n.subtract(BigInteger.ONE), n.subtract(BigInteger.valueOf(2)), n.shiftRight(1) };
+
+        for (int i = 0; i != values.length; i++)
+        {
+            for (int j = 0; j != values.length; j++)
+            {
+                checkValues("secp256r1", scalarField, values[i], values[j]);
+            }
+        }
+
+        assertTrue(scalarField.isZero(scalarField.fromBigInteger(n)));
+        assertEquals(BigInteger.ONE, scalarField.toBigInteger(scalarField.fromBigInteger(n.add(BigInteger.ONE))));
+        assertEquals(n.subtract(BigInteger.ONE), scalarField.toBigInteger(scalarField.fromBigInteger(BigInteger.ONE.negate())));
+        assertEquals(BigInteger.ONE, scalarField.toBigInteger(scalarField.fromBigInteger(n.shiftLeft(3).add(BigInteger.ONE))));
+
+        try
+        {
+            scalarField.invert(scalarField.create(), scalarField.create());
+            fail("no exception on inverting zero");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private void doTestScalarField(String name, ECScalarField scalarField)
+    {
+        BigInteger n = scalarField.getOrder();
+
+        for (int i = 0; i < SCALE; ++i)
+        {
+            checkValues(name, scalarField, randomScalar(n), randomScalar(n));
+        }
+    }
+
+    private void checkValues(String name, ECScalarField scalarField, BigInteger x, BigInteger y)
+    {
+        BigInteger n = scalarField.getOrder();
+
+        int[] xn = scalarField.fromBigInteger(x);
+        int[] yn = scalarField.fromBigInteger(y);
+        int[] z = scalarField.create();
+
+        assertEquals(name, x, scalarField.toBigInteger(xn));
+
+        scalarField.add(xn, yn, z);
+        assertEquals(name, x.add(y).mod(n), scalarField.toBigInteger(z));
+
+        scalarField.multiply(xn, yn, z);
+        assertEquals(name, x.multiply(y).mod(n), scalarField.toBigInteger(z));
+
+        scalarField.invert(xn, z);
+        assertEquals(name, x.modInverse(n), scalarField.toBigInteger(z));
+
+        scalarField.invertVar(yn, z);
+        assertEquals(name, y.modInverse(n), scalarField.toBigInteger(z));
+
+        scalarField.invertBlinded(yn, z, RND);
+        assertEquals(name, y.modInverse(n), scalarField.toBigInteger(z));
+
+        // in place
+        scalarField.multiply(xn, xn, xn);
+        assertEquals(name, x.multiply(x).mod(n), scalarField.toBigInteger(xn));
+    }
+
+    private static BigInteger randomScalar(BigInteger n)
+    {
+        BigInteger k;
+        do
+        {
+            k = new BigInteger(n.bitLength(), RND);
+        }
+        while (k.signum() == 0 || k.compareTo(n) >= 0);
+        return k;
+    }
+}
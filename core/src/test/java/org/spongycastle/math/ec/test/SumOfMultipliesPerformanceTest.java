@@ -0,0 +1,148 @@
+package org.spongycastle.math.ec.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+import org.spongycastle.asn1.x9.ECNamedCurveTable;
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
+import org.spongycastle.math.ec.ECAlgorithms;
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.util.Times;
+
+/**
+ * Times ECAlgorithms.sumOfMultiplies for sums of 2 to 4096 points, both on the calling thread and
+ * with the windows of the larger sums spread over a thread pool.
+ */
+public class SumOfMultipliesPerformanceTest extends TestCase
+{
+    static final int MILLIS_PER_ROUND = 500;
+    static final int NUM_ROUNDS = 5;
+
+    static final int MAX_POINTS = 4096;
+
+    private void sumMult(String curveName, Executor executor) throws Exception
+    {
+        X9ECParameters spec = CustomNamedCurves.getByName(curveName);
+        if (spec == null)
+        {
+            spec = ECNamedCurveTable.getByName(curveName);
+        }
+        if (spec == null)
+        {
+            return;
+        }
+
+        ECCurve c = spec.getCurve();
+        BigInteger n = spec.getN();
+
+        SecureRandom random = new SecureRandom();
+
+        ECPoint[] points = new ECPoint[MAX_POINTS];
+        BigInteger[] scalars = new BigInteger[MAX_POINTS];
+        for (int i = 0; i < MAX_POINTS; ++i)
+        {
+            points[i] = spec.getG().multiply(new BigInteger(n.bitLength() - 1, random));
+            scalars[i] = new BigInteger(n.bitLength() - 1, random);
+        }
+        c.normalizeAll(points);
+
+        System.out.println(curveName + ((executor == null) ? "" : " (thread pool)"));
+
+        for (int count = 2; count <= MAX_POINTS; count <<= 1)
+        {
+            ECPoint[] ps = new ECPoint[count];
+            BigInteger[] ks = new BigInteger[count];
+            System.arraycopy(points, 0, ps, 0, count);
+            System.arraycopy(scalars, 0, ks, 0, count);
+
+            double avgMillis = sumMult(ps, ks, executor);
+
+            StringBuffer sb = new StringBuffer();
+            sb.append("   ");
+            sb.append(count);
+            for (int j = sb.length(); j < 12; ++j)
+            {
+                sb.append(' ');
+            }
+            sb.append(": ");
+            sb.append(avgMillis);
+            sb.append(" millis/sum");
+            for (int j = sb.length(); j < 48; ++j)
+            {
+                sb.append(' ');
+            }
+            sb.append('(');
+            sb.append(1000.0 * avgMillis / count);
+            sb.append(" micros/point)");
+            System.out.println(sb.toString());
+        }
+    }
+
+    private double sumMult(ECPoint[] ps, BigInteger[] ks, Executor executor)
+    {
+        // warm up
+        ECAlgorithms.sumOfMultiplies(ps, ks, executor);
+
+        double minTime = Double.MAX_VALUE, maxTime = 0.0, totalTime = 0.0;
+
+        for (int i = 1; i <= NUM_ROUNDS; i++)
+        {
+            long startTime = Times.nanoTime();
+            long goalTime = startTime + 1000000L * MILLIS_PER_ROUND;
+            long count = 0, endTime;
+
+            do
+            {
+                ECAlgorithms.sumOfMultiplies(ps, ks, executor);
+                ++count;
+
+                endTime = Times.nanoTime();
+            }
+            while (endTime < goalTime);
+
+            double roundTime = (endTime - startTime) / (count * 1000000.0);
+
+            minTime = Math.min(minTime, roundTime);
+            maxTime = Math.max(maxTime, roundTime);
+            totalTime += roundTime;
+        }
+
+        return (totalTime - minTime - maxTime) / (NUM_ROUNDS - 2);
+    }
+
+    public void testSumOfMultiplies() throws Exception
+    {
+        sumMult("secp256r1", null);
+    }
+
+    /**
+     * Run the timings for just the named curves, by default P-256 and secp256k1, with and without
+     * a thread pool.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        String[] names = (args.length > 0) ? args : new String[]{ "secp256r1", "secp256k1" };
+
+        SumOfMultipliesPerformanceTest test = new SumOfMultipliesPerformanceTest();
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+        try
+        {
+            for (int i = 0; i != names.length; i++)
+            {
+                test.sumMult(names[i], null);
+                test.sumMult(names[i], executor);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -19,6 +19,7 @@ public static Test suite()
     {   
         TestSuite suite = new TestSuite("Math tests");
 
+        suite.addTestSuite(FixedBaseCombTest.class);
         suite.addTestSuite(PrimesTest.class);
 
         return new BCTestSetup(suite);
@@ -0,0 +1,107 @@
+package org.spongycastle.math.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+
+import org.spongycastle.crypto.agreement.DHStandardGroups;
+import org.spongycastle.crypto.params.DHParameters;
+import org.spongycastle.math.FixedBaseComb;
+
+public class FixedBaseCombTest extends TestCase
+{
+    private static final int ITERATIONS = 20;
+
+    private static final SecureRandom R = new SecureRandom();
+
+    public void testStandardGroups()
+    {
+        checkComb(DHStandardGroups.rfc5114_1024_160);
+        checkComb(DHStandardGroups.rfc5114_2048_256);
+        checkComb(DHStandardGroups.rfc3526_2048);
+    }
+
+    public void testSizes()
+    {
+        // exponent sizes either side of the width changes, and rows shorter than the block count
+        int[] maxBits = new int[]{ 1, 2, 3, 5, 17, 128, 129, 255, 512, 513, 1031 };
+        BigInteger p = BigInteger.probablePrime(1031, R);
+
+        for (int i = 0; i != maxBits.length; i++)
+        {
+            BigInteger g = new BigInteger(p.bitLength() - 1, R);
+            checkComb(new FixedBaseComb(p, g, maxBits[i]));
+        }
+    }
+
+    public void testEdgeValues()
+    {
+        BigInteger p = BigInteger.probablePrime(256, R);
+        BigInteger g = BigInteger.valueOf(2);
+        FixedBaseComb comb = new FixedBaseComb(p, g, 256);
+
+        assertEquals(BigInteger.valueOf(1), comb.modPow(BigInteger.valueOf(0)));
+        assertEquals(g, comb.modPow(BigInteger.valueOf(1)));
+        assertEquals(BigInteger.valueOf(1), comb.modPow(p.subtract(BigInteger.valueOf(1))));
+
+        // larger than the comb, falls back to modPow
+        BigInteger e = BigInteger.valueOf(1).shiftLeft(300).add(BigInteger.valueOf(12345));
+        assertEquals(g.modPow(e, p), comb.modPow(e));
+
+        // base larger than the modulus
+        comb = new FixedBaseComb(p, p.add(g), 256);
+        assertEquals(g.modPow(BigInteger.valueOf(77), p), comb.modPow(BigInteger.valueOf(77)));
+
+        try
+        {
+            new FixedBaseComb(p.add(BigInteger.valueOf(1)), g, 256);
+            fail("no exception on even modulus");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+
+        try
+        {
+            comb.modPow(BigInteger.valueOf(-1));
+            fail("no exception on negative exponent");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+    }
+
+    private void checkComb(DHParameters params)
+    {
+        BigInteger q = params.getQ();
+        int maxBits = (q != null) ? q.bitLength() : params.getP().bitLength();
+
+        checkComb(new FixedBaseComb(params.getP(), params.getG(), maxBits));
+
+        // the parameters switch to a comb of their own after a number of uses
+        for (int i = 0; i < ITERATIONS; ++i)
+        {
+            BigInteger e = new BigInteger(maxBits, R);
+            assertEquals(params.getG().modPow(e, params.getP()), params.modPowG(e));
+        }
+    }
+
+    private void checkComb(FixedBaseComb comb)
+    {
+        BigInteger p = comb.getModulus();
+        BigInteger g = comb.getBase();
+        int maxBits = comb.getMaxBits();
+
+        for (int i = 0; i < ITERATIONS; ++i)
+        {
+            BigInteger e = new BigInteger(1 + R.nextInt(maxBits), R);
+            assertEquals(g.modPow(e, p), comb.modPow(e));
+        }
+
+        BigInteger all = BigInteger.valueOf(1).shiftLeft(maxBits).subtract(BigInteger.valueOf(1));
+        assertEquals(g.modPow(all, p), comb.modPow(all));
+    }
+}
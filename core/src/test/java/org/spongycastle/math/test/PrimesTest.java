@@ -10,6 +10,7 @@
 import org.spongycastle.crypto.Digest;
 import org.spongycastle.crypto.digests.SHA1Digest;
 import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.math.PrimeSieve;
 import org.spongycastle.math.Primes;
 import org.spongycastle.math.Primes.MROutput;
 import org.spongycastle.math.Primes.STOutput;
@@ -177,6 +178,76 @@ private static boolean isPrime(BigInteger x)
         return x.isProbablePrime(PRIME_CERTAINTY);
     }
 
+    public void testPrimeSieve()
+    {
+        for (int iterations = 0; iterations < ITERATIONS; ++iterations)
+        {
+            checkPrimeSieve(new BigInteger(PRIME_BITS, R).setBit(PRIME_BITS - 1).setBit(0), 2000, false);
+            checkPrimeSieve(new BigInteger(PRIME_BITS, R).setBit(PRIME_BITS - 1).setBit(0), 2000, true);
+        }
+
+        // runs just above the limit, and shorter than the sieving primes
+        checkPrimeSieve(BigInteger.valueOf(PrimeSieve.SIEVE_LIMIT + 1), 5000, false);
+        checkPrimeSieve(BigInteger.valueOf(PrimeSieve.SIEVE_LIMIT + 1), 5000, true);
+        checkPrimeSieve(BigInteger.valueOf(1000003), 7, false);
+
+        try
+        {
+            new PrimeSieve(BigInteger.valueOf(PrimeSieve.SIEVE_LIMIT - 1), 10);
+            fail("no exception for start below the sieve limit");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            new PrimeSieve(BigInteger.valueOf(PrimeSieve.SIEVE_LIMIT * 2), 10);
+            fail("no exception for even start");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private void checkPrimeSieve(BigInteger start, int count, boolean safePrime)
+    {
+        PrimeSieve sieve = new PrimeSieve(start, count, safePrime);
+        BigInteger next = sieve.next();
+
+        for (int i = 0; i < count; ++i)
+        {
+            BigInteger x = start.add(BigInteger.valueOf(2 * i));
+            boolean survives = !hasFactorBelow(x, PrimeSieve.SIEVE_LIMIT)
+                && !(safePrime && hasFactorBelow(x.shiftLeft(1).add(BigInteger.valueOf(1)), PrimeSieve.SIEVE_LIMIT));
+
+            if (survives)
+            {
+                assertEquals(x, next);
+                assertEquals(i + 1, sieve.getPosition());
+                next = sieve.next();
+            }
+        }
+
+        assertNull(next);
+        assertEquals(count, sieve.getPosition());
+    }
+
+    private static boolean hasFactorBelow(BigInteger x, int limit)
+    {
+        for (int f = 3; f < limit; f += 2)
+        {
+            BigInteger bf = BigInteger.valueOf(f);
+            if (x.mod(bf).signum() == 0 && !x.equals(bf))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static BigInteger randomPrime()
     {
         return new BigInteger(PRIME_BITS, PRIME_CERTAINTY, R);
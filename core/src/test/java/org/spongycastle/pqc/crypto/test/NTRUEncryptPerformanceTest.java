@@ -0,0 +1,176 @@
+package org.spongycastle.pqc.crypto.test;
+
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.spongycastle.crypto.AsymmetricCipherKeyPair;
+import org.spongycastle.crypto.InvalidCipherTextException;
+import org.spongycastle.pqc.crypto.ntru.NTRUEncryptionKeyGenerationParameters;
+import org.spongycastle.pqc.crypto.ntru.NTRUEncryptionKeyPairGenerator;
+import org.spongycastle.pqc.crypto.ntru.NTRUEncryptionPublicKeyParameters;
+import org.spongycastle.pqc.crypto.ntru.NTRUEngine;
+import org.spongycastle.pqc.math.ntru.polynomial.IntegerPolynomial;
+import org.spongycastle.util.Times;
+
+/**
+ * Times key generation, encryption, decryption and a dense multiplication mod q for the standard
+ * NTRUEncrypt parameter sets.
+ */
+public class NTRUEncryptPerformanceTest
+    extends TestCase
+{
+    static final int MILLIS_PER_ROUND = 500;
+    static final int NUM_ROUNDS = 5;
+
+    private static final String[] NAMES = new String[]{ "EES1087EP2", "EES1171EP1", "EES1499EP1", "APR2011_439",
+        "APR2011_439_FAST", "APR2011_743", "APR2011_743_FAST" };
+    private static final NTRUEncryptionKeyGenerationParameters[] PARAMS = new NTRUEncryptionKeyGenerationParameters[]{
+        NTRUEncryptionKeyGenerationParameters.EES1087EP2, NTRUEncryptionKeyGenerationParameters.EES1171EP1,
+        NTRUEncryptionKeyGenerationParameters.EES1499EP1, NTRUEncryptionKeyGenerationParameters.APR2011_439,
+        NTRUEncryptionKeyGenerationParameters.APR2011_439_FAST, NTRUEncryptionKeyGenerationParameters.APR2011_743,
+        NTRUEncryptionKeyGenerationParameters.APR2011_743_FAST };
+
+    private abstract static class Op
+    {
+        abstract void run()
+            throws InvalidCipherTextException;
+    }
+
+    private void time(String name, final NTRUEncryptionKeyGenerationParameters params)
+        throws InvalidCipherTextException
+    {
+        final NTRUEncryptionKeyPairGenerator kpGen = new NTRUEncryptionKeyPairGenerator();
+        kpGen.init(params);
+
+        final AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+        final NTRUEngine encEngine = new NTRUEngine();
+        encEngine.init(true, kp.getPublic());
+        final NTRUEngine decEngine = new NTRUEngine();
+        decEngine.init(false, kp.getPrivate());
+
+        final byte[] msg = new byte[params.maxMsgLenBytes];
+        new SecureRandom().nextBytes(msg);
+        final byte[] enc = encEngine.processBlock(msg, 0, msg.length);
+
+        final IntegerPolynomial h = ((NTRUEncryptionPublicKeyParameters)kp.getPublic()).h;
+        final IntegerPolynomial x = (IntegerPolynomial)h.clone();
+        x.rotate1();
+
+        System.out.println(name + " (N = " + params.N + ")");
+
+        print("key pair", time(new Op()
+        {
+            void run()
+            {
+                kpGen.generateKeyPair();
+            }
+        }));
+        print("encrypt", time(new Op()
+        {
+            void run()
+                throws InvalidCipherTextException
+            {
+                encEngine.processBlock(msg, 0, msg.length);
+            }
+        }));
+        print("decrypt", time(new Op()
+        {
+            void run()
+                throws InvalidCipherTextException
+            {
+                decEngine.processBlock(enc, 0, enc.length);
+            }
+        }));
+        print("dense mult", time(new Op()
+        {
+            void run()
+            {
+                x.mult(h, params.q);
+            }
+        }));
+    }
+
+    private void print(String label, double avgMillis)
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append("   ");
+        sb.append(label);
+        for (int j = sb.length(); j < 16; ++j)
+        {
+            sb.append(' ');
+        }
+        sb.append(": ");
+        sb.append(avgMillis);
+        sb.append(" millis/op");
+        System.out.println(sb.toString());
+    }
+
+    private double time(Op op)
+        throws InvalidCipherTextException
+    {
+        // warm up
+        op.run();
+
+        double minTime = Double.MAX_VALUE, maxTime = 0.0, totalTime = 0.0;
+
+        for (int i = 1; i <= NUM_ROUNDS; i++)
+        {
+            long startTime = Times.nanoTime();
+            long goalTime = startTime + 1000000L * MILLIS_PER_ROUND;
+            long count = 0, endTime;
+
+            do
+            {
+                op.run();
+                ++count;
+
+                endTime = Times.nanoTime();
+            }
+            while (endTime < goalTime);
+
+            double roundTime = (endTime - startTime) / (count * 1000000.0);
+
+            minTime = Math.min(minTime, roundTime);
+            maxTime = Math.max(maxTime, roundTime);
+            totalTime += roundTime;
+        }
+
+        return (totalTime - minTime - maxTime) / (NUM_ROUNDS - 2);
+    }
+
+    public void testEncrypt()
+        throws Exception
+    {
+        time("APR2011_439_FAST", NTRUEncryptionKeyGenerationParameters.APR2011_439_FAST);
+    }
+
+    /**
+     * Run the timings for the named parameter sets, by default all the standard ones.
+     */
+    public static void main(String[] args)
+        throws Exception
+    {
+        NTRUEncryptPerformanceTest test = new NTRUEncryptPerformanceTest();
+
+        for (int i = 0; i != NAMES.length; i++)
+        {
+            if (args.length == 0 || contains(args, NAMES[i]))
+            {
+                test.time(NAMES[i], PARAMS[i]);
+            }
+        }
+    }
+
+    private static boolean contains(String[] args, String name)
+    {
+        for (int i = 0; i != args.length; i++)
+        {
+            if (args[i].equals(name))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,155 @@
+package org.spongycastle.pqc.math.linearalgebra.test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+import org.spongycastle.pqc.math.linearalgebra.GF2Matrix;
+import org.spongycastle.pqc.math.linearalgebra.Matrix;
+import org.spongycastle.pqc.math.linearalgebra.Permutation;
+
+public class GF2MatrixTest
+    extends TestCase
+{
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // sizes either side of the word and table boundaries
+    private static final int[] SIZES = new int[]{ 1, 7, 8, 9, 31, 32, 33, 63, 64, 65, 100, 129, 300 };
+
+    public void testRightMultiply()
+    {
+        for (int i = 0; i < SIZES.length; i++)
+        {
+            for (int j = 0; j < SIZES.length; j += 3)
+            {
+                GF2Matrix a = randomMatrix(SIZES[i], SIZES[j]);
+                GF2Matrix b = randomMatrix(SIZES[j], SIZES[(i + j) % SIZES.length]);
+
+                assertEquals(multiplyBitwise(a, b), a.rightMultiply(b));
+            }
+        }
+    }
+
+    public void testRightMultiplyExecutor()
+    {
+        // more rows than one band, so some are spread over the pool and some left for the caller
+        GF2Matrix a = randomMatrix(1100, 300);
+        GF2Matrix b = randomMatrix(300, 257);
+
+        GF2Matrix expected = (GF2Matrix)a.rightMultiply(b);
+        assertEquals(multiplyBitwise(a, b), expected);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            assertEquals(expected, a.rightMultiply(b, executor));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    public void testRightMultiplyPermutation()
+    {
+        for (int i = 0; i < SIZES.length; i++)
+        {
+            GF2Matrix a = randomMatrix(SIZES[(i + 5) % SIZES.length], SIZES[i]);
+            Permutation p = new Permutation(SIZES[i], RANDOM);
+
+            // the permutation matrix has a one at (p[j], j)
+            int[] pVec = p.getVector();
+            int[][] pm = new int[SIZES[i]][(SIZES[i] + 31) >>> 5];
+            for (int j = 0; j < pVec.length; j++)
+            {
+                pm[pVec[j]][j >>> 5] |= 1 << (j & 0x1f);
+            }
+
+            assertEquals(multiplyBitwise(a, new GF2Matrix(SIZES[i], pm)), a.rightMultiply(p));
+        }
+    }
+
+    public void testComputeInverse()
+    {
+        for (int i = 0; i < SIZES.length; i++)
+        {
+            int n = SIZES[i];
+            GF2Matrix a = new GF2Matrix(n, Matrix.MATRIX_TYPE_RANDOM_REGULAR, RANDOM);
+            GF2Matrix aInv = (GF2Matrix)a.computeInverse();
+
+            GF2Matrix id = new GF2Matrix(n, Matrix.MATRIX_TYPE_UNIT);
+            assertEquals(id, multiplyBitwise(a, aInv));
+            assertEquals(id, multiplyBitwise(aInv, a));
+
+            GF2Matrix[] pair = GF2Matrix.createRandomRegularMatrixAndItsInverse(n, RANDOM);
+            assertEquals(id, pair[0].rightMultiply(pair[1]));
+        }
+    }
+
+    public void testComputeInverseSingular()
+    {
+        for (int i = 1; i < SIZES.length; i++)
+        {
+            int n = SIZES[i];
+            int[][] m = randomMatrix(n, n).getIntArray();
+
+            // make the last row the sum of two others
+            int[] row = m[n - 1];
+            for (int j = 0; j < row.length; j++)
+            {
+                row[j] = m[0][j] ^ m[n / 2][j];
+            }
+
+            try
+            {
+                new GF2Matrix(n, m).computeInverse();
+                fail("singular matrix inverted");
+            }
+            catch (ArithmeticException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    private static GF2Matrix randomMatrix(int rows, int cols)
+    {
+        int[][] m = new int[rows][(cols + 31) >>> 5];
+        for (int i = 0; i < rows; i++)
+        {
+            for (int j = 0; j < m[i].length; j++)
+            {
+                m[i][j] = RANDOM.nextInt();
+            }
+        }
+        return new GF2Matrix(cols, m);
+    }
+
+    private static GF2Matrix multiplyBitwise(GF2Matrix a, GF2Matrix b)
+    {
+        int rows = a.getNumRows();
+        int inner = a.getNumColumns();
+        int cols = b.getNumColumns();
+
+        int[][] c = new int[rows][(cols + 31) >>> 5];
+        for (int i = 0; i < rows; i++)
+        {
+            for (int j = 0; j < cols; j++)
+            {
+                int bit = 0;
+                for (int k = 0; k < inner; k++)
+                {
+                    bit ^= getBit(a, i, k) & getBit(b, k, j);
+                }
+                c[i][j >>> 5] |= bit << (j & 0x1f);
+            }
+        }
+        return new GF2Matrix(cols, c);
+    }
+
+    private static int getBit(GF2Matrix m, int row, int col)
+    {
+        return (m.getRow(row)[col >>> 5] >>> (col & 0x1f)) & 1;
+    }
+}
@@ -2,6 +2,8 @@
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.TestCase;
 import org.spongycastle.pqc.crypto.ntru.NTRUSigningKeyGenerationParameters;
@@ -43,6 +45,50 @@ public void testMult()
         assertTrue(Arrays.areEqual(c.coeffs, d.coeffs));
     }
 
+    public void testMultLarge()
+    {
+        SecureRandom random = new SecureRandom();
+
+        // sizes either side of the point where the multiplication splits, odd and even halves, and standard N's
+        int[] sizes = new int[]{1, 2, 31, 32, 33, 65, 100, 157, 439, 743, 1087};
+        for (int i = 0; i < sizes.length; i++)
+        {
+            int N = sizes[i];
+            int[] aCoeffs = new int[N];
+            int[] bCoeffs = new int[N];
+            for (int j = 0; j < N; j++)
+            {
+                aCoeffs[j] = random.nextInt();
+                bCoeffs[j] = random.nextInt(4096) - 2048;
+            }
+            IntegerPolynomial a = new IntegerPolynomial(aCoeffs);
+            IntegerPolynomial b = new IntegerPolynomial(bCoeffs);
+
+            // the product is exact mod 2^32, so it must match term by term multiplication even where values overflow
+            assertTrue(Arrays.areEqual(multSchoolbook(aCoeffs, bCoeffs), a.mult(b).coeffs));
+
+            IntegerPolynomial c = a.mult(b, 2048);
+            c.modPositive(2048);
+            IntegerPolynomial d = new IntegerPolynomial(multSchoolbook(aCoeffs, bCoeffs));
+            d.modPositive(2048);
+            assertTrue(Arrays.areEqual(d.coeffs, c.coeffs));
+        }
+    }
+
+    private int[] multSchoolbook(int[] a, int[] b)
+    {
+        int N = a.length;
+        int[] c = new int[N];
+        for (int i = 0; i < N; i++)
+        {
+            for (int j = 0; j < N; j++)
+            {
+                c[(i + j) % N] += a[i] * b[j];
+            }
+        }
+        return c;
+    }
+
     void assertEqualsMod(int[] arr1, int[] arr2, int m)
     {
         assertEquals(arr1.length, arr2.length);
@@ -162,6 +208,33 @@ public void testResultant()
         verifyResultant(a, a.resultant());
     }
 
+    public void testResultantMultiThread()
+    {
+        SecureRandom random = new SecureRandom();
+        NTRUSigningKeyGenerationParameters params = NTRUSigningKeyGenerationParameters.TEST157;
+        IntegerPolynomial a = DenseTernaryPolynomial.generateRandom(params.N, params.d, params.d, random);
+
+        Resultant r = a.resultantMultiThread(null);
+        verifyResultant(a, r);
+
+        // fewer threads than tasks, so the calling thread has to pick some up
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            Resultant rt = a.resultantMultiThread(executor);
+            verifyResultant(a, rt);
+            assertEquals(r.res, rt.res);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        Resultant rs = a.resultantMultiThread();
+        verifyResultant(a, rs);
+        assertEquals(r.res, rs.res);
+    }
+
     // verifies that res=rho*a mod x^n-1
     private void verifyResultant(IntegerPolynomial a, Resultant r)
     {
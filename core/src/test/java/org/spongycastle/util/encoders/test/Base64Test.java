@@ -1,6 +1,10 @@
 package org.spongycastle.util.encoders.test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Random;
 
 import org.spongycastle.util.Arrays;
 import org.spongycastle.util.Strings;
@@ -56,6 +60,79 @@ public void testSamples()
         assertTrue(Arrays.areEqual(sample3Bytes, Base64.decode(Strings.toByteArray(sample3))));
     }
 
+    public void testArraysAndBuffers()
+        throws IOException
+    {
+        Base64Encoder encoder = new Base64Encoder();
+        Random random = new Random();
+
+        for (int size = 0; size < 200; size++)
+        {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+
+            ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+            encoder.encode(data, 0, data.length, bOut);
+            byte[] expected = bOut.toByteArray();
+
+            byte[] encoded = new byte[encoder.getEncodedLength(size) + 3];
+            assertEquals(expected.length, encoder.encode(data, 0, size, encoded, 3));
+            assertTrue(Arrays.areEqual(expected, Arrays.copyOfRange(encoded, 3, encoded.length)));
+
+            byte[] decoded = new byte[encoder.getMaxDecodedLength(expected.length) + 1];
+            assertEquals(size, encoder.decode(expected, 0, expected.length, decoded, 1));
+            assertTrue(Arrays.areEqual(data, Arrays.copyOfRange(decoded, 1, size + 1)));
+
+            // whitespace is only skipped ahead of the final group
+            String text = Strings.fromByteArray(expected);
+            int body = Math.max(0, text.length() - 4);
+            byte[] spaced = Strings.toByteArray(" " + text.substring(0, body).replaceAll("(.{5})", "$1\r\n ") + text.substring(body) + "\n");
+            decoded = new byte[encoder.getMaxDecodedLength(spaced.length)];
+            assertEquals(size, encoder.decode(spaced, 0, spaced.length, decoded, 0));
+            assertTrue(Arrays.areEqual(data, Arrays.copyOfRange(decoded, 0, size)));
+
+            checkBuffers(encoder, data, expected, ByteBuffer.allocate(expected.length), ByteBuffer.allocate(size));
+            checkBuffers(encoder, data, expected, ByteBuffer.allocateDirect(expected.length), ByteBuffer.allocateDirect(size));
+        }
+    }
+
+    private void checkBuffers(Base64Encoder encoder, byte[] data, byte[] expected, ByteBuffer encBuf, ByteBuffer decBuf)
+        throws IOException
+    {
+        ByteBuffer in = ByteBuffer.wrap(data);
+
+        assertEquals(expected.length, encoder.encode(in, encBuf));
+        assertFalse(in.hasRemaining());
+        assertFalse(encBuf.hasRemaining());
+
+        encBuf.flip();
+        byte[] encoded = new byte[expected.length];
+        encBuf.duplicate().get(encoded);
+        assertTrue(Arrays.areEqual(expected, encoded));
+
+        assertEquals(data.length, encoder.decode(encBuf, decBuf));
+        assertFalse(encBuf.hasRemaining());
+        assertFalse(decBuf.hasRemaining());
+
+        decBuf.flip();
+        byte[] decoded = new byte[data.length];
+        decBuf.get(decoded);
+        assertTrue(Arrays.areEqual(data, decoded));
+
+        if (data.length > 0)
+        {
+            try
+            {
+                encoder.encode(ByteBuffer.wrap(data), ByteBuffer.allocate(expected.length - 1));
+                fail("no overflow on encoding");
+            }
+            catch (BufferOverflowException e)
+            {
+                // expected
+            }
+        }
+    }
+
     public void testInvalidInput()
         throws IOException
     {
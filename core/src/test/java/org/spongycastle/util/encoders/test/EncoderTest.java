@@ -1,9 +1,15 @@
 package org.spongycastle.util.encoders.test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Random;
 
+import org.spongycastle.util.Strings;
 import org.spongycastle.util.encoders.Base64;
+import org.spongycastle.util.encoders.Base64Encoder;
+import org.spongycastle.util.encoders.DecoderException;
 import org.spongycastle.util.encoders.Hex;
 import org.spongycastle.util.test.SimpleTest;
 
@@ -35,6 +41,7 @@ public void performTest()
         testHex();
         testBase64();
         testBase64WithNL();
+        testBase64Incomplete();
     }
     
     
@@ -151,6 +158,89 @@ public void testBase64WithNL()
         }
     }
     
+    public void testBase64Incomplete()
+    {
+        if (Base64.decode("").length != 0 || Base64.decode(" \r\n").length != 0)
+        {
+            fail("empty input not decoded to empty array");
+        }
+
+        // 1, 2, 3 and 5 (mod 4) non-whitespace characters, with and without whitespace
+        String[] incomplete = { "J", "Jq", "JqL", "JqLbm", "JqLbmZ", "JqLbmZw", "Jq Lbm", "JqLb m\n",
+            "SVNCQUQ", "SVNC\nQUQ", "SVNCQUQ==", "SVNC QUQ=A" };
+
+        for (int i = 0; i != incomplete.length; i++)
+        {
+            checkIncomplete(incomplete[i]);
+        }
+    }
+
+    private void checkIncomplete(String text)
+    {
+        Base64Encoder encoder = new Base64Encoder();
+        byte[] data = Strings.toByteArray(text);
+
+        try
+        {
+            Base64.decode(text);
+            fail("incomplete string accepted: " + text);
+        }
+        catch (DecoderException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            byte[] out = new byte[encoder.getMaxDecodedLength(data.length)];
+            encoder.decode(data, 0, data.length, out, 0);
+            fail("incomplete array accepted: " + text);
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            encoder.decode(data, 0, data.length, new ByteArrayOutputStream());
+            fail("incomplete stream accepted: " + text);
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+
+        // the output limit leaves exactly getMaxDecodedLength() bytes, with spare room behind it
+        ByteBuffer in = ByteBuffer.wrap(data);
+        ByteBuffer out = ByteBuffer.wrap(new byte[encoder.getMaxDecodedLength(data.length) + 8]);
+        out.limit(encoder.getMaxDecodedLength(data.length));
+
+        try
+        {
+            encoder.decode(in, out);
+            fail("incomplete buffer accepted: " + text);
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+
+        if (in.position() != 0 || out.position() != 0)
+        {
+            fail("buffer positions changed: " + text);
+        }
+
+        byte[] backing = out.array();
+        for (int i = out.limit(); i != backing.length; i++)
+        {
+            if (backing[i] != 0)
+            {
+                fail("write past output limit: " + text);
+            }
+        }
+    }
+
     public void testHex()
     {
         try
@@ -1,15 +1,23 @@
 package org.spongycastle.util.io.pem.test;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import junit.framework.TestCase;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
+import org.spongycastle.util.encoders.Base64;
 import org.spongycastle.util.io.pem.PemHeader;
 import org.spongycastle.util.io.pem.PemObject;
+import org.spongycastle.util.io.pem.PemReader;
+import org.spongycastle.util.io.pem.PemScanner;
 import org.spongycastle.util.io.pem.PemWriter;
 
 public class AllTests
@@ -41,6 +49,129 @@ public void testPemLength()
         lengthTest("RSA PRIVATE KEY", headers, new byte[103]);
     }
 
+    public void testPemScanner()
+        throws IOException
+    {
+        SecureRandom random = new SecureRandom();
+        StringBuffer pem = new StringBuffer();
+
+        pem.append("some text before the first object\n\n");
+
+        for (int i = 0; i != 200; i++)
+        {
+            List headers = new ArrayList();
+            if (i % 7 == 0)
+            {
+                headers.add(new PemHeader("Proc-Type", "4,ENCRYPTED"));
+                headers.add(new PemHeader("DEK-Info", "DES3,0001020304050607"));
+            }
+
+            byte[] data = new byte[(i % 10 == 0) ? random.nextInt(20000) : random.nextInt(1500)];
+            random.nextBytes(data);
+
+            String obj = toPem(new PemObject((i % 3 == 0) ? "CERTIFICATE" : "RSA PRIVATE KEY", headers, data));
+
+            if (i % 4 == 1)
+            {
+                obj = obj.replace("\n", "\r\n");
+            }
+            else if (i % 4 == 2)
+            {
+                obj = obj.replace("\n", "\r");
+            }
+
+            pem.append(obj);
+
+            if (i % 5 == 0)
+            {
+                pem.append("comment between objects\n");
+            }
+        }
+
+        // the last object without a final line ending
+        pem.append(toPem(new PemObject("CERTIFICATE", new byte[100])).trim());
+
+        String text = pem.toString();
+
+        checkScanner(text, new PemScanner(new ByteArrayInputStream(Strings.toByteArray(text))));
+        checkScanner(text, new PemScanner(new StringReader(text)));
+
+        PemReader reader = new PemReader(new StringReader(text));
+        PemScanner scanner = new PemScanner(new StringReader(text));
+        PemObject expected;
+
+        while ((expected = reader.readPemObject()) != null)
+        {
+            assertTrue(scanner.nextEncoded());
+            assertEquals(expected.getType(), scanner.getType());
+            assertTrue(Arrays.areEqual(expected.getContent(), Base64.decode(scanner.getContent())));
+        }
+        assertFalse(scanner.nextEncoded());
+    }
+
+    public void testPemScannerErrors()
+        throws IOException
+    {
+        try
+        {
+            new PemScanner(new StringReader("-----BEGIN CERTIFICATE-----\nAAAA\n")).next();
+            fail("no exception on missing end marker");
+        }
+        catch (IOException e)
+        {
+            assertEquals("-----END CERTIFICATE not found", e.getMessage());
+        }
+
+        try
+        {
+            new PemScanner(new StringReader("-----BEGIN CERTIFICATE-----\nAA!A\n-----END CERTIFICATE-----\n")).next();
+            fail("no exception on bad Base64");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    private void checkScanner(String text, PemScanner scanner)
+        throws IOException
+    {
+        PemReader reader = new PemReader(new StringReader(text));
+        PemObject expected;
+
+        while ((expected = reader.readPemObject()) != null)
+        {
+            PemObject obj = scanner.readPemObject();
+
+            assertNotNull(obj);
+            assertEquals(expected.getType(), obj.getType());
+            assertEquals(expected.getHeaders().size(), obj.getHeaders().size());
+            for (int i = 0; i != expected.getHeaders().size(); i++)
+            {
+                PemHeader eHdr = (PemHeader)expected.getHeaders().get(i);
+                PemHeader hdr = (PemHeader)obj.getHeaders().get(i);
+
+                assertEquals(eHdr.getName(), hdr.getName());
+                assertEquals(eHdr.getValue(), hdr.getValue());
+            }
+            assertTrue(Arrays.areEqual(expected.getContent(), obj.getContent()));
+        }
+
+        assertNull(scanner.readPemObject());
+    }
+
+    private String toPem(PemObject obj)
+        throws IOException
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        PemWriter pWrt = new PemWriter(new OutputStreamWriter(bOut));
+
+        pWrt.writeObject(obj);
+        pWrt.close();
+
+        return Strings.fromByteArray(bOut.toByteArray());
+    }
+
     private void lengthTest(String type, List headers, byte[] data)
         throws IOException
     {
@@ -0,0 +1,133 @@
+package org.spongycastle.util.io.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.spongycastle.util.io.ParallelDeflaterOutputStream;
+import org.spongycastle.util.io.Streams;
+import org.spongycastle.util.test.SimpleTest;
+
+public class ParallelDeflaterOutputStreamTest
+    extends SimpleTest
+{
+    private static final int CHUNK_SIZE = 32 * 1024;
+
+    public String getName()
+    {
+        return "ParallelDeflaterOutputStream";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try
+        {
+            int[] sizes = { 0, 1, CHUNK_SIZE - 1, CHUNK_SIZE, CHUNK_SIZE * 7 / 2 };
+
+            for (int i = 0; i != sizes.length; i++)
+            {
+                byte[] data = createData(sizes[i]);
+
+                checkStream(executor, data, Deflater.DEFAULT_COMPRESSION, false);
+                checkStream(executor, data, Deflater.BEST_SPEED, true);
+                checkStream(executor, data, Deflater.BEST_COMPRESSION, false);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /*
+     * text like data with repeats reaching back over chunk boundaries.
+     */
+    private byte[] createData(int size)
+    {
+        SecureRandom random = new SecureRandom();
+        byte[] data = new byte[size];
+
+        for (int i = 0; i < size; i++)
+        {
+            if (i > 1000 && random.nextInt(50) == 0)
+            {
+                int len = Math.min(size - i, 20 + random.nextInt(100));
+                System.arraycopy(data, i - 1 - random.nextInt(Math.min(i, 30000) - len), data, i, len);
+                i += len - 1;
+            }
+            else
+            {
+                data[i] = (byte)('a' + random.nextInt(26));
+            }
+        }
+
+        return data;
+    }
+
+    private void checkStream(ExecutorService executor, byte[] data, int level, boolean nowrap)
+        throws Exception
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        ParallelDeflaterOutputStream dOut = new ParallelDeflaterOutputStream(bOut, level, nowrap, executor, CHUNK_SIZE);
+
+        int half = data.length / 2;
+        for (int i = 0; i != half; i++)
+        {
+            dOut.write(data[i]);
+        }
+        dOut.write(data, half, data.length - half);
+        dOut.close();
+
+        byte[] compressed = bOut.toByteArray();
+
+        byte[] inflated;
+        if (nowrap)
+        {
+            // raw DEFLATE needs a trailing dummy byte for the inflater to finish with
+            byte[] padded = new byte[compressed.length + 1];
+            System.arraycopy(compressed, 0, padded, 0, compressed.length);
+
+            inflated = Streams.readAll(new InflaterInputStream(new ByteArrayInputStream(padded), new Inflater(true)));
+        }
+        else
+        {
+            inflated = inflate(compressed);
+        }
+
+        if (!areEqual(data, inflated))
+        {
+            fail("round trip failed for " + data.length + " bytes, level " + level + ", nowrap " + nowrap);
+        }
+    }
+
+    private byte[] inflate(byte[] compressed)
+        throws IOException
+    {
+        Inflater inflater = new Inflater();
+        InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed), inflater);
+        byte[] inflated = Streams.readAll(in);
+
+        // the ZLIB trailer is checked by the inflater, which must have consumed all the data
+        if (!inflater.finished() || inflater.getRemaining() != 0)
+        {
+            fail("ZLIB stream not terminated correctly");
+        }
+
+        return inflated;
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ParallelDeflaterOutputStreamTest());
+    }
+}
@@ -179,6 +179,68 @@ public int read() {
         }
     }
 
+    /*
+      Decode up to len bytes into buf.  While the current block is not
+      randomised and is part way through ordinary characters (rather than
+      the expansion of a run) bytes are decoded in a tight loop, anything
+      else falls back to a single step of read().
+    */
+    public int read(byte[] buf, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (streamEnd) {
+            return -1;
+        }
+
+        int n = 0;
+        while (n < len) {
+            if (currentState == NO_RAND_PART_B_STATE && !streamEnd) {
+                int lCh2 = ch2, lChPrev = chPrev, lCount = count;
+                int lTPos = tPos, lI2 = i2, lLast = last;
+                char[] lLl8 = ll8;
+                int[] lTt = tt;
+
+                /*
+                  Output the current character and move to the next while
+                  doing so neither starts a run expansion nor ends the block.
+                */
+                while (n < len && lI2 <= lLast) {
+                    int nextCount = (lCh2 != lChPrev) ? 1 : lCount + 1;
+                    if (nextCount >= 4) {
+                        break;
+                    }
+                    buf[off + n++] = (byte) lCh2;
+                    lCount = nextCount;
+                    lChPrev = lCh2;
+                    lCh2 = lLl8[lTPos];
+                    lTPos = lTt[lTPos];
+                    lI2++;
+                    mCrc.updateCRC(lCh2);
+                }
+
+                ch2 = lCh2;
+                chPrev = lChPrev;
+                count = lCount;
+                tPos = lTPos;
+                i2 = lI2;
+                currentChar = lCh2;
+
+                if (n == len) {
+                    break;
+                }
+            }
+
+            int b = read();
+            if (b < 0) {
+                break;
+            }
+            buf[off + n++] = (byte) b;
+        }
+
+        return (n == 0) ? -1 : n;
+    }
+
     private void initialize() throws IOException {
         char magic3, magic4;
         magic3 = bsGetUChar();
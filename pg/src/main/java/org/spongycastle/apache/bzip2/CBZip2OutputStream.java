@@ -263,17 +263,6 @@ protected static void hbMakeCodeLengths(char[] len, int[] freq,
 
     private int[] mtfFreq = new int[MAX_ALPHA_SIZE];
 
-    /*
-     * Used when sorting.  If too many long comparisons
-     * happen, we stop sorting, randomise the block
-     * slightly, and try again.
-     */
-    private int workFactor;
-    private int workDone;
-    private int workLimit;
-    private boolean firstAttempt;
-    private int nBlocksRandomised;
-
     private int currentChar = -1;
     private int runLength = 0;
 
@@ -293,7 +282,6 @@ public CBZip2OutputStream(OutputStream inStream, int inBlockSize)
 
         bsSetStream(inStream);
 
-        workFactor = 50;
         if (inBlockSize > 9) {
             inBlockSize = 9;
         }
@@ -306,6 +294,74 @@ public CBZip2OutputStream(OutputStream inStream, int inBlockSize)
         initBlock();
     }
 
+    /**
+     * Create an encoder for ParallelCBZip2OutputStream, which compresses chunks of input into
+     * complete blocks with encodeBlocks() rather than writing a stream of its own.
+     */
+    CBZip2OutputStream(int inBlockSize) {
+        if (inBlockSize > 9) {
+            inBlockSize = 9;
+        }
+        if (inBlockSize < 1) {
+            inBlockSize = 1;
+        }
+        blockSize100k = inBlockSize;
+        allocateCompressStructures();
+
+        // there is no stream to finish or close
+        finished = true;
+        closed = true;
+    }
+
+    /**
+     * Compress a chunk of input as one or more blocks (more only if run length encoding takes it
+     * past the block size), without the stream header or trailer. The blocks are written to out
+     * followed by enough zero bits to fill the last byte. Afterwards getCombinedCRC() and
+     * getBlockCount() describe the blocks written.
+     *
+     * @return the number of bits of block data written to out.
+     */
+    int encodeBlocks(byte[] buf, int off, int len, OutputStream out)
+        throws IOException {
+        bsSetStream(out);
+        combinedCRC = 0;
+        blockCount = 0;
+        currentChar = -1;
+        runLength = 0;
+        initBlock();
+
+        for (int i = 0; i < len; i++) {
+            write(buf[off + i]);
+        }
+
+        if (runLength > 0) {
+            writeRun();
+        }
+        currentChar = -1;
+        runLength = 0;
+        endBlock();
+
+        int bits = bytesOut * 8 + bsLive;
+        bsFinishedWithStream();
+
+        return bits;
+    }
+
+    /**
+     * Return the CRC of the blocks written by the last encodeBlocks(), combined as in the stream
+     * trailer starting from zero.
+     */
+    int getCombinedCRC() {
+        return combinedCRC;
+    }
+
+    /**
+     * Return the number of blocks written by the last encodeBlocks().
+     */
+    int getBlockCount() {
+        return blockCount;
+    }
+
     /**
      *
      * modified by Oliver Merkel, 010128
@@ -418,10 +474,10 @@ public void flush() throws IOException {
     }
 
     private int blockCRC, combinedCRC;
+    private int blockCount;
 
     private void initialize() throws IOException {
         bytesOut = 0;
-        nBlocksRandomised = 0;
 
         /* Write `magic' bytes h indicating file-format == huffmanised,
            followed by a digit indicating blockSize100k.
@@ -449,9 +505,15 @@ private void initBlock() {
     }
 
     private void endBlock() throws IOException {
+        /* an empty stream has no blocks at all */
+        if (last < 0) {
+            return;
+        }
+
         blockCRC = mCrc.getFinalCRC();
         combinedCRC = (combinedCRC << 1) | (combinedCRC >>> 31);
         combinedCRC ^= blockCRC;
+        blockCount++;
 
         /* sort the block and establish posn of original string */
         doReversibleTransformation();
@@ -482,7 +544,6 @@ private void endBlock() throws IOException {
         /* Now a single bit indicating randomisation. */
         if (blockRandomised) {
             bsW(1, 1);
-            nBlocksRandomised++;
         } else {
             bsW(1, 0);
         }
@@ -901,81 +962,6 @@ private void moveToFrontCodeAndSend () throws IOException {
 
     private OutputStream bsStream;
 
-    private void simpleSort(int lo, int hi, int d) {
-        int i, j, h, bigN, hp;
-        int v;
-
-        bigN = hi - lo + 1;
-        if (bigN < 2) {
-            return;
-        }
-
-        hp = 0;
-        while (incs[hp] < bigN) {
-            hp++;
-        }
-        hp--;
-
-        for (; hp >= 0; hp--) {
-            h = incs[hp];
-
-            i = lo + h;
-            while (true) {
-                /* copy 1 */
-                if (i > hi) {
-                    break;
-                }
-                v = zptr[i];
-                j = i;
-                while (fullGtU(zptr[j - h] + d, v + d)) {
-                    zptr[j] = zptr[j - h];
-                    j = j - h;
-                    if (j <= (lo + h - 1)) {
-                        break;
-                    }
-                }
-                zptr[j] = v;
-                i++;
-
-                /* copy 2 */
-                if (i > hi) {
-                    break;
-                }
-                v = zptr[i];
-                j = i;
-                while (fullGtU(zptr[j - h] + d, v + d)) {
-                    zptr[j] = zptr[j - h];
-                    j = j - h;
-                    if (j <= (lo + h - 1)) {
-                        break;
-                    }
-                }
-                zptr[j] = v;
-                i++;
-
-                /* copy 3 */
-                if (i > hi) {
-                    break;
-                }
-                v = zptr[i];
-                j = i;
-                while (fullGtU(zptr[j - h] + d, v + d)) {
-                    zptr[j] = zptr[j - h];
-                    j = j - h;
-                    if (j <= (lo + h - 1)) {
-                        break;
-                    }
-                }
-                zptr[j] = v;
-                i++;
-
-                if (workDone > workLimit && firstAttempt) {
-                    return;
-                }
-            }
-        }
-    }
-
     private void vswap(int p1, int p2, int n) {
         int temp = 0;
         while (n > 0) {
@@ -988,537 +974,311 @@ private void vswap(int p1, int p2, int n) {
         }
     }
 
-    private char med3(char a, char b, char c) {
-        char t;
-        if (a > b) {
-            t = a;
-            a = b;
-            b = t;
-        }
-        if (b > c) {
-            t = b;
-            b = c;
-            c = t;
-        }
-        if (a > b) {
-            b = a;
-        }
-        return b;
-    }
+    private void doReversibleTransformation() {
+        int i;
 
-    private static class StackElem {
-        int ll;
-        int hh;
-        int dd;
-    }
+        blockRandomised = false;
+
+        suffixSort();
+
+        origPtr = -1;
+        for (i = 0; i <= last; i++) {
+            if (zptr[i] == 0) {
+                origPtr = i;
+                break;
+            }
+        }
 
-    private void qSort3(int loSt, int hiSt, int dSt) {
-        int unLo, unHi, ltLo, gtHi, med, n, m;
-        int sp, lo, hi, d;
-        StackElem[] stack = new StackElem[QSORT_STACK_SIZE];
-        for (int count = 0; count < QSORT_STACK_SIZE; count++) {
-            stack[count] = new StackElem();
+        if (origPtr == -1) {
+            panic();
         }
+    }
 
-        sp = 0;
+    /*
+      Sort the rotations of the block into zptr by prefix doubling, after
+      Larsson and Sadakane's qsufsort, adapted to the cyclic comparison
+      used here.  The time taken is O(n log n) whatever the block
+      contains, so unlike the quicksort based sorting this replaces it
+      never has to give up and randomise a repetitive block.  quadrant
+      holds the group of each rotation (the index in zptr of the last
+      rotation known to share its prefix) and a sorted run in zptr is
+      marked by its negated length at its start.
+    */
+    private void suffixSort() {
+        int i, j, n, h, sl, key, nextKey, end;
+        int[] grp = quadrant;
 
-        stack[sp].ll = loSt;
-        stack[sp].hh = hiSt;
-        stack[sp].dd = dSt;
-        sp++;
+        n = last + 1;
 
-        while (sp > 0) {
-            if (sp >= QSORT_STACK_SIZE) {
-                panic();
-            }
+        for (i = 0; i < NUM_OVERSHOOT_BYTES; i++) {
+            block[last + i + 2] = block[(i % n) + 1];
+        }
+        block[0] = block[last + 1];
 
-            sp--;
-            lo = stack[sp].ll;
-            hi = stack[sp].hh;
-            d = stack[sp].dd;
+        /*
+          Radix sort on the first four characters, using grp for the
+          intermediate order.
+        */
+        radixPass(null, grp, 2);
+        radixPass(grp, zptr, 0);
 
-            if (hi - lo < SMALL_THRESH || d > DEPTH_THRESH) {
-                simpleSort(lo, hi, d);
-                if (workDone > workLimit && firstAttempt) {
-                    return;
+        /*
+          Rotations with the same four characters form a group, a group
+          of one being sorted already.
+        */
+        nextKey = -1;
+        end = n - 1;
+        for (i = n - 1; i >= 0; i--) {
+            j = zptr[i];
+            key = (block[j + 1] << 24) | (block[j + 2] << 16) | (block[j + 3] << 8) | block[j + 4];
+            if (key != nextKey) {
+                if (end == i + 1) {
+                    zptr[end] = -1;
                 }
-                continue;
+                end = i;
+                nextKey = key;
             }
+            grp[j] = end;
+        }
+        if (end == 0) {
+            zptr[0] = -1;
+        }
 
-            med = med3(block[zptr[lo] + d + 1],
-                       block[zptr[hi            ] + d  + 1],
-                       block[zptr[(lo + hi) >> 1] + d + 1]);
-
-            unLo = ltLo = lo;
-            unHi = gtHi = hi;
-
-            while (true) {
-                while (true) {
-                    if (unLo > unHi) {
-                        break;
-                    }
-                    n = ((int) block[zptr[unLo] + d + 1]) - med;
-                    if (n == 0) {
-                        int temp = 0;
-                        temp = zptr[unLo];
-                        zptr[unLo] = zptr[ltLo];
-                        zptr[ltLo] = temp;
-                        ltLo++;
-                        unLo++;
-                        continue;
-                    }
-                    if (n >  0) {
-                        break;
-                    }
-                    unLo++;
-                }
-                while (true) {
-                    if (unLo > unHi) {
-                        break;
-                    }
-                    n = ((int) block[zptr[unHi] + d + 1]) - med;
-                    if (n == 0) {
-                        int temp = 0;
-                        temp = zptr[unHi];
-                        zptr[unHi] = zptr[gtHi];
-                        zptr[gtHi] = temp;
-                        gtHi--;
-                        unHi--;
-                        continue;
-                    }
-                    if (n <  0) {
-                        break;
+        /*
+          Each pass sorts the unsorted groups on the group of the rotation
+          h further on, doubling the length of the prefix known to be sorted.
+          Once that reaches the block length any rotations still sharing a
+          group are identical, and their order does not matter.
+        */
+        for (h = 4; h < n && zptr[0] != -n; h <<= 1) {
+            i = 0;
+            sl = 0;
+            while (i < n) {
+                j = zptr[i];
+                if (j < 0) {
+                    i -= j;
+                    sl += j;
+                } else {
+                    if (sl != 0) {
+                        zptr[i + sl] = sl;
+                        sl = 0;
                     }
-                    unHi--;
+                    j = grp[j] + 1;
+                    sortSplit(i, j - i, h);
+                    i = j;
                 }
-                if (unLo > unHi) {
-                    break;
-                }
-                int temp = 0;
-                temp = zptr[unLo];
-                zptr[unLo] = zptr[unHi];
-                zptr[unHi] = temp;
-                unLo++;
-                unHi--;
             }
-
-            if (gtHi < ltLo) {
-                stack[sp].ll = lo;
-                stack[sp].hh = hi;
-                stack[sp].dd = d + 1;
-                sp++;
-                continue;
+            if (sl != 0) {
+                zptr[i + sl] = sl;
             }
-
-            n = ((ltLo - lo) < (unLo - ltLo)) ? (ltLo - lo) : (unLo - ltLo);
-            vswap(lo, unLo - n, n);
-            m = ((hi - gtHi) < (gtHi - unHi)) ? (hi - gtHi) : (gtHi - unHi);
-            vswap(unLo, hi - m + 1, m);
-
-            n = lo + unLo - ltLo - 1;
-            m = hi - (gtHi - unHi) + 1;
-
-            stack[sp].ll = lo;
-            stack[sp].hh = n;
-            stack[sp].dd = d;
-            sp++;
-
-            stack[sp].ll = n + 1;
-            stack[sp].hh = m - 1;
-            stack[sp].dd = d + 1;
-            sp++;
-
-            stack[sp].ll = m;
-            stack[sp].hh = hi;
-            stack[sp].dd = d;
-            sp++;
         }
-    }
-
-    private void mainSort() {
-        int i, j, ss, sb;
-        int[] runningOrder = new int[256];
-        int[] copy = new int[256];
-        boolean[] bigDone = new boolean[256];
-        int c1, c2;
-        int numQSorted;
 
         /*
-          In the various block-sized structures, live data runs
-          from 0 to last+NUM_OVERSHOOT_BYTES inclusive.  First,
-          set up the overshoot area for block.
+          Give any identical rotations distinct positions, then recover
+          zptr from the groups, which are now the sorted positions.
         */
-
-        //   if (verbosity >= 4) fprintf ( stderr, "   sort initialise ...\n" );
-        for (i = 0; i < NUM_OVERSHOOT_BYTES; i++) {
-            block[last + i + 2] = block[(i % (last + 1)) + 1];
-        }
-        for (i = 0; i <= last + NUM_OVERSHOOT_BYTES; i++) {
-            quadrant[i] = 0;
+        i = 0;
+        while (i < n) {
+            j = zptr[i];
+            if (j < 0) {
+                i -= j;
+            } else {
+                end = grp[j];
+                for (; i <= end; i++) {
+                    grp[zptr[i]] = i;
+                }
+            }
         }
 
-        block[0] = (char) (block[last + 1]);
+        for (i = 0; i < n; i++) {
+            zptr[grp[i]] = i;
+        }
+    }
 
-        if (last < 4000) {
-            /*
-              Use simpleSort(), since the full sorting mechanism
-              has quite a large constant overhead.
-            */
-            for (i = 0; i <= last; i++) {
-                zptr[i] = i;
-            }
-            firstAttempt = false;
-            workDone = workLimit = 0;
-            simpleSort(0, last, 0);
-        } else {
-            numQSorted = 0;
-            for (i = 0; i <= 255; i++) {
-                bigDone[i] = false;
-            }
+    /*
+      Counting sort the rotations in from (or 0 .. last if from is null)
+      into to on the two characters at offset off.
+    */
+    private void radixPass(int[] from, int[] to, int off) {
+        int i, j;
+        int n = last + 1;
 
-            for (i = 0; i <= 65536; i++) {
-                ftab[i] = 0;
-            }
+        for (i = 0; i <= 65536; i++) {
+            ftab[i] = 0;
+        }
+        for (i = 0; i < n; i++) {
+            ftab[(block[i + off + 1] << 8) + block[i + off + 2]]++;
+        }
+        for (i = 1; i <= 65536; i++) {
+            ftab[i] += ftab[i - 1];
+        }
+        for (i = n - 1; i >= 0; i--) {
+            j = (from == null) ? i : from[i];
+            to[--ftab[(block[j + off + 1] << 8) + block[j + off + 2]]] = j;
+        }
+    }
 
-            c1 = block[0];
-            for (i = 0; i <= last; i++) {
-                c2 = block[i + 1];
-                ftab[(c1 << 8) + c2]++;
-                c1 = c2;
-            }
+    /*
+      Sort the group of rotations in zptr[p .. p + len - 1] on the group
+      of the rotation h further on by three way partitioning, updating
+      the groups.  The smaller side is sorted recursively and the larger
+      one iteratively, to bound the stack depth.
+    */
+    private void sortSplit(int p, int len, int h) {
+        while (len >= 7) {
+            int v = choosePivot(p, len, h);
+            int pa, pb, pc, pd, f, s, t, pl;
 
-            for (i = 1; i <= 65536; i++) {
-                ftab[i] += ftab[i - 1];
+            pa = pb = p;
+            pc = pd = p + len - 1;
+            while (true) {
+                while (pb <= pc && (f = rotationKey(pb, h)) <= v) {
+                    if (f == v) {
+                        swapPtr(pa, pb);
+                        pa++;
+                    }
+                    pb++;
+                }
+                while (pc >= pb && (f = rotationKey(pc, h)) >= v) {
+                    if (f == v) {
+                        swapPtr(pc, pd);
+                        pd--;
+                    }
+                    pc--;
+                }
+                if (pb > pc) {
+                    break;
+                }
+                swapPtr(pb, pc);
+                pb++;
+                pc--;
             }
 
-            c1 = block[1];
-            for (i = 0; i < last; i++) {
-                c2 = block[i + 2];
-                j = (c1 << 8) + c2;
-                c1 = c2;
-                ftab[j]--;
-                zptr[ftab[j]] = i;
-            }
+            pl = p + len;
+            s = Math.min(pa - p, pb - pa);
+            vswap(p, pb - s, s);
+            s = Math.min(pd - pc, pl - pd - 1);
+            vswap(pb, pl - s, s);
 
-            j = ((block[last + 1]) << 8) + (block[1]);
-            ftab[j]--;
-            zptr[ftab[j]] = last;
+            s = pb - pa;
+            t = pd - pc;
 
             /*
-              Now ftab contains the first loc of every small bucket.
-              Calculate the running order, from smallest to largest
-              big bucket.
+              Number all three parts now, so each is a group in its own
+              right and the two ends can be sorted in either order.
             */
-
-            for (i = 0; i <= 255; i++) {
-                runningOrder[i] = i;
+            if (s > 0) {
+                updateGroup(p, p + s - 1);
             }
-
-            {
-                int vv;
-                int h = 1;
-                do {
-                    h = 3 * h + 1;
-                }
-                while (h <= 256);
-                do {
-                    h = h / 3;
-                    for (i = h; i <= 255; i++) {
-                        vv = runningOrder[i];
-                        j = i;
-                        while ((ftab[((runningOrder[j - h]) + 1) << 8]
-                                - ftab[(runningOrder[j - h]) << 8]) >
-                               (ftab[((vv) + 1) << 8] - ftab[(vv) << 8])) {
-                            runningOrder[j] = runningOrder[j - h];
-                            j = j - h;
-                            if (j <= (h - 1)) {
-                                break;
-                            }
-                        }
-                        runningOrder[j] = vv;
-                    }
-                } while (h != 1);
+            updateGroup(p + s, p + len - t - 1);
+            if (t > 0) {
+                updateGroup(p + len - t, p + len - 1);
             }
 
-            /*
-              The main sorting loop.
-            */
-            for (i = 0; i <= 255; i++) {
-
-                /*
-                  Process big buckets, starting with the least full.
-                */
-                ss = runningOrder[i];
-
-                /*
-                  Complete the big bucket [ss] by quicksorting
-                  any unsorted small buckets [ss, j].  Hopefully
-                  previous pointer-scanning phases have already
-                  completed many of the small buckets [ss, j], so
-                  we don't have to sort them at all.
-                */
-                for (j = 0; j <= 255; j++) {
-                    sb = (ss << 8) + j;
-                    if (!((ftab[sb] & SETMASK) == SETMASK)) {
-                        int lo = ftab[sb] & CLEARMASK;
-                        int hi = (ftab[sb + 1] & CLEARMASK) - 1;
-                        if (hi > lo) {
-                            qSort3(lo, hi, 2);
-                            numQSorted += (hi - lo + 1);
-                            if (workDone > workLimit && firstAttempt) {
-                                return;
-                            }
-                        }
-                        ftab[sb] |= SETMASK;
-                    }
-                }
-
-                /*
-                  The ss big bucket is now done.  Record this fact,
-                  and update the quadrant descriptors.  Remember to
-                  update quadrants in the overshoot area too, if
-                  necessary.  The "if (i < 255)" test merely skips
-                  this updating for the last bucket processed, since
-                  updating for the last bucket is pointless.
-                */
-                bigDone[ss] = true;
-
-                if (i < 255) {
-                    int bbStart  = ftab[ss << 8] & CLEARMASK;
-                    int bbSize   = (ftab[(ss + 1) << 8] & CLEARMASK) - bbStart;
-                    int shifts   = 0;
-
-                    while ((bbSize >> shifts) > 65534) {
-                        shifts++;
-                    }
-
-                    for (j = 0; j < bbSize; j++) {
-                        int a2update = zptr[bbStart + j];
-                        int qVal = (j >> shifts);
-                        quadrant[a2update] = qVal;
-                        if (a2update < NUM_OVERSHOOT_BYTES) {
-                            quadrant[a2update + last + 1] = qVal;
-                        }
-                    }
-
-                    if (!(((bbSize - 1) >> shifts) <= 65535)) {
-                        panic();
-                    }
-                }
-
-                /*
-                  Now scan this big bucket so as to synthesise the
-                  sorted order for small buckets [t, ss] for all t != ss.
-                */
-                for (j = 0; j <= 255; j++) {
-                    copy[j] = ftab[(j << 8) + ss] & CLEARMASK;
-                }
-
-                for (j = ftab[ss << 8] & CLEARMASK;
-                     j < (ftab[(ss + 1) << 8] & CLEARMASK); j++) {
-                    c1 = block[zptr[j]];
-                    if (!bigDone[c1]) {
-                        zptr[copy[c1]] = zptr[j] == 0 ? last : zptr[j] - 1;
-                        copy[c1]++;
-                    }
-                }
-
-                for (j = 0; j <= 255; j++) {
-                    ftab[(j << 8) + ss] |= SETMASK;
+            if (s > 1 && t > 1) {
+                if (s < t) {
+                    sortSplit(p, s, h);
+                    p = p + len - t;
+                    len = t;
+                } else {
+                    sortSplit(p + len - t, t, h);
+                    len = s;
                 }
+            } else if (s > 1) {
+                len = s;
+            } else if (t > 1) {
+                p = p + len - t;
+                len = t;
+            } else {
+                return;
             }
         }
-    }
 
-    private void randomiseBlock() {
-        int i;
-        int rNToGo = 0;
-        int rTPos  = 0;
-        for (i = 0; i < 256; i++) {
-            inUse[i] = false;
-        }
+        selectSortSplit(p, len, h);
+    }
 
-        for (i = 0; i <= last; i++) {
-            if (rNToGo == 0) {
-                rNToGo = (char) rNums[rTPos];
-                rTPos++;
-                if (rTPos == 512) {
-                    rTPos = 0;
+    private void selectSortSplit(int p, int len, int h) {
+        int pa, pb, pi, pn, f, v;
+
+        pa = p;
+        pn = p + len - 1;
+        while (pa < pn) {
+            f = rotationKey(pa, h);
+            for (pi = pb = pa + 1; pi <= pn; pi++) {
+                v = rotationKey(pi, h);
+                if (v < f) {
+                    f = v;
+                    swapPtr(pi, pa);
+                    pb = pa + 1;
+                } else if (v == f) {
+                    swapPtr(pi, pb);
+                    pb++;
                 }
             }
-            rNToGo--;
-            block[i + 1] ^= ((rNToGo == 1) ? 1 : 0);
-            // handle 16 bit signed numbers
-            block[i + 1] &= 0xFF;
-
-            inUse[block[i + 1]] = true;
+            updateGroup(pa, pb - 1);
+            pa = pb;
         }
-    }
-
-    private void doReversibleTransformation() {
-        int i;
-
-        workLimit = workFactor * last;
-        workDone = 0;
-        blockRandomised = false;
-        firstAttempt = true;
-
-        mainSort();
-
-        if (workDone > workLimit && firstAttempt) {
-            randomiseBlock();
-            workLimit = workDone = 0;
-            blockRandomised = true;
-            firstAttempt = false;
-            mainSort();
+        if (pa == pn) {
+            quadrant[zptr[pa]] = pa;
+            zptr[pa] = -1;
         }
+    }
 
-        origPtr = -1;
-        for (i = 0; i <= last; i++) {
-            if (zptr[i] == 0) {
-                origPtr = i;
-                break;
+    private int choosePivot(int p, int len, int h) {
+        int pl, pm, pn, s;
+
+        pm = p + (len >> 1);
+        if (len > 7) {
+            pl = p;
+            pn = p + len - 1;
+            if (len > 40) {
+                s = len >> 3;
+                pl = med3Ptr(pl, pl + s, pl + s + s, h);
+                pm = med3Ptr(pm - s, pm, pm + s, h);
+                pn = med3Ptr(pn - s - s, pn - s, pn, h);
             }
+            pm = med3Ptr(pl, pm, pn, h);
         }
-
-        if (origPtr == -1) {
-            panic();
-        }
+        return rotationKey(pm, h);
     }
 
-    private boolean fullGtU(int i1, int i2) {
-        int k;
-        char c1, c2;
-        int s1, s2;
-
-        c1 = block[i1 + 1];
-        c2 = block[i2 + 1];
-        if (c1 != c2) {
-            return (c1 > c2);
-        }
-        i1++;
-        i2++;
-
-        c1 = block[i1 + 1];
-        c2 = block[i2 + 1];
-        if (c1 != c2) {
-            return (c1 > c2);
-        }
-        i1++;
-        i2++;
+    private int med3Ptr(int a, int b, int c, int h) {
+        int ka = rotationKey(a, h);
+        int kb = rotationKey(b, h);
+        int kc = rotationKey(c, h);
 
-        c1 = block[i1 + 1];
-        c2 = block[i2 + 1];
-        if (c1 != c2) {
-            return (c1 > c2);
+        if (ka < kb) {
+            return (kb < kc) ? b : ((ka < kc) ? c : a);
         }
-        i1++;
-        i2++;
+        return (kb > kc) ? b : ((ka > kc) ? c : a);
+    }
 
-        c1 = block[i1 + 1];
-        c2 = block[i2 + 1];
-        if (c1 != c2) {
-            return (c1 > c2);
+    /*
+      Mark zptr[pl .. pm] as one group, or as sorted if it is a single
+      rotation.
+    */
+    private void updateGroup(int pl, int pm) {
+        for (int i = pl; i <= pm; i++) {
+            quadrant[zptr[i]] = pm;
         }
-        i1++;
-        i2++;
-
-        c1 = block[i1 + 1];
-        c2 = block[i2 + 1];
-        if (c1 != c2) {
-            return (c1 > c2);
+        if (pl == pm) {
+            zptr[pl] = -1;
         }
-        i1++;
-        i2++;
+    }
 
-        c1 = block[i1 + 1];
-        c2 = block[i2 + 1];
-        if (c1 != c2) {
-            return (c1 > c2);
+    private int rotationKey(int ptr, int h) {
+        int r = zptr[ptr] + h;
+        if (r > last) {
+            r -= last + 1;
         }
-        i1++;
-        i2++;
-
-        k = last + 1;
-
-        do {
-            c1 = block[i1 + 1];
-            c2 = block[i2 + 1];
-            if (c1 != c2) {
-                return (c1 > c2);
-            }
-            s1 = quadrant[i1];
-            s2 = quadrant[i2];
-            if (s1 != s2) {
-                return (s1 > s2);
-            }
-            i1++;
-            i2++;
-
-            c1 = block[i1 + 1];
-            c2 = block[i2 + 1];
-            if (c1 != c2) {
-                return (c1 > c2);
-            }
-            s1 = quadrant[i1];
-            s2 = quadrant[i2];
-            if (s1 != s2) {
-                return (s1 > s2);
-            }
-            i1++;
-            i2++;
-
-            c1 = block[i1 + 1];
-            c2 = block[i2 + 1];
-            if (c1 != c2) {
-                return (c1 > c2);
-            }
-            s1 = quadrant[i1];
-            s2 = quadrant[i2];
-            if (s1 != s2) {
-                return (s1 > s2);
-            }
-            i1++;
-            i2++;
-
-            c1 = block[i1 + 1];
-            c2 = block[i2 + 1];
-            if (c1 != c2) {
-                return (c1 > c2);
-            }
-            s1 = quadrant[i1];
-            s2 = quadrant[i2];
-            if (s1 != s2) {
-                return (s1 > s2);
-            }
-            i1++;
-            i2++;
-
-            if (i1 > last) {
-                i1 -= last;
-                i1--;
-            }
-            if (i2 > last) {
-                i2 -= last;
-                i2--;
-            }
-
-            k -= 4;
-            workDone++;
-        } while (k >= 0);
-
-        return false;
+        return quadrant[r];
     }
 
-    /*
-      Knuth's increments seem to work better
-      than Incerpi-Sedgewick here.  Possibly
-      because the number of elems to sort is
-      usually small, typically <= 20.
-    */
-    private int[] incs = { 1, 4, 13, 40, 121, 364, 1093, 3280,
-                           9841, 29524, 88573, 265720,
-                           797161, 2391484 };
+    private void swapPtr(int p1, int p2) {
+        int temp = zptr[p1];
+        zptr[p1] = zptr[p2];
+        zptr[p2] = temp;
+    }
 
     private void allocateCompressStructures () {
         int n = baseBlockSize * blockSize100k;
@@ -0,0 +1,339 @@
+package org.spongycastle.apache.bzip2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * An output stream that compresses into the BZip2 format, as {@link CBZip2OutputStream} does, with
+ * the blocks sorted and encoded on the threads of an {@link Executor}.
+ * <p>
+ * BZip2 blocks are independent apart from the stream CRC, which is a simple combination of the
+ * block CRCs, so the input is cut into block sized chunks that are compressed concurrently. As
+ * blocks are not byte aligned, the encoded blocks are joined bit by bit as they are written out in
+ * order. The result is a single ordinary BZip2 stream.
+ * </p>
+ */
+public class ParallelCBZip2OutputStream
+    extends OutputStream
+    implements BZip2Constants
+{
+    private final OutputStream out;
+    private final int blockSize100k;
+    private final Executor executor;
+    private final int chunkSize;
+    private final int maxPending;
+
+    private final Vector pending = new Vector();
+    private final Vector idleEncoders = new Vector();
+
+    private byte[] chunk;
+    private int chunkOff;
+
+    private int combinedCRC;
+    private int bsBuff;
+    private int bsLive;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * Create a compressing stream with a block size of 900k.
+     *
+     * @param out the stream to write the compressed data to.
+     * @param executor the executor to compress blocks on.
+     */
+    public ParallelCBZip2OutputStream(OutputStream out, Executor executor)
+        throws IOException
+    {
+        this(out, 9, executor);
+    }
+
+    /**
+     * Create a compressing stream.
+     *
+     * @param out the stream to write the compressed data to.
+     * @param blockSize the block size in units of 100k (1-9).
+     * @param executor the executor to compress blocks on.
+     */
+    public ParallelCBZip2OutputStream(OutputStream out, int blockSize, Executor executor)
+        throws IOException
+    {
+        if (blockSize > 9)
+        {
+            blockSize = 9;
+        }
+        if (blockSize < 1)
+        {
+            blockSize = 1;
+        }
+
+        this.out = out;
+        this.blockSize100k = blockSize;
+        this.executor = executor;
+        // as for CBZip2OutputStream's allowableBlockSize - run length encoding may still split a chunk
+        this.chunkSize = baseBlockSize * blockSize - 20;
+        this.maxPending = 2 * Runtime.getRuntime().availableProcessors();
+        this.chunk = new byte[chunkSize];
+
+        out.write('B');
+        out.write('Z');
+        out.write('h');
+        out.write('0' + blockSize);
+    }
+
+    public void write(int b)
+        throws IOException
+    {
+        if (finished)
+        {
+            throw new IOException("write beyond end of stream");
+        }
+
+        chunk[chunkOff++] = (byte)b;
+        if (chunkOff == chunkSize)
+        {
+            submitChunk();
+        }
+    }
+
+    public void write(byte[] buf, int off, int len)
+        throws IOException
+    {
+        if (finished)
+        {
+            throw new IOException("write beyond end of stream");
+        }
+
+        while (len > 0)
+        {
+            int count = Math.min(len, chunkSize - chunkOff);
+
+            System.arraycopy(buf, off, chunk, chunkOff, count);
+            chunkOff += count;
+            off += count;
+            len -= count;
+
+            if (chunkOff == chunkSize)
+            {
+                submitChunk();
+            }
+        }
+    }
+
+    /**
+     * Finish writing compressed data without closing the underlying stream.
+     *
+     * @throws IOException if the compressed data cannot be produced or written.
+     */
+    public void finish()
+        throws IOException
+    {
+        if (finished)
+        {
+            return;
+        }
+
+        if (chunkOff > 0)
+        {
+            submitChunk();
+        }
+
+        while (!pending.isEmpty())
+        {
+            writeNextChunk();
+        }
+
+        finished = true;
+        chunk = null;
+        idleEncoders.removeAllElements();
+
+        // end of stream marker, 0x177245385090, and the stream CRC
+        bsW(24, 0x177245);
+        bsW(24, 0x385090);
+        bsW(16, combinedCRC >>> 16);
+        bsW(16, combinedCRC & 0xffff);
+
+        while (bsLive > 0)
+        {
+            out.write(bsBuff >>> 24);
+            bsBuff <<= 8;
+            bsLive -= 8;
+        }
+        bsLive = 0;
+
+        out.flush();
+    }
+
+    public void flush()
+        throws IOException
+    {
+        out.flush();
+    }
+
+    public void close()
+        throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+
+        finish();
+
+        closed = true;
+        out.close();
+    }
+
+    private void submitChunk()
+        throws IOException
+    {
+        final byte[] data = chunk;
+        final int dataLen = chunkOff;
+
+        FutureTask task = new FutureTask(new Callable()
+        {
+            public Object call()
+                throws Exception
+            {
+                return encodeChunk(data, dataLen);
+            }
+        });
+
+        pending.addElement(task);
+        executor.execute(task);
+
+        chunk = new byte[chunkSize];
+        chunkOff = 0;
+
+        while (pending.size() > maxPending)
+        {
+            writeNextChunk();
+        }
+    }
+
+    private EncodedBlocks encodeChunk(byte[] data, int dataLen)
+        throws IOException
+    {
+        CBZip2OutputStream encoder = null;
+
+        synchronized (idleEncoders)
+        {
+            if (!idleEncoders.isEmpty())
+            {
+                encoder = (CBZip2OutputStream)idleEncoders.lastElement();
+                idleEncoders.removeElementAt(idleEncoders.size() - 1);
+            }
+        }
+
+        if (encoder == null)
+        {
+            encoder = new CBZip2OutputStream(blockSize100k);
+        }
+
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream(dataLen / 3 + 1024);
+        int bits = encoder.encodeBlocks(data, 0, dataLen, bOut);
+        EncodedBlocks blocks = new EncodedBlocks(bOut.toByteArray(), bits, encoder.getCombinedCRC(), encoder.getBlockCount());
+
+        synchronized (idleEncoders)
+        {
+            if (!finished)
+            {
+                idleEncoders.addElement(encoder);
+            }
+        }
+
+        return blocks;
+    }
+
+    private void writeNextChunk()
+        throws IOException
+    {
+        FutureTask task = (FutureTask)pending.elementAt(0);
+        pending.removeElementAt(0);
+
+        EncodedBlocks blocks;
+        try
+        {
+            blocks = (EncodedBlocks)task.get();
+        }
+        catch (InterruptedException e)
+        {
+            cancelPending();
+            Thread.currentThread().interrupt();
+
+            throw new IOException("interrupted compressing data", e);
+        }
+        catch (ExecutionException e)
+        {
+            cancelPending();
+
+            throw new IOException("exception compressing data: " + e.getCause(), e.getCause());
+        }
+
+        combinedCRC = Integer.rotateLeft(combinedCRC, blocks.count) ^ blocks.crc;
+
+        byte[] data = blocks.data;
+        int fullBytes = blocks.bits >>> 3;
+
+        if (bsLive == 0)
+        {
+            out.write(data, 0, fullBytes);
+        }
+        else
+        {
+            for (int i = 0; i < fullBytes; i++)
+            {
+                bsW(8, data[i] & 0xff);
+            }
+        }
+
+        int extraBits = blocks.bits & 7;
+        if (extraBits != 0)
+        {
+            bsW(extraBits, (data[fullBytes] & 0xff) >>> (8 - extraBits));
+        }
+    }
+
+    private void cancelPending()
+    {
+        for (int i = 0; i != pending.size(); i++)
+        {
+            ((FutureTask)pending.elementAt(i)).cancel(false);
+        }
+        pending.removeAllElements();
+    }
+
+    private void bsW(int n, int v)
+        throws IOException
+    {
+        while (bsLive >= 8)
+        {
+            out.write(bsBuff >>> 24);
+            bsBuff <<= 8;
+            bsLive -= 8;
+        }
+        bsBuff |= (v << (32 - bsLive - n));
+        bsLive += n;
+    }
+
+    private static class EncodedBlocks
+    {
+        final byte[] data;
+        final int bits;
+        final int crc;
+        final int count;
+
+        EncodedBlocks(byte[] data, int bits, int crc, int count)
+        {
+            this.data = data;
+            this.bits = bits;
+            this.crc = crc;
+            this.count = count;
+        }
+    }
+}
@@ -8,6 +8,7 @@
 
 import org.spongycastle.util.StringList;
 import org.spongycastle.util.Strings;
+import org.spongycastle.util.encoders.Base64Encoder;
 
 /**
  * reader for Base64 armored objects - read the headers and then start returning
@@ -22,6 +23,10 @@
      */
     private static final byte[] decodingTable;
 
+    private static final int READ_AHEAD_SIZE = 4096;
+
+    private static final Base64Encoder encoder = new Base64Encoder();
+
     static
     {
         decodingTable = new byte[128];
@@ -114,6 +119,7 @@ else if (in3 == '=')
     StringList     headerList= Strings.newList();
     int            lastC = 0;
     boolean        isEndOfStream;
+    byte[]         readAhead;
     
     /**
      * Create a stream for reading a PGP armoured message, parsing up to a header 
@@ -462,6 +468,164 @@ else if (c == '-')        // end of record reached
         return c;
     }
     
+    /**
+     * Reads up to <code>len</code> bytes of data from the input stream into
+     * an array of bytes.  An attempt is made to read as many as
+     * <code>len</code> bytes, but a smaller number may be read.
+     * <p>
+     * If the underlying stream supports {@link InputStream#mark(int)}, runs of complete Base64
+     * groups are read and decoded a block at a time; the underlying stream is then repositioned
+     * just after the last group decoded, so nothing beyond the armored data is consumed. Headers,
+     * clear text, the checksum and the armor tail are handled by {@link #read()}.
+     * </p>
+     *
+     * @param b   the buffer into which the data is read.
+     * @param off the start offset in array <code>b</code> at which the data is written.
+     * @param len the maximum number of bytes to read.
+     * @return the total number of bytes read into the buffer, or <code>-1</code> if there is no
+     * more data because the end of the stream has been reached.
+     */
+    public int read(
+        byte[] b,
+        int    off,
+        int    len)
+        throws IOException
+    {
+        if (len < 0 || off < 0 || len > b.length - off)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+
+        int pos = off, end = off + len;
+        while (pos < end)
+        {
+            if (!start && !clearText && !crcFound && bufPtr > 2 && end - pos >= 3 && in.markSupported())
+            {
+                int count = decodeBlock(b, pos, end - pos);
+                if (count > 0)
+                {
+                    pos += count;
+                    continue;
+                }
+            }
+
+            int c = read();
+            if (c < 0)
+            {
+                break;
+            }
+            b[pos++] = (byte)c;
+        }
+
+        return (pos == off && len > 0) ? -1 : pos - off;
+    }
+
+    /**
+     * Decode whole groups of four Base64 characters directly from the underlying stream, stopping
+     * early at anything that {@link #read()} has to interpret (a line that may start a checksum or
+     * the armor tail, padding, or an unexpected character).
+     *
+     * @return the number of bytes decoded into b.
+     */
+    private int decodeBlock(
+        byte[] b,
+        int    off,
+        int    len)
+        throws IOException
+    {
+        if (readAhead == null)
+        {
+            readAhead = new byte[READ_AHEAD_SIZE];
+        }
+
+        int limit = Math.min(readAhead.length, (len / 3) * 4 + 512);
+
+        in.mark(limit);
+
+        //
+        // only block for the first read - anything more must already have arrived, as the armor
+        // may end well short of the limit on a stream whose peer is waiting for a reply.
+        //
+        int avail = 0, n;
+        while (avail < limit && (avail == 0 || in.available() > 0)
+            && (n = in.read(readAhead, avail, limit - avail)) > 0)
+        {
+            avail += n;
+        }
+
+        int consumed = 0, outPos = off, outEnd = off + len - 2;
+        int i = 0;
+
+    scan:
+        while (outPos < outEnd)
+        {
+            // a run of whole groups with no line break can be handed to the encoder in one go
+            int maxRun = Math.min(avail - i, (off + len - outPos) / 3 * 4);
+            int run = 0;
+            while (run < maxRun && isBase64(readAhead[i + run]))
+            {
+                run++;
+            }
+            run &= ~3;
+
+            if (run > 0)
+            {
+                outPos += encoder.decode(readAhead, i, run, b, outPos);
+                i += run;
+                consumed = i;
+                continue;
+            }
+
+            int group = 0;
+            for (int k = 0; k < 4;)
+            {
+                if (i >= avail)
+                {
+                    break scan;
+                }
+
+                int c = readAhead[i++] & 0xff;
+                if (c == ' ' || c == '\t' || ((c == '\r' || c == '\n') && k == 0))
+                {
+                    continue;
+                }
+                if (c >= 128 || (decodingTable[c] == 0 && c != 'A'))
+                {
+                    // padding, a checksum line, the armor tail, or something read() should report
+                    break scan;
+                }
+
+                group = (group << 6) | decodingTable[c];
+                ++k;
+            }
+
+            b[outPos++] = (byte)(group >>> 16);
+            b[outPos++] = (byte)(group >>> 8);
+            b[outPos++] = (byte)group;
+
+            consumed = i;
+        }
+
+        in.reset();
+        if (consumed > 0)
+        {
+            int skipped = 0;
+            while (skipped < consumed && (n = in.read(readAhead, skipped, consumed - skipped)) > 0)
+            {
+                skipped += n;
+            }
+        }
+
+        int count = outPos - off;
+        crc.update(b, off, count);
+        return count;
+    }
+
+    private static boolean isBase64(byte c)
+    {
+        return c >= 0 && (decodingTable[c] != 0 || c == 'A');
+    }
+
     public void close()
         throws IOException
     {
@@ -88,6 +88,8 @@ private void encode(
     boolean         newLine = false;
 
     String          nl = Strings.lineSeparator();
+    byte[]          nlBytes;
+    byte[]          lineBuf;
 
     String          type;
     String          headerStart = "-----BEGIN PGP ";
@@ -361,6 +363,87 @@ public void write(
         buf[bufPtr++] = b & 0xff;
     }
 
+    public void write(
+        byte[] b,
+        int    off,
+        int    len)
+        throws IOException
+    {
+        /*
+         * Clear text, the armor header and any partially filled group of three bytes are left to
+         * write(int); after that the input is encoded a line at a time.
+         */
+        while (len > 0 && (clearText || start || bufPtr != 3))
+        {
+            write(b[off++]);
+            --len;
+        }
+
+        int count = len - (len % 3);
+        if (count > 0)
+        {
+            crc.update(b, off, count);
+            encodeBlock(b, off, count);
+            off += count;
+            len -= count;
+        }
+
+        while (len > 0)
+        {
+            write(b[off++]);
+            --len;
+        }
+    }
+
+    /**
+     * Encode count bytes (a multiple of three), with the same output as count calls to write(int).
+     * The encoded output lags the input by the three bytes held in buf, so on return buf holds the
+     * last three bytes of the block.
+     */
+    private void encodeBlock(
+        byte[] b,
+        int    off,
+        int    count)
+        throws IOException
+    {
+        if (nlBytes == null)
+        {
+            nlBytes = Strings.toByteArray(nl);
+            lineBuf = new byte[16 * (64 + nlBytes.length)];
+        }
+
+        int pos = 0;
+        int end = off + count;
+        while (off < end)
+        {
+            int d1 = buf[0], d2 = buf[1], d3 = buf[2];
+
+            lineBuf[pos++] = encodingTable[(d1 >>> 2) & 0x3f];
+            lineBuf[pos++] = encodingTable[((d1 << 4) | (d2 >>> 4)) & 0x3f];
+            lineBuf[pos++] = encodingTable[((d2 << 2) | (d3 >>> 6)) & 0x3f];
+            lineBuf[pos++] = encodingTable[d3 & 0x3f];
+
+            if ((++chunkCount & 0xf) == 0)
+            {
+                System.arraycopy(nlBytes, 0, lineBuf, pos, nlBytes.length);
+                pos += nlBytes.length;
+            }
+
+            buf[0] = b[off] & 0xff;
+            buf[1] = b[off + 1] & 0xff;
+            buf[2] = b[off + 2] & 0xff;
+            off += 3;
+
+            if (pos + 4 + nlBytes.length > lineBuf.length)
+            {
+                out.write(lineBuf, 0, pos);
+                pos = 0;
+            }
+        }
+
+        out.write(lineBuf, 0, pos);
+    }
+
     public void flush()
         throws IOException
     {
@@ -1,12 +1,55 @@
 package org.spongycastle.bcpg;
 
+/**
+ * The CRC-24 used for the checksum of ASCII armored data (RFC 4880 6.1).
+ * <p>
+ * The CRC is table driven. Blocks of input are processed six bytes at a time ("slicing-by-6"): as
+ * the register is three bytes wide, the first three input bytes are folded into the register and
+ * each of the six bytes then needs only one table lookup, with no dependency between the lookups.
+ * </p>
+ */
 public class CRC24
 {
     private static final int CRC24_INIT = 0x0b704ce;
     private static final int CRC24_POLY = 0x1864cfb;
-                                                                                
+    private static final int CRC24_MASK = 0xffffff;
+
+    /*
+     * TABLES[k][i] is the register obtained by feeding the byte i, followed by k zero bytes, into
+     * a zero register.
+     */
+    private static final int[][] TABLES = new int[6][256];
+
+    static
+    {
+        int[] t0 = TABLES[0];
+        for (int i = 0; i < 256; ++i)
+        {
+            int crc = i << 16;
+            for (int j = 0; j < 8; ++j)
+            {
+                crc <<= 1;
+                if ((crc & 0x1000000) != 0)
+                {
+                    crc ^= CRC24_POLY;
+                }
+            }
+            t0[i] = crc;
+        }
+
+        for (int k = 1; k < TABLES.length; ++k)
+        {
+            int[] prev = TABLES[k - 1], next = TABLES[k];
+            for (int i = 0; i < 256; ++i)
+            {
+                int crc = prev[i];
+                next[i] = ((crc << 8) & CRC24_MASK) ^ t0[crc >>> 16];
+            }
+        }
+    }
+
     private int crc = CRC24_INIT;
-                                                                                
+
     public CRC24()
     {
     }
@@ -14,15 +57,44 @@ public CRC24()
     public void update(
         int b)
     {
-        crc ^= b << 16;
-        for (int i = 0; i < 8; i++)
+        crc = ((crc << 8) & CRC24_MASK) ^ TABLES[0][((crc >>> 16) ^ b) & 0xff];
+    }
+
+    /**
+     * Update the CRC with a block of bytes.
+     *
+     * @param buf the input data.
+     * @param off offset of the data in buf.
+     * @param len the number of bytes to process.
+     */
+    public void update(
+        byte[] buf,
+        int    off,
+        int    len)
+    {
+        int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3], t4 = TABLES[4], t5 = TABLES[5];
+        int c = crc;
+
+        while (len >= 6)
         {
-            crc <<= 1;
-            if ((crc & 0x1000000) != 0)
-            {
-                crc ^= CRC24_POLY;
-            }
+            int x = c ^ (((buf[off] & 0xff) << 16) | ((buf[off + 1] & 0xff) << 8) | (buf[off + 2] & 0xff));
+
+            c = t5[x >>> 16] ^ t4[(x >>> 8) & 0xff] ^ t3[x & 0xff]
+                ^ t2[buf[off + 3] & 0xff] ^ t1[buf[off + 4] & 0xff] ^ t0[buf[off + 5] & 0xff];
+
+            off += 6;
+            len -= 6;
         }
+
+        while (len > 0)
+        {
+            c = ((c << 8) & CRC24_MASK) ^ t0[((c >>> 16) ^ buf[off]) & 0xff];
+
+            ++off;
+            --len;
+        }
+
+        crc = c;
     }
 
     public int getValue()
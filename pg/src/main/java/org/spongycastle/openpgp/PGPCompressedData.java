@@ -1,5 +1,6 @@
 package org.spongycastle.openpgp;
 
+import java.io.BufferedInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -140,7 +141,9 @@ protected void fill() throws IOException
       {
           try
           {
-              return new CBZip2InputStream(this.getInputStream());
+              // the decoder reads its input a byte at a time, and the packet data is
+              // only ever read by the decoder, so it is safe to buffer it.
+              return new CBZip2InputStream(new BufferedInputStream(this.getInputStream()));
           }
           catch (IOException e)
           {
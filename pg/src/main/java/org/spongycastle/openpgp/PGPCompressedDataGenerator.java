@@ -2,13 +2,16 @@
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.Executor;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
 import org.spongycastle.apache.bzip2.CBZip2OutputStream;
+import org.spongycastle.apache.bzip2.ParallelCBZip2OutputStream;
 import org.spongycastle.bcpg.BCPGOutputStream;
 import org.spongycastle.bcpg.CompressionAlgorithmTags;
 import org.spongycastle.bcpg.PacketTags;
+import org.spongycastle.util.io.ParallelDeflaterOutputStream;
 
 /**
  * Generator for producing compressed data packets.
@@ -43,6 +46,7 @@
 
     private OutputStream            dOut;
     private BCPGOutputStream        pkOut;
+    private Executor                executor;
 
     /**
      * Construct a new compressed data generator.
@@ -90,6 +94,18 @@ public PGPCompressedDataGenerator(
         this.compression = compression;
     }
 
+    /**
+     * Provide an executor to spread the compression over. ZIP and ZLIB data is then compressed in
+     * independent chunks, and BZIP2 data a block at a time, on the executor's threads. The
+     * compressed data is still a single standard stream. Uncompressed data is not affected.
+     *
+     * @param executor the executor to compress on, null to compress on the writing thread.
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
     /**
      * Return an OutputStream which will save the data being written to
      * the compressed object.
@@ -169,13 +185,34 @@ private void doOpen() throws IOException
                 dOut = pkOut;
                 break;
             case CompressionAlgorithmTags.ZIP:
-                dOut = new SafeDeflaterOutputStream(pkOut, compression, true);
+                if (executor != null)
+                {
+                    dOut = new SafeParallelDeflaterOutputStream(pkOut, compression, true, executor);
+                }
+                else
+                {
+                    dOut = new SafeDeflaterOutputStream(pkOut, compression, true);
+                }
                 break;
             case CompressionAlgorithmTags.ZLIB:
-                dOut = new SafeDeflaterOutputStream(pkOut, compression, false);
+                if (executor != null)
+                {
+                    dOut = new SafeParallelDeflaterOutputStream(pkOut, compression, false, executor);
+                }
+                else
+                {
+                    dOut = new SafeDeflaterOutputStream(pkOut, compression, false);
+                }
                 break;
             case CompressionAlgorithmTags.BZIP2:
-                dOut = new SafeCBZip2OutputStream(pkOut);
+                if (executor != null)
+                {
+                    dOut = new SafeParallelCBZip2OutputStream(pkOut, executor);
+                }
+                else
+                {
+                    dOut = new SafeCBZip2OutputStream(pkOut);
+                }
                 break;
             default:
                 // Constructor should guard against this possibility
@@ -220,6 +257,32 @@ public void close() throws IOException
         }
     }
 
+    private static class SafeParallelCBZip2OutputStream extends ParallelCBZip2OutputStream
+    {
+        public SafeParallelCBZip2OutputStream(OutputStream output, Executor executor) throws IOException
+        {
+            super(output, executor);
+        }
+
+        public void close() throws IOException
+        {
+            finish();
+        }
+    }
+
+    private static class SafeParallelDeflaterOutputStream extends ParallelDeflaterOutputStream
+    {
+        public SafeParallelDeflaterOutputStream(OutputStream output, int compression, boolean nowrap, Executor executor)
+        {
+            super(output, compression, nowrap, executor);
+        }
+
+        public void close() throws IOException
+        {
+            finish();
+        }
+    }
+
     private class SafeDeflaterOutputStream extends DeflaterOutputStream
     {
         public SafeDeflaterOutputStream(OutputStream output, int compression, boolean nowrap)
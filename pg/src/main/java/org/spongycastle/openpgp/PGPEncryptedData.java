@@ -5,13 +5,17 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import org.spongycastle.bcpg.BCPGInputStream;
 import org.spongycastle.bcpg.InputStreamPacket;
 import org.spongycastle.bcpg.SymmetricEncIntegrityPacket;
 import org.spongycastle.bcpg.SymmetricKeyAlgorithmTags;
 import org.spongycastle.openpgp.operator.PGPDataDecryptor;
 import org.spongycastle.openpgp.operator.PGPDataDecryptorFactory;
 import org.spongycastle.openpgp.operator.PGPDigestCalculator;
+import org.spongycastle.openpgp.operator.PGPMDCDataDecryptor;
 import org.spongycastle.util.Arrays;
+import org.spongycastle.util.io.Streams;
+import org.spongycastle.util.io.TeeInputStream;
 
 /**
  * A PGP encrypted data object.
@@ -63,6 +67,28 @@ public int read()
             return -1;
         }
 
+        public int read(byte[] buf, int off, int len)
+            throws IOException
+        {
+            int n = in.read(buf, off, len);
+
+            // equivalent to n calls to read(): what is returned lags the input by the look ahead
+            for (int i = 0; i < n; i++)
+            {
+                int ch = buf[off + i] & 0xff;
+
+                buf[off + i] = (byte)lookAhead[bufPtr];
+                lookAhead[bufPtr] = ch;
+
+                if (++bufPtr == lookAhead.length)
+                {
+                    bufPtr = 0;
+                }
+            }
+
+            return n;
+        }
+
         int[] getLookAhead()
         {
             int[]    tmp = new int[lookAhead.length];
@@ -85,6 +111,7 @@ int[] getLookAhead()
     InputStream              encStream;
     TruncatedStream          truncStream;
     PGPDigestCalculator      integrityCalculator;
+    PGPMDCDataDecryptor      mdcDecryptor;
 
     PGPEncryptedData(
         InputStreamPacket    encData)
@@ -92,6 +119,35 @@ int[] getLookAhead()
         this.encData = encData;
     }
 
+    /**
+     * Set up encStream to return the decrypted contents of the packet, checking the modification
+     * detection code if the packet is integrity protected.
+     */
+    void initDecryptionStream(
+        PGPDataDecryptor dataDecryptor,
+        boolean          withIntegrityPacket)
+        throws IOException
+    {
+        if (withIntegrityPacket && dataDecryptor instanceof PGPMDCDataDecryptor)
+        {
+            mdcDecryptor = (PGPMDCDataDecryptor)dataDecryptor;
+
+            encStream = new BCPGInputStream(mdcDecryptor.getMDCInputStream(encData.getInputStream()));
+            return;
+        }
+
+        encStream = new BCPGInputStream(dataDecryptor.getInputStream(encData.getInputStream()));
+
+        if (withIntegrityPacket)
+        {
+            truncStream = new TruncatedStream(encStream);
+
+            integrityCalculator = dataDecryptor.getIntegrityCalculator();
+
+            encStream = new TeeInputStream(truncStream, integrityCalculator.getOutputStream());
+        }
+    }
+
     /**
      * Return the raw input stream for the data stream.
      * <p>
@@ -138,9 +194,11 @@ public boolean verify()
         //
         // make sure we are at the end.
         //
-        while (encStream.read() >= 0)
+        Streams.drain(encStream);
+
+        if (mdcDecryptor != null)
         {
-            // do nothing
+            return mdcDecryptor.verifyMDC();
         }
 
         //
@@ -5,8 +5,14 @@
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.spongycastle.bcpg.BCPGOutputStream;
+import org.spongycastle.bcpg.ContainedPacket;
 import org.spongycastle.bcpg.HashAlgorithmTags;
 import org.spongycastle.bcpg.PacketTags;
 import org.spongycastle.bcpg.SymmetricKeyAlgorithmTags;
@@ -78,6 +84,7 @@
     private List            methods = new ArrayList();
     private int             defAlgorithm;
     private SecureRandom    rand;
+    private Executor        executor;
 
     /**
      * Base constructor.
@@ -115,6 +122,24 @@ public void addMethod(PGPKeyEncryptionMethodGenerator method)
         methods.add(method);
     }
 
+    /**
+     * Provide an executor to encrypt the session key for each of the configured encryption methods
+     * concurrently when a stream is opened, rather than one after another - worthwhile where there
+     * are many public key recipients. The packets are still written in the order the methods were
+     * added.
+     * <p>
+     * Encryption method generators may be called from any of the executor's threads, but a
+     * generator is only ever called by one thread at a time for each open().
+     * </p>
+     *
+     * @param executor the executor to run session key encryption on, null to run on the calling
+     *            thread.
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
     private void addCheckSum(
         byte[]    sessionInfo)
     {
@@ -210,11 +235,18 @@ private OutputStream open(
             key = PGPUtil.makeRandomKey(defAlgorithm, rand);
             byte[] sessionInfo = createSessionInfo(defAlgorithm, key);
 
-            for (int i = 0; i != methods.size(); i++)
+            if (executor != null)
             {
-                PGPKeyEncryptionMethodGenerator m = (PGPKeyEncryptionMethodGenerator)methods.get(i);
+                generateConcurrently(sessionInfo);
+            }
+            else
+            {
+                for (int i = 0; i != methods.size(); i++)
+                {
+                    PGPKeyEncryptionMethodGenerator m = (PGPKeyEncryptionMethodGenerator)methods.get(i);
 
-                pOut.writePacket(m.generate(defAlgorithm, sessionInfo));
+                    pOut.writePacket(m.generate(defAlgorithm, sessionInfo));
+                }
             }
         }
 
@@ -275,6 +307,84 @@ private OutputStream open(
         }
     }
 
+    private void generateConcurrently(final byte[] sessionInfo)
+        throws IOException, PGPException
+    {
+        FutureTask[] tasks = new FutureTask[methods.size()];
+
+        for (int i = 0; i != tasks.length; i++)
+        {
+            final PGPKeyEncryptionMethodGenerator m = (PGPKeyEncryptionMethodGenerator)methods.get(i);
+            final int algorithm = defAlgorithm;
+
+            tasks[i] = new FutureTask(new Callable()
+            {
+                public Object call()
+                    throws Exception
+                {
+                    return m.generate(algorithm, sessionInfo);
+                }
+            });
+
+            try
+            {
+                executor.execute(tasks[i]);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // left for the loop below to run on this thread
+            }
+        }
+
+        for (int i = 0; i != tasks.length; i++)
+        {
+            // run it here if the executor has not started it, as open() may be called on one of
+            // the executor's own threads.
+            tasks[i].run();
+
+            try
+            {
+                pOut.writePacket((ContainedPacket)tasks[i].get());
+            }
+            catch (InterruptedException e)
+            {
+                cancel(tasks, i);
+                Thread.currentThread().interrupt();
+
+                throw new PGPException("interrupted encrypting session key", e);
+            }
+            catch (ExecutionException e)
+            {
+                cancel(tasks, i);
+
+                // rethrow whatever generate() would have thrown on this thread
+                Throwable cause = e.getCause();
+                if (cause instanceof PGPException)
+                {
+                    throw (PGPException)cause;
+                }
+                if (cause instanceof RuntimeException)
+                {
+                    throw (RuntimeException)cause;
+                }
+                if (cause instanceof Error)
+                {
+                    throw (Error)cause;
+                }
+
+                throw new PGPException("exception encrypting session key: " + cause, e);
+            }
+        }
+    }
+
+    private static void cancel(FutureTask[] tasks, int from)
+    {
+        for (int i = from; i != tasks.length; i++)
+        {
+            tasks[i].cancel(false);
+        }
+    }
+
     /**
      * Create an OutputStream based on the configured methods to write a single encrypted object of
      * known length.
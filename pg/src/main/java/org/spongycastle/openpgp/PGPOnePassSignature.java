@@ -90,17 +90,7 @@ else if (b == '\n')
     public void update(
         byte[]    bytes)
     {
-        if (signatureType == PGPSignature.CANONICAL_TEXT_DOCUMENT)
-        {
-            for (int i = 0; i != bytes.length; i++)
-            {
-                this.update(bytes[i]);
-            }
-        }
-        else
-        {
-            blockUpdate(bytes, 0, bytes.length);
-        }
+        this.update(bytes, 0, bytes.length);
     }
     
     public void update(
@@ -110,12 +100,7 @@ public void update(
     {
         if (signatureType == PGPSignature.CANONICAL_TEXT_DOCUMENT)
         {
-            int finish = off + length;
-            
-            for (int i = off; i != finish; i++)
-            {
-                this.update(bytes[i]);
-            }
+            canonicalTextUpdate(bytes, off, length);
         }
         else
         {
@@ -135,6 +120,18 @@ private void byteUpdate(byte b)
         }
     }
 
+    private void canonicalTextUpdate(byte[] block, int off, int len)
+    {
+        try
+        {
+            lastb = PGPUtil.writeCanonicalText(sigOut, lastb, block, off, len);
+        }
+        catch (IOException e)
+        {
+            throw new PGPRuntimeOperationException(e.getMessage(), e);
+        }
+    }
+
     private void blockUpdate(byte[] block, int off, int len)
     {
         try
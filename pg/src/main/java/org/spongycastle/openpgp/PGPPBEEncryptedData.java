@@ -3,14 +3,12 @@
 import java.io.EOFException;
 import java.io.InputStream;
 
-import org.spongycastle.bcpg.BCPGInputStream;
 import org.spongycastle.bcpg.InputStreamPacket;
 import org.spongycastle.bcpg.SymmetricEncIntegrityPacket;
 import org.spongycastle.bcpg.SymmetricKeyAlgorithmTags;
 import org.spongycastle.bcpg.SymmetricKeyEncSessionPacket;
 import org.spongycastle.openpgp.operator.PBEDataDecryptorFactory;
 import org.spongycastle.openpgp.operator.PGPDataDecryptor;
-import org.spongycastle.util.io.TeeInputStream;
 
 /**
  * A password based encryption object.
@@ -84,16 +82,7 @@ public InputStream getDataStream(
 
             PGPDataDecryptor dataDecryptor = dataDecryptorFactory.createDataDecryptor(withIntegrityPacket, sessionData[0] & 0xff, sessionKey);
 
-            encStream = new BCPGInputStream(dataDecryptor.getInputStream(encData.getInputStream()));
-
-            if (withIntegrityPacket)
-            {
-                truncStream = new TruncatedStream(encStream);
-
-                integrityCalculator = dataDecryptor.getIntegrityCalculator();
-
-                encStream = new TeeInputStream(truncStream, integrityCalculator.getOutputStream());
-            }
+            initDecryptionStream(dataDecryptor, withIntegrityPacket);
 
             byte[] iv = new byte[dataDecryptor.getBlockSize()];
             for (int i = 0; i != iv.length; i++)
@@ -3,14 +3,12 @@
 import java.io.EOFException;
 import java.io.InputStream;
 
-import org.spongycastle.bcpg.BCPGInputStream;
 import org.spongycastle.bcpg.InputStreamPacket;
 import org.spongycastle.bcpg.PublicKeyEncSessionPacket;
 import org.spongycastle.bcpg.SymmetricEncIntegrityPacket;
 import org.spongycastle.bcpg.SymmetricKeyAlgorithmTags;
 import org.spongycastle.openpgp.operator.PGPDataDecryptor;
 import org.spongycastle.openpgp.operator.PublicKeyDataDecryptorFactory;
-import org.spongycastle.util.io.TeeInputStream;
 
 /**
  * A public key encrypted data object.
@@ -104,16 +102,7 @@ public InputStream getDataStream(
 
                 PGPDataDecryptor dataDecryptor = dataDecryptorFactory.createDataDecryptor(withIntegrityPacket, sessionData[0] & 0xff, sessionKey);
 
-                encStream = new BCPGInputStream(dataDecryptor.getInputStream(encData.getInputStream()));
-
-                if (withIntegrityPacket)
-                {
-                    truncStream = new TruncatedStream(encStream);
-
-                    integrityCalculator = dataDecryptor.getIntegrityCalculator();
-
-                    encStream = new TeeInputStream(truncStream, integrityCalculator.getOutputStream());
-                }
+                initDecryptionStream(dataDecryptor, withIntegrityPacket);
 
                 byte[] iv = new byte[dataDecryptor.getBlockSize()];
 
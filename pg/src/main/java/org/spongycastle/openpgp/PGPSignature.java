@@ -159,12 +159,7 @@ public void update(
     {
         if (signatureType == PGPSignature.CANONICAL_TEXT_DOCUMENT)
         {
-            int finish = off + length;
-            
-            for (int i = off; i != finish; i++)
-            {
-                this.update(bytes[i]);
-            }
+            canonicalTextUpdate(bytes, off, length);
         }
         else
         {
@@ -184,6 +179,18 @@ private void byteUpdate(byte b)
         }
     }
 
+    private void canonicalTextUpdate(byte[] block, int off, int len)
+    {
+        try
+        {
+            lastb = PGPUtil.writeCanonicalText(sigOut, lastb, block, off, len);
+        }
+        catch (IOException e)
+        {
+            throw new PGPRuntimeOperationException(e.getMessage(), e);
+        }
+    }
+
     private void blockUpdate(byte[] block, int off, int len)
     {
         try
@@ -80,6 +80,64 @@ static MPInteger[] dsaSigToMpi(
         return values;
     }
 
+    /**
+     * Write a block of text to a signature stream, converting its line endings (CR, LF or CR LF) to
+     * CR LF as required for a canonical text signature. Runs of bytes between the line endings
+     * that need changing are written in single calls, so text which already has CR LF line endings
+     * is passed through in one write.
+     *
+     * @param sigOut the signature stream.
+     * @param lastb the last byte of text passed in previously (0 if none).
+     * @param buf the text.
+     * @param off offset of the text in buf.
+     * @param len length of the text.
+     * @return the value of lastb for the next call.
+     */
+    static byte writeCanonicalText(
+        OutputStream sigOut,
+        byte         lastb,
+        byte[]       buf,
+        int          off,
+        int          len)
+        throws IOException
+    {
+        int end = off + len;
+        int runStart = off;
+
+        for (int i = off; i != end; i++)
+        {
+            byte b = buf[i];
+
+            if (b == '\r')
+            {
+                if (i + 1 == end || buf[i + 1] != '\n')
+                {
+                    sigOut.write(buf, runStart, i + 1 - runStart);
+                    sigOut.write('\n');
+                    runStart = i + 1;
+                }
+            }
+            else if (b == '\n')
+            {
+                if (i == off && lastb == '\r')
+                {
+                    // the CR ended the previous block and was written out as CR LF
+                    runStart = i + 1;
+                }
+                else if (i == off || buf[i - 1] != '\r')
+                {
+                    sigOut.write(buf, runStart, i - runStart);
+                    sigOut.write('\r');
+                    runStart = i;
+                }
+            }
+        }
+
+        sigOut.write(buf, runStart, end - runStart);
+
+        return (len > 0) ? buf[end - 1] : lastb;
+    }
+
     /**
      * Generates a random key for a {@link SymmetricKeyAlgorithmTags symmetric encryption algorithm}
      * .
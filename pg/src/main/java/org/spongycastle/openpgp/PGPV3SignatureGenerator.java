@@ -103,12 +103,7 @@ public void update(
     {
         if (sigType == PGPSignature.CANONICAL_TEXT_DOCUMENT)
         {
-            int finish = off + len;
-            
-            for (int i = off; i != finish; i++)
-            {
-                this.update(b[i]);
-            }
+            canonicalTextUpdate(b, off, len);
         }
         else
         {
@@ -128,6 +123,18 @@ private void byteUpdate(byte b)
         }
     }
 
+    private void canonicalTextUpdate(byte[] block, int off, int len)
+    {
+        try
+        {
+            lastb = PGPUtil.writeCanonicalText(sigOut, lastb, block, off, len);
+        }
+        catch (IOException e)
+        {
+            throw new PGPRuntimeOperationException("unable to update signature: " + e.getMessage(), e);
+        }
+    }
+
     private void blockUpdate(byte[] block, int off, int len)
     {
         try
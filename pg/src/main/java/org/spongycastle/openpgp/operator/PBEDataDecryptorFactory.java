@@ -1,5 +1,8 @@
 package org.spongycastle.openpgp.operator;
 
+import java.util.Hashtable;
+import java.util.concurrent.Executor;
+
 import org.spongycastle.bcpg.S2K;
 import org.spongycastle.bcpg.SymmetricKeyAlgorithmTags;
 import org.spongycastle.openpgp.PGPException;
@@ -13,6 +16,11 @@
     private char[] passPhrase;
     private PGPDigestCalculatorProvider calculatorProvider;
 
+    private Executor executor;
+
+    // keys already derived from the pass phrase, by algorithm and S2K
+    private Hashtable keyCache = new Hashtable();
+
     /**
      * Construct a PBE data decryptor factory.
      *
@@ -25,9 +33,21 @@ protected PBEDataDecryptorFactory(char[] passPhrase, PGPDigestCalculatorProvider
         this.calculatorProvider = calculatorProvider;
     }
 
+    /**
+     * Provide an executor to calculate the hash contexts of an expensive S2K concurrently, where
+     * the key is longer than the S2K digest.
+     *
+     * @param executor the executor to use, null to do all the work on the calling thread.
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
     /**
      * Generates an encryption key using the pass phrase and digest calculator configured for this
-     * factory.
+     * factory. Keys are cached until {@link #clearKeyCache()} is called, so a message with several
+     * PBE encrypted session keys using the same S2K only pays for the key derivation once.
      *
      * @param keyAlgorithm the {@link SymmetricKeyAlgorithmTags encryption algorithm} to generate a
      *            key for.
@@ -39,7 +59,17 @@ protected PBEDataDecryptorFactory(char[] passPhrase, PGPDigestCalculatorProvider
     public byte[] makeKeyFromPassPhrase(int keyAlgorithm, S2K s2k)
         throws PGPException
     {
-        return PGPUtil.makeKeyFromPassPhrase(calculatorProvider, keyAlgorithm, s2k, passPhrase);
+        return PGPUtil.makeKeyFromPassPhrase(keyCache, calculatorProvider, keyAlgorithm, s2k, passPhrase, executor);
+    }
+
+    /**
+     * Zero and discard the cached keys derived from the pass phrase. Callers should call this once
+     * they have finished decrypting with this factory, as the cache otherwise keeps the derived
+     * keys for as long as the factory is reachable.
+     */
+    public void clearKeyCache()
+    {
+        PGPUtil.clearKeyCache(keyCache);
     }
 
     /**
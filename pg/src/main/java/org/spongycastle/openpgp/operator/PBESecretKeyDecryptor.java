@@ -1,5 +1,8 @@
 package org.spongycastle.openpgp.operator;
 
+import java.util.Hashtable;
+import java.util.concurrent.Executor;
+
 import org.spongycastle.bcpg.S2K;
 import org.spongycastle.openpgp.PGPException;
 
@@ -8,6 +11,11 @@
     private char[] passPhrase;
     private PGPDigestCalculatorProvider calculatorProvider;
 
+    private Executor executor;
+
+    // keys already derived from the pass phrase, by algorithm and S2K
+    private Hashtable keyCache = new Hashtable();
+
     protected PBESecretKeyDecryptor(char[] passPhrase, PGPDigestCalculatorProvider calculatorProvider)
     {
         this.passPhrase = passPhrase;
@@ -20,10 +28,36 @@ public PGPDigestCalculator getChecksumCalculator(int hashAlgorithm)
         return calculatorProvider.get(hashAlgorithm);
     }
 
+    /**
+     * Provide an executor to calculate the hash contexts of an expensive S2K concurrently, where
+     * the key is longer than the S2K digest.
+     *
+     * @param executor the executor to use, null to do all the work on the calling thread.
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Generate a key using the pass phrase of this decryptor. Keys are cached by algorithm and S2K
+     * until {@link #clearKeyCache()} is called, so unlocking several keys protected with the same
+     * S2K only pays for the key derivation once.
+     */
     public byte[] makeKeyFromPassPhrase(int keyAlgorithm, S2K s2k)
         throws PGPException
     {
-        return PGPUtil.makeKeyFromPassPhrase(calculatorProvider, keyAlgorithm, s2k, passPhrase);
+        return PGPUtil.makeKeyFromPassPhrase(keyCache, calculatorProvider, keyAlgorithm, s2k, passPhrase, executor);
+    }
+
+    /**
+     * Zero and discard the cached keys derived from the pass phrase. Callers should call this when
+     * they have finished unlocking keys with this decryptor, as the cache otherwise keeps the
+     * derived keys for as long as the decryptor is reachable.
+     */
+    public void clearKeyCache()
+    {
+        PGPUtil.clearKeyCache(keyCache);
     }
 
     public abstract byte[] recoverKeyData(int encAlgorithm, byte[] key, byte[] iv, byte[] keyData, int keyOff, int keyLen)
@@ -0,0 +1,31 @@
+package org.spongycastle.openpgp.operator;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A decryptor for integrity protected data that checks the modification detection code (MDC) in
+ * the same pass as it decrypts, rather than leaving it to a separate {@link PGPDigestCalculator}.
+ */
+public interface PGPMDCDataDecryptor
+    extends PGPDataDecryptor
+{
+    /**
+     * Wraps an integrity protected encrypted data stream with a stream that will return the
+     * decrypted data, not including the trailing modification detection code packet.
+     *
+     * @param in the encrypted data.
+     * @return a decrypting stream.
+     */
+    InputStream getMDCInputStream(InputStream in);
+
+    /**
+     * Check the modification detection code of the data returned by the stream from
+     * {@link #getMDCInputStream(InputStream)}.
+     *
+     * @return true if the calculated and the received modification detection codes match.
+     * @throws IOException if the stream has not been read to the end.
+     */
+    boolean verifyMDC()
+        throws IOException;
+}
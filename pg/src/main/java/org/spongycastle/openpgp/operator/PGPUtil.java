@@ -2,12 +2,20 @@
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.spongycastle.bcpg.HashAlgorithmTags;
 import org.spongycastle.bcpg.S2K;
 import org.spongycastle.bcpg.SymmetricKeyAlgorithmTags;
 import org.spongycastle.openpgp.PGPException;
+import org.spongycastle.util.Arrays;
 import org.spongycastle.util.Strings;
+import org.spongycastle.util.encoders.Hex;
 
 /**
  * Basic utility class
@@ -15,6 +23,18 @@
 class PGPUtil
     implements HashAlgorithmTags
 {
+    /*
+     * Size of the buffer of repeated salt and pass phrase used for iterated S2K - large enough that
+     * the digest sees few, long updates.
+     */
+    private static final int S2K_BUFFER_SIZE = 64 * 1024;
+
+    /*
+     * Iteration count (in bytes hashed) above which the hash contexts for a key longer than the
+     * digest are calculated concurrently, if an executor is available.
+     */
+    private static final long PARALLEL_THRESHOLD = 1024 * 1024;
+
     static byte[] makeKeyFromPassPhrase(
         PGPDigestCalculator digestCalculator,
         int     algorithm,
@@ -22,74 +42,331 @@ static byte[] makeKeyFromPassPhrase(
         char[]  passPhrase)
         throws PGPException
     {
-        // TODO: Never used
-        String    algName = null;
-        int        keySize = 0;
+        int        keySize = getKeySize(algorithm);
+
+        checkDigestCalculator(digestCalculator, s2k);
+
+        byte[]    pBytes = Strings.toUTF8ByteArray(passPhrase);
+        byte[]    keyBytes = new byte[(keySize + 7) / 8];
+
+        int    generatedBytes = 0;
+        int    loopCount = 0;
+
+        try
+        {
+            while (generatedBytes < keyBytes.length)
+            {
+                byte[]    dig = calculateDigest(digestCalculator, s2k, pBytes, loopCount);
+
+                if (dig.length > (keyBytes.length - generatedBytes))
+                {
+                    System.arraycopy(dig, 0, keyBytes, generatedBytes, keyBytes.length - generatedBytes);
+                }
+                else
+                {
+                    System.arraycopy(dig, 0, keyBytes, generatedBytes, dig.length);
+                }
+
+                generatedBytes += dig.length;
+
+                loopCount++;
+            }
+        }
+        catch (IOException e)
+        {
+            throw new PGPException("exception calculating digest: " + e.getMessage(), e);
+        }
+        finally
+        {
+            Arrays.fill(pBytes, (byte)0);
+        }
+
+        return keyBytes;
+    }
+
+    public static byte[] makeKeyFromPassPhrase(
+        PGPDigestCalculatorProvider digCalcProvider,
+        int     algorithm,
+        S2K     s2k,
+        char[]  passPhrase)
+        throws PGPException
+    {
+        return makeKeyFromPassPhrase(digCalcProvider, algorithm, s2k, passPhrase, null);
+    }
+
+    /**
+     * Generate a key from a pass phrase. Where the key is longer than the digest and the S2K is
+     * expensive, the hash contexts after the first are passed to executor, and any the executor
+     * has not started by the time the calling thread has finished the first are run by the
+     * calling thread as well.
+     *
+     * @param executor the executor to run the extra hash contexts on, null to run them all on the
+     *            calling thread.
+     */
+    static byte[] makeKeyFromPassPhrase(
+        PGPDigestCalculatorProvider digCalcProvider,
+        int     algorithm,
+        S2K     s2k,
+        char[]  passPhrase,
+        Executor executor)
+        throws PGPException
+    {
+        PGPDigestCalculator digestCalculator;
+
+        if (s2k != null)
+        {
+            digestCalculator = digCalcProvider.get(s2k.getHashAlgorithm());
+        }
+        else
+        {
+            digestCalculator = digCalcProvider.get(HashAlgorithmTags.MD5);
+        }
+
+        if (executor == null || s2k == null || s2k.getType() != S2K.SALTED_AND_ITERATED
+            || s2k.getIterationCount() < PARALLEL_THRESHOLD)
+        {
+            return makeKeyFromPassPhrase(digestCalculator, algorithm, s2k, passPhrase);
+        }
+
+        int keyLength = (getKeySize(algorithm) + 7) / 8;
+        int digestSize = getDigestSize(s2k.getHashAlgorithm());
+
+        if (digestSize == 0 || digestSize >= keyLength)
+        {
+            return makeKeyFromPassPhrase(digestCalculator, algorithm, s2k, passPhrase);
+        }
+
+        checkDigestCalculator(digestCalculator, s2k);
+
+        //
+        // each further hash context differs only in its prefix of zero bytes, so they are
+        // independent - the first is calculated here, the others are offered to the executor.
+        //
+        byte[] pBytes = Strings.toUTF8ByteArray(passPhrase);
+        FutureTask[] tasks = new FutureTask[(keyLength + digestSize - 1) / digestSize];
+        byte[] keyBytes = new byte[keyLength];
+
+        try
+        {
+            for (int i = 1; i < tasks.length; i++)
+            {
+                tasks[i] = new FutureTask(new DigestTask(digCalcProvider.get(s2k.getHashAlgorithm()), s2k, pBytes, i));
+                executor.execute(tasks[i]);
+            }
+
+            byte[] dig = calculateDigest(digestCalculator, s2k, pBytes, 0);
+            int generatedBytes = 0;
+
+            for (int i = 0; i != tasks.length; i++)
+            {
+                if (i > 0)
+                {
+                    dig = take(tasks, i);
+                }
+
+                System.arraycopy(dig, 0, keyBytes, generatedBytes, Math.min(dig.length, keyLength - generatedBytes));
+                generatedBytes += dig.length;
+            }
+        }
+        catch (IOException e)
+        {
+            cancel(tasks, 1);
+
+            throw new PGPException("exception calculating digest: " + e.getMessage(), e);
+        }
+        catch (PGPException e)
+        {
+            cancel(tasks, 1);
+
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            cancel(tasks, 1);
+
+            throw e;
+        }
+        finally
+        {
+            Arrays.fill(pBytes, (byte)0);
+        }
+
+        return keyBytes;
+    }
+
+    /*
+     * Run the task here if the executor has not started it yet, then wait for its result.
+     */
+    private static byte[] take(FutureTask[] tasks, int i)
+        throws PGPException
+    {
+        tasks[i].run();
+
+        try
+        {
+            return (byte[])tasks[i].get();
+        }
+        catch (InterruptedException e)
+        {
+            cancel(tasks, i);
+            Thread.currentThread().interrupt();
+
+            throw new PGPException("interrupted calculating digest", e);
+        }
+        catch (ExecutionException e)
+        {
+            cancel(tasks, i);
+
+            Throwable cause = e.getCause();
+            if (cause instanceof PGPException)
+            {
+                throw (PGPException)cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+
+            throw new PGPException("exception calculating digest: " + cause.getMessage(), (Exception)cause);
+        }
+    }
+
+    private static void cancel(FutureTask[] tasks, int from)
+    {
+        for (int i = from; i < tasks.length; i++)
+        {
+            if (tasks[i] != null)
+            {
+                tasks[i].cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Generate a key as for {@link #makeKeyFromPassPhrase(PGPDigestCalculatorProvider, int, S2K, char[], Executor)},
+     * reusing the result of an earlier calculation from keyCache where there is one. The cache is
+     * indexed by the algorithm and the encoded S2K, so must only ever be used with one pass phrase.
+     */
+    static byte[] makeKeyFromPassPhrase(
+        Hashtable keyCache,
+        PGPDigestCalculatorProvider digCalcProvider,
+        int     algorithm,
+        S2K     s2k,
+        char[]  passPhrase,
+        Executor executor)
+        throws PGPException
+    {
+        String cacheId;
+
+        try
+        {
+            cacheId = algorithm + ":" + ((s2k != null) ? Hex.toHexString(s2k.getEncoded()) : "");
+        }
+        catch (IOException e)
+        {
+            throw new PGPException("unable to encode S2K: " + e.getMessage(), e);
+        }
+
+        byte[] key = (byte[])keyCache.get(cacheId);
+        if (key == null)
+        {
+            key = makeKeyFromPassPhrase(digCalcProvider, algorithm, s2k, passPhrase, executor);
+
+            keyCache.put(cacheId, key);
+        }
+
+        return Arrays.clone(key);
+    }
+
+    /**
+     * Zero and remove every key in a cache filled by
+     * {@link #makeKeyFromPassPhrase(Hashtable, PGPDigestCalculatorProvider, int, S2K, char[], Executor)}.
+     */
+    static void clearKeyCache(Hashtable keyCache)
+    {
+        synchronized (keyCache)
+        {
+            for (Enumeration e = keyCache.elements(); e.hasMoreElements();)
+            {
+                Arrays.fill((byte[])e.nextElement(), (byte)0);
+            }
 
+            keyCache.clear();
+        }
+    }
+
+    private static int getKeySize(int algorithm)
+        throws PGPException
+    {
         switch (algorithm)
         {
         case SymmetricKeyAlgorithmTags.TRIPLE_DES:
-            keySize = 192;
-            algName = "DES_EDE";
-            break;
+            return 192;
         case SymmetricKeyAlgorithmTags.IDEA:
-            keySize = 128;
-            algName = "IDEA";
-            break;
+            return 128;
         case SymmetricKeyAlgorithmTags.CAST5:
-            keySize = 128;
-            algName = "CAST5";
-            break;
+            return 128;
         case SymmetricKeyAlgorithmTags.BLOWFISH:
-            keySize = 128;
-            algName = "Blowfish";
-            break;
+            return 128;
         case SymmetricKeyAlgorithmTags.SAFER:
-            keySize = 128;
-            algName = "SAFER";
-            break;
+            return 128;
         case SymmetricKeyAlgorithmTags.DES:
-            keySize = 64;
-            algName = "DES";
-            break;
+            return 64;
         case SymmetricKeyAlgorithmTags.AES_128:
-            keySize = 128;
-            algName = "AES";
-            break;
+            return 128;
         case SymmetricKeyAlgorithmTags.AES_192:
-            keySize = 192;
-            algName = "AES";
-            break;
+            return 192;
         case SymmetricKeyAlgorithmTags.AES_256:
-            keySize = 256;
-            algName = "AES";
-            break;
+            return 256;
         case SymmetricKeyAlgorithmTags.TWOFISH:
-            keySize = 256;
-            algName = "Twofish";
-            break;
+            return 256;
         case SymmetricKeyAlgorithmTags.CAMELLIA_128:
-            keySize = 128;
-            algName = "Camellia";
-            break;
+            return 128;
         case SymmetricKeyAlgorithmTags.CAMELLIA_192:
-            keySize = 192;
-            algName = "Camellia";
-            break;
+            return 192;
         case SymmetricKeyAlgorithmTags.CAMELLIA_256:
-            keySize = 256;
-            algName = "Camellia";
-            break;
+            return 256;
         default:
             throw new PGPException("unknown symmetric algorithm: " + algorithm);
         }
+    }
 
-        byte[]    pBytes = Strings.toUTF8ByteArray(passPhrase);
-        byte[]    keyBytes = new byte[(keySize + 7) / 8];
-
-        int    generatedBytes = 0;
-        int    loopCount = 0;
+    /**
+     * Return the output size of a hash algorithm, or 0 if it is not known here.
+     */
+    private static int getDigestSize(int hashAlgorithm)
+    {
+        switch (hashAlgorithm)
+        {
+        case MD2:
+        case MD5:
+            return 16;
+        case SHA1:
+        case RIPEMD160:
+        case HAVAL_5_160:
+            return 20;
+        case TIGER_192:
+            return 24;
+        case SHA224:
+            return 28;
+        case SHA256:
+            return 32;
+        case SHA384:
+            return 48;
+        case SHA512:
+            return 64;
+        default:
+            return 0;
+        }
+    }
 
+    private static void checkDigestCalculator(PGPDigestCalculator digestCalculator, S2K s2k)
+        throws PGPException
+    {
         if (s2k != null)
         {
             if (s2k.getHashAlgorithm() != digestCalculator.getAlgorithm())
@@ -104,126 +381,113 @@ static byte[] makeKeyFromPassPhrase(
                 throw new PGPException("digestCalculator not for MD5");
             }
         }
+    }
 
+    /**
+     * Calculate one hash context of the S2K: prefixLength zero bytes followed by the S2K input.
+     */
+    private static byte[] calculateDigest(
+        PGPDigestCalculator digestCalculator,
+        S2K     s2k,
+        byte[]  pBytes,
+        int     prefixLength)
+        throws PGPException, IOException
+    {
         OutputStream dOut = digestCalculator.getOutputStream();
 
-        try
+        if (prefixLength > 0)
         {
-            while (generatedBytes < keyBytes.length)
+            dOut.write(new byte[prefixLength]);
+        }
+
+        if (s2k != null)
+        {
+            byte[]    iv = s2k.getIV();
+
+            switch (s2k.getType())
             {
-                if (s2k != null)
-                {
-                    for (int i = 0; i != loopCount; i++)
-                    {
-                        dOut.write(0);
-                    }
-
-                    byte[]    iv = s2k.getIV();
-
-                    switch (s2k.getType())
-                    {
-                    case S2K.SIMPLE:
-                        dOut.write(pBytes);
-                        break;
-                    case S2K.SALTED:
-                        dOut.write(iv);
-                        dOut.write(pBytes);
-                        break;
-                    case S2K.SALTED_AND_ITERATED:
-                        long    count = s2k.getIterationCount();
-                        dOut.write(iv);
-                        dOut.write(pBytes);
-
-                        count -= iv.length + pBytes.length;
-
-                        while (count > 0)
-                        {
-                            if (count < iv.length)
-                            {
-                                dOut.write(iv, 0, (int)count);
-                                break;
-                            }
-                            else
-                            {
-                                dOut.write(iv);
-                                count -= iv.length;
-                            }
-
-                            if (count < pBytes.length)
-                            {
-                                dOut.write(pBytes, 0, (int)count);
-                                count = 0;
-                            }
-                            else
-                            {
-                                dOut.write(pBytes);
-                                count -= pBytes.length;
-                            }
-                        }
-                        break;
-                    default:
-                        throw new PGPException("unknown S2K type: " + s2k.getType());
-                    }
-                }
-                else
-                {
-                    for (int i = 0; i != loopCount; i++)
-                    {
-                        dOut.write((byte)0);
-                    }
+            case S2K.SIMPLE:
+                dOut.write(pBytes);
+                break;
+            case S2K.SALTED:
+                dOut.write(iv);
+                dOut.write(pBytes);
+                break;
+            case S2K.SALTED_AND_ITERATED:
+                writeIterated(dOut, iv, pBytes, s2k.getIterationCount());
+                break;
+            default:
+                throw new PGPException("unknown S2K type: " + s2k.getType());
+            }
+        }
+        else
+        {
+            dOut.write(pBytes);
+        }
 
-                    dOut.write(pBytes);
-                }
+        dOut.close();
 
-                dOut.close();
+        return digestCalculator.getDigest();
+    }
 
-                byte[]    dig = digestCalculator.getDigest();
+    /**
+     * Write count bytes of the repeated sequence salt || pass phrase (but at least one whole copy)
+     * using a buffer holding as many copies of it as will fit, so the digest is updated a buffer
+     * at a time rather than a salt or a pass phrase at a time.
+     */
+    private static void writeIterated(OutputStream dOut, byte[] iv, byte[] pBytes, long count)
+        throws IOException
+    {
+        int unitLength = iv.length + pBytes.length;
 
-                if (dig.length > (keyBytes.length - generatedBytes))
-                {
-                    System.arraycopy(dig, 0, keyBytes, generatedBytes, keyBytes.length - generatedBytes);
-                }
-                else
-                {
-                    System.arraycopy(dig, 0, keyBytes, generatedBytes, dig.length);
-                }
+        count = Math.max(count, unitLength);
 
-                generatedBytes += dig.length;
+        long units = Math.min(Math.max(1, S2K_BUFFER_SIZE / unitLength), (count + unitLength - 1) / unitLength);
+        byte[] buf = new byte[(int)units * unitLength];
 
-                loopCount++;
-            }
-        }
-        catch (IOException e)
+        for (int off = 0; off < buf.length; off += unitLength)
         {
-            throw new PGPException("exception calculating digest: " + e.getMessage(), e);
+            System.arraycopy(iv, 0, buf, off, iv.length);
+            System.arraycopy(pBytes, 0, buf, off + iv.length, pBytes.length);
         }
 
-        for (int i = 0; i != pBytes.length; i++)
+        try
         {
-            pBytes[i] = 0;
-        }
+            while (count > buf.length)
+            {
+                dOut.write(buf, 0, buf.length);
+                count -= buf.length;
+            }
 
-        return keyBytes;
+            // every write so far started on a salt boundary, so the tail is a prefix of the buffer
+            dOut.write(buf, 0, (int)count);
+        }
+        finally
+        {
+            Arrays.fill(buf, (byte)0);
+        }
     }
 
-    public static byte[] makeKeyFromPassPhrase(
-        PGPDigestCalculatorProvider digCalcProvider,
-        int     algorithm,
-        S2K     s2k,
-        char[]  passPhrase)
-        throws PGPException
+    private static class DigestTask
+        implements Callable
     {
-        PGPDigestCalculator digestCalculator;
+        private final PGPDigestCalculator digestCalculator;
+        private final S2K s2k;
+        private final byte[] pBytes;
+        private final int prefixLength;
 
-        if (s2k != null)
+        DigestTask(PGPDigestCalculator digestCalculator, S2K s2k, byte[] pBytes, int prefixLength)
         {
-            digestCalculator = digCalcProvider.get(s2k.getHashAlgorithm());
+            this.digestCalculator = digestCalculator;
+            this.s2k = s2k;
+            this.pBytes = pBytes;
+            this.prefixLength = prefixLength;
         }
-        else
+
+        public Object call()
+            throws Exception
         {
-            digestCalculator = digCalcProvider.get(HashAlgorithmTags.MD5);
+            return calculateDigest(digestCalculator, s2k, pBytes, prefixLength);
         }
-
-        return makeKeyFromPassPhrase(digestCalculator, algorithm, s2k, passPhrase);
     }
 }
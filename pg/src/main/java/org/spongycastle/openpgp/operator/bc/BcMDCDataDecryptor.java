@@ -0,0 +1,206 @@
+package org.spongycastle.openpgp.operator.bc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.spongycastle.crypto.BufferedBlockCipher;
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.digests.SHA1Digest;
+import org.spongycastle.crypto.io.CipherInputStream;
+import org.spongycastle.openpgp.operator.PGPDigestCalculator;
+import org.spongycastle.openpgp.operator.PGPMDCDataDecryptor;
+import org.spongycastle.util.Arrays;
+
+/**
+ * Decryptor for symmetrically encrypted integrity protected data.
+ * <p>
+ * The stream returned by {@link #getMDCInputStream(InputStream)} reads the cipher text in large
+ * chunks, decrypts each chunk into its buffer and immediately feeds the SHA-1 modification
+ * detection code from the same buffer, while it is still in cache. The last 22 bytes decrypted (the
+ * MDC packet) are always held back, so no separate truncating or tee stream is needed.
+ * </p>
+ */
+class BcMDCDataDecryptor
+    implements PGPMDCDataDecryptor
+{
+    private static final int CHUNK_SIZE = 8192;
+    private static final int MDC_PACKET_LENGTH = 22; // tag, length and a SHA-1 digest
+
+    private final BufferedBlockCipher cipher;
+
+    private MDCInputStream mdcStream;
+
+    BcMDCDataDecryptor(BufferedBlockCipher cipher)
+    {
+        this.cipher = cipher;
+    }
+
+    public InputStream getInputStream(InputStream in)
+    {
+        return new CipherInputStream(in, cipher);
+    }
+
+    public int getBlockSize()
+    {
+        return cipher.getBlockSize();
+    }
+
+    public PGPDigestCalculator getIntegrityCalculator()
+    {
+        return new SHA1PGPDigestCalculator();
+    }
+
+    public InputStream getMDCInputStream(InputStream in)
+    {
+        mdcStream = new MDCInputStream(in);
+
+        return mdcStream;
+    }
+
+    public boolean verifyMDC()
+        throws IOException
+    {
+        if (mdcStream == null || !mdcStream.finished)
+        {
+            throw new IOException("data stream not read to the end");
+        }
+
+        return Arrays.constantTimeAreEqual(mdcStream.calculatedMDC, mdcStream.receivedMDC);
+    }
+
+    private class MDCInputStream
+        extends InputStream
+    {
+        private final InputStream in;
+        private final Digest digest = new SHA1Digest();
+        private final byte[] inBuf = new byte[CHUNK_SIZE];
+        private final byte[] buf;
+
+        private int pos = 0;        // next byte to return
+        private int end = 0;        // end of the bytes that have been hashed and may be returned
+        private int held = 0;       // decrypted bytes after end, held back as a possible MDC packet
+
+        private boolean finished = false;
+        private byte[] calculatedMDC;
+        private byte[] receivedMDC;
+
+        MDCInputStream(InputStream in)
+        {
+            this.in = in;
+            this.buf = new byte[MDC_PACKET_LENGTH + CHUNK_SIZE + cipher.getBlockSize()];
+        }
+
+        public int available()
+            throws IOException
+        {
+            return end - pos;
+        }
+
+        public int read()
+            throws IOException
+        {
+            if (pos == end && !fill())
+            {
+                return -1;
+            }
+
+            return buf[pos++] & 0xff;
+        }
+
+        public int read(byte[] b, int off, int len)
+            throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+
+            if (pos == end && !fill())
+            {
+                return -1;
+            }
+
+            int count = Math.min(len, end - pos);
+            System.arraycopy(buf, pos, b, off, count);
+            pos += count;
+
+            return count;
+        }
+
+        public void close()
+            throws IOException
+        {
+            in.close();
+        }
+
+        private boolean fill()
+            throws IOException
+        {
+            while (!finished)
+            {
+                System.arraycopy(buf, end, buf, 0, held);
+                pos = end = 0;
+
+                int total;
+                int n = in.read(inBuf, 0, inBuf.length);
+                if (n < 0)
+                {
+                    total = held + doFinal(held);
+                    finished = true;
+                }
+                else
+                {
+                    total = held + cipher.processBytes(inBuf, 0, n, buf, held);
+                }
+
+                int release = Math.max(0, total - MDC_PACKET_LENGTH);
+                digest.update(buf, 0, release);
+                end = release;
+                held = total - release;
+
+                if (finished)
+                {
+                    finish();
+                }
+
+                if (end > 0)
+                {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private int doFinal(int outOff)
+            throws IOException
+        {
+            try
+            {
+                return cipher.doFinal(buf, outOff);
+            }
+            catch (Exception e)
+            {
+                throw new IOException("Error finalising cipher " + e);
+            }
+        }
+
+        private void finish()
+            throws IOException
+        {
+            if (held < MDC_PACKET_LENGTH)
+            {
+                throw new EOFException("unexpected end of stream: MDC packet missing");
+            }
+
+            // the MDC covers its own tag and length
+            digest.update(buf, end, 2);
+
+            calculatedMDC = new byte[digest.getDigestSize()];
+            digest.doFinal(calculatedMDC, 0);
+
+            receivedMDC = Arrays.copyOfRange(buf, end + 2, end + MDC_PACKET_LENGTH);
+        }
+    }
+}
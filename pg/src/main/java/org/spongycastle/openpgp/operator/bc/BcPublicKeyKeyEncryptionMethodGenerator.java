@@ -37,6 +37,16 @@
     private SecureRandom random;
     private BcPGPKeyConverter keyConverter = new BcPGPKeyConverter();
 
+    //
+    // values depending only on the recipient key, calculated on first use and kept so a generator
+    // reused for further messages does not repeat the work. For ECDH keeping the recipient point
+    // also keeps the multiplication tables built for it.
+    //
+    private AsymmetricKeyParameter publicKey;
+    private ECDomainParameters ecParams;
+    private ECPoint recipientPoint;
+    private byte[] userKeyingMaterial;
+
     /**
      * Create a public key encryption method generator with the method to be based on the passed in key.
      *
@@ -74,26 +84,19 @@ protected byte[] encryptSessionInfo(PGPPublicKey pubKey, byte[] sessionInfo)
             {
                 AsymmetricBlockCipher c = BcImplProvider.createPublicKeyCipher(pubKey.getAlgorithm());
 
-                AsymmetricKeyParameter key = keyConverter.getPublicKey(pubKey);
-
-                if (random == null)
-                {
-                    random = new SecureRandom();
-                }
-
-                c.init(true, new ParametersWithRandom(key, random));
+                c.init(true, new ParametersWithRandom(getPublicKey(pubKey), getRandom()));
 
                 return c.processBlock(sessionInfo, 0, sessionInfo.length);
             }
             else
             {
                 ECDHPublicBCPGKey ecKey = (ECDHPublicBCPGKey)pubKey.getPublicKeyPacket().getKey();
-                X9ECParameters x9Params = BcUtil.getX9Parameters(ecKey.getCurveOID());
-                ECDomainParameters ecParams = new ECDomainParameters(x9Params.getCurve(), x9Params.getG(), x9Params.getN());
+
+                initECDH(pubKey, ecKey);
 
                 // Generate the ephemeral key pair
                 ECKeyPairGenerator gen = new ECKeyPairGenerator();
-                gen.init(new ECKeyGenerationParameters(ecParams, random));
+                gen.init(new ECKeyGenerationParameters(ecParams, getRandom()));
 
                 EphemeralKeyPairGenerator kGen = new EphemeralKeyPairGenerator(gen, new KeyEncoder()
                 {
@@ -107,15 +110,15 @@ public byte[] getEncoded(AsymmetricKeyParameter keyParameter)
 
                 ECPrivateKeyParameters ephPriv = (ECPrivateKeyParameters)ephKp.getKeyPair().getPrivate();
 
-                ECPoint S = BcUtil.decodePoint(ecKey.getEncodedPoint(), x9Params.getCurve()).multiply(ephPriv.getD()).normalize();
+                ECPoint S = recipientPoint.multiply(ephPriv.getD()).normalize();
 
                 RFC6637KDFCalculator rfc6637KDFCalculator = new RFC6637KDFCalculator(new BcPGPDigestCalculatorProvider().get(ecKey.getHashAlgorithm()), ecKey.getSymmetricKeyAlgorithm());
 
-                KeyParameter key = new KeyParameter(rfc6637KDFCalculator.createKey(S, RFC6637Utils.createUserKeyingMaterial(pubKey.getPublicKeyPacket(), new BcKeyFingerprintCalculator())));
+                KeyParameter key = new KeyParameter(rfc6637KDFCalculator.createKey(S, userKeyingMaterial));
 
                 Wrapper c = BcImplProvider.createWrapper(ecKey.getSymmetricKeyAlgorithm());
 
-                c.init(true, new ParametersWithRandom(key, random));
+                c.init(true, new ParametersWithRandom(key, getRandom()));
 
                 byte[] paddedSessionData = PGPPad.padSessionData(sessionInfo);
 
@@ -140,4 +143,38 @@ public byte[] getEncoded(AsymmetricKeyParameter keyParameter)
             throw new PGPException("exception encrypting session info: " + e.getMessage(), e);
         }
     }
+
+    private synchronized SecureRandom getRandom()
+    {
+        if (random == null)
+        {
+            random = new SecureRandom();
+        }
+
+        return random;
+    }
+
+    private synchronized AsymmetricKeyParameter getPublicKey(PGPPublicKey pubKey)
+        throws PGPException
+    {
+        if (publicKey == null)
+        {
+            publicKey = keyConverter.getPublicKey(pubKey);
+        }
+
+        return publicKey;
+    }
+
+    private synchronized void initECDH(PGPPublicKey pubKey, ECDHPublicBCPGKey ecKey)
+        throws IOException, PGPException
+    {
+        if (recipientPoint == null)
+        {
+            X9ECParameters x9Params = BcUtil.getX9Parameters(ecKey.getCurveOID());
+
+            ecParams = new ECDomainParameters(x9Params.getCurve(), x9Params.getG(), x9Params.getN());
+            userKeyingMaterial = RFC6637Utils.createUserKeyingMaterial(pubKey.getPublicKeyPacket(), new BcKeyFingerprintCalculator());
+            recipientPoint = BcUtil.decodePoint(ecKey.getEncodedPoint(), x9Params.getCurve());
+        }
+    }
 }
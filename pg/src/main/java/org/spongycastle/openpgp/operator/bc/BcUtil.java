@@ -55,6 +55,11 @@ public static PGPDataDecryptor createDataDecryptor(boolean withIntegrityPacket,
     {
         final BufferedBlockCipher c = createStreamCipher(false, engine, withIntegrityPacket, key);
 
+        if (withIntegrityPacket)
+        {
+            return new BcMDCDataDecryptor(c);
+        }
+
         return new PGPDataDecryptor()
         {
             public InputStream getInputStream(InputStream in)
@@ -0,0 +1,103 @@
+package org.spongycastle.openpgp.test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.SecureRandom;
+
+import org.spongycastle.bcpg.ArmoredInputStream;
+import org.spongycastle.bcpg.ArmoredOutputStream;
+import org.spongycastle.bcpg.CRC24;
+
+/**
+ * Compares the throughput of ASCII armored and binary export/import of a large message.
+ * <p>
+ * Usage: ArmoredThroughputTest [sizeMB [runs]]
+ * </p>
+ */
+public class ArmoredThroughputTest
+{
+    private static final int BUFFER_SIZE = 8192;
+
+    public static void main(String[] args)
+        throws IOException
+    {
+        int sizeMB = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        byte[] data = new byte[sizeMB * 1024 * 1024];
+        new SecureRandom().nextBytes(data);
+
+        byte[] armored = armor(data);
+
+        for (int run = 0; run < runs; ++run)
+        {
+            System.out.println("Run " + (run + 1) + ":");
+
+            long start = System.nanoTime();
+            CRC24 crc = new CRC24();
+            crc.update(data, 0, data.length);
+            report("  CRC24", data.length, start);
+
+            start = System.nanoTime();
+            copy(new ByteArrayInputStream(data), new ByteArrayOutputStream(data.length));
+            report("  binary copy", data.length, start);
+
+            start = System.nanoTime();
+            armor(data);
+            report("  armor (write(byte[]))", data.length, start);
+
+            start = System.nanoTime();
+            copy(new ArmoredInputStream(new BufferedInputStream(new ByteArrayInputStream(armored))),
+                new ByteArrayOutputStream(data.length));
+            report("  dearmor (read(byte[]))", data.length, start);
+
+            start = System.nanoTime();
+            InputStream aIn = new ArmoredInputStream(new BufferedInputStream(new ByteArrayInputStream(armored)));
+            ByteArrayOutputStream bOut = new ByteArrayOutputStream(data.length);
+            int c;
+            while ((c = aIn.read()) >= 0)
+            {
+                bOut.write(c);
+            }
+            report("  dearmor (read())", data.length, start);
+        }
+    }
+
+    private static byte[] armor(byte[] data)
+        throws IOException
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream(data.length * 4 / 3 + 1024);
+        ArmoredOutputStream aOut = new ArmoredOutputStream(bOut);
+
+        for (int off = 0; off < data.length; off += BUFFER_SIZE)
+        {
+            aOut.write(data, off, Math.min(BUFFER_SIZE, data.length - off));
+        }
+        aOut.close();
+
+        return bOut.toByteArray();
+    }
+
+    private static void copy(InputStream in, OutputStream out)
+        throws IOException
+    {
+        byte[] buf = new byte[BUFFER_SIZE];
+        int len;
+        while ((len = in.read(buf, 0, buf.length)) >= 0)
+        {
+            out.write(buf, 0, len);
+        }
+    }
+
+    private static void report(String label, long bytes, long startNanos)
+    {
+        long elapsed = System.nanoTime() - startNanos;
+        double mbPerSec = (bytes / (1024.0 * 1024.0)) / (elapsed / 1000000000.0);
+
+        System.out.println(label + ": " + (elapsed / 1000000) + "ms, " + Math.round(mbPerSec) + " MB/s");
+    }
+}
@@ -6,7 +6,13 @@
 import java.security.SecureRandom;
 import java.security.Security;
 import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.spongycastle.bcpg.HashAlgorithmTags;
+import org.spongycastle.bcpg.S2K;
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.digests.SHA1Digest;
 import org.spongycastle.jce.provider.BouncyCastleProvider;
 import org.spongycastle.openpgp.PGPCompressedData;
 import org.spongycastle.openpgp.PGPCompressedDataGenerator;
@@ -21,8 +27,11 @@
 import org.spongycastle.openpgp.operator.bc.BcPBEKeyEncryptionMethodGenerator;
 import org.spongycastle.openpgp.operator.bc.BcPGPDataEncryptorBuilder;
 import org.spongycastle.openpgp.operator.bc.BcPGPDigestCalculatorProvider;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
 import org.spongycastle.util.encoders.Base64;
 import org.spongycastle.util.encoders.Hex;
+import org.spongycastle.util.io.Streams;
 import org.spongycastle.util.test.SimpleTest;
 import org.spongycastle.util.test.UncloseableOutputStream;
 
@@ -440,6 +449,179 @@ public void performTest()
 
         tryAlgorithm(PGPEncryptedData.AES_128, text);
         //tryAlgorithm(PGPEncryptedData.CAMELLIA_128, text);
+
+        integrityTest();
+        s2kTest();
+    }
+
+    /**
+     * check iterated S2K against a byte at a time reference, for keys needing one and two hash
+     * contexts and iteration counts either side of the point where the contexts are run in parallel.
+     */
+    private void s2kTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try
+        {
+            s2kTest(null);
+            s2kTest(executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void s2kTest(ExecutorService executor)
+        throws Exception
+    {
+        byte[] salt = new byte[8];
+        new SecureRandom().nextBytes(salt);
+
+        int[] itCounts = { 0x60, 0xb0, 0xff };
+        for (int i = 0; i != itCounts.length; i++)
+        {
+            S2K s2k = new S2K(HashAlgorithmTags.SHA1, salt, itCounts[i]);
+
+            BcPBEDataDecryptorFactory decryptorFactory = new BcPBEDataDecryptorFactory(pass, new BcPGPDigestCalculatorProvider());
+            decryptorFactory.setExecutor(executor);
+
+            byte[] key = decryptorFactory.makeKeyFromPassPhrase(PGPEncryptedData.AES_256, s2k);
+            if (!areEqual(referenceS2K(s2k, 32), key))
+            {
+                fail("iterated S2K mismatch for AES-256 with count " + s2k.getIterationCount());
+            }
+
+            key = decryptorFactory.makeKeyFromPassPhrase(PGPEncryptedData.CAST5, s2k);
+            if (!areEqual(referenceS2K(s2k, 16), key))
+            {
+                fail("iterated S2K mismatch for CAST5 with count " + s2k.getIterationCount());
+            }
+
+            // a cached key must be returned as a copy
+            key[0] ^= 0xff;
+            key = decryptorFactory.makeKeyFromPassPhrase(PGPEncryptedData.CAST5, s2k);
+            if (!areEqual(referenceS2K(s2k, 16), key))
+            {
+                fail("cached S2K key modified");
+            }
+
+            // clearing the cache must not leave zeroed keys behind
+            decryptorFactory.clearKeyCache();
+            key = decryptorFactory.makeKeyFromPassPhrase(PGPEncryptedData.AES_256, s2k);
+            if (!areEqual(referenceS2K(s2k, 32), key))
+            {
+                fail("S2K key wrong after clearing cache");
+            }
+        }
+    }
+
+    private byte[] referenceS2K(S2K s2k, int keyLength)
+    {
+        byte[] pBytes = Strings.toUTF8ByteArray(pass);
+        byte[] iv = s2k.getIV();
+        byte[] key = new byte[keyLength];
+        Digest digest = new SHA1Digest();
+
+        for (int prefix = 0, off = 0; off < keyLength; prefix++, off += digest.getDigestSize())
+        {
+            for (int i = 0; i != prefix; i++)
+            {
+                digest.update((byte)0);
+            }
+
+            long count = Math.max(s2k.getIterationCount(), iv.length + pBytes.length);
+            for (long i = 0; i != count; i++)
+            {
+                int pos = (int)(i % (iv.length + pBytes.length));
+                digest.update(pos < iv.length ? iv[pos] : pBytes[pos - iv.length]);
+            }
+
+            byte[] dig = new byte[digest.getDigestSize()];
+            digest.doFinal(dig, 0);
+
+            System.arraycopy(dig, 0, key, off, Math.min(dig.length, keyLength - off));
+        }
+
+        return key;
+    }
+
+    /**
+     * check the single pass MDC check on a message spanning several decryption chunks, both intact
+     * and with the data or the MDC itself modified.
+     */
+    private void integrityTest()
+        throws Exception
+    {
+        byte[] msg = new byte[50000];
+        new SecureRandom().nextBytes(msg);
+
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        PGPLiteralDataGenerator lData = new PGPLiteralDataGenerator();
+        OutputStream ldOut = lData.open(
+            new UncloseableOutputStream(bOut),
+            PGPLiteralData.BINARY,
+            PGPLiteralData.CONSOLE,
+            msg.length,
+            TEST_DATE);
+
+        ldOut.write(msg);
+        ldOut.close();
+
+        ByteArrayOutputStream cbOut = new ByteArrayOutputStream();
+        PGPEncryptedDataGenerator cPk = new PGPEncryptedDataGenerator(new BcPGPDataEncryptorBuilder(PGPEncryptedData.AES_256).setWithIntegrityPacket(true).setSecureRandom(new SecureRandom()));
+
+        cPk.addMethod(new BcPBEKeyEncryptionMethodGenerator(pass));
+
+        OutputStream cOut = cPk.open(new UncloseableOutputStream(cbOut), new byte[1 << 12]);
+
+        cOut.write(bOut.toByteArray());
+        cOut.close();
+
+        byte[] encMessage = cbOut.toByteArray();
+
+        if (!checkIntegrity(encMessage, msg))
+        {
+            fail("integrity check failed on large message");
+        }
+
+        byte[] tampered = Arrays.clone(encMessage);
+        tampered[tampered.length / 2] ^= 0x01;
+        if (checkIntegrity(tampered, null))
+        {
+            fail("modified data passed integrity check");
+        }
+
+        tampered = Arrays.clone(encMessage);
+        tampered[tampered.length - 1] ^= 0x01;
+        if (checkIntegrity(tampered, msg))
+        {
+            fail("modified MDC passed integrity check");
+        }
+    }
+
+    private boolean checkIntegrity(
+        byte[] message,
+        byte[] expected)
+        throws Exception
+    {
+        JcaPGPObjectFactory pgpF = new JcaPGPObjectFactory(message);
+        PGPEncryptedDataList enc = (PGPEncryptedDataList)pgpF.nextObject();
+        PGPPBEEncryptedData pbe = (PGPPBEEncryptedData)enc.get(0);
+
+        InputStream clear = pbe.getDataStream(new BcPBEDataDecryptorFactory(pass, new BcPGPDigestCalculatorProvider()));
+
+        PGPLiteralData ld = (PGPLiteralData)new JcaPGPObjectFactory(clear).nextObject();
+
+        byte[] data = Streams.readAll(ld.getInputStream());
+        if (expected != null && !areEqual(expected, data))
+        {
+            fail("wrong plain text in integrity protected message");
+        }
+
+        return pbe.verify();
     }
 
     private void tryAlgorithm(int algorithm, byte[] text)
@@ -11,6 +11,14 @@
 import java.security.Security;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.crypto.Cipher;
 
@@ -54,6 +62,7 @@
 import org.spongycastle.openpgp.PGPUserAttributeSubpacketVectorGenerator;
 import org.spongycastle.openpgp.PGPUtil;
 import org.spongycastle.openpgp.PGPV3SignatureGenerator;
+import org.spongycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
 import org.spongycastle.openpgp.operator.PublicKeyDataDecryptorFactory;
 import org.spongycastle.openpgp.operator.bc.BcKeyFingerprintCalculator;
 import org.spongycastle.openpgp.operator.bc.BcPBEDataDecryptorFactory;
@@ -69,6 +78,7 @@
 import org.spongycastle.openpgp.operator.bc.BcPublicKeyKeyEncryptionMethodGenerator;
 import org.spongycastle.openpgp.operator.jcajce.JcaPGPKeyConverter;
 import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
 import org.spongycastle.util.encoders.Base64;
 import org.spongycastle.util.encoders.Hex;
 import org.spongycastle.util.test.SimpleTest;
@@ -491,6 +501,136 @@ private void mixedTest(PGPPrivateKey pgpPrivKey, PGPPublicKey pgpPubKey)
         checkLiteralData((PGPLiteralData)pgpF.nextObject(), text);
     }
 
+    /*
+     * encrypt for several recipients with the session keys encrypted on an executor, reusing the
+     * same method generators for a second message.
+     */
+    private void executorTest(PGPPrivateKey pgpPrivKey, PGPPublicKey pgpPubKey)
+        throws Exception
+    {
+        byte[] text = Strings.toByteArray("hello world!\n");
+
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        PGPLiteralDataGenerator lGen = new PGPLiteralDataGenerator();
+        OutputStream lOut = lGen.open(bOut, PGPLiteralData.BINARY, PGPLiteralData.CONSOLE, text.length, new Date());
+
+        lOut.write(text);
+
+        lGen.close();
+
+        byte[] bytes = bOut.toByteArray();
+
+        PGPKeyEncryptionMethodGenerator[] methods = new PGPKeyEncryptionMethodGenerator[5];
+        for (int i = 0; i != methods.length - 1; i++)
+        {
+            methods[i] = new BcPublicKeyKeyEncryptionMethodGenerator(pgpPubKey);
+        }
+        methods[methods.length - 1] = new BcPBEKeyEncryptionMethodGenerator("password".toCharArray());
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        final ExecutorService single = Executors.newSingleThreadExecutor();
+        try
+        {
+            Executor rejecting = new Executor()
+            {
+                public void execute(Runnable task)
+                {
+                    throw new RejectedExecutionException();
+                }
+            };
+
+            // the same methods twice on a pool, then on an executor taking nothing, then on the
+            // only thread of the executor being used.
+            for (int message = 0; message != 4; message++)
+            {
+                byte[] encData;
+                if (message < 2)
+                {
+                    encData = encryptWithExecutor(methods, bytes, executor);
+                }
+                else if (message == 2)
+                {
+                    encData = encryptWithExecutor(methods, bytes, rejecting);
+                }
+                else
+                {
+                    final PGPKeyEncryptionMethodGenerator[] m = methods;
+                    final byte[] b = bytes;
+
+                    Future result = single.submit(new Callable()
+                    {
+                        public Object call()
+                            throws Exception
+                        {
+                            return encryptWithExecutor(m, b, single);
+                        }
+                    });
+
+                    try
+                    {
+                        encData = (byte[])result.get(60, TimeUnit.SECONDS);
+                    }
+                    catch (TimeoutException e)
+                    {
+                        fail("open() deadlocked on its executor's own thread");
+                        return;
+                    }
+                }
+
+                for (int i = 0; i != methods.length; i++)
+                {
+                    PGPObjectFactory pgpF = new PGPObjectFactory(encData, new BcKeyFingerprintCalculator());
+
+                    PGPEncryptedDataList encList = (PGPEncryptedDataList)pgpF.nextObject();
+
+                    if (encList.size() != methods.length)
+                    {
+                        fail("wrong number of session key packets");
+                    }
+
+                    InputStream clear;
+                    if (i != methods.length - 1)
+                    {
+                        clear = ((PGPPublicKeyEncryptedData)encList.get(i)).getDataStream(new BcPublicKeyDataDecryptorFactory(pgpPrivKey));
+                    }
+                    else
+                    {
+                        clear = ((PGPPBEEncryptedData)encList.get(i)).getDataStream(new BcPBEDataDecryptorFactory("password".toCharArray(), new BcPGPDigestCalculatorProvider()));
+                    }
+
+                    checkLiteralData((PGPLiteralData)new PGPObjectFactory(clear, new BcKeyFingerprintCalculator()).nextObject(), text);
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            single.shutdownNow();
+        }
+    }
+
+    private byte[] encryptWithExecutor(PGPKeyEncryptionMethodGenerator[] methods, byte[] bytes, Executor executor)
+        throws Exception
+    {
+        ByteArrayOutputStream bcOut = new ByteArrayOutputStream();
+
+        PGPEncryptedDataGenerator encGen = new PGPEncryptedDataGenerator(new BcPGPDataEncryptorBuilder(SymmetricKeyAlgorithmTags.AES_128).setWithIntegrityPacket(true).setSecureRandom(new SecureRandom()));
+
+        encGen.setExecutor(executor);
+        for (int i = 0; i != methods.length; i++)
+        {
+            encGen.addMethod(methods[i]);
+        }
+
+        OutputStream cOut = encGen.open(bcOut, bytes.length);
+
+        cOut.write(bytes);
+
+        cOut.close();
+
+        return bcOut.toByteArray();
+    }
+
     private void checkLiteralData(PGPLiteralData ld, byte[] data)
         throws IOException
     {
@@ -1117,6 +1257,7 @@ public void performTest()
         k1.getEncoded();
 
         mixedTest(k2, k1);
+        executorTest(k2, k1);
 
         //
         // key pair generation - AES_256 encryption.
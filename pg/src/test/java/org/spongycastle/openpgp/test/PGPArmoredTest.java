@@ -2,9 +2,11 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.security.SecureRandom;
 
 import org.spongycastle.bcpg.ArmoredInputStream;
 import org.spongycastle.bcpg.ArmoredOutputStream;
+import org.spongycastle.bcpg.CRC24;
 import org.spongycastle.openpgp.jcajce.JcaPGPObjectFactory;
 import org.spongycastle.util.Arrays;
 import org.spongycastle.util.Strings;
@@ -108,6 +110,163 @@ private void blankLineTest() throws Exception
         }
     }
 
+    private void bulkTest() throws Exception
+    {
+        SecureRandom random = new SecureRandom();
+        byte[] trailer = Strings.toByteArray("trailing data");
+
+        for (int size = 0; size < 1200; size += 1 + random.nextInt(37))
+        {
+            byte[] msg = new byte[size];
+            random.nextBytes(msg);
+
+            ByteArrayOutputStream single = new ByteArrayOutputStream();
+            ArmoredOutputStream aOut = new ArmoredOutputStream(single);
+            for (int i = 0; i != msg.length; i++)
+            {
+                aOut.write(msg[i]);
+            }
+            aOut.close();
+
+            ByteArrayOutputStream bulk = new ByteArrayOutputStream();
+            aOut = new ArmoredOutputStream(bulk);
+            int pos = 0;
+            while (pos < msg.length)
+            {
+                int chunk = Math.min(1 + random.nextInt(200), msg.length - pos);
+                aOut.write(msg, pos, chunk);
+                pos += chunk;
+            }
+            aOut.close();
+
+            if (!Arrays.areEqual(single.toByteArray(), bulk.toByteArray()))
+            {
+                fail("bulk armoring differs from single byte armoring at size " + size);
+            }
+
+            if (size == 0)
+            {
+                continue;
+            }
+
+            bulk.write(trailer);
+            ByteArrayInputStream bIn = new ByteArrayInputStream(bulk.toByteArray());
+            ArmoredInputStream aIn = new ArmoredInputStream(bIn);
+
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            byte[] buf = new byte[1 + random.nextInt(300)];
+            while (decoded.size() < msg.length)
+            {
+                int len = aIn.read(buf, 0, Math.min(buf.length, msg.length - decoded.size()));
+                if (len < 0)
+                {
+                    fail("unexpected end of armored data at size " + size);
+                }
+                decoded.write(buf, 0, len);
+            }
+
+            if (!Arrays.areEqual(msg, decoded.toByteArray()))
+            {
+                fail("bulk dearmoring failed at size " + size);
+            }
+            if (aIn.read() >= 0)
+            {
+                fail("armored data too long at size " + size);
+            }
+
+            byte[] rest = new byte[bIn.available()];
+            bIn.read(rest, 0, rest.length);
+            if (!Arrays.areEqual(trailer, rest))
+            {
+                fail("bulk dearmoring read past the armored data at size " + size);
+            }
+        }
+
+        CRC24 c1 = new CRC24(), c2 = new CRC24();
+        byte[] data = new byte[1000];
+        random.nextBytes(data);
+        for (int i = 0; i != data.length; i++)
+        {
+            c1.update(data[i]);
+        }
+        c2.update(data, 0, 7);
+        c2.update(data, 7, data.length - 7);
+        if (c1.getValue() != c2.getValue())
+        {
+            fail("bulk CRC24 mismatch");
+        }
+    }
+
+    /**
+     * a stream standing in for a socket whose peer has sent the armor and is waiting for a reply -
+     * reading once everything available has been consumed would block for ever.
+     */
+    private static class WaitingInputStream
+        extends ByteArrayInputStream
+    {
+        WaitingInputStream(byte[] data)
+        {
+            super(data);
+        }
+
+        public synchronized int read()
+        {
+            checkAvailable();
+            return super.read();
+        }
+
+        public synchronized int read(byte[] b, int off, int len)
+        {
+            checkAvailable();
+            return super.read(b, off, len);
+        }
+
+        private void checkAvailable()
+        {
+            if (available() == 0)
+            {
+                throw new IllegalStateException("read would block");
+            }
+        }
+    }
+
+    private void interactiveTest() throws Exception
+    {
+        byte[] msg = new byte[700];
+        new SecureRandom().nextBytes(msg);
+
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        ArmoredOutputStream aOut = new ArmoredOutputStream(bOut);
+        aOut.write(msg);
+        aOut.close();
+
+        ArmoredInputStream aIn = new ArmoredInputStream(new WaitingInputStream(bOut.toByteArray()));
+
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        try
+        {
+            while (decoded.size() < msg.length)
+            {
+                int len = aIn.read(buf, 0, msg.length - decoded.size());
+                if (len < 0)
+                {
+                    fail("unexpected end of armored data in interactive test");
+                }
+                decoded.write(buf, 0, len);
+            }
+        }
+        catch (IllegalStateException e)
+        {
+            fail("dearmoring read past the armored data: " + e.getMessage());
+        }
+
+        if (!Arrays.areEqual(msg, decoded.toByteArray()))
+        {
+            fail("interactive dearmoring failed");
+        }
+    }
+
     public void performTest()
         throws Exception
     {
@@ -240,6 +399,8 @@ public void performTest()
         }
 
         blankLineTest();
+        bulkTest();
+        interactiveTest();
     }
 
     public String getName()
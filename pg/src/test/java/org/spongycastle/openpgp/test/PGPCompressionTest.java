@@ -4,13 +4,17 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.security.SecureRandom;
 import java.security.Security;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.spongycastle.jce.provider.BouncyCastleProvider;
 import org.spongycastle.openpgp.PGPCompressedData;
 import org.spongycastle.openpgp.PGPCompressedDataGenerator;
 import org.spongycastle.openpgp.PGPException;
 import org.spongycastle.openpgp.jcajce.JcaPGPObjectFactory;
+import org.spongycastle.util.io.Streams;
 import org.spongycastle.util.test.SimpleTest;
 import org.spongycastle.util.test.UncloseableOutputStream;
 
@@ -25,6 +29,12 @@ public void performTest()
         testCompression(PGPCompressedData.ZLIB);
         testCompression(PGPCompressedData.BZIP2);
 
+        testParallelCompression(PGPCompressedData.ZIP);
+        testParallelCompression(PGPCompressedData.ZLIB);
+        testParallelCompression(PGPCompressedData.BZIP2);
+
+        testRepetitiveBZip2();
+
         //
         // new style - using stream close
         //
@@ -128,6 +138,143 @@ private void testCompression(
         }
     }
 
+    private void testParallelCompression(
+        int type)
+        throws IOException, PGPException
+    {
+        // over two 900k BZip2 blocks, and many deflate chunks
+        byte[] data = new byte[2 * 1024 * 1024];
+        SecureRandom random = new SecureRandom();
+
+        for (int i = 0; i != data.length; i++)
+        {
+            data[i] = (random.nextInt(40) == 0) ? (byte)'\n' : (byte)('a' + random.nextInt(4));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try
+        {
+            ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+            PGPCompressedDataGenerator cPacket = new PGPCompressedDataGenerator(type);
+
+            cPacket.setExecutor(executor);
+
+            OutputStream out = cPacket.open(new UncloseableOutputStream(bOut), new byte[1 << 16]);
+
+            out.write(data, 0, 1000);
+            for (int i = 1000; i != 2000; i++)
+            {
+                out.write(data[i]);
+            }
+            out.write(data, 2000, data.length - 2000);
+
+            out.close();
+
+            JcaPGPObjectFactory pgpFact = new JcaPGPObjectFactory(bOut.toByteArray());
+            PGPCompressedData c1 = (PGPCompressedData)pgpFact.nextObject();
+
+            if (!areEqual(data, Streams.readAll(c1.getDataStream())))
+            {
+                fail("parallel compression test failed for algorithm " + type);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /*
+     * highly repetitive data used to make the old block sorting quadratic.
+     */
+    private void testRepetitiveBZip2()
+        throws IOException, PGPException
+    {
+        byte[] period2 = new byte[300000];
+        for (int i = 0; i != period2.length; i++)
+        {
+            period2[i] = (byte)((i & 1) == 0 ? 'a' : 'b');
+        }
+
+        // Fibonacci word - very long repeats without being periodic
+        byte[] fib = new byte[300000];
+        String a = "a", b = "ab";
+        while (b.length() < fib.length)
+        {
+            String c = b + a;
+            a = b;
+            b = c;
+        }
+        System.arraycopy(b.getBytes(), 0, fib, 0, fib.length);
+
+        byte[] lines = new byte[300000];
+        byte[] line = "2014-03-21 09:30:00 INFO connection accepted from 10.0.0.1\n".getBytes();
+        for (int i = 0; i != lines.length; i++)
+        {
+            lines[i] = line[i % line.length];
+        }
+
+        byte[] small = "abababababababababab".getBytes();
+
+        byte[][] samples = { period2, fib, lines, small, new byte[1], new byte[0] };
+
+        for (int i = 0; i != samples.length; i++)
+        {
+            checkBZip2(samples[i]);
+        }
+    }
+
+    private void checkBZip2(byte[] data)
+        throws IOException, PGPException
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        PGPCompressedDataGenerator cPacket = new PGPCompressedDataGenerator(PGPCompressedData.BZIP2);
+
+        OutputStream out = cPacket.open(new UncloseableOutputStream(bOut));
+
+        out.write(data);
+
+        out.close();
+
+        byte[] compressed = bOut.toByteArray();
+
+        // decode in odd sized pieces
+        JcaPGPObjectFactory pgpFact = new JcaPGPObjectFactory(compressed);
+        InputStream pIn = ((PGPCompressedData)pgpFact.nextObject()).getDataStream();
+
+        bOut.reset();
+
+        byte[] buf = new byte[1031];
+        int len;
+        while ((len = pIn.read(buf, 0, buf.length)) >= 0)
+        {
+            bOut.write(buf, 0, len);
+        }
+
+        if (!areEqual(data, bOut.toByteArray()))
+        {
+            fail("BZip2 block read failed for " + data.length + " bytes");
+        }
+
+        // and a byte at a time
+        pgpFact = new JcaPGPObjectFactory(compressed);
+        pIn = ((PGPCompressedData)pgpFact.nextObject()).getDataStream();
+
+        bOut.reset();
+
+        int ch;
+        while ((ch = pIn.read()) >= 0)
+        {
+            bOut.write(ch);
+        }
+
+        if (!areEqual(data, bOut.toByteArray()))
+        {
+            fail("BZip2 byte read failed for " + data.length + " bytes");
+        }
+    }
+
     public String getName()
     {
         return "PGPCompressionTest";
@@ -6,6 +6,7 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
 import java.security.Security;
 import java.security.SignatureException;
 import java.util.Date;
@@ -626,6 +627,7 @@ public void performTest()
         testTextSig(PublicKeyAlgorithmTags.RSA_GENERAL, HashAlgorithmTags.SHA1, secretKey.getPublicKey(), pgpPrivKey, TEST_DATA, TEST_DATA_WITH_CRLF);
         testTextSigV3(PublicKeyAlgorithmTags.RSA_GENERAL, HashAlgorithmTags.SHA1, secretKey.getPublicKey(), pgpPrivKey, TEST_DATA_WITH_CRLF, TEST_DATA_WITH_CRLF);
         testTextSigV3(PublicKeyAlgorithmTags.RSA_GENERAL, HashAlgorithmTags.SHA1, secretKey.getPublicKey(), pgpPrivKey, TEST_DATA, TEST_DATA_WITH_CRLF);
+        testTextSigChunked(PublicKeyAlgorithmTags.RSA_GENERAL, secretKey.getPublicKey(), pgpPrivKey);
 
         //
         // DSA Tests
@@ -662,6 +664,7 @@ public void performTest()
         testTextSig(PublicKeyAlgorithmTags.DSA, HashAlgorithmTags.SHA1, secretKey.getPublicKey(), pgpPrivKey, TEST_DATA, TEST_DATA_WITH_CRLF);
         testTextSigV3(PublicKeyAlgorithmTags.DSA, HashAlgorithmTags.SHA1, secretKey.getPublicKey(), pgpPrivKey, TEST_DATA_WITH_CRLF, TEST_DATA_WITH_CRLF);
         testTextSigV3(PublicKeyAlgorithmTags.DSA, HashAlgorithmTags.SHA1, secretKey.getPublicKey(), pgpPrivKey, TEST_DATA, TEST_DATA_WITH_CRLF);
+        testTextSigChunked(PublicKeyAlgorithmTags.DSA, secretKey.getPublicKey(), pgpPrivKey);
 
         // special cases
         //
@@ -1032,6 +1035,70 @@ private void testTextSig(
         verifySignature(bOut.toByteArray(), hashAlgorithm, pubKey, canonicalData);
     }
     
+    /*
+     * text signatures must not depend on how the text is split between update() calls - in
+     * particular a CR ending one block followed by an LF starting the next.
+     */
+    private void testTextSigChunked(
+        int            encAlgorithm,
+        PGPPublicKey   pubKey,
+        PGPPrivateKey  privKey)
+        throws Exception
+    {
+        SecureRandom random = new SecureRandom();
+        byte[] text = new byte[4096];
+        byte[] alphabet = { 'a', 'b', ' ', '\r', '\n' };
+
+        for (int i = 0; i != text.length; i++)
+        {
+            text[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+
+        PGPSignatureGenerator sGen = new PGPSignatureGenerator(new JcaPGPContentSignerBuilder(encAlgorithm, HashAlgorithmTags.SHA1).setProvider("SC"));
+
+        sGen.init(PGPSignature.CANONICAL_TEXT_DOCUMENT, privKey);
+        for (int i = 0; i != text.length; i++)
+        {
+            sGen.update(text[i]);
+        }
+
+        PGPSignature sig = sGen.generate();
+
+        for (int run = 0; run != 10; run++)
+        {
+            sig.init(new JcaPGPContentVerifierBuilderProvider().setProvider("SC"), pubKey);
+
+            for (int off = 0; off < text.length;)
+            {
+                int len = Math.min(random.nextInt(20), text.length - off);
+
+                sig.update(text, off, len);
+                off += len;
+            }
+
+            if (!sig.verify())
+            {
+                fail("text signature failed with chunked update");
+            }
+        }
+
+        sGen.init(PGPSignature.CANONICAL_TEXT_DOCUMENT, privKey);
+        sGen.update(text, 0, 1000);
+        sGen.update(text, 1000, text.length - 1000);
+
+        sig = sGen.generate();
+        sig.init(new JcaPGPContentVerifierBuilderProvider().setProvider("SC"), pubKey);
+        for (int i = 0; i != text.length; i++)
+        {
+            sig.update(text[i]);
+        }
+
+        if (!sig.verify())
+        {
+            fail("text signature generated with block update failed");
+        }
+    }
+
     private void testSigV3(
         int           encAlgorithm,
         int           hashAlgorithm,
@@ -0,0 +1,130 @@
+package org.spongycastle.openpgp.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Date;
+
+import org.spongycastle.bcpg.HashAlgorithmTags;
+import org.spongycastle.crypto.generators.RSAKeyPairGenerator;
+import org.spongycastle.crypto.params.RSAKeyGenerationParameters;
+import org.spongycastle.openpgp.PGPKeyPair;
+import org.spongycastle.openpgp.PGPPublicKey;
+import org.spongycastle.openpgp.PGPSignature;
+import org.spongycastle.openpgp.PGPSignatureGenerator;
+import org.spongycastle.openpgp.operator.bc.BcPGPContentSignerBuilder;
+import org.spongycastle.openpgp.operator.bc.BcPGPContentVerifierBuilderProvider;
+import org.spongycastle.openpgp.operator.bc.BcPGPKeyPair;
+
+/**
+ * Compares the throughput of binary and canonical text signature generation and verification for
+ * messages from 1 KB up to a given size, the data being passed in 8 KB blocks.
+ * <p>
+ * Usage: SignatureThroughputTest [maxSizeMB [runs]]
+ * </p>
+ */
+public class SignatureThroughputTest
+{
+    private static final int BUFFER_SIZE = 8192;
+
+    public static void main(String[] args)
+        throws Exception
+    {
+        int maxSizeMB = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        RSAKeyPairGenerator kpg = new RSAKeyPairGenerator();
+        kpg.init(new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), new SecureRandom(), 2048, 25));
+
+        PGPKeyPair keyPair = new BcPGPKeyPair(PGPPublicKey.RSA_GENERAL, kpg.generateKeyPair(), new Date());
+
+        for (long size = 1024; size <= maxSizeMB * 1024L * 1024L; size *= 10)
+        {
+            byte[] data = createText((int)size);
+
+            // repeat small messages so the timing is meaningful
+            int repeats = (int)Math.max(1, (16 * 1024 * 1024) / size);
+
+            System.out.println(size + " bytes (x" + repeats + "):");
+
+            for (int run = 0; run < runs; ++run)
+            {
+                for (int type = 0; type != 2; type++)
+                {
+                    int sigType = (type == 0) ? PGPSignature.BINARY_DOCUMENT : PGPSignature.CANONICAL_TEXT_DOCUMENT;
+                    String label = (type == 0) ? "binary" : "text";
+
+                    PGPSignature sig = null;
+                    long start = System.nanoTime();
+                    for (int i = 0; i != repeats; i++)
+                    {
+                        sig = sign(keyPair, sigType, data);
+                    }
+                    report("  " + label + " sign", size * repeats, start);
+
+                    start = System.nanoTime();
+                    for (int i = 0; i != repeats; i++)
+                    {
+                        if (!verify(keyPair, sig, data))
+                        {
+                            throw new IllegalStateException("signature failed to verify");
+                        }
+                    }
+                    report("  " + label + " verify", size * repeats, start);
+                }
+            }
+        }
+    }
+
+    /*
+     * lines of text of varying length with LF line endings, so text mode signatures need to convert
+     * every line ending.
+     */
+    private static byte[] createText(int size)
+    {
+        SecureRandom random = new SecureRandom();
+        byte[] text = new byte[size];
+
+        for (int i = 0; i != size; i++)
+        {
+            text[i] = (random.nextInt(60) == 0) ? (byte)'\n' : (byte)('a' + random.nextInt(26));
+        }
+
+        return text;
+    }
+
+    private static PGPSignature sign(PGPKeyPair keyPair, int sigType, byte[] data)
+        throws Exception
+    {
+        PGPSignatureGenerator sGen = new PGPSignatureGenerator(new BcPGPContentSignerBuilder(PGPPublicKey.RSA_GENERAL, HashAlgorithmTags.SHA256));
+
+        sGen.init(sigType, keyPair.getPrivateKey());
+
+        for (int off = 0; off < data.length; off += BUFFER_SIZE)
+        {
+            sGen.update(data, off, Math.min(BUFFER_SIZE, data.length - off));
+        }
+
+        return sGen.generate();
+    }
+
+    private static boolean verify(PGPKeyPair keyPair, PGPSignature sig, byte[] data)
+        throws Exception
+    {
+        sig.init(new BcPGPContentVerifierBuilderProvider(), keyPair.getPublicKey());
+
+        for (int off = 0; off < data.length; off += BUFFER_SIZE)
+        {
+            sig.update(data, off, Math.min(BUFFER_SIZE, data.length - off));
+        }
+
+        return sig.verify();
+    }
+
+    private static void report(String label, long bytes, long startNanos)
+    {
+        long elapsed = System.nanoTime() - startNanos;
+        double mbPerSec = (bytes / (1024.0 * 1024.0)) / (elapsed / 1000000000.0);
+
+        System.out.println(label + ": " + (elapsed / 1000000) + "ms, " + Math.round(mbPerSec) + " MB/s");
+    }
+}
@@ -1,17 +1,41 @@
 package org.spongycastle.cms.jcajce;
 
 import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
 import org.spongycastle.asn1.ASN1ObjectIdentifier;
 import org.spongycastle.asn1.x509.AlgorithmIdentifier;
 import org.spongycastle.operator.OutputCompressor;
+import org.spongycastle.util.io.ParallelDeflaterOutputStream;
 
 public class ZlibCompressor
     implements OutputCompressor
 {
     private static final String  ZLIB    = "1.2.840.113549.1.9.16.3.8";
 
+    private final Executor executor;
+
+    /**
+     * Create a compressor that compresses on the writing thread.
+     */
+    public ZlibCompressor()
+    {
+        this(null);
+    }
+
+    /**
+     * Create a compressor that compresses independent chunks of the data on the threads of an
+     * executor. The output is still a single standard ZLIB stream.
+     *
+     * @param executor the executor to compress on, null to compress on the writing thread.
+     */
+    public ZlibCompressor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
     public AlgorithmIdentifier getAlgorithmIdentifier()
     {
         return new AlgorithmIdentifier(new ASN1ObjectIdentifier(ZLIB));
@@ -19,6 +43,11 @@ public AlgorithmIdentifier getAlgorithmIdentifier()
 
     public OutputStream getOutputStream(OutputStream comOut)
     {
+        if (executor != null)
+        {
+            return new ParallelDeflaterOutputStream(comOut, Deflater.DEFAULT_COMPRESSION, false, executor);
+        }
+
         return new DeflaterOutputStream(comOut);
     }
 }
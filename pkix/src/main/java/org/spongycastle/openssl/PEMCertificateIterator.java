@@ -0,0 +1,273 @@
+package org.spongycastle.openssl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.spongycastle.cert.CertRuntimeException;
+import org.spongycastle.cert.X509CertificateHolder;
+import org.spongycastle.util.encoders.Base64;
+import org.spongycastle.util.io.pem.PemScanner;
+
+/**
+ * An iterator over the certificates in a PEM stream, such as a CA bundle, returning an
+ * X509CertificateHolder for each CERTIFICATE, X509 CERTIFICATE, or TRUSTED CERTIFICATE object.
+ * Objects of any other type are skipped.
+ * <p>
+ * Given an Executor, the decoding and parsing of the certificates is spread over its threads while
+ * the stream is scanned, the certificates still being returned in the order they appear. A
+ * certificate the executor has not got to, or has rejected, by the time it is wanted is decoded
+ * on the calling thread.
+ * </p><p>
+ * As an Iterator cannot throw checked exceptions, a problem reading or parsing the stream is
+ * reported by a CertRuntimeException, the cause being the original exception.
+ * </p>
+ */
+public class PEMCertificateIterator
+    implements Iterator
+{
+    private final PemScanner scanner;
+    private final Executor executor;
+    private final int maxPending;
+
+    private final Vector pending = new Vector();
+
+    private X509CertificateHolder nextCert;
+    private boolean finished;
+
+    /**
+     * Iterate over the certificates in a PEM stream.
+     *
+     * @param in the stream to read.
+     */
+    public PEMCertificateIterator(InputStream in)
+    {
+        this(new PemScanner(in), null);
+    }
+
+    /**
+     * Iterate over the certificates in a PEM stream.
+     *
+     * @param reader the reader to read.
+     */
+    public PEMCertificateIterator(Reader reader)
+    {
+        this(new PemScanner(reader), null);
+    }
+
+    /**
+     * Iterate over the certificates in a PEM stream, decoding them on the threads of executor.
+     *
+     * @param in the stream to read.
+     * @param executor the executor to decode certificates on.
+     */
+    public PEMCertificateIterator(InputStream in, Executor executor)
+    {
+        this(new PemScanner(in), executor);
+    }
+
+    /**
+     * Iterate over the certificates in a PEM stream, decoding them on the threads of executor.
+     *
+     * @param reader the reader to read.
+     * @param executor the executor to decode certificates on.
+     */
+    public PEMCertificateIterator(Reader reader, Executor executor)
+    {
+        this(new PemScanner(reader), executor);
+    }
+
+    private PEMCertificateIterator(PemScanner scanner, Executor executor)
+    {
+        this.scanner = scanner;
+        this.executor = executor;
+        this.maxPending = 4 * Runtime.getRuntime().availableProcessors();
+    }
+
+    public boolean hasNext()
+    {
+        if (executor != null)
+        {
+            fillPending();
+
+            return !pending.isEmpty();
+        }
+
+        if (nextCert == null && !finished)
+        {
+            nextCert = readCertificate();
+        }
+
+        return nextCert != null;
+    }
+
+    public Object next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+
+        if (executor != null)
+        {
+            return takePending();
+        }
+
+        X509CertificateHolder cert = nextCert;
+
+        nextCert = null;
+
+        return cert;
+    }
+
+    public void remove()
+    {
+        throw new UnsupportedOperationException("remove not supported");
+    }
+
+    private X509CertificateHolder readCertificate()
+    {
+        try
+        {
+            while (scanner.next())
+            {
+                String type = scanner.getType();
+
+                if (isCertificate(type))
+                {
+                    return parseCertificate(type, scanner.getContent());
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new CertRuntimeException("problem reading PEM stream: " + e.getMessage(), e);
+        }
+
+        finished = true;
+
+        return null;
+    }
+
+    private void fillPending()
+    {
+        try
+        {
+            while (!finished && pending.size() < maxPending)
+            {
+                if (!scanner.nextEncoded())
+                {
+                    finished = true;
+                    break;
+                }
+
+                final String type = scanner.getType();
+
+                if (isCertificate(type))
+                {
+                    final byte[] encoded = scanner.getContent();
+
+                    FutureTask task = new FutureTask(new Callable()
+                    {
+                        public Object call()
+                            throws Exception
+                        {
+                            return parseCertificate(type, Base64.decode(encoded));
+                        }
+                    });
+
+                    pending.addElement(task);
+
+                    try
+                    {
+                        executor.execute(task);
+                    }
+                    catch (RejectedExecutionException e)
+                    {
+                        task.run();
+                    }
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            cancelPending();
+
+            throw new CertRuntimeException("problem reading PEM stream: " + e.getMessage(), e);
+        }
+    }
+
+    private X509CertificateHolder takePending()
+    {
+        FutureTask task = (FutureTask)pending.elementAt(0);
+        pending.removeElementAt(0);
+
+        // if the executor has not started the task yet, run it here rather than wait for it - the
+        // iterator may be being consumed on one of the executor's own threads.
+        task.run();
+
+        try
+        {
+            return (X509CertificateHolder)task.get();
+        }
+        catch (InterruptedException e)
+        {
+            cancelPending();
+            Thread.currentThread().interrupt();
+
+            throw new CertRuntimeException("interrupted decoding certificate", e);
+        }
+        catch (ExecutionException e)
+        {
+            cancelPending();
+
+            Throwable cause = e.getCause();
+            if (cause instanceof CertRuntimeException)
+            {
+                throw (CertRuntimeException)cause;
+            }
+
+            throw new CertRuntimeException("exception decoding certificate: " + cause, cause);
+        }
+    }
+
+    private void cancelPending()
+    {
+        for (int i = 0; i != pending.size(); i++)
+        {
+            ((FutureTask)pending.elementAt(i)).cancel(false);
+        }
+        pending.removeAllElements();
+        finished = true;
+    }
+
+    private static boolean isCertificate(String type)
+    {
+        return type.equals("CERTIFICATE") || type.equals("X509 CERTIFICATE") || type.equals("TRUSTED CERTIFICATE");
+    }
+
+    private static X509CertificateHolder parseCertificate(String type, byte[] encoding)
+    {
+        try
+        {
+            if (type.equals("TRUSTED CERTIFICATE"))
+            {
+                return new X509TrustedCertificateBlock(encoding).getCertificateHolder();
+            }
+
+            return new X509CertificateHolder(encoding);
+        }
+        catch (Exception e)
+        {
+            throw new CertRuntimeException("problem parsing cert: " + e.toString(), e);
+        }
+    }
+}
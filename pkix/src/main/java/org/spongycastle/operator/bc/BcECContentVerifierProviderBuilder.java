@@ -10,6 +10,7 @@
 import org.spongycastle.crypto.signers.DSADigestSigner;
 import org.spongycastle.crypto.signers.ECDSASigner;
 import org.spongycastle.crypto.util.PublicKeyFactory;
+import org.spongycastle.math.ec.ECPointCache;
 import org.spongycastle.operator.DigestAlgorithmIdentifierFinder;
 import org.spongycastle.operator.OperatorCreationException;
 
@@ -17,10 +18,25 @@
     extends BcContentVerifierProviderBuilder
 {
     private DigestAlgorithmIdentifierFinder digestAlgorithmFinder;
+    private ECPointCache pointCache;
 
     public BcECContentVerifierProviderBuilder(DigestAlgorithmIdentifierFinder digestAlgorithmFinder)
+    {
+        this(digestAlgorithmFinder, null);
+    }
+
+    /**
+     * Create a builder whose verifiers take public points from the passed in cache, so the
+     * point of a key seen before, such as a CA key, is not decoded and validated again and keeps
+     * its multiplier precomputation.
+     *
+     * @param digestAlgorithmFinder finder for the digest used with a signature algorithm.
+     * @param pointCache the cache to decode public points through, null if none.
+     */
+    public BcECContentVerifierProviderBuilder(DigestAlgorithmIdentifierFinder digestAlgorithmFinder, ECPointCache pointCache)
     {
         this.digestAlgorithmFinder = digestAlgorithmFinder;
+        this.pointCache = pointCache;
     }
 
     protected Signer createSigner(AlgorithmIdentifier sigAlgId)
@@ -35,6 +51,6 @@ protected Signer createSigner(AlgorithmIdentifier sigAlgId)
     protected AsymmetricKeyParameter extractKeyParameters(SubjectPublicKeyInfo publicKeyInfo)
         throws IOException
     {
-        return PublicKeyFactory.createKey(publicKeyInfo);
+        return PublicKeyFactory.createKey(publicKeyInfo, pointCache);
     }
 }
@@ -19,7 +19,6 @@
 import org.spongycastle.jce.spec.ECParameterSpec;
 import org.spongycastle.jce.spec.ECPublicKeySpec;
 import org.spongycastle.math.ec.ECCurve;
-import org.spongycastle.math.ec.ECFieldElement;
 import org.spongycastle.math.ec.ECPoint;
 
 public class JcaPublicKeyConverter
@@ -130,8 +129,8 @@ public PublicKeyDataObject getPublicKeyDataObject(ASN1ObjectIdentifier usage, Pu
 
             return new ECDSAPublicKey(
                 usage,
-                ((ECCurve.Fp)params.getCurve()).getQ(),
-                ((ECFieldElement.Fp)params.getCurve().getA()).toBigInteger(), ((ECFieldElement.Fp)params.getCurve().getB()).toBigInteger(),
+                params.getCurve().getField().getCharacteristic(),
+                params.getCurve().getA().toBigInteger(), params.getCurve().getB().toBigInteger(),
                 params.getG().getEncoded(),
                 params.getN(),
                 pubKey.getQ().getEncoded(),
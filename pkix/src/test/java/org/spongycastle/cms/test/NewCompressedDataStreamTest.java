@@ -4,6 +4,8 @@
 import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -120,6 +122,43 @@ public void test1000()
         }
     }
     
+    public void testParallelCompression()
+        throws Exception
+    {
+        byte[]  testData = new byte[1000000];
+        Random  rand = new Random();
+
+        rand.setSeed(0);
+
+        // compressible data, so the chunk dictionaries matter
+        for (int i = 0; i != testData.length; i++)
+        {
+            testData[i] = (byte)('a' + rand.nextInt(8));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try
+        {
+            CMSCompressedDataStreamGenerator gen = new CMSCompressedDataStreamGenerator();
+            ByteArrayOutputStream            bOut = new ByteArrayOutputStream();
+
+            OutputStream cOut = gen.open(bOut, new ZlibCompressor(executor));
+
+            cOut.write(testData);
+
+            cOut.close();
+
+            CMSCompressedDataParser ed = new CMSCompressedDataParser(bOut.toByteArray());
+
+            assertEquals(true, Arrays.equals(testData, CMSTestUtil.streamToByteArray(ed.getContent(new ZlibExpanderProvider()).getContentStream())));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     public static Test suite()
     {
         return new TestSuite(NewCompressedDataStreamTest.class);
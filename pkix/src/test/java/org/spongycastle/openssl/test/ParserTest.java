@@ -21,6 +21,17 @@
 import java.security.interfaces.DSAPrivateKey;
 import java.security.interfaces.RSAPrivateCrtKey;
 import java.security.interfaces.RSAPrivateKey;
+import java.util.Iterator;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.spongycastle.asn1.ASN1ObjectIdentifier;
 import org.spongycastle.asn1.cms.CMSObjectIdentifiers;
@@ -35,6 +46,7 @@
 import org.spongycastle.openssl.CertificateTrustBlock;
 import org.spongycastle.openssl.PEMDecryptorProvider;
 import org.spongycastle.openssl.PEMEncryptedKeyPair;
+import org.spongycastle.openssl.PEMCertificateIterator;
 import org.spongycastle.openssl.PEMKeyPair;
 import org.spongycastle.openssl.PEMParser;
 import org.spongycastle.openssl.PasswordFinder;
@@ -46,6 +58,8 @@
 import org.spongycastle.openssl.jcajce.JcePEMDecryptorProviderBuilder;
 import org.spongycastle.operator.InputDecryptorProvider;
 import org.spongycastle.pkcs.PKCS8EncryptedPrivateKeyInfo;
+import org.spongycastle.util.Strings;
+import org.spongycastle.util.io.Streams;
 import org.spongycastle.util.test.SimpleTest;
 
 /**
@@ -341,6 +355,123 @@ public void performTest()
         trusted = (X509TrustedCertificateBlock)pemRd.readObject();
 
         checkTrustedCert(trusted);
+
+        doCertificateIteratorTest();
+    }
+
+    private void doCertificateIteratorTest()
+        throws Exception
+    {
+        String[] files = { "test.pem", "extratest.pem", "trusted_cert.pem", "pkcs8test.pem" };
+        StringBuffer bundle = new StringBuffer();
+
+        for (int i = 0; i != 50; i++)
+        {
+            for (int j = 0; j != files.length; j++)
+            {
+                bundle.append(Strings.fromByteArray(Streams.readAll(this.getClass().getResourceAsStream(files[j]))));
+            }
+        }
+
+        Vector expected = new Vector();
+        PEMParser pemRd = new PEMParser(new StringReader(bundle.toString()));
+        Object o;
+
+        while ((o = pemRd.readObject()) != null)
+        {
+            if (o instanceof X509CertificateHolder)
+            {
+                expected.addElement(o);
+            }
+            else if (o instanceof X509TrustedCertificateBlock)
+            {
+                expected.addElement(((X509TrustedCertificateBlock)o).getCertificateHolder());
+            }
+        }
+
+        byte[] bundleBytes = Strings.toByteArray(bundle.toString());
+
+        checkCertificates(expected, new PEMCertificateIterator(new ByteArrayInputStream(bundleBytes)));
+        checkCertificates(expected, new PEMCertificateIterator(new StringReader(bundle.toString())));
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try
+        {
+            checkCertificates(expected, new PEMCertificateIterator(new ByteArrayInputStream(bundleBytes), executor));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // an executor that takes nothing on leaves all the decoding to the caller
+        checkCertificates(expected, new PEMCertificateIterator(new ByteArrayInputStream(bundleBytes), new Executor()
+        {
+            public void execute(Runnable task)
+            {
+                throw new RejectedExecutionException();
+            }
+        }));
+
+        // consuming the iterator on the only thread of its own executor must not deadlock
+        final ExecutorService single = Executors.newSingleThreadExecutor();
+        final Vector expectedCerts = expected;
+        final byte[] bundleData = bundleBytes;
+
+        try
+        {
+            Future result = single.submit(new Callable()
+            {
+                public Object call()
+                {
+                    checkCertificates(expectedCerts, new PEMCertificateIterator(new ByteArrayInputStream(bundleData), single));
+                    return null;
+                }
+            });
+
+            try
+            {
+                result.get(60, TimeUnit.SECONDS);
+            }
+            catch (TimeoutException e)
+            {
+                fail("certificate iterator deadlocked on its executor's own thread");
+            }
+            catch (ExecutionException e)
+            {
+                if (e.getCause() instanceof RuntimeException)
+                {
+                    throw (RuntimeException)e.getCause();
+                }
+                throw e;
+            }
+        }
+        finally
+        {
+            single.shutdownNow();
+        }
+    }
+
+    private void checkCertificates(Vector expected, Iterator it)
+    {
+        for (int i = 0; i != expected.size(); i++)
+        {
+            if (!it.hasNext())
+            {
+                fail("certificate iterator ended early at " + i);
+            }
+
+            if (!expected.elementAt(i).equals(it.next()))
+            {
+                fail("certificate iterator returned wrong certificate at " + i);
+            }
+        }
+
+        if (it.hasNext())
+        {
+            fail("certificate iterator returned too many certificates");
+        }
     }
 
     private void checkTrustedCert(X509TrustedCertificateBlock trusted)
@@ -0,0 +1,96 @@
+package org.spongycastle.jcajce;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.KeyStore.LoadStoreParameter;
+import java.security.KeyStore.ProtectionParameter;
+import java.util.concurrent.Executor;
+
+/**
+ * LoadStoreParameter to allow for additional config when loading PKCS12 files.
+ * <p>
+ * Note: if a store holds a lot of private keys of which only a few will be used, loading it with
+ * deferred key decryption means only the keys actually asked for are decrypted.
+ * </p>
+ */
+public class PKCS12LoadParameter
+    implements LoadStoreParameter
+{
+    private final InputStream in;
+    private final ProtectionParameter protectionParameter;
+    private final boolean deferKeyDecryption;
+    private final Executor executor;
+
+    public PKCS12LoadParameter(InputStream in, char[] password)
+    {
+        this(in, password, false);
+    }
+
+    public PKCS12LoadParameter(InputStream in, ProtectionParameter protectionParameter)
+    {
+        this(in, protectionParameter, false);
+    }
+
+    public PKCS12LoadParameter(InputStream in, char[] password, boolean deferKeyDecryption)
+    {
+        this(in, new KeyStore.PasswordProtection(password), deferKeyDecryption);
+    }
+
+    public PKCS12LoadParameter(InputStream in, ProtectionParameter protectionParameter, boolean deferKeyDecryption)
+    {
+        this(in, protectionParameter, deferKeyDecryption, null);
+    }
+
+    public PKCS12LoadParameter(InputStream in, char[] password, boolean deferKeyDecryption, Executor executor)
+    {
+        this(in, new KeyStore.PasswordProtection(password), deferKeyDecryption, executor);
+    }
+
+    /**
+     * Base constructor.
+     *
+     * @param in the stream to load the key store from.
+     * @param protectionParameter the protection parameter holding the key store password.
+     * @param deferKeyDecryption true if private keys should only be decrypted when asked for.
+     * @param executor an executor to check the key store MAC on while the contents are parsed,
+     *            null to check the MAC on the calling thread before parsing.
+     */
+    public PKCS12LoadParameter(InputStream in, ProtectionParameter protectionParameter, boolean deferKeyDecryption, Executor executor)
+    {
+        this.in = in;
+        this.protectionParameter = protectionParameter;
+        this.deferKeyDecryption = deferKeyDecryption;
+        this.executor = executor;
+    }
+
+    public InputStream getInputStream()
+    {
+        return in;
+    }
+
+    public ProtectionParameter getProtectionParameter()
+    {
+        return protectionParameter;
+    }
+
+    /**
+     * Return whether private keys should be left encrypted on loading, each key being decrypted
+     * the first time it is asked for.
+     *
+     * @return true if key decryption is deferred, false if all keys are decrypted on loading.
+     */
+    public boolean isDeferKeyDecryption()
+    {
+        return deferKeyDecryption;
+    }
+
+    /**
+     * Return the executor the key store MAC is checked on, if any.
+     *
+     * @return the executor to use, null if the MAC is checked on the calling thread.
+     */
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+}
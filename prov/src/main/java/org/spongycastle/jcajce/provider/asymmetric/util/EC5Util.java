@@ -12,6 +12,9 @@
 import java.util.Map;
 
 import org.spongycastle.asn1.ASN1ObjectIdentifier;
+import org.spongycastle.asn1.anssi.ANSSINamedCurves;
+import org.spongycastle.asn1.cryptopro.ECGOST3410NamedCurves;
+import org.spongycastle.asn1.teletrust.TeleTrusTNamedCurves;
 import org.spongycastle.asn1.x9.ECNamedCurveTable;
 import org.spongycastle.asn1.x9.X962Parameters;
 import org.spongycastle.asn1.x9.X9ECParameters;
@@ -21,6 +24,7 @@
 import org.spongycastle.jce.spec.ECNamedCurveSpec;
 import org.spongycastle.math.ec.ECAlgorithms;
 import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.MontFpCurve;
 import org.spongycastle.math.field.FiniteField;
 import org.spongycastle.math.field.Polynomial;
 import org.spongycastle.math.field.PolynomialExtensionField;
@@ -43,6 +47,33 @@
                 customCurves.put(curveParams.getCurve(), CustomNamedCurves.getByName(name).getCurve());
             }
         }
+
+        // curves held in Montgomery form, so an equivalent plain curve maps to the named one.
+        addMontFpCurves(TeleTrusTNamedCurves.getNames());
+        addMontFpCurves(ANSSINamedCurves.getNames());
+
+        e = ECGOST3410NamedCurves.getNames();
+        while (e.hasMoreElements())
+        {
+            ECCurve curve = ECGOST3410NamedCurves.getByName((String)e.nextElement()).getCurve();
+            if (curve instanceof MontFpCurve && !customCurves.containsKey(curve))
+            {
+                customCurves.put(curve, curve);
+            }
+        }
+    }
+
+    private static void addMontFpCurves(Enumeration names)
+    {
+        while (names.hasMoreElements())
+        {
+            X9ECParameters curveParams = ECNamedCurveTable.getByName((String)names.nextElement());
+            if (curveParams != null && curveParams.getCurve() instanceof MontFpCurve
+                && !customCurves.containsKey(curveParams.getCurve()))
+            {
+                customCurves.put(curveParams.getCurve(), curveParams.getCurve());
+            }
+        }
     }
 
     public static ECCurve getCurve(
@@ -5,6 +5,7 @@
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -37,6 +38,9 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import javax.crypto.Cipher;
 import javax.crypto.Mac;
@@ -90,6 +94,7 @@
 import org.spongycastle.crypto.Digest;
 import org.spongycastle.crypto.digests.SHA1Digest;
 import org.spongycastle.jcajce.PKCS12Key;
+import org.spongycastle.jcajce.PKCS12LoadParameter;
 import org.spongycastle.jcajce.PKCS12StoreParameter;
 import org.spongycastle.jcajce.spec.GOST28147ParameterSpec;
 import org.spongycastle.jcajce.spec.PBKDF2KeySpec;
@@ -121,6 +126,17 @@
     private Hashtable chainCerts = new Hashtable();
     private Hashtable keyCerts = new Hashtable();
 
+    // PBE keys derived for pbeKeyPassword, indexed by algorithm, salt and iteration count
+    private final Hashtable pbeKeys = new Hashtable();
+    private char[] pbeKeyPassword;
+
+    // keys derived while the MAC of the store being loaded is still being checked
+    private final Hashtable unverifiedPBEKeys = new Hashtable();
+    private boolean macPending;
+
+    // the password for the deferred keys of the last load, while any are still encrypted
+    private DeferredKeyPassword deferredKeyPassword;
+
     //
     // generic object types
     //
@@ -279,7 +295,7 @@ public void engineDeleteEntry(
         String alias)
         throws KeyStoreException
     {
-        Key k = (Key)keys.remove(alias);
+        Object k = keys.remove(alias);
 
         Certificate c = (Certificate)certs.remove(alias);
 
@@ -502,7 +518,14 @@ public Key engineGetKey(
             throw new IllegalArgumentException("null alias passed to getKey.");
         }
 
-        return (Key)keys.get(alias);
+        try
+        {
+            return recoverKey(keys.get(alias));
+        }
+        catch (IOException e)
+        {
+            throw new UnrecoverableKeyException(e.getMessage());
+        }
     }
 
     public boolean engineIsCertificateEntry(
@@ -616,7 +639,7 @@ protected PrivateKey unwrapKey(
 
                 Cipher cipher = helper.createCipher(algorithm.getId());
 
-                PKCS12Key key = new PKCS12Key(password, wrongPKCS12Zero);
+                Key key = getPKCS12Key(algorithm, pbeParams, password, wrongPKCS12Zero);
 
                 cipher.init(Cipher.UNWRAP_MODE, key, defParams);
 
@@ -692,7 +715,15 @@ protected byte[] cryptData(
                 PBEParameterSpec defParams = new PBEParameterSpec(
                     pbeParams.getIV(),
                     pbeParams.getIterations().intValue());
-                PKCS12Key key = new PKCS12Key(password, wrongPKCS12Zero);
+                Key key;
+                if (forEncryption)
+                {
+                    key = new PKCS12Key(password, wrongPKCS12Zero);
+                }
+                else
+                {
+                    key = getPKCS12Key(algorithm, pbeParams, password, wrongPKCS12Zero);
+                }
 
                 Cipher cipher = helper.createCipher(algorithm.getId());
 
@@ -730,16 +761,27 @@ private Cipher createCipher(int mode, char[] password, AlgorithmIdentifier algId
         PBKDF2Params func = PBKDF2Params.getInstance(alg.getKeyDerivationFunc().getParameters());
         AlgorithmIdentifier encScheme = AlgorithmIdentifier.getInstance(alg.getEncryptionScheme());
 
-        SecretKeyFactory keyFact = helper.createSecretKeyFactory(alg.getKeyDerivationFunc().getAlgorithm().getId());
-        SecretKey key;
+        String kdfAlgorithm = alg.getKeyDerivationFunc().getAlgorithm().getId();
+        PBEKeySpec keySpec;
 
         if (func.isDefaultPrf())
         {
-            key = keyFact.generateSecret(new PBEKeySpec(password, func.getSalt(), func.getIterationCount().intValue(), keySizeProvider.getKeySize(encScheme)));
+            keySpec = new PBEKeySpec(password, func.getSalt(), func.getIterationCount().intValue(), keySizeProvider.getKeySize(encScheme));
         }
         else
         {
-            key = keyFact.generateSecret(new PBKDF2KeySpec(password, func.getSalt(), func.getIterationCount().intValue(), keySizeProvider.getKeySize(encScheme), func.getPrf()));
+            keySpec = new PBKDF2KeySpec(password, func.getSalt(), func.getIterationCount().intValue(), keySizeProvider.getKeySize(encScheme), func.getPrf());
+        }
+
+        SecretKey key;
+
+        if (mode == Cipher.ENCRYPT_MODE || mode == Cipher.WRAP_MODE)
+        {
+            key = helper.createSecretKeyFactory(kdfAlgorithm).generateSecret(keySpec);
+        }
+        else
+        {
+            key = getPBEKey(kdfAlgorithm, password, keySpec);
         }
 
         Cipher cipher = Cipher.getInstance(alg.getEncryptionScheme().getAlgorithm().getId());
@@ -761,10 +803,283 @@ private Cipher createCipher(int mode, char[] password, AlgorithmIdentifier algId
         return cipher;
     }
 
+    /**
+     * Return the key for a PKCS#12 PBE algorithm, taking it from the cache of derived keys where
+     * possible.
+     */
+    private Key getPKCS12Key(ASN1ObjectIdentifier algorithm, PKCS12PBEParams pbeParams, char[] password, boolean wrongPKCS12Zero)
+        throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeySpecException
+    {
+        if (wrongPKCS12Zero)
+        {
+            return new PKCS12Key(password, true);
+        }
+
+        return getPBEKey(algorithm.getId(), password,
+            new PBEKeySpec(password, pbeParams.getIV(), pbeParams.getIterations().intValue()));
+    }
+
+    /**
+     * Return the key generated from keySpec by the named SecretKeyFactory. Keys derived for the same
+     * password, salt, iteration count and key size are only generated once during a load, and
+     * while deferred keys from it remain to be recovered, so decrypting bags sharing their PBE
+     * parameters does not pay for the key derivation again.
+     */
+    private SecretKey getPBEKey(String algorithm, char[] password, PBEKeySpec keySpec)
+        throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeySpecException
+    {
+        String cacheId = algorithm + ":" + Hex.toHexString(keySpec.getSalt()) + ":" + keySpec.getIterationCount()
+            + ":" + keySpec.getKeyLength();
+
+        if (keySpec instanceof PBKDF2KeySpec)
+        {
+            cacheId += ":" + ((PBKDF2KeySpec)keySpec).getPrf().getAlgorithm().getId();
+        }
+
+        synchronized (pbeKeys)
+        {
+            if (!Arrays.areEqual(password, pbeKeyPassword))
+            {
+                clearPBEKeys();
+                pbeKeyPassword = Arrays.clone(password);
+            }
+
+            SecretKey key = (SecretKey)(macPending ? unverifiedPBEKeys : pbeKeys).get(cacheId);
+            if (key != null)
+            {
+                return key;
+            }
+        }
+
+        SecretKey key = helper.createSecretKeyFactory(algorithm).generateSecret(keySpec);
+
+        synchronized (pbeKeys)
+        {
+            if (Arrays.areEqual(password, pbeKeyPassword))
+            {
+                // until the MAC is known to be good the password may be wrong, so keep these apart
+                (macPending ? unverifiedPBEKeys : pbeKeys).put(cacheId, key);
+            }
+        }
+
+        return key;
+    }
+
+    /**
+     * Drop all cached PBE keys and zero the password they were derived from.
+     */
+    private void clearPBEKeys()
+    {
+        synchronized (pbeKeys)
+        {
+            pbeKeys.clear();
+            unverifiedPBEKeys.clear();
+
+            if (pbeKeyPassword != null)
+            {
+                Arrays.fill(pbeKeyPassword, (char)0);
+                pbeKeyPassword = null;
+            }
+        }
+    }
+
+    /**
+     * Start or finish a load whose MAC is being checked alongside it. When a pending MAC turns out
+     * to be good the keys derived meanwhile are kept, otherwise they are dropped.
+     */
+    private void setMacPending(boolean pending, boolean verified)
+    {
+        synchronized (pbeKeys)
+        {
+            if (!pending && verified)
+            {
+                pbeKeys.putAll(unverifiedPBEKeys);
+            }
+
+            unverifiedPBEKeys.clear();
+            macPending = pending;
+        }
+    }
+
+    /**
+     * Forget the deferred keys of the last load, zeroing their password, and with them the cache
+     * of PBE keys kept to recover them.
+     */
+    private void clearDeferredKeys()
+    {
+        synchronized (pbeKeys)
+        {
+            if (deferredKeyPassword != null)
+            {
+                deferredKeyPassword.clear();
+                deferredKeyPassword = null;
+            }
+
+            clearPBEKeys();
+        }
+    }
+
+    private void deferredKeysRecovered(DeferredKeyPassword keyPassword)
+    {
+        synchronized (pbeKeys)
+        {
+            if (deferredKeyPassword == keyPassword)
+            {
+                clearDeferredKeys();
+            }
+        }
+    }
+
+    private PrivateKey recoverKey(Object entry)
+        throws IOException
+    {
+        if (entry instanceof DeferredKey)
+        {
+            return ((DeferredKey)entry).getKey();
+        }
+
+        return (PrivateKey)entry;
+    }
+
+    /**
+     * Add a shrouded key bag to the key table without decrypting it, returning true if the key has
+     * no local key ID.
+     */
+    private boolean addDeferredKey(SafeBag b, DeferredKeyPassword password, boolean wrongPKCS12Zero)
+    {
+        org.spongycastle.asn1.pkcs.EncryptedPrivateKeyInfo eIn = org.spongycastle.asn1.pkcs.EncryptedPrivateKeyInfo.getInstance(b.getBagValue());
+        DeferredKey key = new DeferredKey(eIn.getEncryptionAlgorithm(), eIn.getEncryptedData(), b.getBagAttributes(), password, wrongPKCS12Zero);
+        String alias = null;
+        ASN1OctetString localId = null;
+
+        if (b.getBagAttributes() != null)
+        {
+            Enumeration e = b.getBagAttributes().getObjects();
+            while (e.hasMoreElements())
+            {
+                ASN1Sequence sq = ASN1Sequence.getInstance(e.nextElement());
+                ASN1ObjectIdentifier aOid = ASN1ObjectIdentifier.getInstance(sq.getObjectAt(0));
+                ASN1Set attrSet = ASN1Set.getInstance(sq.getObjectAt(1));
+
+                if (attrSet.size() > 0)
+                {
+                    ASN1Primitive attr = attrSet.getObjectAt(0).toASN1Primitive();
+
+                    if (aOid.equals(pkcs_9_at_friendlyName))
+                    {
+                        alias = ((DERBMPString)attr).getString();
+                        keys.put(alias, key);
+                    }
+                    else if (aOid.equals(pkcs_9_at_localKeyId))
+                    {
+                        localId = (ASN1OctetString)attr;
+                    }
+                }
+            }
+        }
+
+        if (localId != null)
+        {
+            String name = new String(Hex.encode(localId.getOctets()));
+
+            if (alias == null)
+            {
+                keys.put(name, key);
+            }
+            else
+            {
+                localIds.put(alias, name);
+            }
+
+            return false;
+        }
+
+        keys.put("unmarked", key);
+
+        return true;
+    }
+
+    private static void setBagAttributes(PKCS12BagAttributeCarrier bagAttr, ASN1Set attributes)
+        throws IOException
+    {
+        Enumeration e = attributes.getObjects();
+        while (e.hasMoreElements())
+        {
+            ASN1Sequence sq = ASN1Sequence.getInstance(e.nextElement());
+            ASN1ObjectIdentifier aOid = ASN1ObjectIdentifier.getInstance(sq.getObjectAt(0));
+            ASN1Set attrSet = ASN1Set.getInstance(sq.getObjectAt(1));
+
+            if (attrSet.size() > 0)
+            {
+                ASN1Primitive attr = attrSet.getObjectAt(0).toASN1Primitive();
+
+                ASN1Encodable existing = bagAttr.getBagAttribute(aOid);
+                if (existing != null)
+                {
+                    // OK, but the value has to be the same
+                    if (!existing.toASN1Primitive().equals(attr))
+                    {
+                        throw new IOException(
+                            "attempt to add existing attribute with different value");
+                    }
+                }
+                else
+                {
+                    bagAttr.setBagAttribute(aOid, attr);
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the key store, as {@link #engineLoad(InputStream, char[])} does, accepting a
+     * {@link PKCS12LoadParameter} to allow the decryption of private keys to be deferred until
+     * they are asked for.
+     */
+    public void engineLoad(LoadStoreParameter param)
+        throws IOException, NoSuchAlgorithmException, CertificateException
+    {
+        if (!(param instanceof PKCS12LoadParameter))
+        {
+            super.engineLoad(param);
+            return;
+        }
+
+        PKCS12LoadParameter bcParam = (PKCS12LoadParameter)param;
+
+        char[] password;
+        ProtectionParameter protParam = param.getProtectionParameter();
+        if (protParam == null)
+        {
+            password = null;
+        }
+        else if (protParam instanceof KeyStore.PasswordProtection)
+        {
+            password = ((KeyStore.PasswordProtection)protParam).getPassword();
+        }
+        else
+        {
+            throw new IllegalArgumentException(
+                "No support for protection parameter of type " + protParam.getClass().getName());
+        }
+
+        doLoad(bcParam.getInputStream(), password, bcParam.isDeferKeyDecryption(), bcParam.getExecutor());
+    }
+
     public void engineLoad(
         InputStream stream,
         char[] password)
         throws IOException
+    {
+        doLoad(stream, password, false, null);
+    }
+
+    private void doLoad(
+        InputStream stream,
+        char[] password,
+        boolean deferKeyDecryption,
+        Executor executor)
+        throws IOException
     {
         if (stream == null)     // just initialising
         {
@@ -793,9 +1108,8 @@ public void engineLoad(
         ASN1Sequence obj = (ASN1Sequence)bIn.readObject();
         Pfx bag = Pfx.getInstance(obj);
         ContentInfo info = bag.getAuthSafe();
-        Vector chain = new Vector();
-        boolean unmarkedKey = false;
         boolean wrongPKCS12Zero = false;
+        MacCheck macCheck = null;
 
         if (bag.getMacData() != null)           // check the mac code
         {
@@ -807,45 +1121,149 @@ public void engineLoad(
 
             byte[] data = ((ASN1OctetString)info.getContent()).getOctets();
 
-            try
+            if (password.length > 0 && executor != null)
+            {
+                //
+                // there's no retry with a wrong zero length password to decide on first, so the
+                // contents can be loaded while the MAC is checked.
+                //
+                macCheck = new MacCheck(algId.getAlgorithm(), salt, itCount, password, data, dInfo.getDigest());
+                executor.execute(macCheck.task);
+            }
+            else
             {
-                byte[] res = calculatePbeMac(algId.getAlgorithm(), salt, itCount, password, false, data);
-                byte[] dig = dInfo.getDigest();
+                wrongPKCS12Zero = checkMac(algId.getAlgorithm(), salt, itCount, password, data, dInfo.getDigest());
+            }
+        }
 
-                if (!Arrays.constantTimeAreEqual(res, dig))
+        IgnoresCaseHashtable oldKeys = keys;
+        Hashtable oldLocalIds = localIds;
+        IgnoresCaseHashtable oldCerts = certs;
+        Hashtable oldChainCerts = chainCerts;
+        Hashtable oldKeyCerts = keyCerts;
+        DeferredKeyPassword oldDeferredKeyPassword = deferredKeyPassword;
+
+        // nothing cached for the old contents is wanted for the new
+        clearPBEKeys();
+        setMacPending(macCheck != null, false);
+
+        try
+        {
+            loadContents(info, password, wrongPKCS12Zero, deferKeyDecryption);
+        }
+        finally
+        {
+            if (macCheck != null)
+            {
+                try
                 {
-                    if (password.length > 0)
-                    {
-                        throw new IOException("PKCS12 key store mac invalid - wrong password or corrupted file.");
-                    }
+                    macCheck.verify();
+                    setMacPending(false, true);
+                }
+                catch (IOException e)
+                {
+                    setMacPending(false, false);
+                    clearPBEKeys();
 
-                    // Try with incorrect zero length password
-                    res = calculatePbeMac(algId.getAlgorithm(), salt, itCount, password, true, data);
+                    // leave things as they would be if the MAC had been checked first.
+                    keys = oldKeys;
+                    localIds = oldLocalIds;
+                    certs = oldCerts;
+                    chainCerts = oldChainCerts;
+                    keyCerts = oldKeyCerts;
 
-                    if (!Arrays.constantTimeAreEqual(res, dig))
+                    if (deferredKeyPassword != oldDeferredKeyPassword)
                     {
-                        throw new IOException("PKCS12 key store mac invalid - wrong password or corrupted file.");
+                        deferredKeyPassword.clear();
                     }
+                    deferredKeyPassword = oldDeferredKeyPassword;
 
-                    wrongPKCS12Zero = true;
+                    throw e;
                 }
             }
-            catch (IOException e)
+            else
             {
-                throw e;
+                setMacPending(false, false);
             }
-            catch (Exception e)
+
+            if (oldDeferredKeyPassword != null && oldDeferredKeyPassword != deferredKeyPassword)
+            {
+                oldDeferredKeyPassword.clear();
+            }
+
+            // the PBE keys are only worth keeping while there are deferred keys to recover
+            if (deferredKeyPassword == null || deferredKeyPassword.isUnused())
             {
-                throw new IOException("error constructing MAC: " + e.toString());
+                clearDeferredKeys();
             }
         }
+    }
+
+    /**
+     * Check the MAC on a key store, returning true if it was only valid for the incorrect
+     * encoding of a zero length password some implementations use.
+     */
+    private boolean checkMac(
+        ASN1ObjectIdentifier oid,
+        byte[] salt,
+        int itCount,
+        char[] password,
+        byte[] data,
+        byte[] dig)
+        throws IOException
+    {
+        try
+        {
+            byte[] res = calculatePbeMac(oid, salt, itCount, password, false, data);
+
+            if (!Arrays.constantTimeAreEqual(res, dig))
+            {
+                if (password.length > 0)
+                {
+                    throw new IOException("PKCS12 key store mac invalid - wrong password or corrupted file.");
+                }
+
+                // Try with incorrect zero length password
+                res = calculatePbeMac(oid, salt, itCount, password, true, data);
+
+                if (!Arrays.constantTimeAreEqual(res, dig))
+                {
+                    throw new IOException("PKCS12 key store mac invalid - wrong password or corrupted file.");
+                }
+
+                return true;
+            }
+        }
+        catch (IOException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new IOException("error constructing MAC: " + e.toString());
+        }
+
+        return false;
+    }
+
+    private void loadContents(
+        ContentInfo info,
+        char[] password,
+        boolean wrongPKCS12Zero,
+        boolean deferKeyDecryption)
+        throws IOException
+    {
+        Vector chain = new Vector();
+        boolean unmarkedKey = false;
+        DeferredKeyPassword keyPassword = deferKeyDecryption ? new DeferredKeyPassword(password) : null;
 
         keys = new IgnoresCaseHashtable();
         localIds = new Hashtable();
+        deferredKeyPassword = keyPassword;
 
         if (info.getContentType().equals(data))
         {
-            bIn = new ASN1InputStream(((ASN1OctetString)info.getContent()).getOctets());
+            ASN1InputStream bIn = new ASN1InputStream(((ASN1OctetString)info.getContent()).getOctets());
 
             AuthenticatedSafe authSafe = AuthenticatedSafe.getInstance(bIn.readObject());
             ContentInfo[] c = authSafe.getContentInfo();
@@ -860,7 +1278,14 @@ public void engineLoad(
                     for (int j = 0; j != seq.size(); j++)
                     {
                         SafeBag b = SafeBag.getInstance(seq.getObjectAt(j));
-                        if (b.getBagId().equals(pkcs8ShroudedKeyBag))
+                        if (deferKeyDecryption && b.getBagId().equals(pkcs8ShroudedKeyBag))
+                        {
+                            if (addDeferredKey(b, keyPassword, wrongPKCS12Zero))
+                            {
+                                unmarkedKey = true;
+                            }
+                        }
+                        else if (b.getBagId().equals(pkcs8ShroudedKeyBag))
                         {
                             org.spongycastle.asn1.pkcs.EncryptedPrivateKeyInfo eIn = org.spongycastle.asn1.pkcs.EncryptedPrivateKeyInfo.getInstance(b.getBagValue());
                             PrivateKey privKey = unwrapKey(eIn.getEncryptionAlgorithm(), eIn.getEncryptedData(), password, wrongPKCS12Zero);
@@ -959,6 +1384,13 @@ else if (c[i].getContentType().equals(encryptedData))
                         {
                             chain.addElement(b);
                         }
+                        else if (deferKeyDecryption && b.getBagId().equals(pkcs8ShroudedKeyBag))
+                        {
+                            if (addDeferredKey(b, keyPassword, wrongPKCS12Zero))
+                            {
+                                unmarkedKey = true;
+                            }
+                        }
                         else if (b.getBagId().equals(pkcs8ShroudedKeyBag))
                         {
                             org.spongycastle.asn1.pkcs.EncryptedPrivateKeyInfo eIn = org.spongycastle.asn1.pkcs.EncryptedPrivateKeyInfo.getInstance(b.getBagValue());
@@ -1282,7 +1714,7 @@ private void doStore(OutputStream stream, char[] password, boolean useDEREncodin
             random.nextBytes(kSalt);
 
             String name = (String)ks.nextElement();
-            PrivateKey privKey = (PrivateKey)keys.get(name);
+            PrivateKey privKey = recoverKey(keys.get(name));
             PKCS12PBEParams kParams = new PKCS12PBEParams(kSalt, MIN_ITERATIONS);
             byte[] kBytes = wrapKey(keyAlgorithm.getId(), privKey, kParams, password);
             AlgorithmIdentifier kAlgId = new AlgorithmIdentifier(keyAlgorithm, kParams.toASN1Primitive());
@@ -1653,6 +2085,9 @@ private void doStore(OutputStream stream, char[] password, boolean useDEREncodin
         }
 
         asn1Out.writeObject(pfx);
+
+        // every key has been recovered to write it out, so the deferred key password is finished with
+        clearDeferredKeys();
     }
 
     private Set getUsedCertificateSet()
@@ -1701,6 +2136,209 @@ private byte[] calculatePbeMac(
         return mac.doFinal();
     }
 
+    /**
+     * The password shared by the deferred keys of one load. It is zeroed once the last of them has
+     * been recovered, or when the store is next loaded or stored.
+     */
+    private class DeferredKeyPassword
+    {
+        private char[] password;
+        private int outstanding;
+
+        DeferredKeyPassword(char[] password)
+        {
+            this.password = Arrays.clone(password);
+        }
+
+        synchronized void addKey()
+        {
+            outstanding++;
+        }
+
+        synchronized boolean isUnused()
+        {
+            return outstanding == 0;
+        }
+
+        /**
+         * Return a copy of the password for the caller to zero after use.
+         */
+        synchronized char[] getPassword()
+            throws IOException
+        {
+            if (password == null)
+            {
+                throw new IOException("deferred key can no longer be recovered - key store reloaded or stored");
+            }
+
+            return Arrays.clone(password);
+        }
+
+        void keyRecovered()
+        {
+            boolean last;
+
+            synchronized (this)
+            {
+                last = (--outstanding == 0);
+            }
+
+            if (last)
+            {
+                deferredKeysRecovered(this);
+            }
+        }
+
+        synchronized void clear()
+        {
+            if (password != null)
+            {
+                Arrays.fill(password, (char)0);
+                password = null;
+            }
+        }
+    }
+
+    /**
+     * A private key from a shrouded key bag, left encrypted until it is first asked for.
+     */
+    private class DeferredKey
+    {
+        private final AlgorithmIdentifier algId;
+        private final byte[] data;
+        private final ASN1Set attributes;
+        private final boolean wrongPKCS12Zero;
+
+        private DeferredKeyPassword password;
+        private PrivateKey key;
+
+        DeferredKey(AlgorithmIdentifier algId, byte[] data, ASN1Set attributes, DeferredKeyPassword password, boolean wrongPKCS12Zero)
+        {
+            this.algId = algId;
+            this.data = data;
+            this.attributes = attributes;
+            this.password = password;
+            this.wrongPKCS12Zero = wrongPKCS12Zero;
+
+            password.addKey();
+        }
+
+        synchronized PrivateKey getKey()
+            throws IOException
+        {
+            if (key == null)
+            {
+                char[] pass = password.getPassword();
+                PrivateKey privKey;
+
+                try
+                {
+                    privKey = unwrapKey(algId, data, pass, wrongPKCS12Zero);
+                }
+                finally
+                {
+                    Arrays.fill(pass, (char)0);
+                }
+
+                if (attributes != null)
+                {
+                    setBagAttributes((PKCS12BagAttributeCarrier)privKey, attributes);
+                }
+
+                key = privKey;
+
+                // the password is no longer needed here
+                DeferredKeyPassword keyPassword = password;
+                password = null;
+                keyPassword.keyRecovered();
+            }
+
+            return key;
+        }
+    }
+
+    /**
+     * Calculates a key store MAC, as a task run by an executor or, if the executor has not got to
+     * it by the time it is wanted, by the loading thread.
+     */
+    private class MacCheck
+        implements Runnable
+    {
+        private final ASN1ObjectIdentifier oid;
+        private final byte[] salt;
+        private final int itCount;
+        private final char[] password;
+        private final byte[] data;
+        private final byte[] dig;
+        private final FutureTask task;
+
+        private byte[] res;
+        private Exception exception;
+
+        MacCheck(ASN1ObjectIdentifier oid, byte[] salt, int itCount, char[] password, byte[] data, byte[] dig)
+        {
+            this.oid = oid;
+            this.salt = salt;
+            this.itCount = itCount;
+            this.password = Arrays.clone(password);
+            this.data = data;
+            this.dig = dig;
+            this.task = new FutureTask(this, null);
+        }
+
+        public void run()
+        {
+            try
+            {
+                res = calculatePbeMac(oid, salt, itCount, password, false, data);
+            }
+            catch (Exception e)
+            {
+                exception = e;
+            }
+            finally
+            {
+                Arrays.fill(password, (char)0);
+            }
+        }
+
+        /**
+         * Wait for the MAC calculation to finish, throwing an exception if the MAC is not valid.
+         */
+        void verify()
+            throws IOException
+        {
+            // run it here if the executor has not started it yet
+            task.run();
+
+            try
+            {
+                task.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+
+                throw new InterruptedIOException("interrupted checking PKCS12 key store mac");
+            }
+            catch (ExecutionException e)
+            {
+                // run() catches everything but Errors
+                throw (Error)e.getCause();
+            }
+
+            if (exception != null)
+            {
+                throw new IOException("error constructing MAC: " + exception.toString());
+            }
+
+            if (!Arrays.constantTimeAreEqual(res, dig))
+            {
+                throw new IOException("PKCS12 key store mac invalid - wrong password or corrupted file.");
+            }
+        }
+    }
+
     public static class BCPKCS12KeyStore
         extends PKCS12KeyStoreSpi
     {
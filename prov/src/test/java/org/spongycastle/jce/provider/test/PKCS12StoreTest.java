@@ -2,6 +2,7 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.security.Key;
 import java.security.KeyFactory;
@@ -18,6 +19,8 @@
 import java.security.spec.RSAPrivateCrtKeySpec;
 import java.security.spec.RSAPublicKeySpec;
 import java.util.Enumeration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.spongycastle.asn1.ASN1Encodable;
 import org.spongycastle.asn1.ASN1InputStream;
@@ -35,6 +38,7 @@
 import org.spongycastle.asn1.x500.X500Name;
 import org.spongycastle.asn1.x500.X500NameBuilder;
 import org.spongycastle.asn1.x500.style.BCStyle;
+import org.spongycastle.jcajce.PKCS12LoadParameter;
 import org.spongycastle.jcajce.PKCS12StoreParameter;
 import org.spongycastle.jce.PKCS12Util;
 import org.spongycastle.jce.interfaces.PKCS12BagAttributeCarrier;
@@ -1370,6 +1374,152 @@ private void testOrphanedCertCleanup()
         }
     }
 
+    private void testDeferredKeyDecryption()
+        throws Exception
+    {
+        checkDeferredKeyDecryption(pkcs12, passwd);
+        checkDeferredKeyDecryption(gostPfx, "1".toCharArray());
+        checkDeferredKeyDecryption(gostOpenSSLIntegerDPfx, "password".toCharArray());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try
+        {
+            checkFailedLoad(null);
+            checkFailedLoad(executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * a load with the wrong password, with the MAC checked first or alongside the parsing, must
+     * leave the store, including its still encrypted keys, as it was.
+     */
+    private void checkFailedLoad(ExecutorService executor)
+        throws Exception
+    {
+        KeyStore lazy = KeyStore.getInstance("PKCS12", "SC");
+
+        lazy.load(new PKCS12LoadParameter(new ByteArrayInputStream(pkcs12), passwd, true, executor));
+
+        int size = lazy.size();
+
+        try
+        {
+            lazy.load(new PKCS12LoadParameter(new ByteArrayInputStream(pkcs12), "wrong".toCharArray(), true, executor));
+            fail("deferred load with wrong password succeeded");
+        }
+        catch (IOException e)
+        {
+            if (e.getMessage().indexOf("mac invalid") < 0)
+            {
+                fail("wrong exception for bad password: " + e.getMessage());
+            }
+        }
+
+        if (lazy.size() != size)
+        {
+            fail("store changed by failed load");
+        }
+
+        for (Enumeration en = lazy.aliases(); en.hasMoreElements();)
+        {
+            String alias = (String)en.nextElement();
+
+            if (lazy.isKeyEntry(alias) && lazy.getKey(alias, null) == null)
+            {
+                fail("key lost by failed load");
+            }
+        }
+    }
+
+    private void checkDeferredKeyDecryption(byte[] storeData, char[] password)
+        throws Exception
+    {
+        KeyStore eager = KeyStore.getInstance("PKCS12", "SC");
+
+        eager.load(new ByteArrayInputStream(storeData), password);
+
+        KeyStore lazy = KeyStore.getInstance("PKCS12", "SC");
+
+        lazy.load(new PKCS12LoadParameter(new ByteArrayInputStream(storeData), password, true));
+
+        checkSameKeys(eager, lazy);
+
+        // storing needs all the keys, so the ones not yet asked for must be recovered too
+        lazy = KeyStore.getInstance("PKCS12", "SC");
+
+        lazy.load(new PKCS12LoadParameter(new ByteArrayInputStream(storeData), password, true));
+
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+
+        lazy.store(bOut, passwd);
+
+        KeyStore stored = KeyStore.getInstance("PKCS12", "SC");
+
+        stored.load(new ByteArrayInputStream(bOut.toByteArray()), passwd);
+
+        checkSameKeys(eager, stored);
+
+        // loading over a store whose deferred keys were never asked for
+        lazy.load(new PKCS12LoadParameter(new ByteArrayInputStream(bOut.toByteArray()), passwd, true));
+        lazy.load(new PKCS12LoadParameter(new ByteArrayInputStream(bOut.toByteArray()), passwd, true));
+
+        checkSameKeys(stored, lazy);
+
+        // a key already recovered stays available after the rest have been
+        checkSameKeys(stored, lazy);
+    }
+
+    private void checkSameKeys(KeyStore expected, KeyStore actual)
+        throws Exception
+    {
+        if (expected.size() != actual.size())
+        {
+            fail("store sizes differ");
+        }
+
+        for (Enumeration en = expected.aliases(); en.hasMoreElements();)
+        {
+            String alias = (String)en.nextElement();
+
+            if (expected.isKeyEntry(alias) != actual.isKeyEntry(alias))
+            {
+                fail("key entry mismatch for " + alias);
+            }
+
+            if (expected.isKeyEntry(alias))
+            {
+                Key expectedKey = expected.getKey(alias, null);
+                Key actualKey = actual.getKey(alias, null);
+
+                if (!areEqual(expectedKey.getEncoded(), actualKey.getEncoded()))
+                {
+                    fail("key mismatch for " + alias);
+                }
+
+                if (actual.getKey(alias, null) != actualKey)
+                {
+                    fail("key not kept once recovered for " + alias);
+                }
+
+                ASN1Encodable name = ((PKCS12BagAttributeCarrier)expectedKey).getBagAttribute(PKCSObjectIdentifiers.pkcs_9_at_friendlyName);
+                if (name != null && !name.equals(((PKCS12BagAttributeCarrier)actualKey).getBagAttribute(PKCSObjectIdentifiers.pkcs_9_at_friendlyName)))
+                {
+                    fail("friendly name mismatch for " + alias);
+                }
+
+                if (expected.getCertificateChain(alias).length != actual.getCertificateChain(alias).length)
+                {
+                    fail("chain length mismatch for " + alias);
+                }
+            }
+        }
+    }
+
     public String getName()
     {
         return "PKCS12Store";
@@ -1413,6 +1563,7 @@ public void performTest()
         }
 
         testOrphanedCertCleanup();
+        testDeferredKeyDecryption();
     }
 
     public static void main(